@@ -82,7 +82,7 @@ public class ClienteChat {
         String sessionId = null;  // Armazenar sessionId
         try {
             System.out.println("Enviando pedido de conexão...");
-            PedidoDeConexao pedido = new PedidoDeConexao(null, "Cliente Java");
+            PedidoDeConexao pedido = new PedidoDeConexao(null, "Cliente Java", true);
             servidor.receba(pedido);
 
             // Esperar resposta
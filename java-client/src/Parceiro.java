@@ -32,7 +32,8 @@ public class Parceiro {
     }
 
     // --- METODOS ---
-    public void receba(Comunicado x) throws Exception {
+    // synchronized: o chat e a resposta aos batimentos escrevem de threads diferentes
+    public synchronized void receba(Comunicado x) throws Exception {
         try {
             this.transmissor.writeObject(x);
             this.transmissor.flush();
@@ -34,6 +34,12 @@ public class TratadoraDeMensagens extends Thread {
                     System.out.flush();
                 }
 
+                // Batimento do servidor: responde para mostrar que a conexão está viva
+                else if (comunicado instanceof ComunicadoDeBatimento) {
+                    this.servidor.envie();
+                    this.servidor.receba(new ComunicadoDeBatimento());
+                }
+
                 // Outros comunicados
                 else {
                     this.servidor.envie();
@@ -0,0 +1,9 @@
+package com.opty.socket.tradicional.comunicado;
+
+/**
+ * Batimento (heartbeat): o servidor envia quando a conexão fica em silêncio, e o
+ * cliente responde com outro, mostrando que a conexão continua viva.
+ */
+public class ComunicadoDeBatimento extends Comunicado {
+    private static final long serialVersionUID = 1L;
+}
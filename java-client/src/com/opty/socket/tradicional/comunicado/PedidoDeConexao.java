@@ -9,9 +9,17 @@ public class PedidoDeConexao extends Comunicado {
     private String sessionId;
     private String nomeCliente;
 
+    // Clientes antigos não mandam o campo (fica false) e não recebem batimentos
+    private boolean aceitaBatimento;
+
     public PedidoDeConexao(String sessionId, String nomeCliente) {
+        this(sessionId, nomeCliente, false);
+    }
+
+    public PedidoDeConexao(String sessionId, String nomeCliente, boolean aceitaBatimento) {
         this.sessionId = sessionId;
         this.nomeCliente = nomeCliente;
+        this.aceitaBatimento = aceitaBatimento;
     }
 
     public String getSessionId() {
@@ -21,4 +29,8 @@ public class PedidoDeConexao extends Comunicado {
     public String getNomeCliente() {
         return nomeCliente;
     }
+
+    public boolean isAceitaBatimento() {
+        return aceitaBatimento;
+    }
 }
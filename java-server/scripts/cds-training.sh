@@ -0,0 +1,71 @@
+#!/usr/bin/env bash
+set -e
+
+# Custom ASCII Colors
+GREEN='\033[0;32m'
+RED='\033[0;31m'
+YELLOW='\033[1;33m'
+NC='\033[0m'
+
+# Configuration
+JAR_PATH="${1:-$(ls target/opty-socket-*.jar 2>/dev/null | head -n 1)}"
+CDS_DIR="target/cds"
+APP_DIR="$CDS_DIR/app"
+ARCHIVE="$APP_DIR/opty-socket.jsa"
+MAIN_CLASS="com.opty.socket.OptiSocketApplication"
+
+# Check pom.xml exists
+if [ ! -f "pom.xml" ]; then
+    printf "%bError: pom.xml not found. Run this from the project root.%b\n" "$RED" "$NC"
+    exit 1
+fi
+
+# Check jar exists
+if [ -z "$JAR_PATH" ] || [ ! -f "$JAR_PATH" ]; then
+    printf "%bError: jar not found. Build it first: mvn -Pfast-startup -DskipTests package%b\n" "$RED" "$NC"
+    exit 1
+fi
+
+# CDS needs plain jars on the classpath: unpack the Spring Boot jar
+printf "%bUnpacking %s...%b\n" "$GREEN" "$JAR_PATH" "$NC"
+rm -rf "$CDS_DIR"
+mkdir -p "$CDS_DIR/exploded" "$APP_DIR/lib"
+unzip -q "$JAR_PATH" -d "$CDS_DIR/exploded"
+jar --create --file "$APP_DIR/application.jar" -C "$CDS_DIR/exploded/BOOT-INF/classes" .
+cp "$CDS_DIR"/exploded/BOOT-INF/lib/*.jar "$APP_DIR/lib/"
+
+# The archive is only valid with the exact same classpath: store it for the runs
+CLASSPATH="$APP_DIR/application.jar"
+for lib in $(ls "$APP_DIR"/lib/*.jar | sort); do
+    CLASSPATH="$CLASSPATH:$lib"
+done
+echo "$CLASSPATH" > "$APP_DIR/classpath.txt"
+
+# AOT-processed jar (mvn -Pfast-startup package)
+AOT_FLAG=""
+if ls "$CDS_DIR"/exploded/BOOT-INF/classes/com/opty/socket/*__BeanDefinitions.class >/dev/null 2>&1; then
+    AOT_FLAG="-Dspring.aot.enabled=true"
+    printf "%bAOT bean definitions found, training with %s%b\n" "$YELLOW" "$AOT_FLAG" "$NC"
+fi
+
+# Training run: start the context, exit once refreshed, dump the loaded classes
+printf "%bTraining run...%b\n" "$GREEN" "$NC"
+SERVER_PORT=0 SOCKET_TRADITIONAL_PORT=0 java \
+    -XX:ArchiveClassesAtExit="$ARCHIVE" \
+    -Dspring.context.exit=onRefresh \
+    $AOT_FLAG \
+    -cp "$CLASSPATH" "$MAIN_CLASS" > "$CDS_DIR/training.log" 2>&1 || true
+
+# Check result
+if [ -f "$ARCHIVE" ]; then
+    echo ""
+    printf "%b✅ CDS archive created: %s%b\n" "$GREEN" "$ARCHIVE" "$NC"
+    echo ""
+    echo "Run with:"
+    echo "  java -XX:SharedArchiveFile=$ARCHIVE $AOT_FLAG -cp \"\$(cat $APP_DIR/classpath.txt)\" $MAIN_CLASS"
+    exit 0
+else
+    echo ""
+    printf "%b❌ CDS training failed, see %s%b\n" "$RED" "$CDS_DIR/training.log" "$NC"
+    exit 1
+fi
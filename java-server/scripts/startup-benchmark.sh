@@ -0,0 +1,130 @@
+#!/usr/bin/env bash
+set -e
+
+# Custom ASCII Colors
+GREEN='\033[0;32m'
+RED='\033[0;31m'
+YELLOW='\033[1;33m'
+NC='\033[0m'
+
+# Usage: scripts/startup-benchmark.sh [runs] [modes...]
+#   modes: jar (java -jar), aot, cds, aot-cds
+#   aot needs: mvn -Pfast-startup -DskipTests package
+#   cds needs: scripts/cds-training.sh
+#
+# Measures, per run, the time from process launch to:
+#   - legacy port 3000 accepting TCP connections
+#   - first WebSocket upgrade accepted (HTTP 101) on /ws/client
+RUNS="${1:-5}"
+shift || true
+MODES="${*:-jar aot cds aot-cds}"
+
+HTTP_PORT="${HTTP_PORT:-8080}"
+LEGACY_PORT="${LEGACY_PORT:-3000}"
+PROFILE="${PROFILE:-fast-startup}"
+TIMEOUT_SECONDS="${TIMEOUT_SECONDS:-60}"
+JAR_PATH="$(ls target/opty-socket-*.jar 2>/dev/null | head -n 1)"
+APP_DIR="target/cds/app"
+MAIN_CLASS="com.opty.socket.OptiSocketApplication"
+RESULTS="target/startup-benchmark.csv"
+
+# Check pom.xml exists
+if [ ! -f "pom.xml" ]; then
+    printf "%bError: pom.xml not found. Run this from the project root.%b\n" "$RED" "$NC"
+    exit 1
+fi
+
+# Check jar exists
+if [ -z "$JAR_PATH" ]; then
+    printf "%bError: jar not found. Build it first: mvn -Pfast-startup -DskipTests package%b\n" "$RED" "$NC"
+    exit 1
+fi
+
+now_ms() {
+    echo $(( $(date +%s%N) / 1000000 ))
+}
+
+# Builds the java command line for a mode
+command_for() {
+    case "$1" in
+        jar)     echo "java -jar $JAR_PATH" ;;
+        aot)     echo "java -Dspring.aot.enabled=true -jar $JAR_PATH" ;;
+        cds)     echo "java -XX:SharedArchiveFile=$APP_DIR/opty-socket.jsa -cp $(cat $APP_DIR/classpath.txt) $MAIN_CLASS" ;;
+        aot-cds) echo "java -XX:SharedArchiveFile=$APP_DIR/opty-socket.jsa -Dspring.aot.enabled=true -cp $(cat $APP_DIR/classpath.txt) $MAIN_CLASS" ;;
+        *)       return 1 ;;
+    esac
+}
+
+# One run: prints "<port_ms> <websocket_ms>"
+measure() {
+    local cmd="$1"
+    local start port_ms ws_ms pid
+
+    start=$(now_ms)
+    SERVER_PORT="$HTTP_PORT" SOCKET_TRADITIONAL_PORT="$LEGACY_PORT" SPRING_PROFILES_ACTIVE="$PROFILE" \
+        $cmd > target/startup-benchmark.log 2>&1 &
+    pid=$!
+
+    # Legacy port listening
+    while ! (exec 3<>"/dev/tcp/127.0.0.1/$LEGACY_PORT") 2>/dev/null; do
+        if [ $(( $(now_ms) - start )) -gt $(( TIMEOUT_SECONDS * 1000 )) ]; then
+            kill "$pid" 2>/dev/null; wait "$pid" 2>/dev/null || true
+            echo "timeout timeout"; return
+        fi
+        sleep 0.01
+    done
+    port_ms=$(( $(now_ms) - start ))
+
+    # First accepted WebSocket handshake
+    while true; do
+        local attempt code
+        attempt=$(now_ms)
+        code=$(curl -s -o /dev/null -w '%{http_code}' --max-time 0.5 \
+            -H "Connection: Upgrade" -H "Upgrade: websocket" \
+            -H "Sec-WebSocket-Version: 13" -H "Sec-WebSocket-Key: dGhlIHNhbXBsZSBub25jZQ==" \
+            "http://127.0.0.1:$HTTP_PORT/ws/client" || true)
+        if [ "$code" = "101" ]; then
+            ws_ms=$(( attempt - start ))
+            break
+        fi
+        if [ $(( $(now_ms) - start )) -gt $(( TIMEOUT_SECONDS * 1000 )) ]; then
+            ws_ms="timeout"; break
+        fi
+        sleep 0.01
+    done
+
+    kill "$pid" 2>/dev/null
+    wait "$pid" 2>/dev/null || true
+    echo "$port_ms $ws_ms"
+}
+
+printf "%b--- opty-socket startup benchmark (%s runs, profile=%s) ---%b\n" "$GREEN" "$RUNS" "$PROFILE" "$NC"
+echo "mode,run,port_${LEGACY_PORT}_ms,first_websocket_ms" > "$RESULTS"
+
+for mode in $MODES; do
+    if ! cmd=$(command_for "$mode"); then
+        printf "%bUnknown mode: %s%b\n" "$RED" "$mode" "$NC"
+        continue
+    fi
+    if [[ "$mode" == *cds* ]] && [ ! -f "$APP_DIR/opty-socket.jsa" ]; then
+        printf "%bSkipping %s: run scripts/cds-training.sh first%b\n" "$YELLOW" "$mode" "$NC"
+        continue
+    fi
+
+    for run in $(seq 1 "$RUNS"); do
+        read -r port_ms ws_ms < <(measure "$cmd")
+        echo "$mode,$run,$port_ms,$ws_ms" >> "$RESULTS"
+        printf "  %-8s run %d: port %s ms, first WebSocket %s ms\n" "$mode" "$run" "$port_ms" "$ws_ms"
+    done
+done
+
+# Averages per mode
+echo ""
+printf "%bAverages:%b\n" "$GREEN" "$NC"
+awk -F, 'NR > 1 && $3 != "timeout" && $4 != "timeout" {
+    port[$1] += $3; ws[$1] += $4; n[$1]++
+} END {
+    for (m in n) printf "  %-8s port %6.0f ms | first WebSocket %6.0f ms (%d runs)\n", m, port[m] / n[m], ws[m] / n[m], n[m]
+}' "$RESULTS"
+echo ""
+echo "Raw results: $RESULTS"
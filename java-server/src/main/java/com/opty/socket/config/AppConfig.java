@@ -13,6 +13,7 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.validation.annotation.Validated;
 
 import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.Positive;
 
 
@@ -39,6 +40,15 @@ public class AppConfig {
     private final MessageConfig message = new MessageConfig();
     private final CorsConfig cors = new CorsConfig();
     private final SessionConfig session = new SessionConfig();
+    private final StorageConfig storage = new StorageConfig();
+    private final DrainConfig drain = new DrainConfig();
+    private final WarmupConfig warmup = new WarmupConfig();
+    private final IdsConfig ids = new IdsConfig();
+    private final PipelineConfig pipeline = new PipelineConfig();
+    private final LegacyWriterConfig legacyWriter = new LegacyWriterConfig();
+    private final HeartbeatConfig heartbeat = new HeartbeatConfig();
+    private final SlowConsumerConfig slowConsumer = new SlowConsumerConfig();
+    private final FlightRecorderConfig flightRecorder = new FlightRecorderConfig();
 
     /**
      * Message-related configuration.
@@ -53,6 +63,180 @@ public class AppConfig {
         @Positive(message = "Queue capacity must be positive")
         @Max(value = 1000, message = "Queue capacity cannot exceed 1000")
         private int queueCapacity = 100;
+
+        // Outbound WebSocket frames are queued per connection; a recipient that stays
+        // blocked longer, or lets more than the buffer pile up, is disconnected
+        @Positive(message = "Send time limit must be positive")
+        private int sendTimeLimitMs = 10000;
+
+        @Positive(message = "Send buffer size must be positive")
+        private int sendBufferSize = 512 * 1024;
+    }
+
+    /**
+     * Graceful drain on shutdown.
+     */
+    @Data
+    public static class DrainConfig {
+        // --- ATRIBUTES ---
+        // A connection still blocked after this is closed forcibly
+        @Positive(message = "Notify timeout must be positive")
+        private long notifyTimeoutMs = 2000;
+
+        @Positive(message = "Drain parallelism must be positive")
+        @Max(value = 256, message = "Drain parallelism cannot exceed 256")
+        private int parallelism = 32;
+    }
+
+    /**
+     * Warm-up run before the server reports ready.
+     */
+    @Data
+    public static class WarmupConfig {
+        // --- ATRIBUTES ---
+        private boolean enabled = true;
+
+        @Positive(message = "Warm-up iterations must be positive")
+        private int iterations = 2000;
+
+        // Readiness is never delayed longer than this
+        @Positive(message = "Warm-up max duration must be positive")
+        private long maxDurationMs = 5000;
+    }
+
+    /**
+     * Session and connection ID generation.
+     */
+    @Data
+    public static class IdsConfig {
+        // --- ATRIBUTES ---
+        // Distinguishes IDs generated by different server instances
+        @Min(value = 0, message = "Node ID cannot be negative")
+        @Max(value = 1023, message = "Node ID cannot exceed 1023")
+        private int nodeId = 0;
+
+        // Session IDs double as resume tokens, so they come from a SecureRandom by default
+        private boolean unguessableSessionIds = true;
+    }
+
+    /**
+     * Staged inbound processing: decode, route and deliver on per-connection lanes, then
+     * persist on a separate writer.
+     */
+    @Data
+    public static class PipelineConfig {
+        // --- ATRIBUTES ---
+        // Off: frames are processed and persisted on the receiving thread
+        private boolean enabled = true;
+
+        // 0 = one lane per CPU
+        @Min(value = 0, message = "Pipeline lanes cannot be negative")
+        @Max(value = 256, message = "Pipeline lanes cannot exceed 256")
+        private int lanes = 0;
+
+        // Frames beyond this per lane are rejected with an error to the sender
+        @Positive(message = "Lane capacity must be positive")
+        private int laneCapacity = 1024;
+
+        // Disconnect cleanups wait this long for room in a full lane, then run on the closing thread
+        @Positive(message = "Pipeline cleanup wait must be positive")
+        private int cleanupWaitMs = 100;
+
+        // Messages waiting to be stored; beyond this the caller stores them itself
+        @Positive(message = "Persist capacity must be positive")
+        private int persistCapacity = 10000;
+
+        @Positive(message = "Persist batch must be positive")
+        @Max(value = 10000, message = "Persist batch cannot exceed 10000")
+        private int persistBatch = 256;
+    }
+
+    /**
+     * Outbound writer of each legacy socket connection.
+     */
+    @Data
+    public static class LegacyWriterConfig {
+        // --- ATRIBUTES ---
+        // A client that lets more than this pile up is disconnected
+        @Positive(message = "Legacy writer queue capacity must be positive")
+        @Max(value = 100000, message = "Legacy writer queue capacity cannot exceed 100000")
+        private int queueCapacity = 256;
+
+        // A write blocked longer than this closes the connection
+        @Positive(message = "Legacy write timeout must be positive")
+        private long writeTimeoutMs = 5000;
+
+        // The ObjectOutputStream is reset after this many objects, so its handle table stays small
+        @Positive(message = "Legacy writer reset interval must be positive")
+        private int resetEvery = 64;
+    }
+
+    /**
+     * Dead-connection detection on both transports.
+     *
+     * A connection silent for intervalMs gets a ping (WebSocket ping frame, or a
+     * ComunicadoDeBatimento on the legacy socket); one silent for timeoutMs is closed.
+     */
+    @Data
+    public static class HeartbeatConfig {
+        // --- ATRIBUTES ---
+        private boolean enabled = true;
+
+        @Positive(message = "Heartbeat interval must be positive")
+        private long intervalMs = 15000;
+
+        // Should allow for a couple of missed pings
+        @Positive(message = "Heartbeat timeout must be positive")
+        private long timeoutMs = 45000;
+
+        // How often the shared timer scans all connections
+        @Positive(message = "Heartbeat check interval must be positive")
+        private long checkIntervalMs = 1000;
+    }
+
+    /**
+     * Graduated handling of WebSocket recipients that fall behind.
+     *
+     * A recipient with more than degradedBufferBytes queued, or a send blocked for
+     * degradedSendMs, stops getting queue updates; past the evict thresholds it is closed
+     * (a supervisor's session goes back to the queue). Both sit below the hard limits in
+     * MessageConfig, where the send decorator drops the connection by itself.
+     */
+    @Data
+    public static class SlowConsumerConfig {
+        // --- ATRIBUTES ---
+        private boolean enabled = true;
+
+        @Positive(message = "Degraded buffer size must be positive")
+        private int degradedBufferBytes = 64 * 1024;
+
+        @Positive(message = "Degraded send time must be positive")
+        private long degradedSendMs = 1000;
+
+        @Positive(message = "Evict buffer size must be positive")
+        private int evictBufferBytes = 256 * 1024;
+
+        @Positive(message = "Evict send time must be positive")
+        private long evictSendMs = 5000;
+    }
+
+    /**
+     * JDK Flight Recorder recordings started from /actuator/flightrecorder.
+     */
+    @Data
+    public static class FlightRecorderConfig {
+        // --- ATRIBUTES ---
+        // Dumps are always written here; the endpoint takes no path
+        private String directory = "./data/jfr";
+
+        // JDK settings file: "default" (about 1% overhead) or "profile"
+        private String settings = "default";
+
+        @Positive(message = "Recording max size must be positive")
+        private int maxSizeMb = 256;
+
+        @Positive(message = "Recording max age must be positive")
+        private int maxAgeMinutes = 60;
     }
 
     /**
@@ -64,6 +248,238 @@ public class AppConfig {
         @Positive(message = "Session timeout must be positive")
         @Max(value = 1440, message = "Session timeout cannot exceed 24 hours")
         private int timeoutMinutes = 30;
+        private final SessionJournalConfig journal = new SessionJournalConfig();
+    }
+
+    /**
+     * Session journal and snapshot configuration (session recovery after restart).
+     */
+    @Data
+    public static class SessionJournalConfig {
+        // --- ATRIBUTES ---
+        private boolean enabled = false;
+        private String directory = "./data/sessions";
+
+        @Positive(message = "Snapshot interval must be positive")
+        private long snapshotIntervalMs = 30000;
+
+        // How long a restored session waits for its client to resume
+        @Positive(message = "Resume window must be positive")
+        private int resumeWindowSeconds = 120;
+
+        // Activity events are journaled at most once per interval per session
+        @Positive(message = "Activity interval must be positive")
+        private long activityIntervalMs = 5000;
+    }
+
+    /**
+     * Chat message storage configuration.
+     */
+    @Data
+    public static class StorageConfig {
+        // --- ATRIBUTES ---
+        // MONGO: MongoDB, MEMORY: bounded in-process store, JOURNAL: local append-only files
+        private StorageBackend backend = StorageBackend.MONGO;
+
+        // MongoDB layout. DOCUMENT: one document per message, BUCKET: per-session bucket documents
+        private StorageMode mode = StorageMode.DOCUMENT;
+        private final RetentionConfig retention = new RetentionConfig();
+        private final BucketConfig bucket = new BucketConfig();
+        private final MemoryConfig memory = new MemoryConfig();
+        private final JournalConfig journal = new JournalConfig();
+        private final MongoConfig mongo = new MongoConfig();
+        private final CircuitBreakerConfig circuitBreaker = new CircuitBreakerConfig();
+        private final SearchConfig search = new SearchConfig();
+        private final ExportConfig export = new ExportConfig();
+    }
+
+    /**
+     * Message store implementations.
+     */
+    public enum StorageBackend {
+        MONGO,
+        MEMORY,
+        JOURNAL
+    }
+
+    /**
+     * Persistence layouts for chat messages.
+     */
+    public enum StorageMode {
+        DOCUMENT,
+        BUCKET
+    }
+
+    /**
+     * Bounds for per-session bucket documents.
+     */
+    @Data
+    public static class BucketConfig {
+        // --- ATRIBUTES ---
+        @Positive(message = "Bucket size must be positive")
+        @Max(value = 1000, message = "Bucket size cannot exceed 1000 messages")
+        private int maxMessages = 200;
+
+        @Positive(message = "Bucket span must be positive")
+        private int maxSpanMinutes = 60;
+
+        private String collection = "message_buckets";
+
+        // Copies the per-message collection into buckets on startup
+        private boolean migrateOnStartup = false;
+    }
+
+    /**
+     * Transcript search. MongoDB document mode uses a text index on the messages
+     * collection; the other backends a local inverted index.
+     */
+    @Data
+    public static class SearchConfig {
+        // --- ATRIBUTES ---
+        // Local index only: oldest messages drop out of the index beyond this limit (~0.5 KB of heap each)
+        @Positive(message = "Search index capacity must be positive")
+        private int maxDocuments = 250000;
+
+        // Local index only: matches ranked per query, newest first; bounds the query time
+        @Positive(message = "Search candidate limit must be positive")
+        private int maxCandidates = 50000;
+
+        @Positive(message = "Search page size must be positive")
+        private int maxPageSize = 50;
+
+        // Deepest rank reachable by paging
+        @Positive(message = "Search result limit must be positive")
+        private int maxResults = 500;
+
+        // MongoDB only: text index language and query time limit
+        private String language = "portuguese";
+
+        @Positive(message = "Search time limit must be positive")
+        private long maxTimeMs = 2000;
+    }
+
+    /**
+     * Streaming transcript export (MongoDB document mode).
+     */
+    @Data
+    public static class ExportConfig {
+        // --- ATRIBUTES ---
+        // Documents fetched per cursor round trip
+        @Positive(message = "Export batch size must be positive")
+        private int batchSize = 1000;
+
+        // Lines between flushes of the compressed stream; each flush ends on a whole line
+        @Positive(message = "Export flush interval must be positive")
+        private int flushEvery = 1000;
+
+        // Each export holds a request thread and a cursor until it ends
+        @Positive(message = "Concurrent exports must be positive")
+        private int maxConcurrent = 2;
+
+        // Time ranges also bound the _id scan, and ids are generated on insert: a message stored
+        // later than this after its timestamp (e.g. replayed after a long outage) is missed
+        @Positive(message = "Export insert lag must be positive")
+        private int maxInsertLagMinutes = 60;
+    }
+
+    /**
+     * In-memory message store configuration.
+     */
+    @Data
+    public static class MemoryConfig {
+        // --- ATRIBUTES ---
+        // Oldest messages are evicted beyond this limit
+        @Positive(message = "Memory store capacity must be positive")
+        private int maxMessages = 100000;
+    }
+
+    /**
+     * Append-only journal store configuration.
+     */
+    @Data
+    public static class JournalConfig {
+        // --- ATRIBUTES ---
+        private String directory = "./data/journal";
+
+        @Positive(message = "Segment size must be positive")
+        @Max(value = 1024, message = "Segment size cannot exceed 1024 MB")
+        private int segmentSizeMb = 64;
+
+        // One time index entry every N records
+        @Positive(message = "Index interval must be positive")
+        private int indexInterval = 64;
+
+        // Forces every append to disk (slow); otherwise flushed on flush() and segment roll
+        private boolean syncEveryWrite = false;
+    }
+
+    /**
+     * MongoDB driver timeouts, kept short so a database brownout fails fast.
+     */
+    @Data
+    public static class MongoConfig {
+        // --- ATRIBUTES ---
+        @Positive(message = "Server selection timeout must be positive")
+        private int serverSelectionTimeoutMs = 2000;
+
+        @Positive(message = "Connect timeout must be positive")
+        private int connectTimeoutMs = 2000;
+
+        @Positive(message = "Socket read timeout must be positive")
+        private int readTimeoutMs = 5000;
+    }
+
+    /**
+     * Circuit breaker around message store writes.
+     */
+    @Data
+    public static class CircuitBreakerConfig {
+        // --- ATRIBUTES ---
+        private boolean enabled = true;
+
+        // Consecutive failed or slow writes that open the circuit
+        @Positive(message = "Failure threshold must be positive")
+        private int failureThreshold = 5;
+
+        // Writes slower than this count as failures
+        @Positive(message = "Slow call threshold must be positive")
+        private int slowCallThresholdMs = 500;
+
+        // Time the circuit stays open before a half-open trial write
+        @Positive(message = "Open duration must be positive")
+        private int openDurationMs = 10000;
+
+        // Writes kept in memory while open and replayed once closed (0 = drop)
+        @Max(value = 1000000, message = "Divert capacity cannot exceed 1000000")
+        private int divertCapacity = 10000;
+    }
+
+    /**
+     * Retention policy for the messages collection.
+     *
+     * Sessions idle for longer than hotDays are moved to the archive collection,
+     * and documents in both collections expire through a TTL index after ttlDays.
+     */
+    @Data
+    public static class RetentionConfig {
+        // --- ATRIBUTES ---
+        private boolean enabled = true;
+
+        @Positive(message = "Hot window must be positive")
+        private int hotDays = 7;
+
+        @Positive(message = "Retention TTL must be positive")
+        private int ttlDays = 90;
+
+        private String archiveCollection = "messages_archive";
+
+        @Positive(message = "Compaction batch size must be positive")
+        @Max(value = 10000, message = "Compaction batch size cannot exceed 10000")
+        private int compactionBatchSize = 500;
+
+        // Read by @Scheduled placeholders, kept here for documentation and binding
+        private long compactionInitialDelayMs = 60000;
+        private long compactionIntervalMs = 3600000;
     }
 
     /**
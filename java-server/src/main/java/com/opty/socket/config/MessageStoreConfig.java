@@ -0,0 +1,174 @@
+/**
+ * Message storage configuration.
+ */
+
+package com.opty.socket.config;
+
+/**
+ * IMPORTS
+ */
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.opty.socket.model.ChatMessageDocument;
+import com.opty.socket.repository.ChatMessageRepository;
+import com.opty.socket.service.MessageBucketService;
+import com.opty.socket.storage.AsyncMessageStore;
+import com.opty.socket.storage.CircuitBreakerMessageStore;
+import com.opty.socket.storage.InMemoryMessageStore;
+import com.opty.socket.storage.IndexingMessageStore;
+import com.opty.socket.storage.InvertedIndexSearch;
+import com.opty.socket.storage.JournalMessageStore;
+import com.opty.socket.storage.MessageSearch;
+import com.opty.socket.storage.MessageStore;
+import com.opty.socket.storage.MongoBucketMessageStore;
+import com.opty.socket.storage.MongoMessageStore;
+import com.opty.socket.storage.MongoTextSearch;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * CODE
+ */
+
+/**
+ * Selects the message store backend from opty.socket.storage.backend.
+ */
+@Slf4j
+@Configuration
+public class MessageStoreConfig {
+
+    /**
+     * MongoDB store (default), one document per message or per-session buckets.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "opty.socket.storage", name = "backend", havingValue = "mongo", matchIfMissing = true)
+    public MessageStore mongoMessageStore(AppConfig appConfig,
+                                          ChatMessageRepository chatMessageRepository,
+                                          MessageBucketService messageBucketService,
+                                          MongoTemplate mongoTemplate,
+                                          TaskScheduler taskScheduler,
+                                          MessageSearch messageSearch,
+                                          MeterRegistry meterRegistry) {
+        log.info("Message store: MongoDB ({})", appConfig.getStorage().getMode());
+        MessageStore store;
+        if (appConfig.getStorage().getMode() == AppConfig.StorageMode.BUCKET) {
+            store = new MongoBucketMessageStore(messageBucketService);
+        } else {
+            store = new MongoMessageStore(chatMessageRepository);
+
+            // Transcript reads need it whether or not retention runs; off the startup thread
+            taskScheduler.schedule(() -> ensureTranscriptIndex(mongoTemplate), Instant.now());
+        }
+
+        // Fast-fail writes while MongoDB is slow or down
+        AppConfig.CircuitBreakerConfig circuitBreaker = appConfig.getStorage().getCircuitBreaker();
+        if (circuitBreaker.isEnabled()) {
+            store = new CircuitBreakerMessageStore(store, circuitBreaker, meterRegistry);
+        }
+        return persistStage(store, messageSearch, appConfig, meterRegistry);
+    }
+
+
+    /**
+     * Indexes stored messages for search and, with the inbound pipeline on
+     * (opty.socket.pipeline.enabled), queues writes for a writer thread that does them in
+     * batches, indexing included, instead of the thread that routed the message.
+     */
+    private static MessageStore persistStage(MessageStore store, MessageSearch messageSearch, AppConfig appConfig,
+                                             MeterRegistry meterRegistry) {
+        MessageStore indexed = new IndexingMessageStore(store, messageSearch);
+        AppConfig.PipelineConfig pipeline = appConfig.getPipeline();
+        if (!pipeline.isEnabled()) {
+            return indexed;
+        }
+        return new AsyncMessageStore(indexed, pipeline.getPersistCapacity(), pipeline.getPersistBatch(), meterRegistry);
+    }
+
+
+    /**
+     * Creates the sessionId/sequence index behind ordered transcript reads.
+     */
+    private static void ensureTranscriptIndex(MongoTemplate mongoTemplate) {
+        try {
+            mongoTemplate.indexOps(ChatMessageDocument.class).ensureIndex(new Index()
+                    .on("sessionId", Sort.Direction.ASC)
+                    .on("sequence", Sort.Direction.ASC)
+                    .named("sessionId_sequence"));
+        } catch (Exception e) {
+            log.error("Failed to create transcript index: error={}", e.getMessage());
+        }
+    }
+
+
+    /**
+     * Transcript search: the MongoDB text index when messages are stored one document
+     * each, a local inverted index otherwise.
+     */
+    @Bean
+    public MessageSearch messageSearch(AppConfig appConfig, MongoTemplate mongoTemplate, TaskScheduler taskScheduler) {
+        AppConfig.StorageConfig storage = appConfig.getStorage();
+        if (storage.getBackend() == AppConfig.StorageBackend.MONGO && storage.getMode() == AppConfig.StorageMode.DOCUMENT) {
+            log.info("Message search: MongoDB text index (language={})", storage.getSearch().getLanguage());
+            MongoTextSearch search = new MongoTextSearch(mongoTemplate, storage.getSearch());
+
+            // Off the startup thread; a failed attempt is retried on the first search
+            taskScheduler.schedule(search::ensureIndex, Instant.now());
+            return search;
+        }
+        log.info("Message search: local index (maxDocuments={})", storage.getSearch().getMaxDocuments());
+        return new InvertedIndexSearch(storage.getSearch());
+    }
+
+
+    /**
+     * Short MongoDB driver timeouts, so a brownout surfaces as fast failures
+     * instead of blocking the caller until the driver defaults (30s).
+     */
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoTimeoutCustomizer(AppConfig appConfig) {
+        AppConfig.MongoConfig mongo = appConfig.getStorage().getMongo();
+        return settings -> settings
+                .applyToClusterSettings(cluster -> cluster
+                        .serverSelectionTimeout(mongo.getServerSelectionTimeoutMs(), TimeUnit.MILLISECONDS))
+                .applyToSocketSettings(socket -> socket
+                        .connectTimeout(mongo.getConnectTimeoutMs(), TimeUnit.MILLISECONDS)
+                        .readTimeout(mongo.getReadTimeoutMs(), TimeUnit.MILLISECONDS));
+    }
+
+
+    /**
+     * Bounded in-memory store.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "opty.socket.storage", name = "backend", havingValue = "memory")
+    public MessageStore inMemoryMessageStore(AppConfig appConfig, MessageSearch messageSearch,
+                                             MeterRegistry meterRegistry) {
+        log.info("Message store: in-memory (maxMessages={})", appConfig.getStorage().getMemory().getMaxMessages());
+        return persistStage(new InMemoryMessageStore(appConfig.getStorage().getMemory().getMaxMessages()),
+                messageSearch, appConfig, meterRegistry);
+    }
+
+
+    /**
+     * Local append-only journal. The persist stage wrappers forward close() to it.
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "opty.socket.storage", name = "backend", havingValue = "journal")
+    public MessageStore journalMessageStore(AppConfig appConfig, ObjectMapper objectMapper,
+                                            MessageSearch messageSearch, MeterRegistry meterRegistry) {
+        log.info("Message store: journal (directory={})", appConfig.getStorage().getJournal().getDirectory());
+        return persistStage(new JournalMessageStore(appConfig.getStorage().getJournal(), objectMapper),
+                messageSearch, appConfig, meterRegistry);
+    }
+}
@@ -0,0 +1,98 @@
+/**
+ * GraalVM native-image hints.
+ */
+
+package com.opty.socket.config;
+
+
+/**
+ * IMPORTS
+ */
+import com.opty.socket.dto.SessionDTO;
+import com.opty.socket.model.ChatMessageBucket;
+import com.opty.socket.model.ChatMessageDocument;
+import com.opty.socket.model.Message;
+import com.opty.socket.model.MessageType;
+import com.opty.socket.model.payload.ConnectAckPayload;
+import com.opty.socket.model.payload.ErrorPayload;
+import com.opty.socket.model.payload.QueueUpdatePayload;
+import com.opty.socket.model.payload.TextPayload;
+import com.opty.socket.tradicional.comunicado.Comunicado;
+import com.opty.socket.tradicional.comunicado.ComunicadoDeBatimento;
+import com.opty.socket.tradicional.comunicado.ComunicadoDeDesligamento;
+import com.opty.socket.tradicional.comunicado.MensagemTexto;
+import com.opty.socket.tradicional.comunicado.PedidoDeConexao;
+import com.opty.socket.tradicional.comunicado.PedidoParaSair;
+import com.opty.socket.tradicional.comunicado.RespostaDeConexao;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.List;
+
+
+/**
+ * CODE
+ */
+
+/**
+ * Reflection and serialization metadata that AOT cannot infer (native-image build).
+ *
+ * - Jackson: WebSocket messages are read and written through ObjectMapper directly, and
+ *   SessionDTO only appears inside Map payloads.
+ * - Java serialization: the legacy socket protocol reads the Comunicado hierarchy with
+ *   ObjectInputStream.
+ * - Mongo: bucket documents are only used through MongoTemplate, not a repository.
+ */
+@Configuration
+@ImportRuntimeHints(NativeHintsConfig.OptyRuntimeHints.class)
+public class NativeHintsConfig {
+
+    /**
+     * Registers the hints.
+     */
+    static class OptyRuntimeHints implements RuntimeHintsRegistrar {
+
+        // --- ATTRIBUTES ---
+        private static final List<Class<?>> JSON_TYPES = List.of(
+                Message.class,
+                MessageType.class,
+                SessionDTO.class,
+                ChatMessageDocument.class,
+                ChatMessageBucket.class,
+                ChatMessageBucket.Entry.class,
+                TextPayload.class,
+                ErrorPayload.class,
+                ConnectAckPayload.class,
+                QueueUpdatePayload.class
+        );
+
+        private static final List<Class<? extends Serializable>> SERIALIZABLE_TYPES = List.of(
+                Comunicado.class,
+                ComunicadoDeBatimento.class,
+                ComunicadoDeDesligamento.class,
+                MensagemTexto.class,
+                PedidoDeConexao.class,
+                PedidoParaSair.class,
+                RespostaDeConexao.class,
+                Instant.class
+        );
+
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            BindingReflectionHintsRegistrar bindings = new BindingReflectionHintsRegistrar();
+            bindings.registerReflectionHints(hints.reflection(), JSON_TYPES.toArray(Class<?>[]::new));
+
+            SERIALIZABLE_TYPES.forEach(type -> hints.serialization().registerType(type));
+
+            // Instant is written through its serial proxy
+            hints.serialization().registerType(TypeReference.of("java.time.Ser"));
+        }
+    }
+}
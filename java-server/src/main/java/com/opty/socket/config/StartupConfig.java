@@ -0,0 +1,44 @@
+/**
+ * Startup configuration.
+ */
+
+package com.opty.socket.config;
+
+
+/**
+ * IMPORTS
+ */
+import com.opty.socket.jfr.SessionEventRecorder;
+import com.opty.socket.service.DrainCoordinator;
+import com.opty.socket.service.SessionJournal;
+import com.opty.socket.tradicional.TraditionalSocketServer;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+
+/**
+ * CODE
+ */
+
+/**
+ * Beans that must stay eager when lazy initialization is on (fast-startup profile).
+ *
+ * - TraditionalSocketServer: binds the legacy port on startup
+ * - SessionJournal: restores sessions before the first connection and schedules snapshots
+ * - DrainCoordinator: must exist to drain on shutdown
+ * - SessionEventRecorder: nothing injects it; it registers itself as a session listener
+ */
+@Configuration
+public class StartupConfig {
+
+    @Bean
+    public static LazyInitializationExcludeFilter eagerSocketBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(
+                TraditionalSocketServer.class,
+                SessionJournal.class,
+                DrainCoordinator.class,
+                SessionEventRecorder.class
+        );
+    }
+}
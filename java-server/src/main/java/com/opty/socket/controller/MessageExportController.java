@@ -0,0 +1,95 @@
+/**
+ * Message export REST controller.
+ */
+
+package com.opty.socket.controller;
+
+
+/**
+ * IMPORTS
+ */
+import com.opty.socket.service.MessageExportService;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.time.Instant;
+
+
+/**
+ * CODE
+ */
+
+/**
+ * REST API for bulk transcript exports.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/messages")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class MessageExportController {
+
+    // --- ATTRIBUTES ---
+    private final MessageExportService messageExportService;
+
+
+    /**
+     * Streams the matching messages as a gzip-compressed NDJSON file, in id order.
+     *
+     * The export runs on the request thread until the last line is written. To resume an
+     * interrupted download, repeat the request with {@code after} set to the id of the
+     * last complete line.
+     *
+     * @param from        first timestamp included (ISO-8601)
+     * @param to          first timestamp excluded (ISO-8601)
+     * @param channelType WEBSOCKET or TRADITIONAL_SOCKET
+     * @param sessionId   a single session
+     * @param after       resume point: id of the last message received
+     * @param archive     export the archive collection instead of the recent messages
+     */
+    @GetMapping("/export")
+    public void export(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+                       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+                       @RequestParam(required = false) String channelType,
+                       @RequestParam(required = false) String sessionId,
+                       @RequestParam(required = false) String after,
+                       @RequestParam(defaultValue = "false") boolean archive,
+                       HttpServletResponse response) throws IOException {
+
+        // Other storage layouts have no messages collection to stream
+        if (!messageExportService.isAvailable()) {
+            response.sendError(HttpStatus.NOT_IMPLEMENTED.value(), "Export requires MongoDB document storage");
+            return;
+        }
+
+        response.setContentType("application/gzip");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"messages-" + Instant.now().getEpochSecond() + ".ndjson.gz\"");
+
+        MessageExportService.Filter filter =
+                new MessageExportService.Filter(from, to, channelType, sessionId, after, archive);
+        try {
+            messageExportService.export(filter, response.getOutputStream());
+
+        // Rejected before anything was written: the status can still be set
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), e.getMessage());
+        } catch (IllegalStateException e) {
+            response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), e.getMessage());
+
+        // Client went away mid-stream; it resumes from its last line
+        } catch (IOException e) {
+            log.info("Export interrupted: error={}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/**
+ * Message search REST controller.
+ */
+
+package com.opty.socket.controller;
+
+
+/**
+ * IMPORTS
+ */
+import com.opty.socket.config.AppConfig;
+import com.opty.socket.service.MessageStorageService;
+import com.opty.socket.storage.MessageSearch;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+
+/**
+ * CODE
+ */
+
+/**
+ * REST API for searching stored chat messages by content.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/messages")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class MessageSearchController {
+
+    // --- ATTRIBUTES ---
+    private final MessageStorageService messageStorageService;
+    private final AppConfig appConfig;
+
+
+    /**
+     * Finds messages containing every word of the query, most relevant first.
+     *
+     * @param q    words to look for
+     * @param page page number, from 0
+     * @param size hits per page, at most opty.socket.storage.search.max-page-size
+     * @return one page of hits; 400 for a blank query or a page past max-results,
+     *         503 if the index is unavailable or the query ran out of time
+     */
+    @GetMapping("/search")
+    public ResponseEntity<MessageSearch.Page> search(@RequestParam String q,
+                                                     @RequestParam(defaultValue = "0") int page,
+                                                     @RequestParam(defaultValue = "20") int size) {
+        AppConfig.SearchConfig config = appConfig.getStorage().getSearch();
+        int pageSize = Math.min(size, config.getMaxPageSize());
+
+        // Deep pages cost as much as every page before them
+        if (q.isBlank() || page < 0 || pageSize <= 0 || (long) (page + 1) * pageSize > config.getMaxResults()) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        long startedAt = System.nanoTime();
+        try {
+            MessageSearch.Page result = messageStorageService.search(q, page, pageSize);
+            log.debug("Message search: hits={}, page={}, tookMs={}",
+                    result.hits().size(), page, (System.nanoTime() - startedAt) / 1_000_000);
+            return ResponseEntity.ok(result);
+
+        } catch (IllegalStateException | DataAccessException e) {
+            log.warn("Message search failed: error={}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+}
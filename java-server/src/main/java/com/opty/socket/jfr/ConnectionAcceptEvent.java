@@ -0,0 +1,60 @@
+/**
+ * JFR event: connection accepted.
+ */
+
+package com.opty.socket.jfr;
+
+
+/**
+ * IMPORTS
+ */
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+
+/**
+ * CODE
+ */
+
+/**
+ * A WebSocket or legacy socket connection was accepted.
+ */
+@Name("com.opty.socket.ConnectionAccept")
+@Label("Connection Accept")
+@Category({"Opty", "Connections"})
+@Description("A WebSocket or legacy socket connection was accepted")
+@StackTrace(false)
+public class ConnectionAcceptEvent extends Event {
+
+    // --- ATTRIBUTES ---
+    @Label("Transport")
+    public String transport;
+
+    @Label("Connection Type")
+    public String connectionType;
+
+    @Label("Connection ID")
+    public String connectionId;
+
+    @Label("Remote Address")
+    public String remoteAddress;
+
+
+    /**
+     * Records an accepted connection, if the event is enabled.
+     */
+    public static void record(String transport, String connectionType, String connectionId, Object remoteAddress) {
+        ConnectionAcceptEvent event = new ConnectionAcceptEvent();
+        if (event.shouldCommit()) {
+            event.transport = transport;
+            event.connectionType = connectionType;
+            event.connectionId = connectionId;
+            event.remoteAddress = remoteAddress != null ? remoteAddress.toString() : null;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,166 @@
+/**
+ * Flight recording actuator endpoint.
+ */
+
+package com.opty.socket.jfr;
+
+
+/**
+ * IMPORTS
+ */
+import com.opty.socket.config.AppConfig;
+import jdk.jfr.Configuration;
+import jdk.jfr.Event;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * CODE
+ */
+
+/**
+ * Starts, stops and dumps a JDK Flight Recording with the server's events.
+ *
+ * GET /actuator/flightrecorder shows the recording; POST /actuator/flightrecorder/start,
+ * /dump and /stop control it. Dumps go to opty.socket.flight-recorder.directory; stop
+ * dumps before closing the recording.
+ */
+@Slf4j
+@Component
+@Endpoint(id = "flightrecorder")
+public class FlightRecorderEndpoint {
+
+    // --- ATTRIBUTES ---
+    private static final List<Class<? extends Event>> EVENTS = List.of(
+            ConnectionAcceptEvent.class, SessionTransitionEvent.class, RouteEvent.class,
+            SerializationEvent.class, PersistEvent.class, QueueBroadcastEvent.class);
+
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+
+    private final AppConfig.FlightRecorderConfig config;
+    private Recording recording;
+
+
+    public FlightRecorderEndpoint(AppConfig appConfig) {
+        this.config = appConfig.getFlightRecorder();
+    }
+
+
+    @ReadOperation
+    public synchronized Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("state", recording != null ? recording.getState().name() : "NONE");
+        status.put("settings", config.getSettings());
+        status.put("directory", directory().toString());
+        if (recording != null) {
+            status.put("startedAt", recording.getStartTime());
+            status.put("sizeBytes", recording.getSize());
+        }
+        return status;
+    }
+
+
+    /**
+     * @param action start, dump or stop
+     */
+    @WriteOperation
+    public synchronized Map<String, Object> control(@Selector String action) throws IOException {
+        return switch (action) {
+            case "start" -> start();
+            case "dump" -> dump();
+            case "stop" -> stop();
+            default -> throw new InvalidEndpointRequestException("Unknown action: " + action,
+                    "Unknown action, use start, dump or stop");
+        };
+    }
+
+
+    private Map<String, Object> start() throws IOException {
+        if (isRunning()) {
+            return status();
+        }
+
+        Recording started;
+        try {
+            started = new Recording(Configuration.getConfiguration(config.getSettings()));
+        } catch (java.text.ParseException e) {
+            throw new IOException("Invalid JFR settings: " + config.getSettings(), e);
+        }
+        started.setName("opty");
+        started.setToDisk(true);
+        started.setMaxSize(config.getMaxSizeMb() * 1024L * 1024L);
+        started.setMaxAge(Duration.ofMinutes(config.getMaxAgeMinutes()));
+        EVENTS.forEach(started::enable);
+        started.start();
+        recording = started;
+
+        log.info("Flight recording started: settings={}", config.getSettings());
+        return status();
+    }
+
+
+    private Map<String, Object> dump() throws IOException {
+        if (!isRunning()) {
+            throw new InvalidEndpointRequestException("No recording running", "No recording running, start one first");
+        }
+        Path file = writeDump();
+        Map<String, Object> status = status();
+        status.put("file", file.toString());
+        return status;
+    }
+
+
+    private Map<String, Object> stop() throws IOException {
+        if (!isRunning()) {
+            throw new InvalidEndpointRequestException("No recording running", "No recording running");
+        }
+        Path file = writeDump();
+        recording.stop();
+        recording.close();
+        recording = null;
+
+        log.info("Flight recording stopped: file={}", file);
+        Map<String, Object> status = status();
+        status.put("file", file.toString());
+        return status;
+    }
+
+
+    private Path writeDump() throws IOException {
+        Path directory = directory();
+        Files.createDirectories(directory);
+        Path file = directory.resolve("opty-" + LocalDateTime.now().format(FILE_TIME) + ".jfr");
+        recording.dump(file);
+        log.info("Flight recording dumped: file={}, sizeBytes={}", file, Files.size(file));
+        return file;
+    }
+
+
+    private boolean isRunning() {
+        return recording != null && recording.getState() == RecordingState.RUNNING;
+    }
+
+
+    private Path directory() {
+        return Paths.get(config.getDirectory()).toAbsolutePath().normalize();
+    }
+}
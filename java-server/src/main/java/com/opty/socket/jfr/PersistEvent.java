@@ -0,0 +1,46 @@
+/**
+ * JFR event: message persisted.
+ */
+
+package com.opty.socket.jfr;
+
+
+/**
+ * IMPORTS
+ */
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+
+/**
+ * CODE
+ */
+
+/**
+ * One MessageStorageService.saveMessage call; with the pipeline on, this is the time to
+ * queue the message, not to write it.
+ */
+@Name("com.opty.socket.Persist")
+@Label("Save Message")
+@Category({"Opty", "Storage"})
+@Description("One MessageStorageService.saveMessage call")
+@StackTrace(false)
+public class PersistEvent extends Event {
+
+    // --- ATTRIBUTES ---
+    @Label("Session ID")
+    public String sessionId;
+
+    @Label("Channel Type")
+    public String channelType;
+
+    @Label("Store")
+    public String store;
+
+    @Label("Succeeded")
+    public boolean succeeded;
+}
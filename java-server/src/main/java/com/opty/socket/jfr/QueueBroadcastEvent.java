@@ -0,0 +1,44 @@
+/**
+ * JFR event: supervisor queue broadcast.
+ */
+
+package com.opty.socket.jfr;
+
+
+/**
+ * IMPORTS
+ */
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+
+/**
+ * CODE
+ */
+
+/**
+ * One SESSION_QUEUE_UPDATE broadcast to the supervisors listening to the queue.
+ */
+@Name("com.opty.socket.QueueBroadcast")
+@Label("Queue Broadcast")
+@Category({"Opty", "Routing"})
+@Description("One SESSION_QUEUE_UPDATE broadcast to the supervisors")
+@StackTrace(false)
+public class QueueBroadcastEvent extends Event {
+
+    // --- ATTRIBUTES ---
+    @Label("Listeners")
+    public int listeners;
+
+    @Label("Queued Sessions")
+    public int sessions;
+
+    @Label("Frame Size")
+    @DataAmount(DataAmount.BYTES)
+    public int bytes;
+}
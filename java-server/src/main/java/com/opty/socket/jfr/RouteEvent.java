@@ -0,0 +1,50 @@
+/**
+ * JFR event: message routed.
+ */
+
+package com.opty.socket.jfr;
+
+
+/**
+ * IMPORTS
+ */
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+
+/**
+ * CODE
+ */
+
+/**
+ * Routing of one chat message, from lookup to handing it to the recipient's transport.
+ */
+@Name("com.opty.socket.Route")
+@Label("Route Message")
+@Category({"Opty", "Routing"})
+@Description("Routing of one chat message to the other party")
+@StackTrace(false)
+public class RouteEvent extends Event {
+
+    // --- ATTRIBUTES ---
+    @Label("Sender Connection ID")
+    public String senderConnectionId;
+
+    @Label("Session ID")
+    public String sessionId;
+
+    // delivered, not_delivered, unroutable or error
+    @Label("Outcome")
+    public String outcome;
+
+    @Label("Sequence")
+    public long seq;
+
+    @Label("Forwarded Raw")
+    @Description("The sender's JSON was forwarded without re-encoding")
+    public boolean raw;
+}
@@ -0,0 +1,44 @@
+/**
+ * JFR event: message serialization.
+ */
+
+package com.opty.socket.jfr;
+
+
+/**
+ * IMPORTS
+ */
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+
+/**
+ * CODE
+ */
+
+/**
+ * One JSON encode, decode or scan of a message frame.
+ */
+@Name("com.opty.socket.Serialization")
+@Label("Serialization")
+@Category({"Opty", "Routing"})
+@Description("One JSON encode, decode or scan of a message frame")
+@StackTrace(false)
+public class SerializationEvent extends Event {
+
+    // --- ATTRIBUTES ---
+    // encode, decode or scan
+    @Label("Operation")
+    public String operation;
+
+    @Label("Message Type")
+    public String messageType;
+
+    // In chars, not bytes
+    @Label("Frame Length")
+    public int length;
+}
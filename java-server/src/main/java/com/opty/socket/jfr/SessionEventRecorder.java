@@ -0,0 +1,81 @@
+/**
+ * Session lifecycle JFR events.
+ */
+
+package com.opty.socket.jfr;
+
+
+/**
+ * IMPORTS
+ */
+import com.opty.socket.model.Session;
+import com.opty.socket.service.SessionLifecycleListener;
+import com.opty.socket.service.SessionManager;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+
+/**
+ * CODE
+ */
+
+/**
+ * Turns session lifecycle callbacks into {@link SessionTransitionEvent}s. Costs a field
+ * check per transition while no recording is running.
+ */
+@Component
+@RequiredArgsConstructor
+public class SessionEventRecorder implements SessionLifecycleListener {
+
+    // --- ATTRIBUTES ---
+    private final SessionManager sessionManager;
+
+
+    @PostConstruct
+    public void register() {
+        sessionManager.addLifecycleListener(this);
+    }
+
+
+    @Override
+    public void onSessionCreated(Session session) {
+        record("created", session);
+    }
+
+
+    @Override
+    public void onSupervisorPaired(Session session) {
+        record("paired", session);
+    }
+
+
+    @Override
+    public void onSupervisorUnpaired(Session session) {
+        record("unpaired", session);
+    }
+
+
+    @Override
+    public void onSessionRemoved(Session session) {
+        record("removed", session);
+    }
+
+
+    @Override
+    public void onSessionExpired(Session session) {
+        record("expired", session);
+    }
+
+
+    private static void record(String transition, Session session) {
+        SessionTransitionEvent event = new SessionTransitionEvent();
+        if (event.shouldCommit()) {
+            event.transition = transition;
+            event.sessionId = session.sessionId();
+            event.clientConnectionId = session.clientConnectionId();
+            event.supervisorConnectionId = session.supervisorConnectionId();
+            event.commit();
+        }
+    }
+}
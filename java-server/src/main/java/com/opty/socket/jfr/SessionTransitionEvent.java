@@ -0,0 +1,45 @@
+/**
+ * JFR event: session transition.
+ */
+
+package com.opty.socket.jfr;
+
+
+/**
+ * IMPORTS
+ */
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+
+/**
+ * CODE
+ */
+
+/**
+ * A session was created, paired, unpaired, expired or removed.
+ */
+@Name("com.opty.socket.SessionTransition")
+@Label("Session Transition")
+@Category({"Opty", "Sessions"})
+@Description("A session was created, paired, unpaired, expired or removed")
+@StackTrace(false)
+public class SessionTransitionEvent extends Event {
+
+    // --- ATTRIBUTES ---
+    @Label("Transition")
+    public String transition;
+
+    @Label("Session ID")
+    public String sessionId;
+
+    @Label("Client Connection ID")
+    public String clientConnectionId;
+
+    @Label("Supervisor Connection ID")
+    public String supervisorConnectionId;
+}
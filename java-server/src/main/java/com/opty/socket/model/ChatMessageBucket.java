@@ -0,0 +1,70 @@
+package com.opty.socket.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Agrupa as mensagens de uma sessão em um documento limitado (bucket pattern).
+ * sessionId e channelType ficam uma única vez no bucket, não em cada mensagem.
+ */
+@Data
+@NoArgsConstructor
+@Document(collection = "message_buckets") // Nome padrão, configurável em opty.socket.storage.bucket
+public class ChatMessageBucket {
+
+    @Id
+    private String id;
+
+    private String sessionId;
+    private String channelType;
+    private Instant startTime; // timestamp da primeira mensagem do bucket
+    private Instant endTime;   // timestamp da última mensagem do bucket
+    private int count;
+    private List<Entry> messages = new ArrayList<>();
+
+    /**
+     * Mensagem dentro do bucket, só com os campos que variam por mensagem.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Entry {
+        private String from;
+        private MessageType type;
+        private Map<String, Object> payload;
+        private Instant timestamp;
+        private Long sequence;
+
+        public Entry(ChatMessageDocument document) {
+            this(document.getFrom(), document.getType(), document.getPayload(), document.getTimestamp(),
+                    document.getSequence());
+        }
+    }
+
+    /**
+     * Converte as mensagens do bucket de volta para o formato de documento por mensagem.
+     */
+    public List<ChatMessageDocument> toDocuments() {
+        List<ChatMessageDocument> documents = new ArrayList<>(messages.size());
+        for (Entry entry : messages) {
+            ChatMessageDocument document = new ChatMessageDocument();
+            document.setChannelType(channelType);
+            document.setSessionId(sessionId);
+            document.setFrom(entry.getFrom());
+            document.setType(entry.getType());
+            document.setPayload(entry.getPayload());
+            document.setTimestamp(entry.getTimestamp());
+            document.setSequence(entry.getSequence());
+            documents.add(document);
+        }
+        return documents;
+    }
+}
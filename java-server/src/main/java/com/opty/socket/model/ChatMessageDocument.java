@@ -25,6 +25,7 @@ public class ChatMessageDocument {
     private MessageType type;
     private Map<String, Object> payload;
     private Instant timestamp;
+    private Long sequence; // número da mensagem na sessão, atribuído pelo servidor (nulo em mensagens antigas)
 
     /**
      * Construtor auxiliar para converter do nosso 'record' Message
@@ -37,5 +38,6 @@ public class ChatMessageDocument {
         this.type = message.type();
         this.payload = message.payload();
         this.timestamp = message.timestamp();
+        this.sequence = message.seq();
     }
 }
\ No newline at end of file
@@ -9,6 +9,9 @@ package com.opty.socket.model;
  * IMPORTS
  */
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.opty.socket.model.payload.ConnectAckPayload;
+import com.opty.socket.model.payload.ErrorPayload;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 
@@ -22,8 +25,15 @@ import java.util.Map;
 
 /**
  * Messages exchanged via WebSocket between clients, supervisors, and server.
+ *
+ * The payload is read into the typed record for the message type (see
+ * {@link com.opty.socket.model.payload.MessagePayload}) when it matches one.
+ *
+ * seq is the per-session sequence number the server assigns to chat messages at ingress;
+ * it is null on everything else.
  */
 @JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonDeserialize(using = MessageDeserializer.class)
 public record Message(
         @Size(max = 100, message = "Session ID must not exceed 100 characters")
         String sessionId,
@@ -35,8 +45,17 @@ public record Message(
         MessageType type,
 
         Map<String, Object> payload,
-        Instant timestamp
+        Instant timestamp,
+        Long seq
 ) {
+    /**
+     * Creates a message without sequence number.
+     */
+    public Message(String sessionId, String from, MessageType type, Map<String, Object> payload, Instant timestamp) {
+        this(sessionId, from, type, payload, timestamp, null);
+    }
+
+
     /**
      * Creates a new message with current timestamp.
      */
@@ -51,6 +70,13 @@ public record Message(
         this(sessionId, from, type, null, Instant.now());
     }
 
+    /**
+     * Copies this message with the given sequence number.
+     */
+    public Message withSeq(long seq) {
+        return new Message(sessionId, from, type, payload, timestamp, seq);
+    }
+
     /**
      * Validates if this message has a valid session ID.
      */
@@ -73,7 +99,20 @@ public record Message(
                 sessionId,
                 "SERVER",
                 MessageType.ERROR,
-                Map.of("error", errorMessage),
+                new ErrorPayload(errorMessage),
+                Instant.now()
+        );
+    }
+
+    /**
+     * Creates a DISCONNECT message announcing a server shutdown.
+     */
+    public static Message serverShutdown(String sessionId) {
+        return new Message(
+                sessionId,
+                "SERVER",
+                MessageType.DISCONNECT,
+                Map.of("message", "Server restarting", "reason", "SHUTDOWN"),
                 Instant.now()
         );
     }
@@ -86,7 +125,7 @@ public record Message(
                 sessionId,
                 "SERVER",
                 MessageType.CONNECT,
-                Map.of("message", "Connected successfully", "sessionId", sessionId),
+                new ConnectAckPayload("Connected successfully", sessionId, null),
                 Instant.now()
         );
     }
@@ -0,0 +1,186 @@
+/**
+ * Message JSON deserializer.
+ */
+
+package com.opty.socket.model;
+
+
+/**
+ * IMPORTS
+ */
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.opty.socket.dto.SessionDTO;
+import com.opty.socket.model.payload.ConnectAckPayload;
+import com.opty.socket.model.payload.ErrorPayload;
+import com.opty.socket.model.payload.QueueUpdatePayload;
+import com.opty.socket.model.payload.TextPayload;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * CODE
+ */
+
+/**
+ * Reads a Message, parsing the payload straight into the typed record for its type.
+ *
+ * The payload falls back to a plain map (as before) when it has fields or value types
+ * the record does not know, or when the type is DISCONNECT or missing. A payload that
+ * appears before "type" is buffered and parsed once the type is known.
+ */
+public class MessageDeserializer extends StdDeserializer<Message> {
+
+    public MessageDeserializer() {
+        super(Message.class);
+    }
+
+
+    @Override
+    public Message deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        if (!parser.isExpectedStartObjectToken()) {
+            return (Message) context.handleUnexpectedToken(Message.class, parser);
+        }
+
+        String sessionId = null;
+        String from = null;
+        MessageType type = null;
+        Map<String, Object> payload = null;
+        TokenBuffer bufferedPayload = null;
+        Instant timestamp = null;
+        Long seq = null;
+
+        for (String field = parser.nextFieldName(); field != null; field = parser.nextFieldName()) {
+            JsonToken token = parser.nextToken();
+            switch (field) {
+                case "sessionId" -> sessionId = readNullable(parser, context, token, String.class);
+                case "from" -> from = readNullable(parser, context, token, String.class);
+                case "type" -> type = readNullable(parser, context, token, MessageType.class);
+                case "timestamp" -> timestamp = readNullable(parser, context, token, Instant.class);
+                case "seq" -> seq = readNullable(parser, context, token, Long.class);
+                case "payload" -> {
+                    if (type != null) {
+                        payload = readPayload(parser, context, type);
+                    } else {
+                        bufferedPayload = context.bufferAsCopyOfValue(parser);
+                    }
+                }
+                default -> context.handleUnknownProperty(parser, this, Message.class, field);
+            }
+        }
+
+        if (bufferedPayload != null) {
+            try (JsonParser buffered = bufferedPayload.asParserOnFirstToken()) {
+                payload = readPayload(buffered, context, type);
+            }
+        }
+        return new Message(sessionId, from, type, payload, timestamp, seq);
+    }
+
+
+    private Map<String, Object> readPayload(JsonParser parser, DeserializationContext context, MessageType type)
+            throws IOException {
+        List<String> fields = fieldsOf(type);
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (fields == null || parser.currentToken() != JsonToken.START_OBJECT) {
+            return readMap(parser, context);
+        }
+
+        Object[] values = new Object[fields.size()];
+        Map<String, Object> fallback = null;
+        for (String field = parser.nextFieldName(); field != null; field = parser.nextFieldName()) {
+            JsonToken token = parser.nextToken();
+            int index = fallback == null ? fields.indexOf(field) : -1;
+            if (index >= 0 && values[index] == null && token != JsonToken.VALUE_NULL) {
+                Object value = readField(parser, context, type, index, token);
+                if (value != null) {
+                    values[index] = value;
+                    continue;
+                }
+            }
+
+            // Unknown field, unexpected value type or duplicate: keep everything in a map
+            if (fallback == null) {
+                fallback = new LinkedHashMap<>();
+                for (int i = 0; i < values.length; i++) {
+                    if (values[i] != null) {
+                        fallback.put(fields.get(i), values[i]);
+                    }
+                }
+            }
+            fallback.put(field, context.readValue(parser, Object.class));
+        }
+        if (fallback != null) {
+            return fallback;
+        }
+
+        return switch (type) {
+            case MESSAGE -> new TextPayload((String) values[0], (String) values[1]);
+            case ERROR -> new ErrorPayload((String) values[0]);
+            case CONNECT -> new ConnectAckPayload((String) values[0], (String) values[1], (Boolean) values[2]);
+            case SESSION_QUEUE_UPDATE -> {
+                @SuppressWarnings("unchecked")
+                List<SessionDTO> sessions = (List<SessionDTO>) values[0];
+                yield new QueueUpdatePayload(sessions);
+            }
+            default -> throw new IllegalStateException("No typed payload for " + type);
+        };
+    }
+
+
+    /**
+     * Reads a field value with the record's type, or returns null when the token does not fit.
+     */
+    private static Object readField(JsonParser parser, DeserializationContext context, MessageType type,
+                                    int index, JsonToken token) throws IOException {
+        if (type == MessageType.CONNECT && index == ConnectAckPayload.FIELDS.indexOf("paired")) {
+            return token.isBoolean() ? parser.getBooleanValue() : null;
+        }
+        if (type == MessageType.SESSION_QUEUE_UPDATE) {
+            return token == JsonToken.START_ARRAY ? context.readValue(parser, sessionListType(context)) : null;
+        }
+        return token == JsonToken.VALUE_STRING ? parser.getText() : null;
+    }
+
+
+    private static <T> T readNullable(JsonParser parser, DeserializationContext context, JsonToken token,
+                                      Class<T> valueType) throws IOException {
+        return token == JsonToken.VALUE_NULL ? null : context.readValue(parser, valueType);
+    }
+
+
+    private static List<String> fieldsOf(MessageType type) {
+        if (type == null) {
+            return null;
+        }
+        return switch (type) {
+            case MESSAGE -> TextPayload.FIELDS;
+            case ERROR -> ErrorPayload.FIELDS;
+            case CONNECT -> ConnectAckPayload.FIELDS;
+            case SESSION_QUEUE_UPDATE -> QueueUpdatePayload.FIELDS;
+            default -> null;
+        };
+    }
+
+
+    private static Map<String, Object> readMap(JsonParser parser, DeserializationContext context) throws IOException {
+        JavaType mapType = context.getTypeFactory().constructMapType(Map.class, String.class, Object.class);
+        return context.readValue(parser, mapType);
+    }
+
+
+    private static JavaType sessionListType(DeserializationContext context) {
+        return context.getTypeFactory().constructCollectionType(List.class, SessionDTO.class);
+    }
+}
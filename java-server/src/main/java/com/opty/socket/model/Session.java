@@ -59,6 +59,19 @@ public record Session(
         );
     }
 
+    /**
+     * Creates a copy attached to a new client connection (resumed session).
+     */
+    public Session withClient(String clientConnectionId) {
+        return new Session(
+                sessionId,
+                clientConnectionId,
+                null,
+                createdAt,
+                Instant.now()
+        );
+    }
+
     /**
      * Checks if this session is paired (has both client and supervisor).
      */
@@ -66,6 +79,13 @@ public record Session(
         return supervisorConnectionId != null && !supervisorConnectionId.isBlank();
     }
 
+    /**
+     * Checks if this session was restored without a client connection (waiting for resume).
+     */
+    public boolean isDetached() {
+        return clientConnectionId == null;
+    }
+
     /**
      * Checks if this session is expired based on timeout.
      *
@@ -0,0 +1,56 @@
+/**
+ * Connect acknowledgement payload.
+ */
+
+package com.opty.socket.model.payload;
+
+
+/**
+ * IMPORTS
+ */
+import java.util.List;
+
+
+/**
+ * CODE
+ */
+
+/**
+ * CONNECT payload: {"message": ..., "sessionId": ..., "paired": ...}; fields not sent are null.
+ */
+public record ConnectAckPayload(String message, String sessionId, Boolean paired) implements MessagePayload {
+
+    // --- ATTRIBUTES ---
+    public static final List<String> FIELDS = List.of("message", "sessionId", "paired");
+
+
+    @Override
+    public List<String> fieldNames() {
+        return FIELDS;
+    }
+
+    @Override
+    public Object fieldValue(int index) {
+        return switch (index) {
+            case 0 -> message;
+            case 1 -> sessionId;
+            case 2 -> paired;
+            default -> null;
+        };
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return MessagePayload.mapEquals(this, other);
+    }
+
+    @Override
+    public int hashCode() {
+        return MessagePayload.mapHashCode(this);
+    }
+
+    @Override
+    public String toString() {
+        return MessagePayload.mapToString(this);
+    }
+}
@@ -0,0 +1,54 @@
+/**
+ * Error payload.
+ */
+
+package com.opty.socket.model.payload;
+
+
+/**
+ * IMPORTS
+ */
+import java.util.List;
+
+
+/**
+ * CODE
+ */
+
+/**
+ * ERROR payload: {"error": ...}.
+ */
+public record ErrorPayload(String error) implements MessagePayload {
+
+    // --- ATTRIBUTES ---
+    public static final List<String> FIELDS = List.of("error");
+
+
+    @Override
+    public List<String> fieldNames() {
+        return FIELDS;
+    }
+
+    @Override
+    public Object fieldValue(int index) {
+        return switch (index) {
+            case 0 -> error;
+            default -> null;
+        };
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return MessagePayload.mapEquals(this, other);
+    }
+
+    @Override
+    public int hashCode() {
+        return MessagePayload.mapHashCode(this);
+    }
+
+    @Override
+    public String toString() {
+        return MessagePayload.mapToString(this);
+    }
+}
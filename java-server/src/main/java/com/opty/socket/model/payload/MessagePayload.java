@@ -0,0 +1,244 @@
+/**
+ * Typed message payload.
+ */
+
+package com.opty.socket.model.payload;
+
+
+/**
+ * IMPORTS
+ */
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+
+/**
+ * CODE
+ */
+
+/**
+ * Payload with a fixed set of fields, one record per MessageType.
+ *
+ * Payloads are still exposed as a read-only {@code Map<String, Object>}, so the JSON shape,
+ * Mongo documents and existing {@code payload().get("text")} callers are unchanged, but
+ * routing and storage can read the record fields directly. Lookups compare against a handful
+ * of field names instead of hashing, and null fields are not part of the map.
+ */
+public sealed interface MessagePayload extends Map<String, Object>
+        permits TextPayload, ErrorPayload, ConnectAckPayload, QueueUpdatePayload {
+
+    /**
+     * Field names, in JSON order.
+     */
+    List<String> fieldNames();
+
+    /**
+     * Value of the field at {@code index} in {@link #fieldNames()}, or null if absent.
+     */
+    Object fieldValue(int index);
+
+
+    @Override
+    default int size() {
+        int size = 0;
+        for (int i = 0; i < fieldNames().size(); i++) {
+            if (fieldValue(i) != null) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    @Override
+    default boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    default boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    default boolean containsValue(Object value) {
+        return value != null && values().contains(value);
+    }
+
+    @Override
+    default Object get(Object key) {
+        int index = fieldNames().indexOf(key);
+        return index < 0 ? null : fieldValue(index);
+    }
+
+    @Override
+    default Object put(String key, Object value) {
+        throw new UnsupportedOperationException("Payload is immutable");
+    }
+
+    @Override
+    default Object remove(Object key) {
+        throw new UnsupportedOperationException("Payload is immutable");
+    }
+
+    @Override
+    default void putAll(Map<? extends String, ?> map) {
+        throw new UnsupportedOperationException("Payload is immutable");
+    }
+
+    @Override
+    default void clear() {
+        throw new UnsupportedOperationException("Payload is immutable");
+    }
+
+    @Override
+    default Set<String> keySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<String> iterator() {
+                Iterator<Entry<String, Object>> entries = entrySet().iterator();
+                return new Iterator<>() {
+                    @Override
+                    public boolean hasNext() {
+                        return entries.hasNext();
+                    }
+
+                    @Override
+                    public String next() {
+                        return entries.next().getKey();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return MessagePayload.this.size();
+            }
+        };
+    }
+
+    @Override
+    default Collection<Object> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<Object> iterator() {
+                Iterator<Entry<String, Object>> entries = entrySet().iterator();
+                return new Iterator<>() {
+                    @Override
+                    public boolean hasNext() {
+                        return entries.hasNext();
+                    }
+
+                    @Override
+                    public Object next() {
+                        return entries.next().getValue();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return MessagePayload.this.size();
+            }
+        };
+    }
+
+    @Override
+    default Set<Entry<String, Object>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                return new Iterator<>() {
+                    private int next = skipNulls(0);
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < fieldNames().size();
+                    }
+
+                    @Override
+                    public Entry<String, Object> next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        Entry<String, Object> entry = new AbstractMap.SimpleImmutableEntry<>(
+                                fieldNames().get(next), fieldValue(next));
+                        next = skipNulls(next + 1);
+                        return entry;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return MessagePayload.this.size();
+            }
+        };
+    }
+
+    private int skipNulls(int from) {
+        int index = from;
+        while (index < fieldNames().size() && fieldValue(index) == null) {
+            index++;
+        }
+        return index;
+    }
+
+
+    /**
+     * Map equality, so payloads compare equal to a Map with the same entries.
+     */
+    static boolean mapEquals(MessagePayload payload, Object other) {
+        if (payload == other) {
+            return true;
+        }
+        if (!(other instanceof Map<?, ?> map) || map.size() != payload.size()) {
+            return false;
+        }
+        for (int i = 0; i < payload.fieldNames().size(); i++) {
+            Object value = payload.fieldValue(i);
+            if (value != null && !Objects.equals(value, map.get(payload.fieldNames().get(i)))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Map hash code: sum of the entry hash codes.
+     */
+    static int mapHashCode(MessagePayload payload) {
+        int hash = 0;
+        for (int i = 0; i < payload.fieldNames().size(); i++) {
+            Object value = payload.fieldValue(i);
+            if (value != null) {
+                hash += payload.fieldNames().get(i).hashCode() ^ value.hashCode();
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Map-style string, e.g. {@code {text=hello}}.
+     */
+    static String mapToString(MessagePayload payload) {
+        StringBuilder out = new StringBuilder("{");
+        for (int i = 0; i < payload.fieldNames().size(); i++) {
+            Object value = payload.fieldValue(i);
+            if (value != null) {
+                if (out.length() > 1) {
+                    out.append(", ");
+                }
+                out.append(payload.fieldNames().get(i)).append('=').append(value);
+            }
+        }
+        return out.append('}').toString();
+    }
+}
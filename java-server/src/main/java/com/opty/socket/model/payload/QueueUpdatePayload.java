@@ -0,0 +1,56 @@
+/**
+ * Queue update payload.
+ */
+
+package com.opty.socket.model.payload;
+
+
+/**
+ * IMPORTS
+ */
+import com.opty.socket.dto.SessionDTO;
+
+import java.util.List;
+
+
+/**
+ * CODE
+ */
+
+/**
+ * SESSION_QUEUE_UPDATE payload: {"sessions": [...]}.
+ */
+public record QueueUpdatePayload(List<SessionDTO> sessions) implements MessagePayload {
+
+    // --- ATTRIBUTES ---
+    public static final List<String> FIELDS = List.of("sessions");
+
+
+    @Override
+    public List<String> fieldNames() {
+        return FIELDS;
+    }
+
+    @Override
+    public Object fieldValue(int index) {
+        return switch (index) {
+            case 0 -> sessions;
+            default -> null;
+        };
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return MessagePayload.mapEquals(this, other);
+    }
+
+    @Override
+    public int hashCode() {
+        return MessagePayload.mapHashCode(this);
+    }
+
+    @Override
+    public String toString() {
+        return MessagePayload.mapToString(this);
+    }
+}
@@ -0,0 +1,55 @@
+/**
+ * Chat text payload.
+ */
+
+package com.opty.socket.model.payload;
+
+
+/**
+ * IMPORTS
+ */
+import java.util.List;
+
+
+/**
+ * CODE
+ */
+
+/**
+ * MESSAGE payload: {"text": ..., "timestamp": ...}. The timestamp is set by the legacy bridge.
+ */
+public record TextPayload(String text, String timestamp) implements MessagePayload {
+
+    // --- ATTRIBUTES ---
+    public static final List<String> FIELDS = List.of("text", "timestamp");
+
+
+    @Override
+    public List<String> fieldNames() {
+        return FIELDS;
+    }
+
+    @Override
+    public Object fieldValue(int index) {
+        return switch (index) {
+            case 0 -> text;
+            case 1 -> timestamp;
+            default -> null;
+        };
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return MessagePayload.mapEquals(this, other);
+    }
+
+    @Override
+    public int hashCode() {
+        return MessagePayload.mapHashCode(this);
+    }
+
+    @Override
+    public String toString() {
+        return MessagePayload.mapToString(this);
+    }
+}
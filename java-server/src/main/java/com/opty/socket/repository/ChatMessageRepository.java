@@ -15,4 +15,10 @@ public interface ChatMessageRepository extends MongoRepository<ChatMessageDocume
 
     // Spring Data cria a query automaticamente pelo nome do método
     List<ChatMessageDocument> findBySessionId(String sessionId);
+
+    // Histórico na ordem da sessão (usa o índice sessionId_sequence); mensagens antigas sem número vêm primeiro
+    List<ChatMessageDocument> findBySessionIdOrderBySequenceAscTimestampAsc(String sessionId);
+
+    // Última mensagem numerada da sessão, lida do fim do índice sessionId_sequence
+    ChatMessageDocument findFirstBySessionIdOrderBySequenceDesc(String sessionId);
 }
\ No newline at end of file
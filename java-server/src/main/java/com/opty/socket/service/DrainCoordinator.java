@@ -0,0 +1,210 @@
+/**
+ * Graceful shutdown drain.
+ */
+
+package com.opty.socket.service;
+
+
+/**
+ * IMPORTS
+ */
+import com.opty.socket.config.AppConfig;
+import com.opty.socket.model.ConnectionInfo;
+import com.opty.socket.model.Message;
+import com.opty.socket.model.Session;
+import com.opty.socket.tradicional.TraditionalSocketServer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * CODE
+ */
+
+/**
+ * Drains all connections on shutdown, within spring.lifecycle.timeout-per-shutdown-phase.
+ *
+ * 1. Stops admissions (WebSocket handlers and the legacy acceptor).
+ * 2. Notifies every WebSocket and legacy peer in parallel, each with its own timeout,
+ *    and closes it (WebSocket close code 1012: service restarting).
+ * 3. Waits for the inbound pipeline to finish the frames already queued.
+ * 4. Flushes the message store, including its queued writes.
+ *
+ * Runs before the web server's graceful shutdown phase and after the session journal
+ * is sealed, so drained sessions can be resumed after the restart.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DrainCoordinator implements SmartLifecycle {
+
+    // --- ATTRIBUTES ---
+    // Below the session journal (DEFAULT_PHASE), above the web server (DEFAULT_PHASE - 1024)
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 512;
+
+    // Share of the phase budget given to notifications; the rest is left for the storage flush
+    private static final double NOTIFY_SHARE = 0.7;
+
+    private final AppConfig appConfig;
+    private final SessionManager sessionManager;
+    private final MessageRouter messageRouter;
+    private final MessageStorageService messageStorageService;
+    private final InboundPipeline inboundPipeline;
+    private final TraditionalSocketServer traditionalSocketServer;
+
+    @Value("${spring.lifecycle.timeout-per-shutdown-phase:30s}")
+    private Duration phaseTimeout;
+
+    private volatile boolean running;
+
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+
+    /**
+     * Drains on a separate thread, so the lifecycle processor can enforce the phase timeout.
+     */
+    @Override
+    public void stop(Runnable callback) {
+        Thread drainThread = new Thread(() -> {
+            try {
+                drain();
+            } finally {
+                running = false;
+                callback.run();
+            }
+        }, "drain-coordinator");
+        drainThread.setDaemon(true);
+        drainThread.start();
+    }
+
+
+    @Override
+    public void stop() {
+        drain();
+        running = false;
+    }
+
+
+    /**
+     * Runs the drain. Every step is bounded by the phase budget.
+     */
+    public void drain() {
+        long startedAt = System.nanoTime();
+        long budgetNanos = Math.max(phaseTimeout.toNanos() - TimeUnit.MILLISECONDS.toNanos(500),
+                TimeUnit.SECONDS.toNanos(1));
+        long notifyDeadline = startedAt + (long) (budgetNanos * NOTIFY_SHARE);
+        AppConfig.DrainConfig config = appConfig.getDrain();
+
+        // 1. Stop admissions
+        sessionManager.stopAdmissions();
+        traditionalSocketServer.pararAdmissoes();
+
+        List<WebSocketSession> webSockets = new ArrayList<>();
+        for (String type : List.of("CLIENT", "SUPERVISOR")) {
+            for (ConnectionInfo connection : sessionManager.getConnectionsByType(type)) {
+                if (connection.webSocketSession() != null) {
+                    webSockets.add(connection.webSocketSession());
+                }
+            }
+        }
+        log.info("Drain started: webSocketConnections={}, legacyConnections={}, budget={}ms",
+                webSockets.size(), traditionalSocketServer.getClientesConectados(),
+                TimeUnit.NANOSECONDS.toMillis(budgetNanos));
+
+        // 2. Notify and close every peer; legacy clients in parallel with WebSocket ones
+        CompletableFuture<ParallelDrain.Result> legacy = CompletableFuture.supplyAsync(() ->
+                traditionalSocketServer.desconectarTodos(
+                        config.getParallelism(), config.getNotifyTimeoutMs(), notifyDeadline));
+
+        ParallelDrain.Result webSocketResult = ParallelDrain.run("websocket", webSockets,
+                this::notifyAndClose, this::closeQuietly,
+                config.getParallelism(), config.getNotifyTimeoutMs(), notifyDeadline);
+        logResult("websocket", webSocketResult);
+
+        try {
+            long remaining = Math.max(0, notifyDeadline - System.nanoTime());
+            logResult("legacy", legacy.get(remaining, TimeUnit.NANOSECONDS));
+        } catch (Exception e) {
+            log.warn("Drain legacy did not finish in time: error={}", e.toString());
+        }
+
+        // 3. Let the pipeline finish what was received before the close
+        long pipelineRemaining = Math.max(0, startedAt + budgetNanos - System.nanoTime());
+        if (!inboundPipeline.awaitIdle(TimeUnit.NANOSECONDS.toMillis(pipelineRemaining) / 2)) {
+            log.warn("Drain pipeline still busy: queued={}", inboundPipeline.queueDepth());
+        }
+
+        // 4. Flush storage
+        long flushStart = System.nanoTime();
+        try {
+            messageStorageService.flush();
+            log.info("Drain flushed message store in {}ms", (System.nanoTime() - flushStart) / 1_000_000);
+        } catch (Exception e) {
+            log.error("Drain failed to flush message store: error={}", e.getMessage(), e);
+        }
+
+        log.info("Drain complete in {}ms", (System.nanoTime() - startedAt) / 1_000_000);
+    }
+
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+
+    /**
+     * Announces the shutdown and closes with 1012 (service restarting), so clients reconnect.
+     */
+    private void notifyAndClose(WebSocketSession session) {
+        if (!session.isOpen()) {
+            return;
+        }
+        String sessionId = sessionManager.getSessionByConnectionId(session.getId())
+                .map(Session::sessionId)
+                .orElse(null);
+        messageRouter.sendMessage(session, Message.serverShutdown(sessionId));
+        closeQuietly(session);
+    }
+
+
+    private void closeQuietly(WebSocketSession session) {
+        try {
+            session.close(CloseStatus.SERVICE_RESTARTED);
+        } catch (Exception e) {
+            log.debug("Failed to close WebSocket during drain: connectionId={}, error={}",
+                    session.getId(), e.getMessage());
+        }
+    }
+
+
+    private static void logResult(String name, ParallelDrain.Result result) {
+        if (result.total() == 0) {
+            return;
+        }
+        log.info("Drain {} done: total={}, completed={}, failed={}, timedOut={}, elapsed={}ms",
+                name, result.total(), result.completed(), result.failed(), result.timedOut(),
+                result.elapsedMillis());
+    }
+}
@@ -0,0 +1,179 @@
+/**
+ * Concurrent int-handle table.
+ */
+
+package com.opty.socket.service;
+
+
+/**
+ * IMPORTS
+ */
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntFunction;
+
+
+/**
+ * CODE
+ */
+
+/**
+ * Slot table addressed by compact int handles.
+ *
+ * A handle packs the slot index (low 20 bits) with a per-slot generation, so a handle kept
+ * after its slot was freed and reused no longer resolves. Lookups are an array read and a
+ * generation check; only add and remove take the table lock. Slots live in fixed-size chunks
+ * that are never moved, so the table grows without copying under readers.
+ */
+final class HandleTable<T> {
+
+    // --- ATTRIBUTES ---
+    static final int NONE = -1;
+
+    private static final int INDEX_BITS = 20;
+    private static final int INDEX_MASK = (1 << INDEX_BITS) - 1;
+    private static final int GENERATION_MASK = Integer.MAX_VALUE >>> INDEX_BITS;
+    private static final int CHUNK_BITS = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int MAX_SLOTS = 1 << INDEX_BITS;
+
+    private final AtomicReferenceArray<Chunk<T>> chunks = new AtomicReferenceArray<>(MAX_SLOTS / CHUNK_SIZE);
+    private int[] freeIndexes = new int[64];
+    private int freeCount;
+    private int nextIndex;
+    private volatile int size;
+
+
+    /**
+     * Values and current handles of {@code CHUNK_SIZE} consecutive slots.
+     */
+    private static final class Chunk<T> {
+        private final AtomicReferenceArray<T> values = new AtomicReferenceArray<>(CHUNK_SIZE);
+        private final AtomicIntegerArray handles = new AtomicIntegerArray(CHUNK_SIZE);
+
+        private Chunk() {
+            for (int i = 0; i < CHUNK_SIZE; i++) {
+                handles.set(i, NONE);
+            }
+        }
+    }
+
+
+    /**
+     * Stores the value built for a newly assigned handle.
+     *
+     * @param factory builds the value from its handle
+     * @return the handle
+     * @throws IllegalStateException if all slots are in use
+     */
+    synchronized int add(IntFunction<T> factory) {
+        int index;
+        if (freeCount > 0) {
+            index = freeIndexes[--freeCount];
+        } else if (nextIndex < MAX_SLOTS) {
+            index = nextIndex++;
+        } else {
+            throw new IllegalStateException("Handle table full: " + MAX_SLOTS + " slots in use");
+        }
+
+        Chunk<T> chunk = chunks.get(index >>> CHUNK_BITS);
+        if (chunk == null) {
+            chunk = new Chunk<>();
+            chunks.set(index >>> CHUNK_BITS, chunk);
+        }
+
+        int offset = index & (CHUNK_SIZE - 1);
+        int previous = chunk.handles.get(offset);
+        int generation = previous == NONE ? 0
+                : (((previous & Integer.MAX_VALUE) >>> INDEX_BITS) + 1) & GENERATION_MASK;
+        int handle = (generation << INDEX_BITS) | index;
+
+        chunk.values.set(offset, factory.apply(handle));
+        chunk.handles.set(offset, handle);
+        size++;
+        return handle;
+    }
+
+
+    /**
+     * Gets the value for a handle.
+     *
+     * @return the value, or null if the handle is NONE or its slot was freed
+     */
+    T get(int handle) {
+        if (handle < 0) {
+            return null;
+        }
+        Chunk<T> chunk = chunks.get((handle & INDEX_MASK) >>> CHUNK_BITS);
+        if (chunk == null) {
+            return null;
+        }
+        int offset = handle & (CHUNK_SIZE - 1);
+        if (chunk.handles.get(offset) != handle) {
+            return null;
+        }
+        T value = chunk.values.get(offset);
+        // Freed and reused while reading: the handle changed with the value
+        return chunk.handles.get(offset) == handle ? value : null;
+    }
+
+
+    /**
+     * Frees the slot of a handle; the handle and older copies of it stop resolving.
+     *
+     * @return the removed value, or null if the handle was not live
+     */
+    synchronized T remove(int handle) {
+        T value = get(handle);
+        if (value == null) {
+            return null;
+        }
+        int index = handle & INDEX_MASK;
+        Chunk<T> chunk = chunks.get(index >>> CHUNK_BITS);
+        int offset = index & (CHUNK_SIZE - 1);
+
+        // Keep the handle with its generation until reuse, but mark it dead for readers
+        chunk.handles.set(offset, handle | Integer.MIN_VALUE);
+        chunk.values.set(offset, null);
+
+        if (freeCount == freeIndexes.length) {
+            int[] grown = new int[freeIndexes.length * 2];
+            System.arraycopy(freeIndexes, 0, grown, 0, freeCount);
+            freeIndexes = grown;
+        }
+        freeIndexes[freeCount++] = index;
+        size--;
+        return value;
+    }
+
+
+    /**
+     * Number of live handles.
+     */
+    int size() {
+        return size;
+    }
+
+
+    /**
+     * Snapshot of the live values.
+     */
+    List<T> values() {
+        List<T> values = new ArrayList<>(size);
+        for (int c = 0; c < chunks.length(); c++) {
+            Chunk<T> chunk = chunks.get(c);
+            if (chunk == null) {
+                break;
+            }
+            for (int i = 0; i < CHUNK_SIZE; i++) {
+                T value = chunk.values.get(i);
+                if (value != null) {
+                    values.add(value);
+                }
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,232 @@
+/**
+ * Dead-connection detection.
+ */
+
+package com.opty.socket.service;
+
+
+/**
+ * IMPORTS
+ */
+import com.opty.socket.config.AppConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PingMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * CODE
+ */
+
+/**
+ * Detects dead connections on both transports with one shared timer.
+ *
+ * Every tracked connection keeps the time it was last heard from, updated by {@link #beat}
+ * on any inbound frame, pong or legacy heartbeat. One timer thread scans them every
+ * checkIntervalMs: a connection silent for intervalMs is pinged, and one silent for
+ * timeoutMs is closed, which runs the transport's normal disconnect cleanup. WebSocket
+ * pings go through the connection's pipeline lane, so a blocked socket never stalls the
+ * timer. Closes run on the timer itself: a full lane, or one stuck on the dead socket,
+ * would never run them.
+ *
+ * Meters: opty.heartbeat.connections (gauge) and opty.heartbeat.timeouts.
+ */
+@Slf4j
+@Service
+public class HeartbeatMonitor {
+
+    // --- ATTRIBUTES ---
+    private final AppConfig.HeartbeatConfig config;
+    private final InboundPipeline inboundPipeline;
+    private final Map<String, Beat> connections = new ConcurrentHashMap<>();
+    private final Counter timeoutCounter;
+    private final ScheduledExecutorService timer;
+
+
+    @Autowired
+    public HeartbeatMonitor(AppConfig appConfig, InboundPipeline inboundPipeline, MeterRegistry meterRegistry) {
+        this.config = appConfig.getHeartbeat();
+        this.inboundPipeline = inboundPipeline;
+        this.timeoutCounter = Counter.builder("opty.heartbeat.timeouts")
+                .description("Connections closed after missing their heartbeats")
+                .register(meterRegistry);
+        Gauge.builder("opty.heartbeat.connections", connections, Map::size)
+                .description("Connections watched by the heartbeat timer")
+                .register(meterRegistry);
+
+        if (config.isEnabled()) {
+            timer = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "heartbeat");
+                thread.setDaemon(true);
+                return thread;
+            });
+            timer.scheduleWithFixedDelay(this::check,
+                    config.getCheckIntervalMs(), config.getCheckIntervalMs(), TimeUnit.MILLISECONDS);
+            log.info("Heartbeat enabled: intervalMs={}, timeoutMs={}", config.getIntervalMs(), config.getTimeoutMs());
+        } else {
+            timer = null;
+        }
+    }
+
+
+    public HeartbeatMonitor(AppConfig appConfig, InboundPipeline inboundPipeline) {
+        this(appConfig, inboundPipeline, new SimpleMeterRegistry());
+    }
+
+
+    /**
+     * Watches a WebSocket connection: pings with a ping frame, closes with 4500
+     * (session not reliable).
+     *
+     * @param session the session to send through (the decorated, thread-safe one, whose
+     *                close does not wait for a send in progress)
+     */
+    public void track(WebSocketSession session) {
+        String connectionId = session.getId();
+        track(connectionId,
+                () -> inboundPipeline.submit(connectionId, () -> ping(session)),
+                () -> close(session));
+    }
+
+
+    /**
+     * Watches a connection that cannot be pinged: it is only closed after timeoutMs of
+     * silence.
+     *
+     * @param connectionId the connection ID
+     * @param close        closes the connection; must not block
+     */
+    public void track(String connectionId, Runnable close) {
+        track(connectionId, () -> {
+        }, close);
+    }
+
+
+    /**
+     * Watches a connection.
+     *
+     * @param connectionId the connection ID
+     * @param ping         sends a heartbeat; must not block
+     * @param close        closes the connection; must not block
+     */
+    public void track(String connectionId, Runnable ping, Runnable close) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        connections.put(connectionId, new Beat(ping, close, System.nanoTime()));
+    }
+
+
+    /**
+     * Records that the connection was heard from.
+     */
+    public void beat(String connectionId) {
+        Beat beat = connections.get(connectionId);
+        if (beat != null) {
+            beat.lastSeen = System.nanoTime();
+        }
+    }
+
+
+    public void untrack(String connectionId) {
+        connections.remove(connectionId);
+    }
+
+
+    public int getTrackedCount() {
+        return connections.size();
+    }
+
+
+    /**
+     * One scan of all connections. Runs on the timer; public for tests.
+     */
+    public void check() {
+        long now = System.nanoTime();
+        long interval = TimeUnit.MILLISECONDS.toNanos(config.getIntervalMs());
+        long timeout = TimeUnit.MILLISECONDS.toNanos(config.getTimeoutMs());
+
+        connections.forEach((connectionId, beat) -> {
+            long silent = now - beat.lastSeen;
+            try {
+                if (silent >= timeout) {
+                    // Stays tracked, and is closed again each scan, until its cleanup untracks it
+                    if (!beat.expired) {
+                        beat.expired = true;
+                        timeoutCounter.increment();
+                        log.info("Heartbeat missed, closing connection: connectionId={}, silentMs={}",
+                                connectionId, TimeUnit.NANOSECONDS.toMillis(silent));
+                    }
+                    beat.close.run();
+                } else if (silent >= interval && now - beat.lastPing >= interval) {
+                    beat.lastPing = now;
+                    beat.ping.run();
+                }
+            } catch (RuntimeException e) {
+                log.warn("Heartbeat action failed: connectionId={}, error={}", connectionId, e.getMessage());
+            }
+        });
+    }
+
+
+    @PreDestroy
+    public void close() {
+        if (timer != null) {
+            timer.shutdownNow();
+        }
+    }
+
+
+    private static void ping(WebSocketSession session) {
+        try {
+            if (session.isOpen()) {
+                session.sendMessage(new PingMessage());
+            }
+        } catch (Exception e) {
+            log.debug("Failed to ping WebSocket: connectionId={}, error={}", session.getId(), e.getMessage());
+        }
+    }
+
+
+    private static void close(WebSocketSession session) {
+        try {
+            session.close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (Exception e) {
+            log.debug("Failed to close WebSocket: connectionId={}, error={}", session.getId(), e.getMessage());
+        }
+    }
+
+
+    /**
+     * Heartbeat state of one connection.
+     */
+    private static final class Beat {
+        private final Runnable ping;
+        private final Runnable close;
+        private volatile long lastSeen;
+        // Only touched by the timer
+        private long lastPing;
+        private boolean expired;
+
+        private Beat(Runnable ping, Runnable close, long now) {
+            this.ping = ping;
+            this.close = close;
+            this.lastSeen = now;
+            this.lastPing = now;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+/**
+ * Session and connection ID generator.
+ */
+
+package com.opty.socket.service;
+
+
+/**
+ * IMPORTS
+ */
+import com.opty.socket.config.AppConfig;
+import org.springframework.stereotype.Component;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.concurrent.ThreadLocalRandom;
+
+
+/**
+ * CODE
+ */
+
+/**
+ * Generates time-ordered, 26-character IDs in the ULID layout (Crockford base32).
+ *
+ * 48 bits of epoch milliseconds, then 10 bits of node ID and 70 random bits, so IDs sort by
+ * creation time and instances with different node IDs never collide. Randomness is per
+ * thread: {@link ThreadLocalRandom} for plain IDs, and for unguessable ones a thread-local
+ * DRBG read in 1 KB blocks, instead of the SecureRandom shared by {@code UUID.randomUUID()}.
+ */
+@Component
+public class IdGenerator {
+
+    // --- ATTRIBUTES ---
+    static final int LENGTH = 26;
+
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int TIME_CHARS = 10;
+    private static final int NODE_BITS = 10;
+
+    // Random bytes per ID: 6 bits in the first, 64 in the next eight
+    private static final int RANDOM_BYTES = 9;
+    private static final ThreadLocal<SecureBytes> SECURE_BYTES = ThreadLocal.withInitial(SecureBytes::new);
+
+    private final int nodeId;
+    private final boolean unguessableSessionIds;
+
+
+    public IdGenerator(AppConfig appConfig) {
+        int node = appConfig.getIds().getNodeId();
+        if (node < 0 || node >= 1 << NODE_BITS) {
+            throw new IllegalArgumentException("Node ID must be between 0 and 1023: " + node);
+        }
+        this.nodeId = node;
+        this.unguessableSessionIds = appConfig.getIds().isUnguessableSessionIds();
+    }
+
+
+    /**
+     * Generates an ID with {@link ThreadLocalRandom} bits (unique, but predictable).
+     */
+    public String nextId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return format(System.currentTimeMillis(), random.nextInt(), random.nextLong());
+    }
+
+
+    /**
+     * Generates an ID whose random bits come from a SecureRandom, for IDs that grant access.
+     */
+    public String nextSecureId() {
+        SecureBytes random = SECURE_BYTES.get();
+        int offset = random.take();
+        byte[] bytes = random.bytes;
+        long low = 0;
+        for (int i = 1; i < RANDOM_BYTES; i++) {
+            low = (low << 8) | (bytes[offset + i] & 0xFF);
+        }
+        return format(System.currentTimeMillis(), bytes[offset], low);
+    }
+
+
+    /**
+     * Generates a session ID. Session IDs are resume tokens and let supervisors join, so they
+     * are unguessable unless opty.socket.ids.unguessable-session-ids is off.
+     */
+    public String nextSessionId() {
+        return unguessableSessionIds ? nextSecureId() : nextId();
+    }
+
+
+    /**
+     * Generates a connection ID for a legacy Socket connection (never sent to peers).
+     */
+    public String nextConnectionId() {
+        return nextId();
+    }
+
+
+    /**
+     * Reads the creation time (epoch milliseconds) back from an ID.
+     */
+    static long timestampOf(String id) {
+        long time = 0;
+        for (int i = 0; i < TIME_CHARS; i++) {
+            time = (time << 5) | decode(id.charAt(i));
+        }
+        return time;
+    }
+
+
+    private String format(long time, int random6, long random64) {
+        char[] chars = new char[LENGTH];
+
+        // 48-bit timestamp in the first 10 characters (50 bits, top 2 always zero)
+        long remaining = time & 0xFFFF_FFFF_FFFFL;
+        for (int i = TIME_CHARS - 1; i >= 0; i--) {
+            chars[i] = ALPHABET[(int) (remaining & 31)];
+            remaining >>>= 5;
+        }
+
+        // 80 bits: node ID, then 70 random bits (6 in high, 64 in low)
+        long high = ((long) nodeId << 6) | (random6 & 0x3F);
+        long low = random64;
+        for (int i = LENGTH - 1; i >= TIME_CHARS; i--) {
+            chars[i] = ALPHABET[(int) (low & 31)];
+            low = (low >>> 5) | (high << 59);
+            high >>>= 5;
+        }
+        return new String(chars);
+    }
+
+
+    private static int decode(char c) {
+        for (int i = 0; i < ALPHABET.length; i++) {
+            if (ALPHABET[i] == c) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Not a base32 ID character: " + c);
+    }
+
+
+    /**
+     * Per-thread block of SecureRandom output, refilled when used up.
+     */
+    private static final class SecureBytes {
+        private final SecureRandom random = newSecureRandom();
+        private final byte[] bytes = new byte[RANDOM_BYTES * 113];
+        private int position = bytes.length;
+
+        /**
+         * Offset of the next {@code RANDOM_BYTES} unused bytes.
+         */
+        private int take() {
+            if (position == bytes.length) {
+                random.nextBytes(bytes);
+                position = 0;
+            }
+            int offset = position;
+            position += RANDOM_BYTES;
+            return offset;
+        }
+
+        private static SecureRandom newSecureRandom() {
+            try {
+                return SecureRandom.getInstance("DRBG");
+            } catch (NoSuchAlgorithmException e) {
+                return new SecureRandom();
+            }
+        }
+    }
+}
@@ -0,0 +1,255 @@
+/**
+ * Staged inbound processing.
+ */
+
+package com.opty.socket.service;
+
+
+/**
+ * IMPORTS
+ */
+import com.opty.socket.config.AppConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * CODE
+ */
+
+/**
+ * Takes inbound frames off the receiving threads (servlet container, legacy socket loops).
+ *
+ * Decoding, routing and delivery run on N lanes, each a bounded queue drained by one
+ * thread. A connection always maps to the same lane, so its frames are handled in arrival
+ * order, and since each recipient only hears from its peer, every session keeps its order
+ * in both directions. Persisting is the next stage, on the message store's own writer
+ * (see {@link com.opty.socket.storage.AsyncMessageStore}).
+ *
+ * Meters, tagged stage=dispatch: opty.pipeline.queue.depth (gauge),
+ * opty.pipeline.process (timer, its count is the throughput) and opty.pipeline.rejected.
+ */
+@Slf4j
+@Service
+public class InboundPipeline {
+
+    // --- ATTRIBUTES ---
+    static final String STAGE = "dispatch";
+
+    private final Lane[] lanes;
+    private final long cleanupWaitMillis;
+    private final Timer processTimer;
+    private final Counter rejectedCounter;
+    // Queued or running on a lane
+    private final AtomicInteger pending = new AtomicInteger();
+    private volatile boolean accepting = true;
+
+
+    @Autowired
+    public InboundPipeline(AppConfig appConfig, MeterRegistry meterRegistry) {
+        this.processTimer = Timer.builder("opty.pipeline.process")
+                .description("Time to process one queued task")
+                .tag("stage", STAGE)
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("opty.pipeline.rejected")
+                .description("Tasks rejected because their lane was full")
+                .tag("stage", STAGE)
+                .register(meterRegistry);
+        Gauge.builder("opty.pipeline.queue.depth", this, InboundPipeline::queueDepth)
+                .description("Tasks waiting in the stage")
+                .tag("stage", STAGE)
+                .register(meterRegistry);
+
+        AppConfig.PipelineConfig config = appConfig.getPipeline();
+        this.cleanupWaitMillis = config.getCleanupWaitMs();
+        if (config.isEnabled()) {
+            int count = config.getLanes() > 0 ? config.getLanes() : Runtime.getRuntime().availableProcessors();
+            lanes = new Lane[count];
+            for (int i = 0; i < count; i++) {
+                lanes[i] = new Lane(i, config.getLaneCapacity());
+            }
+            log.info("Inbound pipeline: lanes={}, laneCapacity={}", count, config.getLaneCapacity());
+        } else {
+            lanes = null;
+        }
+    }
+
+
+    public InboundPipeline(AppConfig appConfig) {
+        this(appConfig, new SimpleMeterRegistry());
+    }
+
+
+    /**
+     * Queues a frame's processing on the connection's lane, or runs it here when the
+     * pipeline is disabled or closed.
+     *
+     * @param connectionId the sender's connection ID (picks the lane)
+     * @param task         the processing of one frame
+     * @return false if the lane is full and the frame was dropped
+     */
+    public boolean submit(String connectionId, Runnable task) {
+        if (lanes == null || !accepting) {
+            runTimed(task);
+            return true;
+        }
+        pending.incrementAndGet();
+        if (laneFor(connectionId).queue.offer(task)) {
+            return true;
+        }
+        pending.decrementAndGet();
+        rejectedCounter.increment();
+        return false;
+    }
+
+
+    /**
+     * Like {@link #submit}, but never drops the task. For steps that should run after the
+     * frames already queued, such as a disconnect cleanup.
+     *
+     * Waits up to opty.socket.pipeline.cleanup-wait-ms for room in the lane, then runs the
+     * task here: the caller is usually a container thread, which must not stall behind a
+     * lane flooded by other connections. Only then can the task run before the frames still
+     * queued for the connection.
+     */
+    public void submitAndWait(String connectionId, Runnable task) {
+        if (lanes == null || !accepting) {
+            runTimed(task);
+            return;
+        }
+        pending.incrementAndGet();
+        boolean queued = false;
+        try {
+            queued = laneFor(connectionId).queue.offer(task, cleanupWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queued) {
+            pending.decrementAndGet();
+            log.warn("Inbound lane full, running task on the caller: connectionId={}", connectionId);
+            runTimed(task);
+        }
+    }
+
+
+    /**
+     * Waits until every lane is empty and idle.
+     *
+     * @param timeoutMillis how long to wait
+     * @return true if drained in time
+     */
+    public boolean awaitIdle(long timeoutMillis) {
+        if (lanes == null) {
+            return true;
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (pending.get() > 0) {
+            if (System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    /**
+     * Tasks waiting in all lanes.
+     */
+    public int queueDepth() {
+        if (lanes == null) {
+            return 0;
+        }
+        int depth = 0;
+        for (Lane lane : lanes) {
+            depth += lane.queue.size();
+        }
+        return depth;
+    }
+
+
+    /**
+     * Lets the queued tasks finish, then stops the lanes. Later submissions run inline.
+     */
+    @PreDestroy
+    public void close() {
+        if (lanes == null) {
+            return;
+        }
+        accepting = false;
+        if (!awaitIdle(5_000)) {
+            log.warn("Inbound pipeline closed with tasks still queued: queued={}", queueDepth());
+        }
+        for (Lane lane : lanes) {
+            lane.worker.interrupt();
+        }
+    }
+
+
+    private Lane laneFor(String connectionId) {
+        int hash = connectionId != null ? connectionId.hashCode() : 0;
+        return lanes[Math.floorMod(hash ^ (hash >>> 16), lanes.length)];
+    }
+
+
+    private void runTimed(Runnable task) {
+        long startedAt = System.nanoTime();
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            log.error("Inbound task failed: error={}", e.getMessage(), e);
+        } finally {
+            processTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+
+
+    /**
+     * A bounded queue and the thread that drains it.
+     */
+    private final class Lane implements Runnable {
+        private final BlockingQueue<Runnable> queue;
+        private final Thread worker;
+
+        private Lane(int index, int capacity) {
+            queue = new ArrayBlockingQueue<>(capacity);
+            worker = new Thread(this, "inbound-lane-" + index);
+            worker.setDaemon(true);
+            worker.start();
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                Runnable task;
+                try {
+                    task = queue.take();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                try {
+                    runTimed(task);
+                } finally {
+                    pending.decrementAndGet();
+                }
+            }
+        }
+    }
+}
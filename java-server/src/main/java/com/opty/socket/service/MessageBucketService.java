@@ -0,0 +1,280 @@
+/**
+ * Bucket-pattern message persistence.
+ */
+
+package com.opty.socket.service;
+
+
+/**
+ * IMPORTS
+ */
+import com.opty.socket.config.AppConfig;
+import com.opty.socket.model.ChatMessageBucket;
+import com.opty.socket.model.ChatMessageDocument;
+import com.opty.socket.storage.MessageStore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+
+/**
+ * CODE
+ */
+
+/**
+ * Appends chat messages into bounded per-session bucket documents.
+ *
+ * Each bucket holds up to maxMessages messages of one session and channel within
+ * maxSpanMinutes. Appends are single $push upserts, so a transcript is read with
+ * one indexed query returning a handful of documents.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MessageBucketService {
+
+    // --- ATTRIBUTES ---
+    private static final int MIGRATION_BULK_SIZE = 100;
+    private static final String MIGRATION_INDEX = "sessionId_channelType_timestamp";
+
+    private final AppConfig appConfig;
+    private final MongoTemplate mongoTemplate;
+    private final TaskScheduler taskScheduler;
+
+
+    /**
+     * Prepares the bucket collection and starts the migration when bucket mode is active.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (appConfig.getStorage().getBackend() != AppConfig.StorageBackend.MONGO
+                || appConfig.getStorage().getMode() != AppConfig.StorageMode.BUCKET) {
+            return;
+        }
+
+        taskScheduler.schedule(() -> {
+            try {
+                ensureIndexes();
+                if (appConfig.getStorage().getBucket().isMigrateOnStartup()) {
+                    migrate();
+                }
+            } catch (Exception e) {
+                log.error("Failed to prepare message buckets: error={}", e.getMessage());
+            }
+        }, Instant.now());
+    }
+
+
+    /**
+     * Appends a message to the open bucket of its session, creating a new bucket when the
+     * current one is full or older than the configured span.
+     *
+     * @param document the message to store
+     */
+    public void append(ChatMessageDocument document) {
+        AppConfig.BucketConfig bucket = appConfig.getStorage().getBucket();
+        Instant timestamp = document.getTimestamp() != null ? document.getTimestamp() : Instant.now();
+        Instant windowStart = timestamp.minus(Duration.ofMinutes(bucket.getMaxSpanMinutes()));
+
+        // Equality fields are copied into the new bucket on insert
+        Query openBucket = Query.query(Criteria.where("sessionId").is(document.getSessionId())
+                .and("channelType").is(document.getChannelType())
+                .and("count").lt(bucket.getMaxMessages())
+                .and("startTime").gt(windowStart));
+
+        Update update = new Update()
+                .push("messages", new ChatMessageBucket.Entry(document))
+                .inc("count", 1)
+                .max("endTime", timestamp)
+                .setOnInsert("startTime", timestamp);
+
+        mongoTemplate.upsert(openBucket, update, ChatMessageBucket.class, bucket.getCollection());
+    }
+
+
+    /**
+     * Reads the full transcript of a session, in session sequence order.
+     *
+     * @param sessionId the session ID
+     * @return messages of all channels in the session
+     */
+    public List<ChatMessageDocument> findTranscript(String sessionId) {
+        Query query = Query.query(Criteria.where("sessionId").is(sessionId))
+                .with(Sort.by("startTime"));
+
+        List<ChatMessageDocument> transcript = new ArrayList<>();
+        for (ChatMessageBucket bucket : mongoTemplate.find(query, ChatMessageBucket.class,
+                appConfig.getStorage().getBucket().getCollection())) {
+            transcript.addAll(bucket.toDocuments());
+        }
+
+        // Buckets of different channels interleave in time
+        transcript.sort(MessageStore.TRANSCRIPT_ORDER);
+        return transcript;
+    }
+
+
+    /**
+     * Creates the transcript index and the TTL index on the bucket collection.
+     */
+    public void ensureIndexes() {
+        String collection = appConfig.getStorage().getBucket().getCollection();
+        IndexOperations indexOps = mongoTemplate.indexOps(collection);
+
+        indexOps.ensureIndex(new Index()
+                .on("sessionId", Sort.Direction.ASC)
+                .on("channelType", Sort.Direction.ASC)
+                .on("startTime", Sort.Direction.ASC)
+                .named("sessionId_channelType_startTime"));
+
+        if (appConfig.getStorage().getRetention().isEnabled()) {
+            indexOps.ensureIndex(new Index()
+                    .on("endTime", Sort.Direction.ASC)
+                    .expire(Duration.ofDays(appConfig.getStorage().getRetention().getTtlDays()))
+                    .named("endTime_ttl"));
+        }
+
+        log.info("Message bucket indexes ready: collection={}", collection);
+    }
+
+
+    /**
+     * Copies the per-message collection into buckets.
+     *
+     * Bucket ids are derived from the first message id of each bucket and buckets that
+     * already exist are skipped, so the migration can be interrupted and run again without
+     * overwriting messages appended to a migrated bucket since. Source documents are left
+     * in place and can be dropped once the migrated transcripts have been verified.
+     *
+     * @return number of migrated messages
+     */
+    public long migrate() {
+        AppConfig.BucketConfig config = appConfig.getStorage().getBucket();
+        long startedAt = System.nanoTime();
+        long migrated = 0;
+
+        // Index-backed sort, so the cursor never needs an in-memory sort of the collection
+        mongoTemplate.indexOps(ChatMessageDocument.class).ensureIndex(new Index()
+                .on("sessionId", Sort.Direction.ASC)
+                .on("channelType", Sort.Direction.ASC)
+                .on("timestamp", Sort.Direction.ASC)
+                .named(MIGRATION_INDEX));
+        Query allMessages = new Query()
+                .with(Sort.by("sessionId", "channelType", "timestamp"))
+                .allowDiskUse(true);
+        List<ChatMessageBucket> pending = new ArrayList<>(MIGRATION_BULK_SIZE);
+        ChatMessageBucket current = null;
+
+        try (Stream<ChatMessageDocument> stream = mongoTemplate.stream(allMessages, ChatMessageDocument.class)) {
+            Iterator<ChatMessageDocument> cursor = stream.iterator();
+
+            while (cursor.hasNext()) {
+                ChatMessageDocument document = cursor.next();
+
+                // Close the current bucket when the session/channel changes or a bound is hit
+                if (current == null || !fitsInBucket(current, document, config)) {
+                    if (current != null) {
+                        pending.add(current);
+                    }
+                    current = newBucket(document);
+                }
+
+                current.getMessages().add(new ChatMessageBucket.Entry(document));
+                current.setCount(current.getCount() + 1);
+                current.setEndTime(document.getTimestamp());
+                migrated++;
+
+                // Flush in bounded bulks to keep memory constant
+                if (pending.size() >= MIGRATION_BULK_SIZE) {
+                    insertMissing(pending, config.getCollection());
+                    pending.clear();
+                }
+            }
+        }
+
+        if (current != null) {
+            pending.add(current);
+        }
+        insertMissing(pending, config.getCollection());
+
+        log.info("Migrated {} messages into buckets in {} ms", migrated, (System.nanoTime() - startedAt) / 1_000_000);
+        return migrated;
+    }
+
+
+    /**
+     * Checks whether a document belongs to the bucket being built.
+     */
+    private boolean fitsInBucket(ChatMessageBucket bucket, ChatMessageDocument document, AppConfig.BucketConfig config) {
+        if (!Objects.equals(bucket.getSessionId(), document.getSessionId())
+                || !Objects.equals(bucket.getChannelType(), document.getChannelType())) {
+            return false;
+        }
+        if (bucket.getCount() >= config.getMaxMessages()) {
+            return false;
+        }
+        return document.getTimestamp() == null || bucket.getStartTime() == null
+                || Duration.between(bucket.getStartTime(), document.getTimestamp()).toMinutes() < config.getMaxSpanMinutes();
+    }
+
+
+    /**
+     * Starts a migration bucket keyed by its first message.
+     */
+    private ChatMessageBucket newBucket(ChatMessageDocument first) {
+        ChatMessageBucket bucket = new ChatMessageBucket();
+        bucket.setId("migrated-" + first.getId());
+        bucket.setSessionId(first.getSessionId());
+        bucket.setChannelType(first.getChannelType());
+        bucket.setStartTime(first.getTimestamp());
+        return bucket;
+    }
+
+
+    /**
+     * Inserts the buckets not written by an earlier run. Existing ones may have received
+     * live appends since, so they are left untouched.
+     */
+    private void insertMissing(List<ChatMessageBucket> buckets, String collection) {
+        if (buckets.isEmpty()) {
+            return;
+        }
+
+        List<String> ids = buckets.stream().map(ChatMessageBucket::getId).toList();
+        Query existingQuery = Query.query(Criteria.where("_id").in(ids));
+        existingQuery.fields().include("_id");
+        Set<String> existing = mongoTemplate.find(existingQuery, ChatMessageBucket.class, collection).stream()
+                .map(ChatMessageBucket::getId)
+                .collect(Collectors.toSet());
+
+        List<ChatMessageBucket> missing = buckets.stream()
+                .filter(bucket -> !existing.contains(bucket.getId()))
+                .toList();
+        if (!missing.isEmpty()) {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, collection)
+                    .insert(missing)
+                    .execute();
+        }
+    }
+}
@@ -0,0 +1,564 @@
+/**
+ * Message JSON codec.
+ */
+
+package com.opty.socket.service;
+
+
+/**
+ * IMPORTS
+ */
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.json.JsonWriteFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.opty.socket.config.AppConfig;
+import com.opty.socket.jfr.SerializationEvent;
+import com.opty.socket.model.Message;
+import com.opty.socket.model.MessageType;
+import com.opty.socket.model.payload.MessagePayload;
+import com.opty.socket.model.payload.TextPayload;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+/**
+ * CODE
+ */
+
+/**
+ * Encodes and decodes {@link Message} on the WebSocket hot path.
+ *
+ * Decoding uses an ObjectReader resolved once at startup. Encoding is hand-written into a
+ * per-thread reusable buffer, with field keys and enum names pre-encoded and the timestamp
+ * formatted without DateTimeFormatter. The output is identical to the ObjectMapper's
+ * (checked by MessageCodecTest against random messages); payloads holding types other than
+ * strings, booleans, integral and finite floating-point numbers, maps and collections,
+ * and mappers configured differently from the defaults below, go through the precompiled
+ * ObjectWriter instead.
+ *
+ * Each call is a com.opty.socket.Serialization flight recorder event when recording.
+ */
+@Component
+public class MessageCodec {
+
+    // --- ATTRIBUTES ---
+    // Buffers that grew past this size (a huge payload) are not kept for reuse
+    private static final int MAX_RETAINED_CAPACITY = 16 * 1024;
+
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    private static final String[] TYPE_FIELDS = preEncodeTypes();
+
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(512));
+
+    private final JsonFactory jsonFactory;
+    private final ObjectReader reader;
+    private final ObjectWriter writer;
+    private final int maxFrameChars;
+    private final boolean handWritten;
+    // Whether null map values are left out (NON_NULL default inclusion)
+    private final boolean skipNullValues;
+
+
+    /**
+     * Result of {@link #scan}: the routing fields and the frame as received.
+     */
+    public record Frame(Message message, String json) {
+    }
+
+
+    public MessageCodec(ObjectMapper objectMapper) {
+        this(objectMapper, new AppConfig());
+    }
+
+
+    @Autowired
+    public MessageCodec(ObjectMapper objectMapper, AppConfig appConfig) {
+        this.jsonFactory = objectMapper.getFactory();
+        this.maxFrameChars = appConfig.getMessage().getMaxSize();
+        this.reader = objectMapper.readerFor(Message.class);
+        this.writer = objectMapper.writerFor(Message.class);
+
+        // Ask the writer how it treats null map values instead of mirroring Jackson's inclusion rules
+        String nullProbe = probeNullValues();
+        this.skipNullValues = "{\"payload\":{\"b\":{}}}".equals(nullProbe);
+        this.handWritten = matchesHandWrittenFormat(objectMapper)
+                && (skipNullValues || "{\"payload\":{\"a\":null,\"b\":{\"c\":null}}}".equals(nullProbe));
+    }
+
+
+    /**
+     * Parses a JSON message.
+     */
+    public Message decode(String json) throws IOException {
+        SerializationEvent event = new SerializationEvent();
+        event.begin();
+        Message message = null;
+        try {
+            message = reader.readValue(json);
+            return message;
+        } finally {
+            commit(event, "decode", message, json);
+        }
+    }
+
+
+    /**
+     * Token scan of a chat frame, for forwarding it unchanged instead of decoding and
+     * re-encoding it.
+     *
+     * Accepts only a single MESSAGE object no larger than opty.socket.message.max-size, with
+     * no fields besides sessionId, from, type, payload and timestamp, and a payload holding
+     * only string "text" and "timestamp". Anything else (including a client-sent seq, which
+     * the server replaces) returns null and goes through {@link #decode}, which also reports
+     * the errors.
+     */
+    public Frame scan(String json) {
+        SerializationEvent event = new SerializationEvent();
+        event.begin();
+        Frame frame = scanFrame(json);
+        commit(event, "scan", frame != null ? frame.message() : null, json);
+        return frame;
+    }
+
+
+    private Frame scanFrame(String json) {
+        if (json.length() > maxFrameChars) {
+            return null;
+        }
+        String sessionId = null;
+        String from = null;
+        boolean chat = false;
+        String text = null;
+        String sentAt = null;
+        Instant timestamp = null;
+        int seen = 0;
+
+        try (JsonParser parser = jsonFactory.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            for (String field = parser.nextFieldName(); field != null; field = parser.nextFieldName()) {
+                JsonToken token = parser.nextToken();
+                int bit = switch (field) {
+                    case "sessionId" -> 1;
+                    case "from" -> 2;
+                    case "type" -> 4;
+                    case "payload" -> 8;
+                    case "timestamp" -> 16;
+                    default -> 0;
+                };
+                if (bit == 0 || (seen & bit) != 0) {
+                    return null;
+                }
+                seen |= bit;
+
+                if (bit == 8) {
+                    if (token != JsonToken.START_OBJECT) {
+                        return null;
+                    }
+                    for (String key = parser.nextFieldName(); key != null; key = parser.nextFieldName()) {
+                        if (parser.nextToken() != JsonToken.VALUE_STRING) {
+                            return null;
+                        }
+                        if ("text".equals(key) && text == null) {
+                            text = parser.getText();
+                        } else if ("timestamp".equals(key) && sentAt == null) {
+                            sentAt = parser.getText();
+                        } else {
+                            return null;
+                        }
+                    }
+                } else if (token == JsonToken.VALUE_NULL) {
+                    if (bit == 4) {
+                        return null;
+                    }
+                } else if (token != JsonToken.VALUE_STRING) {
+                    return null;
+                } else {
+                    switch (bit) {
+                        case 1 -> sessionId = parser.getText();
+                        case 2 -> from = parser.getText();
+                        case 4 -> chat = "MESSAGE".equals(parser.getText());
+                        default -> timestamp = Instant.parse(parser.getText());
+                    }
+                    if (bit == 4 && !chat) {
+                        return null;
+                    }
+                }
+            }
+            // Exactly one value: trailing content is left to the full parser
+            if (parser.nextToken() != null || !chat) {
+                return null;
+            }
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+
+        Map<String, Object> payload = (seen & 8) != 0 ? new TextPayload(text, sentAt) : null;
+        return new Frame(new Message(sessionId, from, MessageType.MESSAGE, payload, timestamp), json);
+    }
+
+
+    /**
+     * Adds the sequence number to a frame accepted by {@link #scan}, as the last field like
+     * {@link #encode} writes it.
+     */
+    public static String withSeq(String json, long seq) {
+        int close = json.lastIndexOf('}');
+        int end = close;
+        while (Character.isWhitespace(json.charAt(end - 1))) {
+            end--;
+        }
+        return new StringBuilder(json.length() + 24)
+                .append(json, 0, end)
+                .append(",\"seq\":").append(seq)
+                .append(json, close, json.length())
+                .toString();
+    }
+
+
+    /**
+     * Serializes a message to the same JSON the ObjectMapper would produce.
+     */
+    public String encode(Message message) throws IOException {
+        SerializationEvent event = new SerializationEvent();
+        event.begin();
+        String json = null;
+        try {
+            json = encodeJson(message);
+            return json;
+        } finally {
+            commit(event, "encode", message, json);
+        }
+    }
+
+
+    private String encodeJson(Message message) throws IOException {
+        if (!handWritten || !isSupported(message.payload(), 0)) {
+            return writer.writeValueAsString(message);
+        }
+
+        StringBuilder out = BUFFER.get();
+        out.setLength(0);
+        try {
+            char separator = '{';
+            if (message.sessionId() != null) {
+                out.append(separator).append("\"sessionId\":");
+                writeString(out, message.sessionId());
+                separator = ',';
+            }
+            if (message.from() != null) {
+                out.append(separator).append("\"from\":");
+                writeString(out, message.from());
+                separator = ',';
+            }
+            if (message.type() != null) {
+                out.append(separator).append(TYPE_FIELDS[message.type().ordinal()]);
+                separator = ',';
+            }
+            if (message.payload() != null) {
+                out.append(separator).append("\"payload\":");
+                writeMap(out, message.payload());
+                separator = ',';
+            }
+            if (message.timestamp() != null) {
+                out.append(separator).append("\"timestamp\":\"");
+                writeInstant(out, message.timestamp());
+                out.append('"');
+                separator = ',';
+            }
+            if (message.seq() != null) {
+                out.append(separator).append("\"seq\":").append(message.seq().longValue());
+                separator = ',';
+            }
+            if (separator == '{') {
+                out.append('{');
+            }
+            return out.append('}').toString();
+        } finally {
+            if (out.capacity() > MAX_RETAINED_CAPACITY) {
+                BUFFER.remove();
+            }
+        }
+    }
+
+
+    private static void commit(SerializationEvent event, String operation, Message message, String json) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.messageType = message != null && message.type() != null ? message.type().name() : null;
+            event.length = json != null ? json.length() : 0;
+            event.commit();
+        }
+    }
+
+
+    /**
+     * Checks the payload only holds values the hand-written encoder formats like Jackson.
+     */
+    private static boolean isSupported(Object value, int depth) {
+        if (depth > 32) {
+            return false;
+        }
+        if (value == null || value instanceof String || value instanceof Boolean
+                || value instanceof Integer || value instanceof Long
+                || value instanceof Short || value instanceof Byte) {
+            return true;
+        }
+        if (value instanceof Double number) {
+            return Double.isFinite(number);
+        }
+        if (value instanceof Float number) {
+            return Float.isFinite(number);
+        }
+        if (value instanceof MessagePayload payload) {
+            for (int i = 0; i < payload.fieldNames().size(); i++) {
+                if (!isSupported(payload.fieldValue(i), depth + 1)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (value instanceof Map<?, ?> map) {
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                if (!(entry.getKey() instanceof String) || !isSupported(entry.getValue(), depth + 1)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (value instanceof Collection<?> collection) {
+            for (Object element : collection) {
+                if (!isSupported(element, depth + 1)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+
+    private void writeValue(StringBuilder out, Object value) {
+        if (value == null) {
+            out.append("null");
+        } else if (value instanceof String text) {
+            writeString(out, text);
+        } else if (value instanceof Map<?, ?> map) {
+            writeMap(out, map);
+        } else if (value instanceof Collection<?> collection) {
+            char separator = '[';
+            for (Object element : collection) {
+                out.append(separator);
+                writeValue(out, element);
+                separator = ',';
+            }
+            if (separator == '[') {
+                out.append('[');
+            }
+            out.append(']');
+        } else {
+            // Boolean and numbers: Jackson uses the same toString() forms
+            out.append(value);
+        }
+    }
+
+
+    private void writeMap(StringBuilder out, Map<?, ?> map) {
+        if (map instanceof MessagePayload payload) {
+            writePayload(out, payload);
+            return;
+        }
+        char separator = '{';
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            if (entry.getValue() == null && skipNullValues) {
+                continue;
+            }
+            out.append(separator);
+            writeString(out, (String) entry.getKey());
+            out.append(':');
+            writeValue(out, entry.getValue());
+            separator = ',';
+        }
+        if (separator == '{') {
+            out.append('{');
+        }
+        out.append('}');
+    }
+
+
+    /**
+     * Writes a typed payload field by field, without going through its Map view.
+     */
+    private void writePayload(StringBuilder out, MessagePayload payload) {
+        char separator = '{';
+        for (int i = 0; i < payload.fieldNames().size(); i++) {
+            Object value = payload.fieldValue(i);
+            if (value == null) {
+                continue;
+            }
+            out.append(separator);
+            writeString(out, payload.fieldNames().get(i));
+            out.append(':');
+            writeValue(out, value);
+            separator = ',';
+        }
+        if (separator == '{') {
+            out.append('{');
+        }
+        out.append('}');
+    }
+
+
+    /**
+     * Writes a quoted string with Jackson's default escaping: quote, backslash and control
+     * characters only, short forms for \b \t \n \f \r and uppercase hex escapes for the rest.
+     */
+    private static void writeString(StringBuilder out, String text) {
+        out.append('"');
+        int length = text.length();
+        int plainFrom = 0;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') {
+                continue;
+            }
+            out.append(text, plainFrom, i);
+            plainFrom = i + 1;
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\b' -> out.append("\\b");
+                case '\t' -> out.append("\\t");
+                case '\n' -> out.append("\\n");
+                case '\f' -> out.append("\\f");
+                case '\r' -> out.append("\\r");
+                default -> out.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xF]);
+            }
+        }
+        out.append(text, plainFrom, length).append('"');
+    }
+
+
+    /**
+     * Writes an Instant like DateTimeFormatter.ISO_INSTANT: fraction in groups of 3 digits,
+     * omitted when zero.
+     */
+    static void writeInstant(StringBuilder out, Instant instant) {
+        long seconds = instant.getEpochSecond();
+        long epochDay = Math.floorDiv(seconds, 86_400);
+        int secondOfDay = (int) Math.floorMod(seconds, 86_400);
+
+        // Civil date from days since 1970-01-01 (proleptic Gregorian)
+        long z = epochDay + 719_468;
+        long era = Math.floorDiv(z, 146_097);
+        long dayOfEra = z - era * 146_097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1_460 + dayOfEra / 36_524 - dayOfEra / 146_096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long monthIndex = (5 * dayOfYear + 2) / 153;
+        int day = (int) (dayOfYear - (153 * monthIndex + 2) / 5 + 1);
+        int month = (int) (monthIndex < 10 ? monthIndex + 3 : monthIndex - 9);
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+
+        if (year < 0 || year > 9999) {
+            // Signed or expanded years: rare enough to leave to the JDK
+            out.append(instant);
+            return;
+        }
+        pad(out, (int) year, 4);
+        out.append('-');
+        pad(out, month, 2);
+        out.append('-');
+        pad(out, day, 2);
+        out.append('T');
+        pad(out, secondOfDay / 3_600, 2);
+        out.append(':');
+        pad(out, secondOfDay / 60 % 60, 2);
+        out.append(':');
+        pad(out, secondOfDay % 60, 2);
+
+        int nanos = instant.getNano();
+        if (nanos != 0) {
+            out.append('.');
+            if (nanos % 1_000_000 == 0) {
+                pad(out, nanos / 1_000_000, 3);
+            } else if (nanos % 1_000 == 0) {
+                pad(out, nanos / 1_000, 6);
+            } else {
+                pad(out, nanos, 9);
+            }
+        }
+        out.append('Z');
+    }
+
+
+    private static void pad(StringBuilder out, int value, int digits) {
+        for (int divisor = pow10(digits - 1); divisor > 1 && value < divisor; divisor /= 10) {
+            out.append('0');
+        }
+        out.append(value);
+    }
+
+
+    private static int pow10(int exponent) {
+        int result = 1;
+        for (int i = 0; i < exponent; i++) {
+            result *= 10;
+        }
+        return result;
+    }
+
+
+    private String probeNullValues() {
+        Map<String, Object> nested = new HashMap<>();
+        nested.put("c", null);
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("a", null);
+        payload.put("b", nested);
+        try {
+            return writer.writeValueAsString(new Message(null, null, null, payload, null));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+
+    private static String[] preEncodeTypes() {
+        MessageType[] types = MessageType.values();
+        String[] fields = new String[types.length];
+        for (MessageType type : types) {
+            fields[type.ordinal()] = "\"type\":\"" + type.name() + "\"";
+        }
+        return fields;
+    }
+
+
+    /**
+     * The hand-written encoder assumes ISO-8601 dates, compact output, insertion-ordered
+     * map entries and no extra escaping.
+     */
+    private static boolean matchesHandWrittenFormat(ObjectMapper objectMapper) {
+        return !objectMapper.isEnabled(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                && !objectMapper.isEnabled(SerializationFeature.INDENT_OUTPUT)
+                && !objectMapper.isEnabled(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+                && !objectMapper.isEnabled(SerializationFeature.WRITE_DATES_WITH_ZONE_ID)
+                && !objectMapper.isEnabled(JsonWriteFeature.ESCAPE_NON_ASCII.mappedFeature())
+                && !objectMapper.isEnabled(JsonWriteFeature.WRITE_NUMBERS_AS_STRINGS.mappedFeature())
+                && objectMapper.isEnabled(JsonWriteFeature.QUOTE_FIELD_NAMES.mappedFeature())
+                && objectMapper.getFactory().getCharacterEscapes() == null;
+    }
+}
@@ -0,0 +1,324 @@
+/**
+ * Streaming message export service.
+ */
+
+package com.opty.socket.service;
+
+
+/**
+ * IMPORTS
+ */
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.opty.socket.config.AppConfig;
+import com.opty.socket.model.ChatMessageDocument;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+
+/**
+ * CODE
+ */
+
+/**
+ * Streams stored messages as gzip-compressed NDJSON, one message per line.
+ *
+ * Messages are read from a MongoDB cursor in _id order, opty.socket.storage.export.batch-size
+ * at a time, and written straight to the output, so memory use does not depend on the
+ * range. The stream is flushed every flush-every lines on a line boundary; a client that
+ * loses the connection resumes with the id of its last complete line as {@code after}.
+ *
+ * Meters: opty.export.messages and opty.export.bytes (compressed; both updated while an
+ * export runs, so their rate is the throughput), opty.export.duration (timer, tagged
+ * outcome=completed|aborted) and opty.export.active (gauge).
+ */
+@Slf4j
+@Service
+public class MessageExportService {
+
+    // --- ATTRIBUTES ---
+    private static final String ID_FIELD = "_id";
+    private static final String TIMESTAMP_FIELD = "timestamp";
+    private static final String ID_INDEX = "_id_";
+
+    private final AppConfig appConfig;
+    private final MongoTemplate mongoTemplate;
+    private final ObjectWriter writer;
+    private final Semaphore permits;
+
+    private final Counter messagesCounter;
+    private final Counter bytesCounter;
+    private final Timer completedTimer;
+    private final Timer abortedTimer;
+
+
+    /**
+     * Which messages to export. Null fields do not filter.
+     *
+     * @param from    first timestamp included
+     * @param to      first timestamp excluded
+     * @param after   resume point: only messages with a greater id
+     * @param archive read the archive collection instead of the hot one
+     */
+    public record Filter(Instant from, Instant to, String channelType, String sessionId, String after,
+                         boolean archive) {
+    }
+
+
+    /**
+     * Outcome of an export.
+     *
+     * @param lastId id of the last message written, the resume point
+     */
+    public record Result(long messages, long bytes, String lastId, long durationMillis) {
+    }
+
+
+    public MessageExportService(AppConfig appConfig, MongoTemplate mongoTemplate, ObjectMapper objectMapper,
+                                MeterRegistry meterRegistry) {
+        this.appConfig = appConfig;
+        this.mongoTemplate = mongoTemplate;
+        // One flush per batch, not per value
+        this.writer = objectMapper.writerFor(ChatMessageDocument.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.permits = new Semaphore(appConfig.getStorage().getExport().getMaxConcurrent());
+
+        this.messagesCounter = Counter.builder("opty.export.messages")
+                .description("Messages written by exports")
+                .register(meterRegistry);
+        this.bytesCounter = Counter.builder("opty.export.bytes")
+                .description("Compressed bytes written by exports")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.completedTimer = duration(meterRegistry, "completed");
+        this.abortedTimer = duration(meterRegistry, "aborted");
+        int maxConcurrent = appConfig.getStorage().getExport().getMaxConcurrent();
+        Gauge.builder("opty.export.active", permits, p -> maxConcurrent - p.availablePermits())
+                .description("Exports running")
+                .register(meterRegistry);
+    }
+
+
+    /**
+     * Whether messages are stored one document each in MongoDB, the only layout exported.
+     */
+    public boolean isAvailable() {
+        return appConfig.getStorage().getBackend() == AppConfig.StorageBackend.MONGO
+                && appConfig.getStorage().getMode() == AppConfig.StorageMode.DOCUMENT;
+    }
+
+
+    /**
+     * Exports the matching messages to the output, which is left open.
+     *
+     * @throws IllegalStateException    if max-concurrent exports are running; nothing is written
+     * @throws IllegalArgumentException if the filter is invalid; nothing is written
+     * @throws IOException              if writing fails, usually because the client went away
+     */
+    public Result export(Filter filter, OutputStream out) throws IOException {
+        Query query = query(filter);
+        if (!permits.tryAcquire()) {
+            throw new IllegalStateException("Too many exports running");
+        }
+        String collection = filter.archive()
+                ? appConfig.getStorage().getRetention().getArchiveCollection()
+                : mongoTemplate.getCollectionName(ChatMessageDocument.class);
+
+        try (Stream<ChatMessageDocument> documents = mongoTemplate.stream(query, ChatMessageDocument.class, collection)) {
+            Result result = write(documents, out);
+            log.info("Export completed: collection={}, messages={}, bytes={}, durationMs={}, messagesPerSecond={}",
+                    collection, result.messages(), result.bytes(), result.durationMillis(),
+                    result.durationMillis() > 0 ? result.messages() * 1000 / result.durationMillis() : result.messages());
+            return result;
+        } finally {
+            permits.release();
+        }
+    }
+
+
+    /**
+     * Builds the cursor query: filters, _id order and batch size.
+     *
+     * @throws IllegalArgumentException if the range is empty or the resume point is not an id
+     */
+    Query query(Filter filter) {
+        if (filter.after() != null && !ObjectId.isValid(filter.after())) {
+            throw new IllegalArgumentException("Invalid resume point: " + filter.after());
+        }
+        // Without a session the _id index is walked (see below): the range bounds it too
+        boolean timeBoundIds = filter.sessionId() == null && (filter.from() != null || filter.to() != null);
+        Criteria criteria = new Criteria();
+        if (filter.after() != null || timeBoundIds) {
+            idRange(criteria.and(ID_FIELD), filter, timeBoundIds);
+        }
+        if (filter.from() != null || filter.to() != null) {
+            if (filter.from() != null && filter.to() != null && !filter.from().isBefore(filter.to())) {
+                throw new IllegalArgumentException("Empty time range");
+            }
+            Criteria range = criteria.and(TIMESTAMP_FIELD);
+            if (filter.from() != null) {
+                range.gte(filter.from());
+            }
+            if (filter.to() != null) {
+                range.lt(filter.to());
+            }
+        }
+        if (filter.channelType() != null) {
+            criteria.and("channelType").is(filter.channelType());
+        }
+        if (filter.sessionId() != null) {
+            criteria.and("sessionId").is(filter.sessionId());
+        }
+
+        Query query = Query.query(criteria).with(Sort.by(Sort.Direction.ASC, ID_FIELD));
+        query.cursorBatchSize(appConfig.getStorage().getExport().getBatchSize());
+
+        // Walk the _id index, already in order: the timestamp index would need an in-memory
+        // sort of the whole range. One session is small enough to sort.
+        if (filter.sessionId() == null) {
+            query.withHint(ID_INDEX);
+        }
+        return query;
+    }
+
+
+    /**
+     * Adds the resume point and, if asked, the bounds of the time range: ids carry their
+     * insert time, which is at or after the message timestamp and at most
+     * max-insert-lag-minutes later.
+     */
+    private void idRange(Criteria id, Filter filter, boolean timeBound) {
+        if (filter.after() != null) {
+            id.gt(new ObjectId(filter.after()));
+        }
+        if (!timeBound) {
+            return;
+        }
+        if (filter.from() != null) {
+            id.gte(firstIdAt(filter.from().getEpochSecond()));
+        }
+        if (filter.to() != null) {
+            Instant last = filter.to().plus(
+                    Duration.ofMinutes(appConfig.getStorage().getExport().getMaxInsertLagMinutes()));
+            // Ids have second precision: round up
+            id.lt(firstIdAt(last.getNano() > 0 ? last.getEpochSecond() + 1 : last.getEpochSecond()));
+        }
+    }
+
+
+    /**
+     * The smallest id generated in the given second; {@code new ObjectId(Date)} fills the rest
+     * with random bits and would skip part of that second.
+     */
+    static ObjectId firstIdAt(long epochSecond) {
+        return new ObjectId(String.format("%08x%016x", epochSecond, 0L));
+    }
+
+
+    /**
+     * Writes the documents as gzip-compressed NDJSON and finishes the gzip stream.
+     */
+    Result write(Stream<ChatMessageDocument> documents, OutputStream out) throws IOException {
+        int flushEvery = appConfig.getStorage().getExport().getFlushEvery();
+        long startedAt = System.nanoTime();
+        CountingOutputStream counted = new CountingOutputStream(out);
+        long messages = 0;
+        long reportedBytes = 0;
+        String lastId = null;
+        boolean completed = false;
+
+        try {
+            // Sync flush: what was written so far can be decompressed on the other side
+            GZIPOutputStream gzip = new GZIPOutputStream(counted, 64 * 1024, true);
+            JsonGenerator generator = writer.getFactory().createGenerator(gzip);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // Lines are separated by the newline alone, not Jackson's default space
+            generator.setRootValueSeparator(null);
+
+            Iterator<ChatMessageDocument> iterator = documents.iterator();
+            while (iterator.hasNext()) {
+                ChatMessageDocument document = iterator.next();
+                writer.writeValue(generator, document);
+                generator.writeRaw('\n');
+                lastId = document.getId();
+                messages++;
+
+                if (messages % flushEvery == 0) {
+                    generator.flush();
+                    messagesCounter.increment(flushEvery);
+                    bytesCounter.increment(counted.count - reportedBytes);
+                    reportedBytes = counted.count;
+                }
+            }
+
+            generator.flush();
+            gzip.finish();
+            out.flush();
+            completed = true;
+            return new Result(messages, counted.count, lastId,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+
+        } finally {
+            messagesCounter.increment(messages % flushEvery);
+            bytesCounter.increment(counted.count - reportedBytes);
+            (completed ? completedTimer : abortedTimer).record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+            if (!completed) {
+                log.info("Export aborted: messages={}, lastId={}", messages, lastId);
+            }
+        }
+    }
+
+
+    private static Timer duration(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("opty.export.duration")
+                .description("Export duration by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+
+    /**
+     * Counts the bytes passed through, without FilterOutputStream's byte-at-a-time writes.
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
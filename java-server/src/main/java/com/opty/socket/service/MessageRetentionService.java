@@ -0,0 +1,270 @@
+/**
+ * Message retention service.
+ */
+
+package com.opty.socket.service;
+
+
+/**
+ * IMPORTS
+ */
+import com.opty.socket.config.AppConfig;
+import com.opty.socket.model.ChatMessageDocument;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.UncategorizedMongoDbException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+
+/**
+ * CODE
+ */
+
+/**
+ * Keeps the hot messages collection bounded.
+ *
+ * Creates the session/timestamp, session/sequence and TTL indexes once the application is ready and
+ * periodically moves transcripts of idle sessions into the archive collection.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "opty.socket.storage.retention", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class MessageRetentionService {
+
+    // --- ATTRIBUTES ---
+    private static final String TIMESTAMP_FIELD = "timestamp";
+    private static final String SEQUENCE_FIELD = "sequence";
+    private static final String SESSION_ID_FIELD = "sessionId";
+    private static final String LAST_TIMESTAMP_FIELD = "lastTimestamp";
+    private static final int INDEX_OPTIONS_CONFLICT = 85;
+
+    private final AppConfig appConfig;
+    private final MongoTemplate mongoTemplate;
+    private final TaskScheduler taskScheduler;
+    private final AtomicBoolean indexesReady = new AtomicBoolean(false);
+
+
+    /**
+     * Schedules index creation off the startup thread, so a slow database never delays boot.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!isMongoDocumentStore()) {
+            return;
+        }
+        taskScheduler.schedule(this::ensureIndexes, Instant.now());
+    }
+
+
+    /**
+     * Creates the indexes used by transcript reads and the TTL expiration on both collections.
+     *
+     * @return true if all indexes are in place
+     */
+    public boolean ensureIndexes() {
+        AppConfig.RetentionConfig retention = appConfig.getStorage().getRetention();
+
+        // Hot window must be shorter than TTL, otherwise compaction never finds anything
+        if (retention.getHotDays() >= retention.getTtlDays()) {
+            log.warn("Retention hot window ({} days) is not shorter than TTL ({} days), compaction is a no-op",
+                    retention.getHotDays(), retention.getTtlDays());
+        }
+
+        try {
+            String hotCollection = mongoTemplate.getCollectionName(ChatMessageDocument.class);
+            ensureCollectionIndexes(hotCollection, retention.getTtlDays());
+            ensureCollectionIndexes(retention.getArchiveCollection(), retention.getTtlDays());
+
+            indexesReady.set(true);
+            log.info("Message retention indexes ready: collections=[{}, {}], ttlDays={}",
+                    hotCollection, retention.getArchiveCollection(), retention.getTtlDays());
+            return true;
+
+        } catch (Exception e) {
+            log.error("Failed to create message retention indexes: error={}", e.getMessage());
+            return false;
+        }
+    }
+
+
+    /**
+     * Moves transcripts of sessions idle for longer than the hot window into the archive collection.
+     *
+     * @return number of sessions moved
+     */
+    @Scheduled(
+            initialDelayString = "${opty.socket.storage.retention.compaction-initial-delay-ms:60000}",
+            fixedDelayString = "${opty.socket.storage.retention.compaction-interval-ms:3600000}"
+    )
+    public int compact() {
+        if (!isMongoDocumentStore()) {
+            return 0;
+        }
+
+        // Indexes not ready: the session scan would be a collection scan
+        if (!indexesReady.get() && !ensureIndexes()) {
+            return 0;
+        }
+
+        AppConfig.RetentionConfig retention = appConfig.getStorage().getRetention();
+        Instant cutoff = Instant.now().minus(Duration.ofDays(retention.getHotDays()));
+        long startedAt = System.nanoTime();
+
+        try {
+            List<String> idleSessionIds = findIdleSessionIds(cutoff, retention.getCompactionBatchSize());
+
+            int moved = 0;
+            for (String sessionId : idleSessionIds) {
+                if (moveSession(sessionId, cutoff, retention.getArchiveCollection())) {
+                    moved++;
+                }
+            }
+
+            if (moved > 0) {
+                log.info("Compacted {} idle sessions into {} in {} ms", moved,
+                        retention.getArchiveCollection(), (System.nanoTime() - startedAt) / 1_000_000);
+            }
+            return moved;
+
+        } catch (Exception e) {
+            log.error("Message compaction failed: error={}", e.getMessage());
+            return 0;
+        }
+    }
+
+
+    /**
+     * Finds the sessions idle the longest: those whose most recent message is older than
+     * the cutoff, oldest first, in a single aggregation.
+     *
+     * The sort matches the sessionId_timestamp index, so the group reads one entry per
+     * session instead of every message.
+     */
+    private List<String> findIdleSessionIds(Instant cutoff, int limit) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.sort(Sort.by(Sort.Direction.ASC, SESSION_ID_FIELD)
+                        .and(Sort.by(Sort.Direction.DESC, TIMESTAMP_FIELD))),
+                Aggregation.group(SESSION_ID_FIELD).first(TIMESTAMP_FIELD).as(LAST_TIMESTAMP_FIELD),
+                Aggregation.match(Criteria.where(LAST_TIMESTAMP_FIELD).lt(cutoff)),
+                Aggregation.sort(Sort.by(Sort.Direction.ASC, LAST_TIMESTAMP_FIELD)),
+                Aggregation.limit(limit)
+        ).withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+
+        return mongoTemplate.aggregate(aggregation, ChatMessageDocument.class, Document.class)
+                .getMappedResults()
+                .stream()
+                .map(doc -> doc.getString("_id"))
+                .filter(id -> id != null)
+                .collect(Collectors.toList());
+    }
+
+
+    /**
+     * Copies a session transcript into the archive and removes it from the hot collection.
+     *
+     * The copy is an upsert by id, so a run interrupted between both steps is safely repeated.
+     */
+    private boolean moveSession(String sessionId, Instant cutoff, String archiveCollection) {
+        Query sessionQuery = Query.query(Criteria.where(SESSION_ID_FIELD).is(sessionId)
+                        .and(TIMESTAMP_FIELD).lt(cutoff))
+                .with(Sort.by(TIMESTAMP_FIELD));
+
+        List<ChatMessageDocument> transcript = mongoTemplate.find(sessionQuery, ChatMessageDocument.class);
+        if (transcript.isEmpty()) {
+            return false;
+        }
+
+        // Upsert every message into the archive
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, archiveCollection);
+        for (ChatMessageDocument document : transcript) {
+            bulk.replaceOne(Query.query(Criteria.where("_id").is(document.getId())), document,
+                    FindAndReplaceOptions.options().upsert());
+        }
+        bulk.execute();
+
+        // Remove exactly the copied documents from the hot collection
+        List<String> ids = transcript.stream().map(ChatMessageDocument::getId).collect(Collectors.toList());
+        mongoTemplate.remove(Query.query(Criteria.where("_id").in(ids)), ChatMessageDocument.class);
+
+        log.debug("Session archived: sessionId={}, messages={}", sessionId, transcript.size());
+        return true;
+    }
+
+
+    /**
+     * Creates the compound session indexes (by timestamp and by sequence) and the TTL
+     * index, updating the TTL if it changed.
+     */
+    private void ensureCollectionIndexes(String collection, int ttlDays) {
+        IndexOperations indexOps = mongoTemplate.indexOps(collection);
+        indexOps.ensureIndex(new Index()
+                .on(SESSION_ID_FIELD, Sort.Direction.ASC)
+                .on(TIMESTAMP_FIELD, Sort.Direction.ASC)
+                .named("sessionId_timestamp"));
+        indexOps.ensureIndex(new Index()
+                .on(SESSION_ID_FIELD, Sort.Direction.ASC)
+                .on(SEQUENCE_FIELD, Sort.Direction.ASC)
+                .named("sessionId_sequence"));
+
+        Duration ttl = Duration.ofDays(ttlDays);
+        try {
+            indexOps.ensureIndex(new Index()
+                    .on(TIMESTAMP_FIELD, Sort.Direction.ASC)
+                    .expire(ttl)
+                    .named("timestamp_ttl"));
+
+        // TTL changed since the index was created: update it in place
+        } catch (UncategorizedMongoDbException | DataIntegrityViolationException e) {
+            if (!isIndexOptionsConflict(e)) {
+                throw e;
+            }
+            mongoTemplate.executeCommand(new Document("collMod", collection)
+                    .append("index", new Document("name", "timestamp_ttl")
+                            .append("expireAfterSeconds", ttl.getSeconds())));
+            log.info("TTL index updated: collection={}, ttlDays={}", collection, ttlDays);
+        }
+    }
+
+
+    /**
+     * Checks whether messages are stored one document each in MongoDB.
+     */
+    private boolean isMongoDocumentStore() {
+        return appConfig.getStorage().getBackend() == AppConfig.StorageBackend.MONGO
+                && appConfig.getStorage().getMode() == AppConfig.StorageMode.DOCUMENT;
+    }
+
+
+    /**
+     * Checks whether the failure is MongoDB's IndexOptionsConflict.
+     */
+    private boolean isIndexOptionsConflict(Exception e) {
+        Throwable cause = e.getCause();
+        return cause instanceof com.mongodb.MongoCommandException commandException
+                && commandException.getErrorCode() == INDEX_OPTIONS_CONFLICT;
+    }
+}
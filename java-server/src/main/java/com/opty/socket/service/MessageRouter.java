@@ -9,18 +9,26 @@ package com.opty.socket.service;
  * IMPORTS
  */
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.opty.socket.config.AppConfig;
+import com.opty.socket.jfr.RouteEvent;
 import com.opty.socket.model.ConnectionInfo;
 import com.opty.socket.model.Message;
+import com.opty.socket.model.MessageType;
 import com.opty.socket.model.Session;
+import com.opty.socket.model.payload.TextPayload;
 import com.opty.socket.tradicional.comunicado.MensagemTexto;
 import com.opty.socket.tradicional.Parceiro;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.SessionLimitExceededException;
 
 import java.io.IOException;
+import java.util.List;
 
 
 /**
@@ -29,16 +37,60 @@ import java.io.IOException;
 
 /**
  * Routes messages between clients and supervisors.
+ *
+ * Chat messages get a per-session sequence number at ingress, which is forwarded to the
+ * recipient and stored with the message. Writes to one recipient are serialized by its
+ * transport (the session decorator of each WebSocket, the Parceiro writer queue), so there
+ * is no lock shared across recipients.
+ *
+ * A WebSocket recipient that falls behind (see {@link SlowConsumerGuard}) first stops
+ * getting queue updates, then is closed; a supervisor's session goes back to the queue
+ * right away rather than after the close completes.
  */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class MessageRouter {
 
     // --- ATTRIBUTES ---
     private final SessionManager sessionManager;
-    private final ObjectMapper objectMapper;
+    private final MessageCodec messageCodec;
     private final MessageStorageService messageStorageService;
+    private final SlowConsumerGuard slowConsumerGuard;
+    // Lazy: the queue service itself sends through this router
+    private final ObjectProvider<SupervisorQueueService> supervisorQueueService;
+
+    // Close status of an evicted slow recipient
+    static final CloseStatus SLOW_CONSUMER = CloseStatus.POLICY_VIOLATION.withReason("Slow consumer");
+
+
+    @Autowired
+    public MessageRouter(SessionManager sessionManager, MessageCodec messageCodec,
+                         MessageStorageService messageStorageService, SlowConsumerGuard slowConsumerGuard,
+                         ObjectProvider<SupervisorQueueService> supervisorQueueService) {
+        this.sessionManager = sessionManager;
+        this.messageCodec = messageCodec;
+        this.messageStorageService = messageStorageService;
+        this.slowConsumerGuard = slowConsumerGuard;
+        this.supervisorQueueService = supervisorQueueService;
+    }
+
+
+    /**
+     * Creates a router with default slow-consumer thresholds and no queue updates on eviction.
+     */
+    public MessageRouter(SessionManager sessionManager, MessageCodec messageCodec,
+                         MessageStorageService messageStorageService) {
+        this(sessionManager, messageCodec, messageStorageService, new SlowConsumerGuard(new AppConfig()), null);
+    }
+
+
+    /**
+     * Creates a router with its own codec for the given mapper.
+     */
+    public MessageRouter(SessionManager sessionManager, ObjectMapper objectMapper,
+                         MessageStorageService messageStorageService) {
+        this(sessionManager, new MessageCodec(objectMapper), messageStorageService);
+    }
 
     /**
      * Routes a message from sender to recipient.
@@ -48,53 +100,81 @@ public class MessageRouter {
      * @return true if routing successful, false otherwise
      */
     public boolean routeMessage(String senderConnectionId, Message message) {
-        try {
-            // Find sender's session
-            Session session = sessionManager.getSessionByConnectionId(senderConnectionId)
-                    .orElse(null);
-
-            if (session == null) {
-                log.warn("No session found for connection: connectionId={}", senderConnectionId);
-                sendErrorToConnection(senderConnectionId, "Not in an active session");
-                return false;
-            }
-
-            // Determine recipient connection ID
-            String recipientConnectionId = session.getOtherPartyConnectionId(senderConnectionId);
-
-            // If session is not paired, reject message
-            if (recipientConnectionId == null) {
-                log.warn("Session not paired yet: sessionId={}", session.sessionId());
-                sendErrorToConnection(senderConnectionId, "Session not paired yet, waiting for other party");
-                return false;
-            }
-
-            // Get recipient connection
-            ConnectionInfo recipientConnection = sessionManager.getConnection(recipientConnectionId)
-                    .orElse(null);
+        return route(SessionManager.NO_HANDLE, senderConnectionId, message, null);
+    }
 
-            if (recipientConnection == null) {
-                // Recipient is offline
-                log.warn("Recipient offline, message not delivered: connectionId={}, sessionId={}",
-                        recipientConnectionId, session.sessionId());
-                sendErrorToConnection(senderConnectionId, "Recipient is offline");
-                return false;
-            }
+    /**
+     * Routes a message from a sender that kept its connection handle, without the ID lookup.
+     *
+     * @param senderHandle       the sender's handle from {@link SessionManager#getConnectionHandle}
+     * @param senderConnectionId the sender's connection ID
+     * @param message            the message to route
+     * @return true if routing successful, false otherwise
+     */
+    public boolean routeMessage(int senderHandle, String senderConnectionId, Message message) {
+        return route(senderHandle, senderConnectionId, message, null);
+    }
 
-            // Send message to recipient (WebSocket or traditional Socket)
-            boolean sent = sendMessageToConnection(recipientConnection, message);
+    /**
+     * Routes a scanned chat frame, forwarding its original JSON to WebSocket recipients.
+     *
+     * @param senderConnectionId the sender's connection ID
+     * @param frame             the frame from {@link MessageCodec#scan}
+     * @return true if routing successful, false otherwise
+     */
+    public boolean routeFrame(String senderConnectionId, MessageCodec.Frame frame) {
+        return route(SessionManager.NO_HANDLE, senderConnectionId, frame.message(), frame.json());
+    }
 
-            if (sent) {
-                // Update session activity
-                sessionManager.updateSessionActivity(session.sessionId());
+    /**
+     * Routes a scanned chat frame from a sender that kept its connection handle.
+     *
+     * @param senderHandle       the sender's handle from {@link SessionManager#getConnectionHandle}
+     * @param senderConnectionId the sender's connection ID
+     * @param frame              the frame from {@link MessageCodec#scan}
+     * @return true if routing successful, false otherwise
+     */
+    public boolean routeFrame(int senderHandle, String senderConnectionId, MessageCodec.Frame frame) {
+        return route(senderHandle, senderConnectionId, frame.message(), frame.json());
+    }
 
-                log.debug("Message routed: sessionId={}, from={}, to={}",
-                        session.sessionId(), senderConnectionId, recipientConnectionId);
+    private boolean route(int senderHandle, String senderConnectionId, Message message, String rawJson) {
+        RouteEvent event = new RouteEvent();
+        event.begin();
+        try {
+            // Fast path: a paired sender's slot already points at the recipient; with the
+            // handle, finding the slot is an array read
+            SessionManager.PeerLink link = senderHandle != SessionManager.NO_HANDLE
+                    ? sessionManager.getPeerLink(senderHandle)
+                    : sessionManager.getPeerLink(senderConnectionId);
+            if (link != null) {
+                // Numbered at ingress, on the sender's thread: frames of one connection are
+                // handled one at a time and the recipient only hears from this sender, so
+                // it receives the numbers in order
+                long seq = sessionManager.nextSequence(link);
+                Message numbered = seq > 0 ? message.withSeq(seq) : message;
+                String numberedJson = seq > 0 && rawJson != null ? MessageCodec.withSeq(rawJson, seq) : rawJson;
+
+                boolean sent = sendMessageToConnection(link.recipient(), numbered, numberedJson);
+                commit(event, senderConnectionId, link.sessionId(), sent ? "delivered" : "not_delivered", seq, rawJson != null);
+
+                if (sent) {
+                    // Update session activity
+                    sessionManager.updateSessionActivity(link.sessionHandle());
+
+                    log.debug("Message routed: sessionId={}, from={}, to={}",
+                            link.sessionId(), senderConnectionId, link.recipient().connectionId());
+                }
+
+                return sent;
             }
 
-            return sent;
+            // No link: find out why, with the String lookups the fast path skips
+            commit(event, senderConnectionId, message.sessionId(), "unroutable", 0, rawJson != null);
+            return rejectUnroutable(senderConnectionId);
 
         } catch (Exception e) {
+            commit(event, senderConnectionId, message.sessionId(), "error", 0, rawJson != null);
             log.error("Error routing message: senderConnectionId={}, error={}",
                     senderConnectionId, e.getMessage(), e);
             sendErrorToConnection(senderConnectionId, "Failed to route message: " + e.getMessage());
@@ -102,11 +182,60 @@ public class MessageRouter {
         }
     }
 
+    private static void commit(RouteEvent event, String senderConnectionId, String sessionId,
+                               String outcome, long seq, boolean raw) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.senderConnectionId = senderConnectionId;
+            event.sessionId = sessionId;
+            event.outcome = outcome;
+            event.seq = seq;
+            event.raw = raw;
+            event.commit();
+        }
+    }
+
+    /**
+     * Tells the sender why its message could not be routed.
+     */
+    private boolean rejectUnroutable(String senderConnectionId) {
+        ConnectionInfo sender = sessionManager.getConnection(senderConnectionId).orElse(null);
+        Session session = sessionManager.getSessionByConnectionId(senderConnectionId).orElse(null);
+
+        if (session == null) {
+            log.warn("No session found for connection: connectionId={}", senderConnectionId);
+            sendError(sender, null, "Not in an active session");
+        }
+
+        // If session is not paired, reject message
+        else if (!session.isPaired()) {
+            log.warn("Session not paired yet: sessionId={}", session.sessionId());
+            sendError(sender, session.sessionId(), "Session not paired yet, waiting for other party");
+        }
+
+        // Paired, so the recipient is offline
+        else {
+            log.warn("Recipient offline, message not delivered: connectionId={}, sessionId={}",
+                    session.getOtherPartyConnectionId(senderConnectionId), session.sessionId());
+            sendError(sender, session.sessionId(), "Recipient is offline");
+        }
+
+        return false;
+    }
+
     /**
      * Sends a message to a connection (WebSocket or traditional Socket).
      * Automatically detects the connection type and uses the appropriate method.
      */
     public boolean sendMessageToConnection(ConnectionInfo connectionInfo, Message message) {
+        return sendMessageToConnection(connectionInfo, message, null);
+    }
+
+    /**
+     * Same as {@link #sendMessageToConnection(ConnectionInfo, Message)}; when rawJson is
+     * given, WebSocket recipients get it as is instead of the re-encoded message.
+     */
+    private boolean sendMessageToConnection(ConnectionInfo connectionInfo, Message message, String rawJson) {
 
         // Validate connectionInfo
         if (connectionInfo == null) {
@@ -118,7 +247,9 @@ public class MessageRouter {
         if (connectionInfo.isWebSocket()) {
 
             // Send message via WebSocket
-            boolean send = sendMessage(connectionInfo.webSocketSession(), message);
+            boolean send = rawJson != null
+                    ? sendText(connectionInfo.webSocketSession(), rawJson)
+                    : sendMessage(connectionInfo.webSocketSession(), message);
 
             // Store message in audit database
             messageStorageService.saveMessage(message, "WEBSOCKET");
@@ -156,9 +287,14 @@ public class MessageRouter {
 
         try {
             // Extract content from Message
-            String conteudo = message.payload() != null && message.payload().containsKey("text")
-                    ? message.payload().get("text").toString()
-                    : "";
+            String conteudo;
+            if (message.payload() instanceof TextPayload text) {
+                conteudo = text.text() != null ? text.text() : "";
+            } else {
+                conteudo = message.payload() != null && message.payload().containsKey("text")
+                        ? message.payload().get("text").toString()
+                        : "";
+            }
 
             // Create MensagemTexto
             MensagemTexto mensagemTexto = new MensagemTexto(
@@ -194,16 +330,116 @@ public class MessageRouter {
         }
 
         try {
-            String json = objectMapper.writeValueAsString(message);
+            return sendText(session, messageCodec.encode(message), message.type() != MessageType.SESSION_QUEUE_UPDATE);
+        } catch (IOException e) {
+            log.error("Failed to encode message: sessionId={}, error={}",
+                    session.getId(), e.getMessage(), e);
+            return false;
+        }
+    }
+
+    /**
+     * Sends the same message to several WebSocket sessions, encoding it once.
+     *
+     * @return the encoded frame, null if there was no recipient or it could not be encoded
+     */
+    public String sendToAll(List<WebSocketSession> sessions, Message message) {
+        if (sessions.isEmpty()) {
+            return null;
+        }
+        String json;
+        try {
+            json = messageCodec.encode(message);
+        } catch (IOException e) {
+            log.error("Failed to encode message: type={}, error={}", message.type(), e.getMessage(), e);
+            return null;
+        }
+        boolean essential = message.type() != MessageType.SESSION_QUEUE_UPDATE;
+        for (WebSocketSession session : sessions) {
+            sendText(session, json, essential);
+        }
+        return json;
+    }
+
+    /**
+     * Sends an already encoded frame to a WebSocket session.
+     */
+    private boolean sendText(WebSocketSession session, String json) {
+        return sendText(session, json, true);
+    }
+
+    /**
+     * Sends an already encoded frame, unless the recipient is too far behind for it.
+     *
+     * @param essential false for frames a slow recipient can miss (queue updates)
+     */
+    private boolean sendText(WebSocketSession session, String json, boolean essential) {
+        if (session == null || !session.isOpen()) {
+            log.warn("Cannot send message, session is null or closed");
+            return false;
+        }
+
+        switch (slowConsumerGuard.assess(session)) {
+            case EVICT -> {
+                evict(session);
+                return false;
+            }
+            case DEGRADED -> {
+                if (!essential) {
+                    slowConsumerGuard.skipped();
+                    log.debug("Slow recipient, frame skipped: connectionId={}", session.getId());
+                    return false;
+                }
+            }
+            default -> { }
+        }
+
+        try {
             session.sendMessage(new TextMessage(json));
             return true;
-        } catch (IOException e) {
+        } catch (SessionLimitExceededException e) {
+            // The session decorator closes a recipient that fell too far behind
+            slowConsumerGuard.limitExceeded();
+            log.warn("Slow recipient disconnected: sessionId={}, reason={}", session.getId(), e.getMessage());
+            return false;
+        } catch (IOException | IllegalStateException e) {
+            // IllegalStateException: closed by the peer between the isOpen check and the write
             log.error("Failed to send message: sessionId={}, error={}",
                     session.getId(), e.getMessage(), e);
             return false;
         }
     }
 
+    /**
+     * Closes a slow recipient. A supervisor is unpaired first, so its client is told and
+     * the session is back in the queue even if the close blocks.
+     */
+    private void evict(WebSocketSession session) {
+        if (!slowConsumerGuard.markEvicted(session)) {
+            return;
+        }
+        String connectionId = session.getId();
+        log.warn("Slow recipient evicted: connectionId={}", connectionId);
+
+        Session paired = sessionManager.getSessionByConnectionId(connectionId)
+                .filter(s -> connectionId.equals(s.supervisorConnectionId()))
+                .orElse(null);
+        if (paired != null) {
+            notifyDisconnect(connectionId);
+            sessionManager.unpairSupervisor(paired.sessionId());
+        }
+
+        try {
+            session.close(SLOW_CONSUMER);
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Failed to close slow recipient: connectionId={}, error={}", connectionId, e.getMessage());
+        }
+
+        if (paired != null && supervisorQueueService != null) {
+            supervisorQueueService.ifAvailable(SupervisorQueueService::broadcastQueueUpdate);
+        }
+    }
+
     /**
      * Sends an error message to a connection.
      *
@@ -213,12 +449,16 @@ public class MessageRouter {
     public void sendErrorToConnection(String connectionId, String errorMessage) {
         sessionManager.getConnection(connectionId).ifPresent(conn -> {
             Session session = sessionManager.getSessionByConnectionId(connectionId).orElse(null);
-            String sessionId = session != null ? session.sessionId() : null;
-            Message error = Message.error(sessionId, errorMessage);
-            sendMessageToConnection(conn, error);
+            sendError(conn, session != null ? session.sessionId() : null, errorMessage);
         });
     }
 
+    private void sendError(ConnectionInfo connection, String sessionId, String errorMessage) {
+        if (connection != null) {
+            sendMessageToConnection(connection, Message.error(sessionId, errorMessage));
+        }
+    }
+
     /**
      * Broadcasts a message to all connections in a session.
      *
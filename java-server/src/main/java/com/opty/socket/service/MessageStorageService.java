@@ -1,22 +1,47 @@
 package com.opty.socket.service;
 
+import com.opty.socket.jfr.PersistEvent;
 import com.opty.socket.model.ChatMessageDocument;
 import com.opty.socket.model.Message;
 import com.opty.socket.model.MessageType;
-import com.opty.socket.repository.ChatMessageRepository;
-import lombok.RequiredArgsConstructor;
+import com.opty.socket.storage.MessageSearch;
+import com.opty.socket.storage.MessageStore;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
- * Serviço responsável por persistir mensagens de chat no MongoDB.
+ * Serviço responsável por persistir mensagens de chat no backend configurado
+ * (opty.socket.storage.backend: mongo, memory ou journal).
  */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class MessageStorageService {
 
-    private final ChatMessageRepository chatMessageRepository;
+    private final MessageStore messageStore;
+    // Nulo quando a busca não está disponível (construtor de um argumento)
+    private final MessageSearch messageSearch;
+
+    /**
+     * Com o pipeline ligado (opty.socket.pipeline.enabled), o backend recebido já é um
+     * AsyncMessageStore (ver MessageStoreConfig) e grava fora da thread que entregou a
+     * mensagem. Sem ele, grava na thread de quem chama.
+     */
+    @Autowired
+    public MessageStorageService(MessageStore messageStore, MessageSearch messageSearch) {
+        this.messageStore = messageStore;
+        this.messageSearch = messageSearch;
+    }
+
+    /**
+     * Sem busca: search() lança IllegalStateException.
+     */
+    public MessageStorageService(MessageStore messageStore) {
+        this(messageStore, null);
+    }
 
     /**
      * Salva uma mensagem no banco de dados.
@@ -30,19 +55,112 @@ public class MessageStorageService {
             return;
         }
 
+        // Evento do flight recorder: com o AsyncMessageStore, mede só o enfileiramento
+        PersistEvent event = new PersistEvent();
+        event.begin();
+        boolean saved = false;
         try {
             // Converte o record 'Message' para o 'ChatMessageDocument'
             ChatMessageDocument document = new ChatMessageDocument(message, channelType);
-            
-            // Salva no MongoDB
-            chatMessageRepository.save(document);
-            
-            log.debug("Mensagem salva no DB: sessionId={}, channelType={}", message.sessionId(), channelType);
+
+            // Salva no backend configurado (que também atualiza o índice de busca)
+            messageStore.append(document);
+            saved = true;
+
+            log.debug("Mensagem salva: sessionId={}, channelType={}, store={}",
+                    message.sessionId(), channelType, messageStore.name());
 
         } catch (Exception e) {
-            log.error("Falha ao salvar mensagem no MongoDB: sessionId={}, error={}",
-                    message.sessionId(), e.getMessage(), e);
+            log.error("Falha ao salvar mensagem: sessionId={}, store={}, error={}",
+                    message.sessionId(), messageStore.name(), e.getMessage(), e);
             // Mesmo se falhar ao salvar, não queremos quebrar o chat em tempo real
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.sessionId = message.sessionId();
+                event.channelType = channelType;
+                event.store = messageStore.name();
+                event.succeeded = saved;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Lê o histórico completo de uma sessão, na ordem dos números de sequência.
+     *
+     * @param sessionId ID da sessão
+     * @return mensagens da sessão
+     */
+    public List<ChatMessageDocument> getTranscript(String sessionId) {
+        return messageStore.findBySessionId(sessionId);
+    }
+
+    /**
+     * Maior número de sequência já gravado para a sessão, para continuar a numeração de
+     * uma sessão retomada depois de um reinício.
+     *
+     * @param sessionId ID da sessão
+     * @return o número, ou 0 se não há mensagem numerada ou o backend não respondeu
+     */
+    public long getLastSequence(String sessionId) {
+        try {
+            return messageStore.lastSequence(sessionId);
+        } catch (Exception e) {
+            // Sem o número a sessão recomeça do 1; a retomada não deve falhar por isso
+            log.warn("Falha ao ler a última sequência: sessionId={}, store={}, error={}",
+                    sessionId, messageStore.name(), e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Procura buracos na numeração do histórico de uma sessão (mensagens perdidas ou
+     * ainda não persistidas), a partir do primeiro número presente: o começo do histórico
+     * pode já ter sido arquivado. Mensagens antigas, sem número, são ignoradas.
+     *
+     * @param sessionId ID da sessão
+     * @return números de sequência ausentes, em ordem crescente
+     */
+    public List<Long> findSequenceGaps(String sessionId) {
+        List<Long> gaps = new ArrayList<>();
+        Long expected = null;
+        for (ChatMessageDocument document : getTranscript(sessionId)) {
+            Long sequence = document.getSequence();
+            if (sequence == null || (expected != null && sequence < expected)) {
+                continue; // sem número, ou repetido
+            }
+            if (expected == null) {
+                expected = sequence;
+            }
+            for (long missing = expected; missing < sequence; missing++) {
+                gaps.add(missing);
+            }
+            expected = sequence + 1;
         }
+        return gaps;
+    }
+
+    /**
+     * Busca mensagens pelo texto: todas as palavras precisam aparecer, e o resultado vem
+     * ordenado por relevância.
+     *
+     * @param query palavras procuradas
+     * @param page  página, a partir de 0
+     * @param size  resultados por página
+     * @throws IllegalStateException se a busca não está disponível
+     */
+    public MessageSearch.Page search(String query, int page, int size) {
+        if (messageSearch == null) {
+            throw new IllegalStateException("Message search not configured");
+        }
+        return messageSearch.search(query, page, size);
+    }
+
+    /**
+     * Garante que as mensagens já aceitas estejam persistidas.
+     */
+    public void flush() {
+        messageStore.flush();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,135 @@
+/**
+ * Parallel connection drain.
+ */
+
+package com.opty.socket.service;
+
+
+/**
+ * IMPORTS
+ */
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collection;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+
+/**
+ * CODE
+ */
+
+/**
+ * Notifies a set of connections in parallel during shutdown.
+ *
+ * Each notification gets its own timeout: a watchdog force-closes connections whose
+ * notification is still blocked, which unblocks the writing thread. The whole batch is
+ * also bounded by a deadline, so one hung peer never stalls the shutdown.
+ */
+@Slf4j
+public final class ParallelDrain {
+
+    /**
+     * Outcome of a drain batch.
+     */
+    public record Result(int total, int completed, int failed, int timedOut, long elapsedMillis) {
+    }
+
+
+    private ParallelDrain() {
+    }
+
+
+    /**
+     * Runs {@code notify} for every target and waits until all finish or the deadline passes.
+     *
+     * @param name          batch name, used for thread names and progress logs
+     * @param targets       connections to notify
+     * @param notify        notification; may block on I/O
+     * @param forceClose    closes a connection whose notification timed out
+     * @param parallelism   maximum concurrent notifications
+     * @param perTargetMs   timeout for each notification
+     * @param deadlineNanos System.nanoTime() by which the whole batch must end
+     * @return counts of completed, failed and timed-out notifications
+     */
+    public static <T> Result run(String name, Collection<T> targets, Consumer<T> notify, Consumer<T> forceClose,
+                                 int parallelism, long perTargetMs, long deadlineNanos) {
+        long startedAt = System.nanoTime();
+        int total = targets.size();
+        if (total == 0) {
+            return new Result(0, 0, 0, 0, 0);
+        }
+
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        AtomicInteger timedOut = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(Math.min(parallelism, total), daemon("drain-" + name));
+        ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(daemon("drain-" + name + "-watchdog"));
+
+        for (T target : targets) {
+            workers.execute(() -> {
+                ScheduledFuture<?> guard = watchdog.schedule(() -> {
+                    timedOut.incrementAndGet();
+                    closeQuietly(forceClose, target);
+                }, perTargetMs, TimeUnit.MILLISECONDS);
+                try {
+                    notify.accept(target);
+                    completed.incrementAndGet();
+                } catch (Exception e) {
+                    failed.incrementAndGet();
+                    closeQuietly(forceClose, target);
+                } finally {
+                    guard.cancel(false);
+                }
+            });
+        }
+        workers.shutdown();
+
+        // Wait, reporting progress every second
+        try {
+            while (!workers.awaitTermination(Math.min(1_000_000_000L, Math.max(0, deadlineNanos - System.nanoTime())),
+                    TimeUnit.NANOSECONDS)) {
+                int done = completed.get() + failed.get();
+                if (System.nanoTime() >= deadlineNanos) {
+                    log.warn("Drain {} deadline reached: done={}/{}, abandoning the rest", name, done, total);
+                    break;
+                }
+                log.info("Drain {} in progress: done={}/{}, timedOut={}", name, done, total, timedOut.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Counted before interrupting the stragglers, which would otherwise finish as failures
+        Result result = new Result(total, completed.get(), failed.get(), timedOut.get(),
+                (System.nanoTime() - startedAt) / 1_000_000);
+        workers.shutdownNow();
+        watchdog.shutdownNow();
+        return result;
+    }
+
+
+    private static <T> void closeQuietly(Consumer<T> forceClose, T target) {
+        try {
+            forceClose.accept(target);
+        } catch (Exception e) {
+            log.debug("Force close failed during drain: error={}", e.getMessage());
+        }
+    }
+
+
+    private static ThreadFactory daemon(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,424 @@
+/**
+ * Session journal and snapshots.
+ */
+
+package com.opty.socket.service;
+
+
+/**
+ * IMPORTS
+ */
+import com.opty.socket.config.AppConfig;
+import com.opty.socket.model.Session;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+
+/**
+ * CODE
+ */
+
+/**
+ * Records the session lifecycle in a local append-only journal, with periodic snapshots,
+ * so waiting sessions survive a restart.
+ *
+ * Journal records are [length][crc32][event, sessionId, epochMillis]; a torn or corrupted
+ * tail is truncated on recovery. Every snapshot replaces the previous one atomically and
+ * truncates the journal. Replaying is idempotent, so a crash between the two is harmless.
+ *
+ * On startup, sessions are restored detached (no client connection) in their original
+ * queue order, and a client resumes its session by reconnecting with its sessionId as
+ * resume token. As a SmartLifecycle in the default phase, the journal is sealed before
+ * the web server closes connections, so a graceful shutdown is not recorded as removals.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(prefix = "opty.socket.session.journal", name = "enabled", havingValue = "true")
+public class SessionJournal implements SessionLifecycleListener, SmartLifecycle {
+
+    // --- ATTRIBUTES ---
+    static final String JOURNAL_FILE = "sessions.journal";
+    static final String SNAPSHOT_FILE = "sessions.snapshot";
+    private static final int SNAPSHOT_MAGIC = 0x4F505353; // "OPSS"
+    private static final int HEADER_BYTES = 8;
+    private static final int MAX_RECORD_BYTES = 1024;
+
+    private static final byte CREATED = 1;
+    private static final byte PAIRED = 2;
+    private static final byte UNPAIRED = 3;
+    private static final byte REMOVED = 4;
+    private static final byte ACTIVITY = 5;
+
+    private final AppConfig appConfig;
+    private final SessionManager sessionManager;
+    private final Path directory;
+    private final ByteBuffer recordBuffer = ByteBuffer.allocate(HEADER_BYTES + MAX_RECORD_BYTES);
+    private final CRC32 crc = new CRC32();
+    private final Map<String, Long> lastJournaledActivity = new ConcurrentHashMap<>();
+
+    private FileChannel journal;
+    private volatile boolean open;
+
+
+    public SessionJournal(AppConfig appConfig, SessionManager sessionManager) {
+        this.appConfig = appConfig;
+        this.sessionManager = sessionManager;
+        this.directory = Paths.get(appConfig.getSession().getJournal().getDirectory());
+    }
+
+
+    /**
+     * Rebuilds sessions from the last snapshot and the journal, then starts recording.
+     */
+    @PostConstruct
+    public synchronized void recover() {
+        long startedAt = System.nanoTime();
+        try {
+            Files.createDirectories(directory);
+
+            // Snapshot first, then the events recorded after it
+            Map<String, long[]> state = readSnapshot();
+            int events = replayJournal(state);
+
+            // Sessions idle past the session timeout are not worth restoring
+            Instant cutoff = Instant.now().minus(Duration.ofMinutes(appConfig.getSession().getTimeoutMinutes()));
+            List<Session> restored = new ArrayList<>(state.size());
+            state.forEach((sessionId, times) -> {
+                Instant lastActivity = Instant.ofEpochMilli(times[1]);
+                if (lastActivity.isAfter(cutoff)) {
+                    restored.add(new Session(sessionId, null, null, Instant.ofEpochMilli(times[0]), lastActivity));
+                }
+            });
+            restored.sort(Comparator.comparing(Session::createdAt));
+            sessionManager.restoreSessions(restored);
+
+            journal = FileChannel.open(directory.resolve(JOURNAL_FILE),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            journal.position(journal.size());
+            sessionManager.addLifecycleListener(this);
+            open = true;
+
+            log.info("Session journal recovered: sessions={}, journalEvents={}, elapsed={}ms",
+                    restored.size(), events, (System.nanoTime() - startedAt) / 1_000_000);
+
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to recover session journal: " + directory, e);
+        }
+    }
+
+
+    // ========== Lifecycle Events ==========
+
+    @Override
+    public void onSessionCreated(Session session) {
+        append(CREATED, session.sessionId(), session.createdAt().toEpochMilli());
+    }
+
+    @Override
+    public void onSupervisorPaired(Session session) {
+        append(PAIRED, session.sessionId(), session.lastActivityAt().toEpochMilli());
+    }
+
+    @Override
+    public void onSupervisorUnpaired(Session session) {
+        append(UNPAIRED, session.sessionId(), session.lastActivityAt().toEpochMilli());
+    }
+
+    @Override
+    public void onSessionRemoved(Session session) {
+        lastJournaledActivity.remove(session.sessionId());
+        append(REMOVED, session.sessionId(), System.currentTimeMillis());
+    }
+
+    @Override
+    public void onSessionActivity(Session session) {
+
+        // Activity only matters for expiry: journal it at most once per interval
+        long now = session.lastActivityAt().toEpochMilli();
+        long interval = appConfig.getSession().getJournal().getActivityIntervalMs();
+        Long previous = lastJournaledActivity.get(session.sessionId());
+        if (previous != null && now - previous < interval) {
+            return;
+        }
+        lastJournaledActivity.put(session.sessionId(), now);
+        append(ACTIVITY, session.sessionId(), now);
+    }
+
+
+    /**
+     * Drops restored sessions whose client did not come back, then takes a snapshot.
+     */
+    @Scheduled(initialDelayString = "${opty.socket.session.journal.snapshot-interval-ms:30000}",
+            fixedDelayString = "${opty.socket.session.journal.snapshot-interval-ms:30000}")
+    public void maintain() {
+        if (!open) {
+            return;
+        }
+
+        int abandoned = sessionManager.removeDetachedSessions(
+                Duration.ofSeconds(appConfig.getSession().getJournal().getResumeWindowSeconds()));
+        if (abandoned > 0) {
+            log.info("Removed {} restored sessions not resumed in time", abandoned);
+        }
+        snapshot();
+    }
+
+
+    /**
+     * Writes all sessions to a new snapshot and truncates the journal.
+     *
+     * Runs under the append lock: any event already appended describes a change that is
+     * visible in the snapshot, and later events are appended after the truncation.
+     */
+    public synchronized void snapshot() {
+        if (!open) {
+            return;
+        }
+
+        long startedAt = System.nanoTime();
+        List<Session> sessions = sessionManager.getAllSessions();
+        Path temporary = directory.resolve(SNAPSHOT_FILE + ".tmp");
+        try {
+            CRC32 checksum = new CRC32();
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                BufferedOutputStream buffered = new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024);
+                DataOutputStream out = new DataOutputStream(new CheckedOutputStream(buffered, checksum));
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(sessions.size());
+                for (Session session : sessions) {
+                    out.writeUTF(session.sessionId());
+                    out.writeLong(session.createdAt().toEpochMilli());
+                    out.writeLong(session.lastActivityAt().toEpochMilli());
+                }
+                out.flush();
+
+                // Trailer: checksum of everything above
+                DataOutputStream trailer = new DataOutputStream(buffered);
+                trailer.writeLong(checksum.getValue());
+                trailer.flush();
+                channel.force(true);
+            }
+            Files.move(temporary, directory.resolve(SNAPSHOT_FILE),
+                    StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+            // Everything in the journal is now covered by the snapshot
+            journal.truncate(0);
+            journal.position(0);
+
+            log.debug("Session snapshot written: sessions={}, elapsed={}ms",
+                    sessions.size(), (System.nanoTime() - startedAt) / 1_000_000);
+
+        } catch (IOException e) {
+            log.error("Failed to write session snapshot: error={}", e.getMessage(), e);
+        }
+    }
+
+
+    /**
+     * Takes a final snapshot and stops recording.
+     */
+    @PreDestroy
+    public synchronized void close() {
+        if (!open) {
+            return;
+        }
+        snapshot();
+        open = false;
+        try {
+            journal.close();
+        } catch (IOException e) {
+            log.warn("Failed to close session journal: error={}", e.getMessage());
+        }
+        log.info("Session journal sealed: sessions={}", sessionManager.getActiveSessionCount());
+    }
+
+
+    @Override
+    public void start() {
+        // Recording starts in recover(), before the web server accepts connections
+    }
+
+    @Override
+    public void stop() {
+        close();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return open;
+    }
+
+
+    /**
+     * Appends one event record; a write failure is logged and never breaks session handling.
+     */
+    private synchronized void append(byte event, String sessionId, long epochMillis) {
+        if (!open) {
+            return;
+        }
+
+        byte[] id = sessionId.getBytes(StandardCharsets.UTF_8);
+        if (id.length + 11 > MAX_RECORD_BYTES) {
+            log.warn("Session ID too long for journal: length={}", id.length);
+            return;
+        }
+
+        // Body: event, id length, id, timestamp
+        recordBuffer.clear();
+        recordBuffer.position(HEADER_BYTES);
+        recordBuffer.put(event).putShort((short) id.length).put(id).putLong(epochMillis);
+        int length = recordBuffer.position() - HEADER_BYTES;
+        crc.reset();
+        crc.update(recordBuffer.array(), HEADER_BYTES, length);
+        recordBuffer.putInt(0, length).putInt(4, (int) crc.getValue());
+        recordBuffer.flip();
+
+        try {
+            while (recordBuffer.hasRemaining()) {
+                journal.write(recordBuffer);
+            }
+        } catch (IOException e) {
+            log.error("Failed to append session journal: sessionId={}, error={}", sessionId, e.getMessage());
+        }
+    }
+
+
+    /**
+     * Reads the last snapshot into sessionId -> [createdAt, lastActivityAt].
+     */
+    private Map<String, long[]> readSnapshot() throws IOException {
+        Map<String, long[]> state = new HashMap<>();
+        Path file = directory.resolve(SNAPSHOT_FILE);
+        if (!Files.exists(file)) {
+            return state;
+        }
+
+        CRC32 checksum = new CRC32();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 64 * 1024))) {
+            DataInputStream checked = new DataInputStream(new CheckedInputStream(in, checksum));
+            if (checked.readInt() != SNAPSHOT_MAGIC) {
+                log.warn("Ignoring session snapshot with unknown format: {}", file);
+                return new HashMap<>();
+            }
+            int count = checked.readInt();
+            for (int i = 0; i < count; i++) {
+                String sessionId = checked.readUTF();
+                state.put(sessionId, new long[]{checked.readLong(), checked.readLong()});
+            }
+            if (in.readLong() != checksum.getValue()) {
+                log.warn("Ignoring session snapshot with bad checksum: {}", file);
+                return new HashMap<>();
+            }
+        } catch (EOFException e) {
+            log.warn("Ignoring truncated session snapshot: {}", file);
+            return new HashMap<>();
+        }
+        return state;
+    }
+
+
+    /**
+     * Applies journal events to the state and truncates any torn tail.
+     *
+     * @return number of events replayed
+     */
+    private int replayJournal(Map<String, long[]> state) throws IOException {
+        Path file = directory.resolve(JOURNAL_FILE);
+        if (!Files.exists(file)) {
+            return 0;
+        }
+
+        int events = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer content = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            CRC32 checksum = new CRC32();
+            int valid = 0;
+
+            while (content.remaining() >= HEADER_BYTES) {
+                int length = content.getInt(valid);
+                int expected = content.getInt(valid + 4);
+                if (length <= 0 || length > MAX_RECORD_BYTES || valid + HEADER_BYTES + length > content.limit()) {
+                    break;
+                }
+                byte[] body = new byte[length];
+                content.get(valid + HEADER_BYTES, body);
+                checksum.reset();
+                checksum.update(body);
+                if ((int) checksum.getValue() != expected) {
+                    break;
+                }
+
+                apply(ByteBuffer.wrap(body), state);
+                valid += HEADER_BYTES + length;
+                content.position(valid);
+                events++;
+            }
+
+            if (valid < channel.size()) {
+                log.warn("Truncating session journal after torn record: offset={}, size={}", valid, channel.size());
+                channel.truncate(valid);
+            }
+        }
+        return events;
+    }
+
+
+    /**
+     * Applies one journal event. Every event is idempotent.
+     */
+    private void apply(ByteBuffer body, Map<String, long[]> state) {
+        byte event = body.get();
+        byte[] id = new byte[body.getShort()];
+        body.get(id);
+        long epochMillis = body.getLong();
+        String sessionId = new String(id, StandardCharsets.UTF_8);
+
+        switch (event) {
+            case CREATED -> state.compute(sessionId, (key, times) -> times == null
+                    ? new long[]{epochMillis, epochMillis}
+                    : new long[]{times[0], Math.max(times[1], epochMillis)});
+            case REMOVED -> state.remove(sessionId);
+            case PAIRED, UNPAIRED, ACTIVITY -> {
+                long[] times = state.get(sessionId);
+                if (times != null) {
+                    times[1] = Math.max(times[1], epochMillis);
+                }
+            }
+            default -> log.warn("Unknown session journal event: {}", event);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/**
+ * Session lifecycle listener.
+ */
+
+package com.opty.socket.service;
+
+
+/**
+ * IMPORTS
+ */
+import com.opty.socket.model.Session;
+
+
+/**
+ * CODE
+ */
+
+/**
+ * Receives session lifecycle events from {@link SessionManager}.
+ *
+ * Called on the thread that changed the session, after the change is visible.
+ */
+public interface SessionLifecycleListener {
+
+    /**
+     * A client session was created or resumed.
+     */
+    default void onSessionCreated(Session session) {
+    }
+
+    /**
+     * A supervisor was paired with the session.
+     */
+    default void onSupervisorPaired(Session session) {
+    }
+
+    /**
+     * The supervisor left the session.
+     */
+    default void onSupervisorUnpaired(Session session) {
+    }
+
+    /**
+     * The session was removed.
+     */
+    default void onSessionRemoved(Session session) {
+    }
+
+    /**
+     * The session was removed for inactivity, or because its client never resumed it.
+     * Follows {@link #onSessionRemoved}.
+     */
+    default void onSessionExpired(Session session) {
+    }
+
+    /**
+     * The session's last activity time was updated.
+     */
+    default void onSessionActivity(Session session) {
+    }
+}
@@ -11,15 +11,26 @@ package com.opty.socket.service;
 import com.opty.socket.config.AppConfig;
 import com.opty.socket.model.ConnectionInfo;
 import com.opty.socket.model.Session;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.function.BiConsumer;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 
 /**
@@ -28,17 +39,104 @@ import java.util.stream.Collectors;
 
 /**
  * Manages sessions and WebSocket connections (thread-safe).
+ *
+ * Sessions and connections live in slots addressed by int handles. String IDs are only
+ * looked up at the edges (API calls, and senders that did not keep their connection handle). Once a session is
+ * paired, each side's slot holds a {@link PeerLink} to the other side's transport, swapped
+ * whenever the session or either connection changes, so routing is a single volatile read.
+ *
+ * Session transitions (create, pair, unpair, resume, remove) update the session index, the
+ * handle table and the connection links while holding the lock stripe of the session ID, so
+ * a connection is linked to a session exactly when it is that session's client or supervisor.
+ * Lock order: session stripe, then map bin, then table lock.
  */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class SessionManager {
 
     // --- ATTRIBUTES ---
+    public static final int NO_HANDLE = HandleTable.NONE;
+    private static final int LOCK_STRIPES = 64;
+
     private final AppConfig appConfig;
-    private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();
-    private final ConcurrentHashMap<String, String> connectionIdToSessionId = new ConcurrentHashMap<>();
-    private final ConcurrentHashMap<String, ConnectionInfo> connections = new ConcurrentHashMap<>();
+    private final IdGenerator idGenerator;
+    private final ConcurrentHashMap<String, SessionSlot> sessionsById = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, ConnectionSlot> connectionsById = new ConcurrentHashMap<>();
+    private final HandleTable<SessionSlot> sessionTable = new HandleTable<>();
+    private final HandleTable<ConnectionSlot> connectionTable = new HandleTable<>();
+    private final AtomicInteger registeredConnections = new AtomicInteger();
+    private final List<SessionLifecycleListener> lifecycleListeners = new CopyOnWriteArrayList<>();
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    private volatile boolean admissionOpen = true;
+
+
+    @Autowired
+    public SessionManager(AppConfig appConfig, IdGenerator idGenerator) {
+        this.appConfig = appConfig;
+        this.idGenerator = idGenerator;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+
+    public SessionManager(AppConfig appConfig) {
+        this(appConfig, new IdGenerator(appConfig));
+    }
+
+
+    /**
+     * Current state of a session; updated only inside a transition on its session ID.
+     * The chat sequence counter is the exception: it is bumped lock-free on every routed message.
+     */
+    private static final class SessionSlot {
+        private static final AtomicLongFieldUpdater<SessionSlot> SEQUENCE =
+                AtomicLongFieldUpdater.newUpdater(SessionSlot.class, "sequence");
+
+        private final int handle;
+        private final String sessionId;
+        private volatile Session session;
+        private volatile long sequence;
+
+        private SessionSlot(int handle, Session session) {
+            this.handle = handle;
+            this.sessionId = session.sessionId();
+            this.session = session;
+        }
+    }
+
+
+    /**
+     * A connection ID known to the manager, registered or still part of a session.
+     * Updated only inside {@code connectionsById.compute} for its ID.
+     */
+    private static final class ConnectionSlot {
+        private final int handle;
+        private volatile ConnectionInfo info;
+        private volatile int sessionHandle = HandleTable.NONE;
+        private volatile PeerLink peer;
+
+        private ConnectionSlot(int handle) {
+            this.handle = handle;
+        }
+    }
+
+
+    /**
+     * Where messages from a paired connection go: the other party's registered connection.
+     */
+    record PeerLink(ConnectionInfo recipient, int sessionHandle, String sessionId) {
+    }
+
+
+    /**
+     * Registers a listener for session lifecycle events.
+     *
+     * @param listener the listener to add
+     */
+    public void addLifecycleListener(SessionLifecycleListener listener) {
+        lifecycleListeners.add(listener);
+    }
 
 
     /**
@@ -48,14 +146,19 @@ public class SessionManager {
      * @return the newly created session
      */
     public Session createSession(String clientConnectionId) {
-        String sessionId = UUID.randomUUID().toString();
+        String sessionId = idGenerator.nextSessionId();
         Session session = new Session(sessionId, clientConnectionId);
 
-        sessions.put(sessionId, session);
-        connectionIdToSessionId.put(clientConnectionId, sessionId);
+        serialized(sessionId, () -> {
+            SessionSlot slot = addSessionSlot(session);
+            sessionsById.put(sessionId, slot);
+            link(clientConnectionId, slot.handle);
+            return slot;
+        });
 
         log.info("Session created: sessionId={}, clientConnectionId={}, total={}",
-                sessionId, clientConnectionId, sessions.size());
+                sessionId, clientConnectionId, sessionsById.size());
+        fire(SessionLifecycleListener::onSessionCreated, session);
 
         return session;
     }
@@ -69,19 +172,39 @@ public class SessionManager {
      * @return the updated session if successful, empty if session not found
      */
     public Optional<Session> pairSupervisor(String sessionId, String supervisorConnectionId) {
-        Session updatedSession = sessions.computeIfPresent(sessionId, (id, session) -> {
+        if (sessionId == null || supervisorConnectionId == null) {
+            return Optional.empty();
+        }
+
+        Session updatedSession = serialized(sessionId, () -> {
+            SessionSlot slot = sessionsById.get(sessionId);
+            if (slot == null) {
+                return null;
+            }
+            Session session = slot.session;
+            if (session.isDetached()) {
+                log.warn("Session waiting for client resume, cannot pair: sessionId={}", sessionId);
+                return session;
+            }
             if (session.isPaired()) {
                 log.warn("Session already paired: sessionId={}, existing={}, attempted={}",
                         sessionId, session.supervisorConnectionId(), supervisorConnectionId);
                 return session; // Don't allow re-pairing
             }
-            return session.withSupervisor(supervisorConnectionId);
+            Session paired = session.withSupervisor(supervisorConnectionId);
+            slot.session = paired;
+            link(supervisorConnectionId, slot.handle);
+            refreshLinks(slot);
+            return paired;
         });
 
+        // A supervisor that lost the race is not mapped to the session
         if (updatedSession != null && updatedSession.isPaired()) {
-            connectionIdToSessionId.put(supervisorConnectionId, sessionId);
             log.info("Supervisor paired: sessionId={}, supervisorConnectionId={}",
                     sessionId, supervisorConnectionId);
+            if (supervisorConnectionId.equals(updatedSession.supervisorConnectionId())) {
+                fire(SessionLifecycleListener::onSupervisorPaired, updatedSession);
+            }
             return Optional.of(updatedSession);
         }
 
@@ -96,25 +219,33 @@ public class SessionManager {
      * @return the unpaired session if successful, empty if session not found
      */
     public Optional<Session> unpairSupervisor(String sessionId) {
-        Session unpairedSession = sessions.computeIfPresent(sessionId, (id, session) -> {
+        Session unpairedSession = serialized(sessionId, () -> {
+            SessionSlot slot = sessionsById.get(sessionId);
+            if (slot == null) {
+                return null;
+            }
+            Session session = slot.session;
             if (!session.isPaired()) {
                 log.warn("Session not paired, cannot unpair: sessionId={}", sessionId);
-                return session;
+                return null;
             }
 
-            // Remove supervisor connection ID mapping
-            connectionIdToSessionId.remove(session.supervisorConnectionId());
+            // Remove supervisor connection mapping
+            unlink(session.supervisorConnectionId(), slot.handle);
 
             // Create new session without supervisor
-            return new Session(session.sessionId(), session.clientConnectionId());
+            Session unpaired = new Session(session.sessionId(), session.clientConnectionId());
+            slot.session = unpaired;
+            refreshLinks(slot);
+            return unpaired;
         });
-
-        if (unpairedSession != null && !unpairedSession.isPaired()) {
-            log.info("Supervisor unpaired from session: sessionId={}", sessionId);
-            return Optional.of(unpairedSession);
+        if (unpairedSession == null) {
+            return Optional.empty();
         }
 
-        return Optional.empty();
+        log.info("Supervisor unpaired from session: sessionId={}", sessionId);
+        fire(SessionLifecycleListener::onSupervisorUnpaired, unpairedSession);
+        return Optional.of(unpairedSession);
     }
 
 
@@ -125,7 +256,8 @@ public class SessionManager {
      * @return the session, or empty if not found
      */
     public Optional<Session> getSession(String sessionId) {
-        return Optional.ofNullable(sessions.get(sessionId));
+        SessionSlot slot = sessionsById.get(sessionId);
+        return Optional.ofNullable(slot != null ? slot.session : null);
     }
 
 
@@ -136,11 +268,9 @@ public class SessionManager {
      * @return the session, or empty if not found
      */
     public Optional<Session> getSessionByConnectionId(String connectionId) {
-        String sessionId = connectionIdToSessionId.get(connectionId);
-        if (sessionId == null) {
-            return Optional.empty();
-        }
-        return getSession(sessionId);
+        ConnectionSlot connection = connectionId != null ? connectionsById.get(connectionId) : null;
+        SessionSlot slot = connection != null ? sessionTable.get(connection.sessionHandle) : null;
+        return Optional.ofNullable(slot != null ? slot.session : null);
     }
 
     /**
@@ -150,9 +280,48 @@ public class SessionManager {
      * @return true if updated successfully, false if session not found
      */
     public boolean updateSessionActivity(String sessionId) {
-        return sessions.computeIfPresent(sessionId, (id, session) ->
-                session.withLastActivity()
-        ) != null;
+        SessionSlot slot = sessionsById.get(sessionId);
+        return slot != null && touch(slot);
+    }
+
+
+    /**
+     * Updates the last activity time for a session by handle.
+     *
+     * @param sessionHandle the session handle
+     * @return true if updated successfully, false if session not found
+     */
+    boolean updateSessionActivity(int sessionHandle) {
+        SessionSlot slot = sessionTable.get(sessionHandle);
+        return slot != null && touch(slot);
+    }
+
+
+    private boolean touch(SessionSlot slot) {
+        Session updated;
+        synchronized (lockFor(slot.sessionId)) {
+            updated = markActive(slot);
+        }
+        fireActivity(updated);
+        return updated != null;
+    }
+
+
+    private static Session markActive(SessionSlot slot) {
+        Session session = slot.session;
+        if (session == null) {
+            return null;
+        }
+        Session updated = session.withLastActivity();
+        slot.session = updated;
+        return updated;
+    }
+
+
+    private void fireActivity(Session updated) {
+        if (updated != null) {
+            fire(SessionLifecycleListener::onSessionActivity, updated);
+        }
     }
 
 
@@ -163,18 +332,33 @@ public class SessionManager {
      * @return the removed session, or empty if not found
      */
     public Optional<Session> removeSession(String sessionId) {
-        Session removed = sessions.remove(sessionId);
-        if (removed != null) {
-            // Clean up connection mappings
-            connectionIdToSessionId.remove(removed.clientConnectionId());
-            if (removed.supervisorConnectionId() != null) {
-                connectionIdToSessionId.remove(removed.supervisorConnectionId());
+        Session removed = serialized(sessionId, () -> {
+            SessionSlot slot = sessionsById.remove(sessionId);
+            if (slot == null) {
+                return null;
             }
+            Session session = slot.session;
+            slot.session = null;
+            sessionTable.remove(slot.handle);
 
-            log.info("Session removed: sessionId={}, total={}",
-                    sessionId, sessions.size());
+            // Clean up connection mappings
+            unlink(session.clientConnectionId(), slot.handle);
+            unlink(session.supervisorConnectionId(), slot.handle);
+            return session;
+        });
+        if (removed == null) {
+            return Optional.empty();
         }
-        return Optional.ofNullable(removed);
+
+        log.info("Session removed: sessionId={}, total={}",
+                sessionId, sessionsById.size());
+        fire(SessionLifecycleListener::onSessionRemoved, removed);
+        return Optional.of(removed);
+    }
+
+
+    private void expireSession(String sessionId) {
+        removeSession(sessionId).ifPresent(session -> fire(SessionLifecycleListener::onSessionExpired, session));
     }
 
 
@@ -185,11 +369,8 @@ public class SessionManager {
      * @return the removed session, or empty if not found
      */
     public Optional<Session> removeSessionByConnectionId(String connectionId) {
-        String sessionId = connectionIdToSessionId.get(connectionId);
-        if (sessionId == null) {
-            return Optional.empty();
-        }
-        return removeSession(sessionId);
+        return getSessionByConnectionId(connectionId)
+                .flatMap(session -> removeSession(session.sessionId()));
     }
 
 
@@ -199,7 +380,7 @@ public class SessionManager {
      * @return list of all sessions
      */
     public List<Session> getAllSessions() {
-        return List.copyOf(sessions.values());
+        return sessions().toList();
     }
 
     /**
@@ -208,21 +389,114 @@ public class SessionManager {
      * @return list of paired sessions
      */
     public List<Session> getPairedSessions() {
-        return sessions.values().stream()
+        return sessions()
                 .filter(Session::isPaired)
                 .collect(Collectors.toList());
     }
 
 
     /**
-     * Gets all unpaired sessions (waiting for supervisor).
+     * Gets all unpaired sessions (waiting for supervisor), oldest first.
+     * Sessions restored after a restart are left out until their client resumes.
      *
-     * @return list of unpaired sessions
+     * @return list of unpaired sessions in queue order
      */
     public List<Session> getUnpairedSessions() {
-        return sessions.values().stream()
-                .filter(session -> !session.isPaired())
+        return sessions()
+                .filter(session -> !session.isPaired() && !session.isDetached())
+                .sorted(Comparator.comparing(Session::createdAt))
+                .collect(Collectors.toList());
+    }
+
+
+    /**
+     * Restores sessions recovered after a restart, without a client connection.
+     * The resume window starts now. Does not notify lifecycle listeners.
+     *
+     * @param restored sessions to restore (client and supervisor IDs are dropped)
+     */
+    public void restoreSessions(Collection<Session> restored) {
+        Instant now = Instant.now();
+        for (Session session : restored) {
+            serialized(session.sessionId(), () -> sessionsById.computeIfAbsent(session.sessionId(), id ->
+                    addSessionSlot(new Session(id, null, null, session.createdAt(), now))));
+        }
+        log.info("Sessions restored: restored={}, total={}", restored.size(), sessionsById.size());
+    }
+
+
+    /**
+     * Attaches a new client connection to a restored session, keeping its place in the queue.
+     * Its chat numbering starts over at 1.
+     *
+     * @param sessionId          the session ID (resume token) sent by the client
+     * @param clientConnectionId the new client connection ID
+     * @return the resumed session, or empty if no restored session has this ID
+     */
+    public Optional<Session> resumeSession(String sessionId, String clientConnectionId) {
+        return resumeSession(sessionId, clientConnectionId, () -> 0);
+    }
+
+
+    /**
+     * Attaches a new client connection to a restored session, keeping its place in the queue
+     * and continuing its chat numbering after the messages stored before the restart.
+     *
+     * @param sessionId          the session ID (resume token) sent by the client
+     * @param clientConnectionId the new client connection ID
+     * @param storedSequence     highest sequence number stored for the session; only read
+     *                           if a restored session is waiting for this ID
+     * @return the resumed session, or empty if no restored session has this ID
+     */
+    public Optional<Session> resumeSession(String sessionId, String clientConnectionId, LongSupplier storedSequence) {
+        // Read outside the transition: it may be a store lookup
+        SessionSlot waiting = sessionsById.get(sessionId);
+        Session current = waiting != null ? waiting.session : null;
+        long lastSequence = current != null && current.isDetached() ? storedSequence.getAsLong() : 0;
+
+        Session resumed = serialized(sessionId, () -> {
+            SessionSlot slot = sessionsById.get(sessionId);
+            if (slot == null) {
+                return null;
+            }
+            Session session = slot.session;
+            Session withClient = session.isDetached() ? session.withClient(clientConnectionId) : session;
+            if (!clientConnectionId.equals(withClient.clientConnectionId())) {
+                return null;
+            }
+            if (session.isDetached()) {
+                SessionSlot.SEQUENCE.accumulateAndGet(slot, lastSequence, Math::max);
+            }
+            slot.session = withClient;
+            link(clientConnectionId, slot.handle);
+            refreshLinks(slot);
+            return withClient;
+        });
+        if (resumed == null) {
+            return Optional.empty();
+        }
+
+        log.info("Session resumed: sessionId={}, clientConnectionId={}", sessionId, clientConnectionId);
+        fire(SessionLifecycleListener::onSessionCreated, resumed);
+        return Optional.of(resumed);
+    }
+
+
+    /**
+     * Removes restored sessions whose client did not resume in time.
+     *
+     * @param resumeWindow how long a restored session waits for its client
+     * @return number of sessions removed
+     */
+    public int removeDetachedSessions(Duration resumeWindow) {
+        Instant cutoff = Instant.now().minus(resumeWindow);
+        List<String> abandoned = sessions()
+                .filter(session -> session.isDetached() && session.lastActivityAt().isBefore(cutoff))
+                .map(Session::sessionId)
                 .collect(Collectors.toList());
+
+        abandoned.forEach(this::expireSession);
+        return abandoned.size();
     }
 
     
@@ -233,12 +507,12 @@ public class SessionManager {
      */
     public int cleanupExpiredSessions() {
         int timeoutMinutes = appConfig.getSession().getTimeoutMinutes();
-        List<String> expiredSessionIds = sessions.values().stream()
+        List<String> expiredSessionIds = sessions()
                 .filter(session -> session.isExpired(timeoutMinutes))
                 .map(Session::sessionId)
                 .collect(Collectors.toList());
 
-        expiredSessionIds.forEach(this::removeSession);
+        expiredSessionIds.forEach(this::expireSession);
 
         if (!expiredSessionIds.isEmpty()) {
             log.info("Cleaned up {} expired sessions", expiredSessionIds.size());
@@ -252,7 +526,7 @@ public class SessionManager {
      * Gets the total number of active sessions.
      */
     public int getActiveSessionCount() {
-        return sessions.size();
+        return sessionsById.size();
     }
 
 
@@ -260,14 +534,220 @@ public class SessionManager {
      * Gets the number of paired sessions.
      */
     public int getPairedSessionCount() {
-        return (int) sessions.values().stream()
+        return (int) sessions()
                 .filter(Session::isPaired)
                 .count();
     }
 
 
+    /**
+     * Notifies lifecycle listeners; a failing listener never breaks session handling.
+     */
+    private void fire(BiConsumer<SessionLifecycleListener, Session> event, Session session) {
+        for (SessionLifecycleListener listener : lifecycleListeners) {
+            try {
+                event.accept(listener, session);
+            } catch (Exception e) {
+                log.error("Session lifecycle listener failed: sessionId={}, error={}",
+                        session.sessionId(), e.getMessage(), e);
+            }
+        }
+    }
+
+
+    private Stream<Session> sessions() {
+        return sessionsById.values().stream()
+                .map(slot -> slot.session)
+                .filter(Objects::nonNull);
+    }
+
+
+    private SessionSlot addSessionSlot(Session session) {
+        return sessionTable.get(sessionTable.add(handle -> new SessionSlot(handle, session)));
+    }
+
+
+    /**
+     * Runs a session transition under its lock stripe.
+     */
+    private <T> T serialized(String sessionId, Supplier<T> transition) {
+        synchronized (lockFor(sessionId)) {
+            return transition.get();
+        }
+    }
+
+
+    private Object lockFor(String sessionId) {
+        int hash = sessionId.hashCode();
+        return locks[(hash ^ (hash >>> 16)) & (LOCK_STRIPES - 1)];
+    }
+
+
+    // ========== Peer Links (routing hot path) ==========
+
+    /**
+     * Gets where messages from a connection go.
+     *
+     * @param connectionId the sender's connection ID
+     * @return the link, or null if the connection is not in a paired session or its peer is offline
+     */
+    PeerLink getPeerLink(String connectionId) {
+        ConnectionSlot slot = connectionId != null ? connectionsById.get(connectionId) : null;
+        return slot != null ? slot.peer : null;
+    }
+
+
+    /**
+     * Gets where messages from a connection go, by its handle: an array read, no hashing.
+     *
+     * @param connectionHandle the sender's handle from {@link #getConnectionHandle}
+     * @return the link, or null if the connection is not in a paired session, its peer is
+     *         offline or the handle is stale
+     */
+    PeerLink getPeerLink(int connectionHandle) {
+        ConnectionSlot slot = connectionTable.get(connectionHandle);
+        return slot != null ? slot.peer : null;
+    }
+
+
+    /**
+     * Gets the handle of a registered connection, for the transport to keep and route the
+     * connection's messages with. It stays valid until the connection is removed.
+     *
+     * @param connectionId the connection ID
+     * @return the handle, or {@link #NO_HANDLE} if the connection is not registered
+     */
+    public int getConnectionHandle(String connectionId) {
+        ConnectionSlot slot = connectionsById.get(connectionId);
+        return slot != null && slot.info != null ? slot.handle : NO_HANDLE;
+    }
+
+
+    /**
+     * Assigns the next chat sequence number of a linked session, starting at 1.
+     *
+     * @param link the sender's peer link
+     * @return the sequence number, or 0 if the session was removed since the link was read
+     */
+    long nextSequence(PeerLink link) {
+        SessionSlot slot = sessionTable.get(link.sessionHandle());
+        if (slot == null || !slot.sessionId.equals(link.sessionId())) {
+            return 0;
+        }
+        return SessionSlot.SEQUENCE.incrementAndGet(slot);
+    }
+
+
+    /**
+     * Points a connection at a session, creating its slot if needed. Its peer link is
+     * cleared until {@link #refreshLinks} sets it.
+     */
+    private void link(String connectionId, int sessionHandle) {
+        connectionsById.compute(connectionId, (id, slot) -> {
+            ConnectionSlot linked = slot != null ? slot
+                    : connectionTable.get(connectionTable.add(ConnectionSlot::new));
+            linked.sessionHandle = sessionHandle;
+            linked.peer = null;
+            return linked;
+        });
+    }
+
+
+    /**
+     * Detaches a connection from a session, freeing its slot once it is also unregistered.
+     */
+    private void unlink(String connectionId, int sessionHandle) {
+        if (connectionId == null) {
+            return;
+        }
+        connectionsById.computeIfPresent(connectionId, (id, slot) -> {
+            if (slot.sessionHandle != sessionHandle) {
+                return slot;
+            }
+            slot.sessionHandle = HandleTable.NONE;
+            slot.peer = null;
+            return releaseIfUnused(slot);
+        });
+    }
+
+
+    /**
+     * Recomputes the peer links of both parties from the session's current state.
+     * Called inside a transition on the session.
+     */
+    private void refreshLinks(SessionSlot slot) {
+        Session session = slot.session;
+        if (session == null) {
+            return;
+        }
+        ConnectionSlot client = slotOf(session.clientConnectionId(), slot.handle);
+        ConnectionSlot supervisor = slotOf(session.supervisorConnectionId(), slot.handle);
+        if (client != null) {
+            client.peer = linkTo(supervisor, slot.handle, session);
+        }
+        if (supervisor != null) {
+            supervisor.peer = linkTo(client, slot.handle, session);
+        }
+    }
+
+
+    /**
+     * Refreshes the links of the session a connection belongs to, after its registration changed.
+     */
+    private void refreshLinksOf(String connectionId) {
+        while (true) {
+            ConnectionSlot connection = connectionsById.get(connectionId);
+            SessionSlot slot = connection != null ? sessionTable.get(connection.sessionHandle) : null;
+            if (slot == null) {
+                return;
+            }
+            // Retry if the connection moved to another session before the transition ran
+            boolean refreshed = serialized(slot.sessionId, () -> {
+                if (connection.sessionHandle != slot.handle || slot.session == null) {
+                    return false;
+                }
+                refreshLinks(slot);
+                return true;
+            });
+            if (refreshed) {
+                return;
+            }
+        }
+    }
+
+
+    private ConnectionSlot slotOf(String connectionId, int sessionHandle) {
+        ConnectionSlot slot = connectionId != null ? connectionsById.get(connectionId) : null;
+        return slot != null && slot.sessionHandle == sessionHandle ? slot : null;
+    }
+
+
+    private static PeerLink linkTo(ConnectionSlot recipient, int sessionHandle, Session session) {
+        ConnectionInfo info = recipient != null ? recipient.info : null;
+        return info != null && session.isPaired() ? new PeerLink(info, sessionHandle, session.sessionId()) : null;
+    }
+
+
+    private ConnectionSlot releaseIfUnused(ConnectionSlot slot) {
+        // A handle to a removed session counts as none
+        if (slot.info != null || sessionTable.get(slot.sessionHandle) != null) {
+            return slot;
+        }
+        connectionTable.remove(slot.handle);
+        return null;
+    }
+
+
     // ========== Connection Management Methods ==========
 
+    /**
+     * Generates an ID for a connection that has none of its own (legacy Socket clients).
+     */
+    public String newConnectionId() {
+        return idGenerator.nextConnectionId();
+    }
+
+
     /**
      * Registers a new connection.
      *
@@ -275,16 +755,25 @@ public class SessionManager {
      * @return true if registered successfully, false if max connections reached
      */
     public boolean registerConnection(ConnectionInfo connectionInfo) {
-        if (connections.size() >= appConfig.getMaxConnections()) {
-            log.warn("Max connections reached: {}/{}", connections.size(), appConfig.getMaxConnections());
+        if (registeredConnections.get() >= appConfig.getMaxConnections()) {
+            log.warn("Max connections reached: {}/{}", registeredConnections.get(), appConfig.getMaxConnections());
             return false;
         }
 
-        connections.put(connectionInfo.connectionId(), connectionInfo);
+        connectionsById.compute(connectionInfo.connectionId(), (id, slot) -> {
+            ConnectionSlot registered = slot != null ? slot
+                    : connectionTable.get(connectionTable.add(ConnectionSlot::new));
+            if (registered.info == null) {
+                registeredConnections.incrementAndGet();
+            }
+            registered.info = connectionInfo;
+            return registered;
+        });
+        refreshLinksOf(connectionInfo.connectionId());
         log.info("Connection registered: connectionId={}, type={}, total={}",
                 connectionInfo.connectionId(),
                 connectionInfo.connectionType(),
-                connections.size());
+                registeredConnections.get());
 
         return true;
     }
@@ -297,14 +786,24 @@ public class SessionManager {
      * @return the removed connection info, or empty if not found
      */
     public Optional<ConnectionInfo> removeConnection(String connectionId) {
-        ConnectionInfo removed = connections.remove(connectionId);
-        if (removed != null) {
+        ConnectionInfo[] removed = new ConnectionInfo[1];
+        connectionsById.computeIfPresent(connectionId, (id, slot) -> {
+            removed[0] = slot.info;
+            if (slot.info != null) {
+                slot.info = null;
+                registeredConnections.decrementAndGet();
+            }
+            return releaseIfUnused(slot);
+        });
+
+        if (removed[0] != null) {
+            refreshLinksOf(connectionId);
             log.info("Connection removed: connectionId={}, type={}, total={}",
                     connectionId,
-                    removed.connectionType(),
-                    connections.size());
+                    removed[0].connectionType(),
+                    registeredConnections.get());
         }
-        return Optional.ofNullable(removed);
+        return Optional.ofNullable(removed[0]);
     }
 
 
@@ -315,7 +814,8 @@ public class SessionManager {
      * @return the connection info, or empty if not found
      */
     public Optional<ConnectionInfo> getConnection(String connectionId) {
-        return Optional.ofNullable(connections.get(connectionId));
+        ConnectionSlot slot = connectionsById.get(connectionId);
+        return Optional.ofNullable(slot != null ? slot.info : null);
     }
 
 
@@ -327,11 +827,19 @@ public class SessionManager {
      * @return true if updated successfully, false if connection not found
      */
     public boolean updateSessionId(String connectionId, String sessionId) {
-        return connections.computeIfPresent(connectionId, (id, info) -> {
-            log.debug("Updated sessionId for connection: connectionId={}, sessionId={}",
-                    connectionId, sessionId);
-            return info.withSessionId(sessionId);
-        }) != null;
+        ConnectionSlot slot = connectionsById.computeIfPresent(connectionId, (id, current) -> {
+            if (current.info != null) {
+                log.debug("Updated sessionId for connection: connectionId={}, sessionId={}",
+                        connectionId, sessionId);
+                current.info = current.info.withSessionId(sessionId);
+            }
+            return current;
+        });
+        if (slot == null || slot.info == null) {
+            return false;
+        }
+        refreshLinksOf(connectionId);
+        return true;
     }
 
 
@@ -342,7 +850,7 @@ public class SessionManager {
      * @return list of connections of the specified type
      */
     public List<ConnectionInfo> getConnectionsByType(String connectionType) {
-        return connections.values().stream()
+        return connections()
                 .filter(conn -> connectionType.equals(conn.connectionType()))
                 .collect(Collectors.toList());
     }
@@ -355,7 +863,7 @@ public class SessionManager {
      * @return list of connections in this session
      */
     public List<ConnectionInfo> getConnectionsBySession(String sessionId) {
-        return connections.values().stream()
+        return connections()
                 .filter(conn -> sessionId.equals(conn.sessionId()))
                 .collect(Collectors.toList());
     }
@@ -365,7 +873,7 @@ public class SessionManager {
      * Gets the total number of active connections.
      */
     public int getActiveConnectionCount() {
-        return connections.size();
+        return registeredConnections.get();
     }
 
 
@@ -373,7 +881,7 @@ public class SessionManager {
      * Gets the number of client connections.
      */
     public int getClientConnectionCount() {
-        return (int) connections.values().stream()
+        return (int) connections()
                 .filter(ConnectionInfo::isClient)
                 .count();
     }
@@ -383,16 +891,78 @@ public class SessionManager {
      * Gets the number of supervisor connections.
      */
     public int getSupervisorConnectionCount() {
-        return (int) connections.values().stream()
+        return (int) connections()
                 .filter(ConnectionInfo::isSupervisor)
                 .count();
     }
 
-    
+
+    private Stream<ConnectionInfo> connections() {
+        return connectionsById.values().stream()
+                .map(slot -> slot.info)
+                .filter(Objects::nonNull);
+    }
+
+
+    /**
+     * Describes the first entry that disagrees between the indexes, or returns null if they
+     * are consistent. Meant for tests once updates have stopped.
+     */
+    String findInconsistency() {
+        if (sessionsById.size() != sessionTable.size()) {
+            return "sessions: " + sessionsById.size() + " by ID, " + sessionTable.size() + " in table";
+        }
+        if (connectionsById.size() != connectionTable.size()) {
+            return "connections: " + connectionsById.size() + " by ID, " + connectionTable.size() + " in table";
+        }
+        for (SessionSlot slot : sessionsById.values()) {
+            if (sessionTable.get(slot.handle) != slot || slot.session == null) {
+                return "session not live: " + slot.sessionId;
+            }
+        }
+        for (var entry : connectionsById.entrySet()) {
+            String connectionId = entry.getKey();
+            ConnectionSlot connection = entry.getValue();
+            SessionSlot slot = sessionTable.get(connection.sessionHandle);
+            Session session = slot != null ? slot.session : null;
+            if (connection.info == null && session == null) {
+                return "orphaned connection: " + connectionId;
+            }
+            if (session != null && !connectionId.equals(session.clientConnectionId())
+                    && !connectionId.equals(session.supervisorConnectionId())) {
+                return "connection " + connectionId + " linked to " + session.sessionId() + " without being part of it";
+            }
+            ConnectionSlot other = session != null
+                    ? slotOf(session.getOtherPartyConnectionId(connectionId), slot.handle) : null;
+            PeerLink expected = session != null ? linkTo(other, slot.handle, session) : null;
+            if (!Objects.equals(connection.peer, expected)) {
+                return "stale peer link: " + connectionId;
+            }
+        }
+        return null;
+    }
+
+
+    /**
+     * Stops admitting new connections (shutdown drain).
+     */
+    public void stopAdmissions() {
+        admissionOpen = false;
+    }
+
+
+    /**
+     * Checks if new connections are admitted.
+     */
+    public boolean isAdmissionOpen() {
+        return admissionOpen;
+    }
+
+
     /**
      * Checks if max connections limit has been reached.
      */
     public boolean isMaxConnectionsReached() {
-        return connections.size() >= appConfig.getMaxConnections();
+        return registeredConnections.get() >= appConfig.getMaxConnections();
     }
 }
@@ -0,0 +1,123 @@
+/**
+ * Slow-consumer detection.
+ */
+
+package com.opty.socket.service;
+
+
+/**
+ * IMPORTS
+ */
+import com.opty.socket.config.AppConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+
+
+/**
+ * CODE
+ */
+
+/**
+ * Grades how far behind a WebSocket recipient is, before each send.
+ *
+ * The backlog and send latency are the ones the connection's send decorator already
+ * tracks: bytes queued behind the send in progress, and how long that send has been
+ * blocked. {@link MessageRouter} acts on the result.
+ *
+ * Meters: opty.slowconsumer.actions, tagged action=skip (queue update not sent),
+ * evict (closed by the router) or limit (closed by the send decorator at its hard limit).
+ */
+@Service
+public class SlowConsumerGuard {
+
+    // --- ATTRIBUTES ---
+    // Session attribute set once a connection is being evicted
+    private static final String EVICTED = "opty.slowConsumer.evicted";
+
+    private final AppConfig.SlowConsumerConfig config;
+    private final Counter skipCounter;
+    private final Counter evictCounter;
+    private final Counter limitCounter;
+
+
+    /**
+     * How far behind a recipient is.
+     */
+    public enum Level {
+        OK,
+        // Gets essential frames only
+        DEGRADED,
+        // To be closed
+        EVICT
+    }
+
+
+    @Autowired
+    public SlowConsumerGuard(AppConfig appConfig, MeterRegistry meterRegistry) {
+        this.config = appConfig.getSlowConsumer();
+        this.skipCounter = counter(meterRegistry, "skip");
+        this.evictCounter = counter(meterRegistry, "evict");
+        this.limitCounter = counter(meterRegistry, "limit");
+    }
+
+
+    public SlowConsumerGuard(AppConfig appConfig) {
+        this(appConfig, new SimpleMeterRegistry());
+    }
+
+
+    /**
+     * Grades a recipient. Sessions without a send decorator are always OK.
+     */
+    public Level assess(WebSocketSession session) {
+        if (!config.isEnabled() || !(session instanceof ConcurrentWebSocketSessionDecorator outbound)) {
+            return Level.OK;
+        }
+        int buffered = outbound.getBufferSize();
+        long sendingMs = outbound.getTimeSinceSendStarted();
+        if (buffered > config.getEvictBufferBytes() || sendingMs > config.getEvictSendMs()) {
+            return Level.EVICT;
+        }
+        if (buffered > config.getDegradedBufferBytes() || sendingMs > config.getDegradedSendMs()) {
+            return Level.DEGRADED;
+        }
+        return Level.OK;
+    }
+
+
+    /**
+     * Marks a recipient as evicted.
+     *
+     * @return false if it already was, so concurrent senders evict it once
+     */
+    public boolean markEvicted(WebSocketSession session) {
+        if (session.getAttributes().putIfAbsent(EVICTED, Boolean.TRUE) != null) {
+            return false;
+        }
+        evictCounter.increment();
+        return true;
+    }
+
+
+    public void skipped() {
+        skipCounter.increment();
+    }
+
+
+    public void limitExceeded() {
+        limitCounter.increment();
+    }
+
+
+    private static Counter counter(MeterRegistry meterRegistry, String action) {
+        return Counter.builder("opty.slowconsumer.actions")
+                .description("Actions taken on WebSocket recipients that fell behind")
+                .tag("action", action)
+                .register(meterRegistry);
+    }
+}
@@ -9,15 +9,19 @@ package com.opty.socket.service;
  * IMPORTS
  */
 import com.opty.socket.dto.SessionDTO;
+import com.opty.socket.jfr.QueueBroadcastEvent;
+import com.opty.socket.model.ConnectionInfo;
 import com.opty.socket.model.Message;
 import com.opty.socket.model.MessageType;
+import com.opty.socket.model.payload.QueueUpdatePayload;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.web.socket.WebSocketSession;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
@@ -104,20 +108,32 @@ public class SupervisorQueueService {
                 null,
                 "SERVER",
                 MessageType.SESSION_QUEUE_UPDATE,
-                Map.of("sessions", availableSessions)
+                new QueueUpdatePayload(availableSessions)
         );
 
-        // Send to all queue listeners
-        int successCount = 0;
+        QueueBroadcastEvent event = new QueueBroadcastEvent();
+        event.begin();
+
+        // Send to all queue listeners, encoded once
+        List<WebSocketSession> recipients = new ArrayList<>(queueListeners.size());
         for (String listenerId : queueListeners) {
-            sessionManager.getConnection(listenerId).ifPresent(conn -> {
-                messageRouter.sendMessage(conn.webSocketSession(), queueUpdate);
-            });
-            successCount++;
+            sessionManager.getConnection(listenerId)
+                    .map(ConnectionInfo::webSocketSession)
+                    .ifPresent(recipients::add);
+        }
+        String frame = messageRouter.sendToAll(recipients, queueUpdate);
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.listeners = recipients.size();
+            event.sessions = availableSessions.size();
+            // Measured only while recording
+            event.bytes = frame != null ? frame.getBytes(StandardCharsets.UTF_8).length : 0;
+            event.commit();
         }
 
         log.info("Broadcast queue update to {} supervisors: {} available sessions",
-                successCount, availableSessions.size());
+                recipients.size(), availableSessions.size());
     }
 
 
@@ -136,7 +152,7 @@ public class SupervisorQueueService {
                 null,
                 "SERVER",
                 MessageType.SESSION_QUEUE_UPDATE,
-                Map.of("sessions", availableSessions)
+                new QueueUpdatePayload(availableSessions)
         );
 
         messageRouter.sendMessage(session, queueUpdate);
@@ -0,0 +1,334 @@
+/**
+ * Startup warm-up.
+ */
+
+package com.opty.socket.service;
+
+
+/**
+ * IMPORTS
+ */
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.opty.socket.config.AppConfig;
+import com.opty.socket.dto.SessionDTO;
+import com.opty.socket.model.ChatMessageDocument;
+import com.opty.socket.model.ConnectionInfo;
+import com.opty.socket.model.Message;
+import com.opty.socket.model.MessageType;
+import com.opty.socket.model.Session;
+import com.opty.socket.model.payload.TextPayload;
+import com.opty.socket.storage.InMemoryMessageStore;
+import com.opty.socket.tradicional.Parceiro;
+import com.opty.socket.tradicional.comunicado.MensagemTexto;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.slf4j.Marker;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.security.Principal;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * CODE
+ */
+
+/**
+ * Drives synthetic traffic through the hot paths before the server reports ready.
+ *
+ * Application runners complete before Spring Boot publishes ReadinessState.ACCEPTING_TRAFFIC,
+ * so /actuator/health/readiness stays OUT_OF_SERVICE until the warm-up ends. The traffic
+ * goes through a private SessionManager, MessageRouter and in-memory store, with a WebSocket
+ * client and a legacy supervisor on in-memory transports, so no real session, metric or
+ * stored message is touched. Debug logging of that traffic is muted on the warm-up thread only,
+ * so live connections accepted in the meantime keep their logs. Each iteration covers:
+ *
+ * - MessageCodec for Message and Jackson for SessionDTO
+ * - routing in both directions (WebSocket and legacy Parceiro)
+ * - Java serialization round trip of MensagemTexto
+ * - the Mongo mapping converter for ChatMessageDocument
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class WarmupRunner implements ApplicationRunner {
+
+    // --- ATTRIBUTES ---
+    // Marks the warm-up thread; its logging below INFO is dropped
+    static final String WARMUP_MDC_KEY = "opty.warmup";
+
+    private static final String CLIENT_CONNECTION = "warmup-client";
+    private static final String SUPERVISOR_CONNECTION = "warmup-supervisor";
+
+    private final AppConfig appConfig;
+    private final ObjectMapper objectMapper;
+    private final MessageCodec messageCodec;
+    private final ObjectProvider<MongoConverter> mongoConverter;
+
+    /**
+     * Outcome of a warm-up run.
+     *
+     * @param firstIterationMicros latency of the first (cold) iteration
+     * @param warmIterationMicros  median latency of the last 10% of iterations
+     */
+    public record Report(int iterations, long elapsedMillis, long firstIterationMicros, long warmIterationMicros) {
+    }
+
+
+    @Override
+    public void run(ApplicationArguments args) {
+        AppConfig.WarmupConfig config = appConfig.getWarmup();
+        if (!config.isEnabled()) {
+            return;
+        }
+
+        TurboFilter muteFilter = new WarmupLogFilter();
+        LoggerContext loggerContext = LoggerFactory.getILoggerFactory() instanceof LoggerContext context
+                ? context : null;
+        if (loggerContext != null) {
+            loggerContext.addTurboFilter(muteFilter);
+        }
+        MDC.put(WARMUP_MDC_KEY, "true");
+        try {
+            Report report = warmUp(config.getIterations(), config.getMaxDurationMs());
+            log.info("Warm-up done in {}ms: iterations={}, firstIteration={}us, warmIteration={}us",
+                    report.elapsedMillis(), report.iterations(),
+                    report.firstIterationMicros(), report.warmIterationMicros());
+        } catch (Exception e) {
+            // A failed warm-up only costs latency, never the startup
+            log.warn("Warm-up aborted: error={}", e.toString());
+        } finally {
+            MDC.remove(WARMUP_MDC_KEY);
+            if (loggerContext != null) {
+                loggerContext.getTurboFilterList().remove(muteFilter);
+            }
+        }
+    }
+
+
+    /**
+     * Runs up to {@code iterations} rounds, stopping early after {@code maxDurationMs}.
+     */
+    public Report warmUp(int iterations, long maxDurationMs) throws Exception {
+        long startedAt = System.nanoTime();
+        long deadline = startedAt + TimeUnit.MILLISECONDS.toNanos(maxDurationMs);
+
+        SessionManager sessionManager = new SessionManager(appConfig);
+        MessageRouter router = new MessageRouter(sessionManager, messageCodec,
+                new MessageStorageService(new InMemoryMessageStore(1_000)));
+        MongoConverter converter = mongoConverter.getIfAvailable();
+
+        // Client on WebSocket, supervisor on the legacy socket, already paired
+        sessionManager.registerConnection(new ConnectionInfo(CLIENT_CONNECTION, new DiscardingWebSocketSession(),
+                null, "CLIENT", null));
+        sessionManager.registerConnection(new ConnectionInfo(SUPERVISOR_CONNECTION, null, discardingParceiro(),
+                "SUPERVISOR", null));
+        Session session = sessionManager.createSession(CLIENT_CONNECTION);
+        sessionManager.pairSupervisor(session.sessionId(), SUPERVISOR_CONNECTION);
+        int[] handles = {sessionManager.getConnectionHandle(CLIENT_CONNECTION),
+                sessionManager.getConnectionHandle(SUPERVISOR_CONNECTION)};
+
+        long[] latencies = new long[iterations];
+        int completed = 0;
+        while (completed < iterations && System.nanoTime() < deadline) {
+            long iterationStart = System.nanoTime();
+            iterate(router, sessionManager, converter, session.sessionId(), handles, completed);
+            latencies[completed++] = System.nanoTime() - iterationStart;
+        }
+
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+        if (completed == 0) {
+            return new Report(0, elapsedMillis, 0, 0);
+        }
+        long[] warm = Arrays.copyOfRange(latencies, completed - Math.max(1, completed / 10), completed);
+        Arrays.sort(warm);
+        return new Report(completed, elapsedMillis, latencies[0] / 1_000, warm[warm.length / 2] / 1_000);
+    }
+
+
+    private void iterate(MessageRouter router, SessionManager sessionManager, MongoConverter converter,
+                         String sessionId, int[] handles, int iteration) throws Exception {
+        // Client message, parsed like the WebSocket handlers do, routed to the legacy supervisor
+        String json = "{\"sessionId\":\"" + sessionId + "\",\"from\":\"CLIENT\",\"type\":\"MESSAGE\","
+                + "\"payload\":{\"text\":\"warm-up " + iteration + "\"}}";
+        MessageCodec.Frame frame = messageCodec.scan(json);
+        router.routeFrame(handles[0], CLIENT_CONNECTION, frame);
+        Message fromClient = messageCodec.decode(json);
+
+        // Supervisor reply, serialized to JSON for the WebSocket client
+        Message fromSupervisor = new Message(sessionId, "SUPERVISOR",
+                MessageType.MESSAGE, new TextPayload("reply " + iteration, null));
+        router.routeMessage(handles[1], SUPERVISOR_CONNECTION, fromSupervisor);
+
+        // REST session listing
+        objectMapper.writeValueAsString(sessionManager.getAllSessions().stream()
+                .map(SessionDTO::fromSession)
+                .toList());
+
+        // Legacy inbound path: the server reads MensagemTexto from the ObjectInputStream
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            output.writeObject(new MensagemTexto(sessionId, "SUPERVISOR", "warm-up " + iteration));
+        }
+        try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            input.readObject();
+        }
+
+        // Mongo mapping, without touching the database
+        if (converter != null) {
+            Document document = new Document();
+            converter.write(new ChatMessageDocument(fromClient, "WEBSOCKET"), document);
+            converter.read(ChatMessageDocument.class, document);
+        }
+    }
+
+
+    private static Parceiro discardingParceiro() throws Exception {
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        new ObjectOutputStream(header).flush();
+        return new Parceiro(new Socket(),
+                new ObjectInputStream(new ByteArrayInputStream(header.toByteArray())),
+                new ObjectOutputStream(OutputStream.nullOutputStream()));
+    }
+
+
+    /**
+     * Drops logging below INFO from the thread marked with WARMUP_MDC_KEY. Other threads,
+     * serving real connections, are left alone.
+     */
+    static final class WarmupLogFilter extends TurboFilter {
+
+        @Override
+        public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params,
+                                  Throwable t) {
+            if (level.isGreaterOrEqual(Level.INFO) || MDC.get(WARMUP_MDC_KEY) == null) {
+                return FilterReply.NEUTRAL;
+            }
+            return FilterReply.DENY;
+        }
+    }
+
+
+    /**
+     * Open WebSocket session that discards whatever is sent to it.
+     */
+    private static final class DiscardingWebSocketSession implements WebSocketSession {
+
+        // --- ATTRIBUTES ---
+        private final Map<String, Object> attributes = new HashMap<>();
+
+        @Override
+        public String getId() {
+            return CLIENT_CONNECTION;
+        }
+
+        @Override
+        public URI getUri() {
+            return URI.create("ws://localhost/ws/client");
+        }
+
+        @Override
+        public HttpHeaders getHandshakeHeaders() {
+            return HttpHeaders.EMPTY;
+        }
+
+        @Override
+        public Map<String, Object> getAttributes() {
+            return attributes;
+        }
+
+        @Override
+        public Principal getPrincipal() {
+            return null;
+        }
+
+        @Override
+        public InetSocketAddress getLocalAddress() {
+            return null;
+        }
+
+        @Override
+        public InetSocketAddress getRemoteAddress() {
+            return null;
+        }
+
+        @Override
+        public String getAcceptedProtocol() {
+            return null;
+        }
+
+        @Override
+        public void setTextMessageSizeLimit(int messageSizeLimit) {
+        }
+
+        @Override
+        public int getTextMessageSizeLimit() {
+            return Integer.MAX_VALUE;
+        }
+
+        @Override
+        public void setBinaryMessageSizeLimit(int messageSizeLimit) {
+        }
+
+        @Override
+        public int getBinaryMessageSizeLimit() {
+            return Integer.MAX_VALUE;
+        }
+
+        @Override
+        public List<WebSocketExtension> getExtensions() {
+            return List.of();
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) {
+            if (message instanceof TextMessage text) {
+                text.asBytes();
+            }
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public void close(CloseStatus status) throws IOException {
+        }
+    }
+}
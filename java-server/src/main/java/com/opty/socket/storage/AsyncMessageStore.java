@@ -0,0 +1,249 @@
+/**
+ * Asynchronous message store decorator.
+ */
+
+package com.opty.socket.storage;
+
+
+/**
+ * IMPORTS
+ */
+import com.opty.socket.model.ChatMessageDocument;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * CODE
+ */
+
+/**
+ * Persist stage of the inbound pipeline: appends return once the message is queued, and a
+ * single writer thread hands them to the delegate in batches ({@link MessageStore#appendAll}),
+ * in queue order.
+ *
+ * A message leaves the queue only after its batch is written, so transcript reads see
+ * queued messages too. When the queue is full the caller appends to the delegate itself,
+ * which slows the pipeline down instead of losing messages. {@link #flush} waits for the
+ * queue to drain.
+ *
+ * Meters, tagged stage=persist: opty.pipeline.queue.depth, opty.pipeline.process (one
+ * record per message, its share of the batch write) and opty.pipeline.rejected (appends
+ * done by the caller).
+ */
+@Slf4j
+public class AsyncMessageStore implements MessageStore {
+
+    // --- ATTRIBUTES ---
+    static final String STAGE = "persist";
+
+    private final MessageStore delegate;
+    private final BlockingQueue<ChatMessageDocument> queue;
+    private final int batchSize;
+    private final Thread writer;
+    // Queued or being written
+    private final AtomicInteger pending = new AtomicInteger();
+    // Released once per queued message; the writer sleeps on it while the queue is empty
+    private final Semaphore available = new Semaphore(0);
+
+    private final Timer processTimer;
+    private final Counter overflowCounter;
+    private volatile boolean running = true;
+
+
+    public AsyncMessageStore(MessageStore delegate, int capacity, int batchSize, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+
+        this.processTimer = Timer.builder("opty.pipeline.process")
+                .description("Time to process one queued task")
+                .tag("stage", STAGE)
+                .register(meterRegistry);
+        this.overflowCounter = Counter.builder("opty.pipeline.rejected")
+                .description("Tasks rejected because their lane was full")
+                .tag("stage", STAGE)
+                .register(meterRegistry);
+        Gauge.builder("opty.pipeline.queue.depth", queue, BlockingQueue::size)
+                .description("Tasks waiting in the stage")
+                .tag("stage", STAGE)
+                .register(meterRegistry);
+
+        this.writer = new Thread(this::drain, "persist-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+
+    @Override
+    public void append(ChatMessageDocument document) {
+        pending.incrementAndGet();
+        if (running && queue.offer(document)) {
+            available.release();
+            return;
+        }
+
+        // Queue full or closed: write here
+        pending.decrementAndGet();
+        overflowCounter.increment();
+        write(List.of(document));
+    }
+
+
+    /**
+     * Reads the stored transcript plus the messages of the session still queued.
+     *
+     * The queue is read first: a message is removed from it only after being written, so
+     * each message is in the snapshot, in the store, or in both.
+     */
+    @Override
+    public List<ChatMessageDocument> findBySessionId(String sessionId) {
+        List<ChatMessageDocument> queued = new ArrayList<>();
+        for (ChatMessageDocument document : queue) {
+            if (sessionId.equals(document.getSessionId())) {
+                queued.add(document);
+            }
+        }
+
+        List<ChatMessageDocument> stored = delegate.findBySessionId(sessionId);
+        if (queued.isEmpty()) {
+            return stored;
+        }
+
+        // Written while the store was read: already in the transcript
+        List<ChatMessageDocument> transcript = new ArrayList<>(stored);
+        for (ChatMessageDocument document : queued) {
+            if (stored.stream().noneMatch(existing -> sameMessage(existing, document))) {
+                transcript.add(document);
+            }
+        }
+        transcript.sort(TRANSCRIPT_ORDER);
+        return transcript;
+    }
+
+
+    /**
+     * The highest of the queued messages of the session and the delegate's.
+     */
+    @Override
+    public long lastSequence(String sessionId) {
+        long queued = 0;
+        for (ChatMessageDocument document : queue) {
+            if (sessionId.equals(document.getSessionId()) && document.getSequence() != null) {
+                queued = Math.max(queued, document.getSequence());
+            }
+        }
+        return Math.max(queued, delegate.lastSequence(sessionId));
+    }
+
+
+    /**
+     * Waits for the queued messages to be written, then flushes the delegate.
+     */
+    @Override
+    public void flush() {
+        while (pending.get() > 0 && writer.isAlive()) {
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        delegate.flush();
+    }
+
+
+    @Override
+    public String name() {
+        return delegate.name();
+    }
+
+
+    /**
+     * Writes what is queued and stops the writer, then closes the delegate if it holds
+     * resources. Later appends are written by the caller.
+     */
+    public void close() {
+        running = false;
+        flush();
+        writer.interrupt();
+        if (delegate instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                log.warn("Failed to close message store: store={}, error={}", delegate.name(), e.getMessage());
+            }
+        }
+    }
+
+
+    private void drain() {
+        List<ChatMessageDocument> batch = new ArrayList<>(batchSize);
+        while (true) {
+            try {
+                available.acquire();
+            } catch (InterruptedException e) {
+                return;
+            }
+            // Permits of messages taken below; any message queued later releases a new one
+            available.drainPermits();
+
+            while (!queue.isEmpty()) {
+                // Only this thread removes, so the head of the queue is stable
+                Iterator<ChatMessageDocument> head = queue.iterator();
+                while (batch.size() < batchSize && head.hasNext()) {
+                    batch.add(head.next());
+                }
+                try {
+                    write(batch);
+                } finally {
+                    for (int i = 0; i < batch.size(); i++) {
+                        queue.poll();
+                    }
+                    pending.addAndGet(-batch.size());
+                    batch.clear();
+                }
+            }
+        }
+    }
+
+
+    private void write(List<ChatMessageDocument> batch) {
+        long startedAt = System.nanoTime();
+        try {
+            delegate.appendAll(batch);
+        } catch (RuntimeException e) {
+            log.error("Failed to store messages: count={}, sessionId={}, store={}, error={}",
+                    batch.size(), batch.get(0).getSessionId(), delegate.name(), e.getMessage(), e);
+        } finally {
+            long perMessage = (System.nanoTime() - startedAt) / batch.size();
+            for (int i = 0; i < batch.size(); i++) {
+                processTimer.record(perMessage, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+
+    /**
+     * Whether two documents are the same message: the same instance, the same stored id
+     * or the same session sequence number.
+     */
+    private static boolean sameMessage(ChatMessageDocument stored, ChatMessageDocument queued) {
+        return stored == queued
+                || (queued.getId() != null && queued.getId().equals(stored.getId()))
+                || (queued.getSequence() != null && queued.getSequence().equals(stored.getSequence()));
+    }
+}
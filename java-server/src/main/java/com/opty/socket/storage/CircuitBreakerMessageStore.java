@@ -0,0 +1,221 @@
+/**
+ * Circuit breaker message store decorator.
+ */
+
+package com.opty.socket.storage;
+
+
+/**
+ * IMPORTS
+ */
+import com.opty.socket.config.AppConfig;
+import com.opty.socket.model.ChatMessageDocument;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+
+/**
+ * CODE
+ */
+
+/**
+ * Guards a message store with a {@link StorageCircuitBreaker}.
+ *
+ * While the circuit is open, writes return immediately and are diverted to a bounded
+ * in-memory queue, which is replayed in the background once a trial write closes the
+ * circuit. Writes beyond the queue capacity are dropped and counted.
+ */
+@Slf4j
+public class CircuitBreakerMessageStore implements MessageStore {
+
+    // --- ATTRIBUTES ---
+    private final MessageStore delegate;
+    private final StorageCircuitBreaker circuitBreaker;
+    private final BlockingQueue<ChatMessageDocument> diverted;
+    private final boolean divertEnabled;
+    private final ExecutorService replayExecutor;
+
+    private final Counter successCounter;
+    private final Counter failureCounter;
+    private final Counter slowCounter;
+    private final Counter divertedCounter;
+    private final Counter droppedCounter;
+
+
+    public CircuitBreakerMessageStore(MessageStore delegate, AppConfig.CircuitBreakerConfig config,
+                                      MeterRegistry meterRegistry) {
+        this(delegate, new StorageCircuitBreaker(config), config.getDivertCapacity(), meterRegistry);
+    }
+
+
+    public CircuitBreakerMessageStore(MessageStore delegate, StorageCircuitBreaker circuitBreaker,
+                                      int divertCapacity, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.circuitBreaker = circuitBreaker;
+        this.diverted = new ArrayBlockingQueue<>(Math.max(divertCapacity, 1));
+        this.divertEnabled = divertCapacity > 0;
+        this.replayExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "storage-replay");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        String store = delegate.name();
+        this.successCounter = writes(meterRegistry, store, "success");
+        this.failureCounter = writes(meterRegistry, store, "failure");
+        this.slowCounter = writes(meterRegistry, store, "slow");
+        this.divertedCounter = writes(meterRegistry, store, "diverted");
+        this.droppedCounter = writes(meterRegistry, store, "dropped");
+
+        Gauge.builder("opty.storage.circuit.state", circuitBreaker, breaker -> breaker.getState().ordinal())
+                .description("Storage circuit state: 0=closed, 1=half-open, 2=open")
+                .tag("store", store)
+                .register(meterRegistry);
+        Gauge.builder("opty.storage.circuit.diverted", diverted, BlockingQueue::size)
+                .description("Writes waiting for replay")
+                .tag("store", store)
+                .register(meterRegistry);
+
+        // Replay diverted writes once the circuit closes again
+        circuitBreaker.setOnClose(() -> replayExecutor.execute(this::replayDiverted));
+    }
+
+
+    @Override
+    public void append(ChatMessageDocument document) {
+        write(List.of(document), () -> delegate.append(document));
+    }
+
+
+    @Override
+    public void appendAll(List<ChatMessageDocument> documents) {
+        write(documents, () -> delegate.appendAll(documents));
+    }
+
+
+    @Override
+    public List<ChatMessageDocument> findBySessionId(String sessionId) {
+        return delegate.findBySessionId(sessionId);
+    }
+
+
+    /**
+     * Includes the diverted writes of the session, not yet in the delegate.
+     */
+    @Override
+    public long lastSequence(String sessionId) {
+        long diverts = MessageStore.maxSequence(diverted.stream()
+                .filter(document -> sessionId.equals(document.getSessionId()))
+                .toList());
+        return Math.max(diverts, delegate.lastSequence(sessionId));
+    }
+
+
+    /**
+     * Replays diverted writes if the circuit is closed, then flushes the delegate.
+     */
+    @Override
+    public void flush() {
+        if (circuitBreaker.getState() == StorageCircuitBreaker.State.CLOSED) {
+            replayDiverted();
+        }
+        delegate.flush();
+    }
+
+
+    @Override
+    public String name() {
+        return delegate.name();
+    }
+
+
+    public StorageCircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public int getDivertedCount() {
+        return diverted.size();
+    }
+
+
+    /**
+     * Runs a write through the circuit, diverting its messages when the circuit is open
+     * or the write fails.
+     */
+    private void write(List<ChatMessageDocument> documents, Runnable call) {
+
+        // Circuit open: return immediately
+        if (!circuitBreaker.tryAcquire()) {
+            documents.forEach(this::divert);
+            return;
+        }
+
+        long startedAt = System.nanoTime();
+        try {
+            call.run();
+        } catch (RuntimeException e) {
+            circuitBreaker.onFailure();
+            failureCounter.increment(documents.size());
+            log.debug("Store write failed: store={}, error={}", delegate.name(), e.getMessage());
+            documents.forEach(this::divert);
+            return;
+        }
+
+        // Successful but slow writes also count against the circuit
+        if (circuitBreaker.onSuccess(System.nanoTime() - startedAt)) {
+            successCounter.increment(documents.size());
+        } else {
+            slowCounter.increment(documents.size());
+        }
+    }
+
+
+    /**
+     * Keeps a write for replay, or drops it when the queue is full.
+     */
+    private void divert(ChatMessageDocument document) {
+        if (divertEnabled && diverted.offer(document)) {
+            divertedCounter.increment();
+        } else {
+            droppedCounter.increment();
+        }
+    }
+
+
+    /**
+     * Writes diverted messages while the circuit stays closed.
+     * Synchronized so flush() waits for a background replay in progress.
+     */
+    private synchronized void replayDiverted() {
+        int replayed = 0;
+        ChatMessageDocument document;
+        while (circuitBreaker.getState() == StorageCircuitBreaker.State.CLOSED
+                && (document = diverted.poll()) != null) {
+            append(document);
+            replayed++;
+        }
+        if (replayed > 0) {
+            log.info("Replayed {} diverted writes: store={}", replayed, delegate.name());
+        }
+    }
+
+
+    /**
+     * Registers the write outcome counter.
+     */
+    private static Counter writes(MeterRegistry meterRegistry, String store, String outcome) {
+        return Counter.builder("opty.storage.writes")
+                .description("Message store writes by outcome")
+                .tag("store", store)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,116 @@
+/**
+ * In-memory message store.
+ */
+
+package com.opty.socket.storage;
+
+
+/**
+ * IMPORTS
+ */
+import com.opty.socket.model.ChatMessageDocument;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * CODE
+ */
+
+/**
+ * Bounded in-process store, for benchmarks and deployments without persistence.
+ *
+ * Once maxMessages is reached the oldest messages are evicted first.
+ */
+public class InMemoryMessageStore implements MessageStore {
+
+    // --- ATTRIBUTES ---
+    private final int maxMessages;
+    private final ConcurrentHashMap<String, Queue<ChatMessageDocument>> bySession = new ConcurrentHashMap<>();
+    private final Queue<ChatMessageDocument> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicLong nextId = new AtomicLong();
+
+
+    public InMemoryMessageStore(int maxMessages) {
+        this.maxMessages = maxMessages;
+    }
+
+
+    @Override
+    public void append(ChatMessageDocument document) {
+        if (document.getId() == null) {
+            document.setId(Long.toString(nextId.incrementAndGet()));
+        }
+
+        String key = sessionKey(document.getSessionId());
+        bySession.compute(key, (k, messages) -> {
+            Queue<ChatMessageDocument> target = messages != null ? messages : new ConcurrentLinkedQueue<>();
+            target.add(document);
+            return target;
+        });
+        insertionOrder.add(document);
+
+        // Evict the oldest message beyond capacity
+        if (size.incrementAndGet() > maxMessages) {
+            ChatMessageDocument oldest = insertionOrder.poll();
+            if (oldest != null) {
+                evict(oldest);
+                size.decrementAndGet();
+            }
+        }
+    }
+
+
+    @Override
+    public List<ChatMessageDocument> findBySessionId(String sessionId) {
+        Queue<ChatMessageDocument> messages = bySession.get(sessionKey(sessionId));
+        if (messages == null) {
+            return List.of();
+        }
+
+        List<ChatMessageDocument> transcript = new ArrayList<>(messages);
+        transcript.sort(TRANSCRIPT_ORDER);
+        return transcript;
+    }
+
+
+    /**
+     * Gets the number of stored messages.
+     */
+    public int size() {
+        return size.get();
+    }
+
+
+    @Override
+    public String name() {
+        return "memory";
+    }
+
+
+    /**
+     * Removes an evicted message from its session, dropping empty sessions.
+     */
+    private void evict(ChatMessageDocument oldest) {
+        String key = sessionKey(oldest.getSessionId());
+        bySession.computeIfPresent(key, (k, messages) -> {
+            messages.remove(oldest);
+            return messages.isEmpty() ? null : messages;
+        });
+    }
+
+
+    /**
+     * Maps null session IDs to a stable key (ConcurrentHashMap rejects null keys).
+     */
+    private static String sessionKey(String sessionId) {
+        return sessionId != null ? sessionId : "";
+    }
+}
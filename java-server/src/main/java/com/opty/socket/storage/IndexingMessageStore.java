@@ -0,0 +1,84 @@
+/**
+ * Search indexing message store decorator.
+ */
+
+package com.opty.socket.storage;
+
+
+/**
+ * IMPORTS
+ */
+import com.opty.socket.model.ChatMessageDocument;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+
+/**
+ * CODE
+ */
+
+/**
+ * Adds appended messages to a {@link MessageSearch} index once the delegate accepted them.
+ *
+ * Sits inside the persist stage, so with the inbound pipeline on the index is updated by
+ * the writer thread, never by the thread that routed the message.
+ */
+@RequiredArgsConstructor
+public class IndexingMessageStore implements MessageStore, AutoCloseable {
+
+    // --- ATTRIBUTES ---
+    private final MessageStore delegate;
+    private final MessageSearch messageSearch;
+
+
+    @Override
+    public void append(ChatMessageDocument document) {
+        delegate.append(document);
+        messageSearch.index(document);
+    }
+
+
+    @Override
+    public void appendAll(List<ChatMessageDocument> documents) {
+        delegate.appendAll(documents);
+        for (ChatMessageDocument document : documents) {
+            messageSearch.index(document);
+        }
+    }
+
+
+    @Override
+    public List<ChatMessageDocument> findBySessionId(String sessionId) {
+        return delegate.findBySessionId(sessionId);
+    }
+
+
+    @Override
+    public long lastSequence(String sessionId) {
+        return delegate.lastSequence(sessionId);
+    }
+
+
+    @Override
+    public void flush() {
+        delegate.flush();
+    }
+
+
+    @Override
+    public String name() {
+        return delegate.name();
+    }
+
+
+    /**
+     * Closes the delegate if it holds resources, as the journal does.
+     */
+    @Override
+    public void close() throws Exception {
+        if (delegate instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+}
@@ -0,0 +1,305 @@
+/**
+ * Local inverted index search.
+ */
+
+package com.opty.socket.storage;
+
+
+/**
+ * IMPORTS
+ */
+import com.opty.socket.config.AppConfig;
+import com.opty.socket.model.ChatMessageDocument;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+
+/**
+ * CODE
+ */
+
+/**
+ * In-process inverted index over the last opty.socket.storage.search.max-documents
+ * messages, for the backends without a database text index.
+ *
+ * Messages get increasing ordinals and sit in a ring of that size, so each term's posting
+ * list stays sorted and entries pushed out of the ring are trimmed from its front. Queries
+ * walk the rarest term's list from the newest message back, look the other terms up by
+ * binary search and rank the matches with BM25. At most max-candidates matches are
+ * ranked per query, which bounds its time whatever the index size.
+ *
+ * The index starts empty: messages stored before a restart are not searchable.
+ */
+@Slf4j
+public class InvertedIndexSearch implements MessageSearch {
+
+    // --- ATTRIBUTES ---
+    // BM25 term frequency saturation and length normalization
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private static final Comparator<Candidate> WORST_FIRST = Comparator
+            .comparingDouble(Candidate::score)
+            .thenComparingInt(Candidate::ordinal);
+
+    private final int capacity;
+    private final int maxCandidates;
+    // Only what a hit shows, not the whole document; score is filled in per query
+    private final Hit[] entries;
+    private final int[] lengths;
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Guarded by lock
+    private int next;
+    private long totalLength;
+
+
+    public InvertedIndexSearch(AppConfig.SearchConfig config) {
+        this(config.getMaxDocuments(), config.getMaxCandidates());
+    }
+
+
+    public InvertedIndexSearch(int capacity, int maxCandidates) {
+        this.capacity = capacity;
+        this.maxCandidates = maxCandidates;
+        this.entries = new Hit[capacity];
+        this.lengths = new int[capacity];
+    }
+
+
+    @Override
+    public void index(ChatMessageDocument document) {
+        String text = MessageSearch.textOf(document);
+        List<String> terms = MessageSearch.terms(text);
+        if (terms.isEmpty()) {
+            return;
+        }
+        Hit shown = new Hit(document.getSessionId(), document.getChannelType(), document.getFrom(),
+                document.getTimestamp(), document.getSequence(), text, 0);
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String term : terms) {
+            frequencies.merge(term, 1, Integer::sum);
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (next == Integer.MAX_VALUE) {
+                clear();
+            }
+            int ordinal = next++;
+            int slot = ordinal % capacity;
+            totalLength += terms.size() - lengths[slot];
+            entries[slot] = shown;
+            lengths[slot] = terms.size();
+
+            int floor = floor();
+            for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), term -> new Postings())
+                        .add(ordinal, entry.getValue(), floor);
+            }
+
+            // Once per turn of the ring, drop terms only found in evicted messages
+            if (next % capacity == 0) {
+                sweep(floor());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+
+    @Override
+    public Page search(String query, int page, int size) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(MessageSearch.terms(query)));
+        int wanted = (page + 1) * size;
+        if (terms.isEmpty() || size <= 0) {
+            return Page.empty(query, page, size);
+        }
+
+        lock.readLock().lock();
+        try {
+            int floor = floor();
+            int live = next - floor;
+
+            // Every term must be indexed; the rarest one drives the walk
+            Postings[] lists = new Postings[terms.size()];
+            int[] from = new int[lists.length];
+            for (int i = 0; i < lists.length; i++) {
+                lists[i] = postings.get(terms.get(i));
+                if (lists[i] == null) {
+                    return Page.empty(query, page, size);
+                }
+            }
+            Arrays.sort(lists, Comparator.comparingInt(list -> list.size - list.lowerBound(floor)));
+            double[] idf = new double[lists.length];
+            int[] to = new int[lists.length];
+            for (int i = 0; i < lists.length; i++) {
+                from[i] = lists[i].lowerBound(floor);
+                to[i] = lists[i].size;
+                int df = to[i] - from[i];
+                idf[i] = Math.log(1 + (live - df + 0.5) / (df + 0.5));
+            }
+            double averageLength = live > 0 ? (double) totalLength / Math.min(next, capacity) : 1;
+
+            PriorityQueue<Candidate> top = new PriorityQueue<>(wanted + 1, WORST_FIRST);
+            int matched = 0;
+            Postings rarest = lists[0];
+            walk:
+            for (int p = to[0] - 1; p >= from[0] && matched < maxCandidates; p--) {
+                int ordinal = rarest.ordinals[p];
+                int length = lengths[ordinal % capacity];
+                double score = bm25(idf[0], rarest.frequencies[p], length, averageLength);
+
+                for (int i = 1; i < lists.length; i++) {
+                    int found = Arrays.binarySearch(lists[i].ordinals, from[i], to[i], ordinal);
+                    if (found < 0) {
+                        // Older ordinals are all below the insertion point
+                        to[i] = -found - 1;
+                        continue walk;
+                    }
+                    to[i] = found;
+                    score += bm25(idf[i], lists[i].frequencies[found], length, averageLength);
+                }
+
+                matched++;
+                top.add(new Candidate(ordinal, score));
+                if (top.size() > wanted) {
+                    top.poll();
+                }
+            }
+
+            List<Candidate> ranked = new ArrayList<>(top);
+            ranked.sort(WORST_FIRST.reversed());
+            List<Hit> hits = new ArrayList<>(size);
+            for (int i = page * size; i < ranked.size(); i++) {
+                Candidate candidate = ranked.get(i);
+                Hit entry = entries[candidate.ordinal() % capacity];
+                hits.add(new Hit(entry.sessionId(), entry.channelType(), entry.from(), entry.timestamp(),
+                        entry.sequence(), entry.text(), candidate.score()));
+            }
+            return new Page(query, page, size, matched > wanted, hits);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+
+    /**
+     * Messages currently searchable.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return next - floor();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+
+    @Override
+    public String name() {
+        return "local";
+    }
+
+
+    /**
+     * Lowest ordinal still in the ring.
+     */
+    private int floor() {
+        return Math.max(0, next - capacity);
+    }
+
+
+    private void sweep(int floor) {
+        Iterator<Postings> lists = postings.values().iterator();
+        while (lists.hasNext()) {
+            if (lists.next().trim(floor)) {
+                lists.remove();
+            }
+        }
+    }
+
+
+    private void clear() {
+        log.info("Search index ordinals exhausted, starting over: terms={}", postings.size());
+        postings.clear();
+        Arrays.fill(entries, null);
+        Arrays.fill(lengths, 0);
+        next = 0;
+        totalLength = 0;
+    }
+
+
+    private static double bm25(double idf, int frequency, int length, double averageLength) {
+        return idf * frequency * (K1 + 1) / (frequency + K1 * (1 - B + B * length / averageLength));
+    }
+
+
+    private record Candidate(int ordinal, double score) {
+    }
+
+
+    /**
+     * Ordinals of the messages holding one term, ascending, with the term's count in each.
+     * Entries before start were evicted.
+     */
+    private static final class Postings {
+        private int[] ordinals = new int[2];
+        private int[] frequencies = new int[2];
+        private int start;
+        private int size;
+
+        private void add(int ordinal, int frequency, int floor) {
+            trim(floor);
+            if (size == ordinals.length) {
+                if (start > size / 2) {
+                    // Mostly evicted: shift down instead of growing
+                    System.arraycopy(ordinals, start, ordinals, 0, size - start);
+                    System.arraycopy(frequencies, start, frequencies, 0, size - start);
+                    size -= start;
+                    start = 0;
+                } else {
+                    ordinals = Arrays.copyOf(ordinals, size * 2);
+                    frequencies = Arrays.copyOf(frequencies, size * 2);
+                }
+            }
+            ordinals[size] = ordinal;
+            frequencies[size] = frequency;
+            size++;
+        }
+
+        /**
+         * Skips evicted entries.
+         *
+         * @return true if none are left
+         */
+        private boolean trim(int floor) {
+            start = lowerBound(floor);
+            return start == size;
+        }
+
+        /**
+         * Position of the first ordinal not below the floor.
+         */
+        private int lowerBound(int floor) {
+            if (start == size || ordinals[start] >= floor) {
+                return start;
+            }
+            int found = Arrays.binarySearch(ordinals, start, size, floor);
+            return found >= 0 ? found : -found - 1;
+        }
+    }
+}
@@ -0,0 +1,251 @@
+/**
+ * Append-only journal message store.
+ */
+
+package com.opty.socket.storage;
+
+
+/**
+ * IMPORTS
+ */
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.opty.socket.config.AppConfig;
+import com.opty.socket.model.ChatMessageDocument;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+
+/**
+ * CODE
+ */
+
+/**
+ * Local store that appends messages to segmented, memory-mapped journal files.
+ *
+ * Segments are named segment-NNNNNNNNNNNNNNNNNNNN.log and rolled when full. On startup every
+ * segment is scanned to rebuild the in-memory index, and a torn record at the tail left by a
+ * crash is truncated. Appends are serialized by a single lock; reads never block writers.
+ */
+@Slf4j
+public class JournalMessageStore implements MessageStore, Closeable {
+
+    // --- ATTRIBUTES ---
+    private static final Pattern SEGMENT_NAME = Pattern.compile("segment-(\\d{20})\\.log");
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int indexInterval;
+    private final boolean syncEveryWrite;
+    private final ObjectMapper objectMapper;
+    private final List<JournalSegment> segments = new CopyOnWriteArrayList<>();
+    private final Object writeLock = new Object();
+    private volatile JournalSegment active;
+
+
+    public JournalMessageStore(AppConfig.JournalConfig config, ObjectMapper objectMapper) {
+        this.directory = Paths.get(config.getDirectory());
+        this.segmentSize = config.getSegmentSizeMb() * 1024 * 1024;
+        this.indexInterval = config.getIndexInterval();
+        this.syncEveryWrite = config.isSyncEveryWrite();
+        this.objectMapper = objectMapper;
+
+        try {
+            Files.createDirectories(directory);
+            recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open message journal at " + directory, e);
+        }
+    }
+
+
+    @Override
+    public void append(ChatMessageDocument document) {
+        byte[] payload;
+        try {
+            payload = objectMapper.writeValueAsBytes(document);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to serialize message for journal", e);
+        }
+
+        if (payload.length + JournalSegment.HEADER_BYTES > segmentSize) {
+            throw new IllegalArgumentException("Message larger than journal segment: " + payload.length + " bytes");
+        }
+
+        String sessionId = document.getSessionId();
+        long timestamp = document.getTimestamp() != null ? document.getTimestamp().toEpochMilli() : 0L;
+
+        synchronized (writeLock) {
+            int offset = active.tryAppend(payload, sessionId, timestamp);
+
+            // Active segment full: seal it and roll to a new one
+            if (offset < 0) {
+                roll();
+                offset = active.tryAppend(payload, sessionId, timestamp);
+            }
+
+            if (syncEveryWrite) {
+                active.force();
+            }
+            document.setId(active.recordId(offset));
+        }
+    }
+
+
+    @Override
+    public List<ChatMessageDocument> findBySessionId(String sessionId) {
+        List<ChatMessageDocument> transcript = new ArrayList<>();
+
+        // Only segments that contain the session are scanned, from its first record
+        for (JournalSegment segment : segments) {
+            Integer firstOffset = segment.firstOffsetOf(sessionId);
+            if (firstOffset != null) {
+                segment.scan(firstOffset, objectMapper, document -> {
+                    if (sessionId.equals(document.getSessionId())) {
+                        transcript.add(document);
+                    }
+                });
+            }
+        }
+
+        transcript.sort(TRANSCRIPT_ORDER);
+        return transcript;
+    }
+
+
+    /**
+     * Reads all messages within a time range, ordered by timestamp.
+     *
+     * @param from inclusive start
+     * @param to   exclusive end
+     * @return messages in the range
+     */
+    public List<ChatMessageDocument> findByTimeRange(Instant from, Instant to) {
+        List<ChatMessageDocument> result = new ArrayList<>();
+
+        for (JournalSegment segment : segments) {
+            // Segment entirely older than the range
+            if (segment.position() == 0 || segment.maxTimestamp() < from.toEpochMilli()) {
+                continue;
+            }
+            segment.scan(segment.offsetForTime(from.toEpochMilli()), objectMapper, document -> {
+                Instant timestamp = document.getTimestamp();
+                if (timestamp != null && !timestamp.isBefore(from) && timestamp.isBefore(to)) {
+                    result.add(document);
+                }
+            });
+        }
+
+        result.sort(Comparator.comparing(ChatMessageDocument::getTimestamp));
+        return result;
+    }
+
+
+    @Override
+    public void flush() {
+        JournalSegment current = active;
+        if (current != null) {
+            current.force();
+        }
+    }
+
+
+    /**
+     * Gets the number of segment files.
+     */
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+
+    @Override
+    public String name() {
+        return "journal";
+    }
+
+
+    @Override
+    public void close() {
+        flush();
+        log.info("Message journal closed: directory={}, segments={}", directory, segments.size());
+    }
+
+
+    /**
+     * Opens existing segments in order and makes the last one active.
+     */
+    private void recover() throws IOException {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(path -> SEGMENT_NAME.matcher(path.getFileName().toString()).matches())
+                    .sorted()
+                    .toList();
+        }
+
+        long startedAt = System.nanoTime();
+        for (int i = 0; i < files.size(); i++) {
+            Path file = files.get(i);
+            boolean last = i == files.size() - 1;
+            segments.add(JournalSegment.open(file, segmentNumber(file), segmentSize, indexInterval, last, objectMapper));
+        }
+
+        if (segments.isEmpty()) {
+            active = createSegment(1);
+        } else {
+            active = segments.get(segments.size() - 1);
+        }
+
+        log.info("Message journal opened: directory={}, segments={}, recoveredIn={} ms",
+                directory, segments.size(), (System.nanoTime() - startedAt) / 1_000_000);
+    }
+
+
+    /**
+     * Seals the active segment and starts the next one.
+     */
+    private void roll() {
+        active.force();
+        try {
+            active = createSegment(active.number() + 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to roll message journal segment", e);
+        }
+        log.info("Message journal rolled: segment={}", active.path().getFileName());
+    }
+
+
+    /**
+     * Creates and maps a new writable segment.
+     */
+    private JournalSegment createSegment(long number) throws IOException {
+        Path file = directory.resolve(String.format("segment-%020d.log", number));
+        JournalSegment segment = JournalSegment.open(file, number, segmentSize, indexInterval, true, objectMapper);
+        segments.add(segment);
+        return segment;
+    }
+
+
+    /**
+     * Extracts the segment number from its file name.
+     */
+    private static long segmentNumber(Path file) {
+        Matcher matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Not a journal segment: " + file);
+        }
+        return Long.parseLong(matcher.group(1));
+    }
+}
@@ -0,0 +1,280 @@
+/**
+ * Journal segment file.
+ */
+
+package com.opty.socket.storage;
+
+
+/**
+ * IMPORTS
+ */
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.opty.socket.model.ChatMessageDocument;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+
+/**
+ * CODE
+ */
+
+/**
+ * One fixed-size, memory-mapped segment of the message journal.
+ *
+ * Record layout: [int length][int crc32][length bytes of JSON]. The length is written
+ * last and acts as the commit marker, so a zero length marks the end of the data and a
+ * torn or corrupted record is detected by its checksum.
+ *
+ * The in-memory index keeps the first record offset of each session and one time entry
+ * every indexInterval records. Time entries store the running maximum timestamp, so all
+ * records before an entry are older than it.
+ */
+@Slf4j
+final class JournalSegment {
+
+    // --- ATTRIBUTES ---
+    static final int HEADER_BYTES = 8;
+
+    private final long number;
+    private final Path path;
+    private final int capacity;
+    private final int indexInterval;
+    private final MappedByteBuffer buffer;
+    private final boolean writable;
+
+    private final ConcurrentHashMap<String, Integer> firstOffsetBySession = new ConcurrentHashMap<>();
+    private final List<long[]> timeIndex = new CopyOnWriteArrayList<>();
+    private volatile int position;
+    private int recordCount;
+    private long maxTimestamp = Long.MIN_VALUE;
+
+
+    private JournalSegment(long number, Path path, int capacity, int indexInterval,
+                           MappedByteBuffer buffer, boolean writable) {
+        this.number = number;
+        this.path = path;
+        this.capacity = capacity;
+        this.indexInterval = indexInterval;
+        this.buffer = buffer;
+        this.writable = writable;
+    }
+
+
+    /**
+     * Maps a segment file, creating it with the given capacity if needed, and rebuilds
+     * its index by scanning the committed records.
+     */
+    static JournalSegment open(Path path, long number, int capacity, int indexInterval,
+                               boolean writable, ObjectMapper objectMapper) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), writable ? "rw" : "r")) {
+            if (writable && file.length() < capacity) {
+                file.setLength(capacity);
+            }
+            int mappedSize = (int) Math.min(file.length(), Integer.MAX_VALUE);
+            MappedByteBuffer buffer = file.getChannel().map(
+                    writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY, 0, mappedSize);
+
+            JournalSegment segment = new JournalSegment(number, path, mappedSize, indexInterval, buffer, writable);
+            segment.recover(objectMapper);
+            return segment;
+        }
+    }
+
+
+    /**
+     * Appends a record if it fits in the remaining space.
+     *
+     * @return the record offset, or -1 if the segment is full
+     */
+    int tryAppend(byte[] payload, String sessionId, long timestampMillis) {
+        int offset = position;
+        if (offset + HEADER_BYTES + payload.length > capacity) {
+            return -1;
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        // Payload and checksum first, length last (commit marker)
+        buffer.put(offset + HEADER_BYTES, payload);
+        buffer.putInt(offset + 4, (int) crc.getValue());
+        buffer.putInt(offset, payload.length);
+
+        index(sessionId, timestampMillis, offset);
+        position = offset + HEADER_BYTES + payload.length;
+        return offset;
+    }
+
+
+    /**
+     * Visits committed records starting at the given offset.
+     */
+    void scan(int fromOffset, ObjectMapper objectMapper, Consumer<ChatMessageDocument> visitor) {
+        int end = position;
+        ByteBuffer view = buffer.duplicate();
+        int offset = fromOffset;
+
+        while (offset + HEADER_BYTES <= end) {
+            int length = view.getInt(offset);
+            byte[] payload = new byte[length];
+            view.get(offset + HEADER_BYTES, payload);
+
+            try {
+                ChatMessageDocument document = objectMapper.readValue(payload, ChatMessageDocument.class);
+                document.setId(recordId(offset));
+                visitor.accept(document);
+            } catch (IOException e) {
+                log.warn("Skipping unreadable journal record: segment={}, offset={}", number, offset);
+            }
+            offset += HEADER_BYTES + length;
+        }
+    }
+
+
+    /**
+     * Gets the offset of the first record of a session, or null if the session is not in this segment.
+     */
+    Integer firstOffsetOf(String sessionId) {
+        return sessionId != null ? firstOffsetBySession.get(sessionId) : null;
+    }
+
+
+    /**
+     * Gets the offset from which all records at or after the given time are found.
+     */
+    int offsetForTime(long timestampMillis) {
+        int offset = 0;
+        for (long[] entry : timeIndex) {
+            if (entry[0] >= timestampMillis) {
+                break;
+            }
+            offset = (int) entry[1];
+        }
+        return offset;
+    }
+
+
+    /**
+     * Forces mapped changes to the storage device.
+     */
+    void force() {
+        if (writable) {
+            buffer.force();
+        }
+    }
+
+
+    /**
+     * Builds the identifier of a record in this segment.
+     */
+    String recordId(int offset) {
+        return number + "-" + offset;
+    }
+
+    long number() {
+        return number;
+    }
+
+    Path path() {
+        return path;
+    }
+
+    int position() {
+        return position;
+    }
+
+    long maxTimestamp() {
+        return maxTimestamp;
+    }
+
+
+    /**
+     * Scans committed records, rebuilding the index, and truncates a torn tail.
+     */
+    private void recover(ObjectMapper objectMapper) {
+        int offset = 0;
+
+        while (offset + HEADER_BYTES <= capacity) {
+            int length = buffer.getInt(offset);
+
+            // Clean end of data
+            if (length == 0) {
+                break;
+            }
+
+            // Torn or corrupted record: everything after it is discarded
+            if (length < 0 || offset + HEADER_BYTES + length > capacity || !checksumMatches(offset, length)) {
+                log.warn("Journal segment truncated at corrupted record: segment={}, offset={}", number, offset);
+                truncate(offset);
+                break;
+            }
+
+            byte[] payload = new byte[length];
+            buffer.get(offset + HEADER_BYTES, payload);
+            try {
+                ChatMessageDocument document = objectMapper.readValue(payload, ChatMessageDocument.class);
+                long timestamp = document.getTimestamp() != null ? document.getTimestamp().toEpochMilli() : 0L;
+                index(document.getSessionId(), timestamp, offset);
+            } catch (IOException e) {
+                log.warn("Journal segment truncated at unreadable record: segment={}, offset={}", number, offset);
+                truncate(offset);
+                break;
+            }
+            offset += HEADER_BYTES + length;
+        }
+
+        position = offset;
+    }
+
+
+    /**
+     * Checks the stored checksum of a record.
+     */
+    private boolean checksumMatches(int offset, int length) {
+        byte[] payload = new byte[length];
+        buffer.get(offset + HEADER_BYTES, payload);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return buffer.getInt(offset + 4) == (int) crc.getValue();
+    }
+
+
+    /**
+     * Zeroes the segment from the given offset, so the next recovery stops there cleanly.
+     */
+    private void truncate(int offset) {
+        if (!writable) {
+            return;
+        }
+        for (int i = offset; i < capacity; i++) {
+            buffer.put(i, (byte) 0);
+        }
+        buffer.force();
+    }
+
+
+    /**
+     * Adds a record to the session and sparse time indexes.
+     */
+    private void index(String sessionId, long timestampMillis, int offset) {
+        if (sessionId != null) {
+            firstOffsetBySession.putIfAbsent(sessionId, offset);
+        }
+        maxTimestamp = Math.max(maxTimestamp, timestampMillis);
+        if (recordCount % indexInterval == 0) {
+            timeIndex.add(new long[]{maxTimestamp, offset});
+        }
+        recordCount++;
+    }
+}
@@ -0,0 +1,111 @@
+/**
+ * Transcript search SPI.
+ */
+
+package com.opty.socket.storage;
+
+
+/**
+ * IMPORTS
+ */
+import com.opty.socket.model.ChatMessageDocument;
+
+import java.text.Normalizer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+
+/**
+ * CODE
+ */
+
+/**
+ * Finds stored chat messages by their text.
+ *
+ * A message matches when its text contains every term of the query; matches come ranked
+ * by relevance, newest first on ties. Paging is bounded by opty.socket.storage.search.
+ */
+public interface MessageSearch {
+
+    /**
+     * One matching message.
+     */
+    record Hit(String sessionId, String channelType, String from, Instant timestamp, Long sequence,
+               String text, double score) {
+    }
+
+
+    /**
+     * One page of ranked matches.
+     *
+     * @param hasMore whether a next page has matches
+     */
+    record Page(String query, int page, int size, boolean hasMore, List<Hit> hits) {
+
+        public static Page empty(String query, int page, int size) {
+            return new Page(query, page, size, false, List.of());
+        }
+    }
+
+
+    /**
+     * Adds a stored message to the index. Backends indexed by the database ignore it.
+     */
+    default void index(ChatMessageDocument document) {
+    }
+
+
+    /**
+     * Finds the messages containing every term of the query.
+     *
+     * @param query words to look for
+     * @param page  page number, from 0
+     * @param size  hits per page
+     */
+    Page search(String query, int page, int size);
+
+
+    /**
+     * Short index name used in logs.
+     */
+    String name();
+
+
+    /**
+     * Text of a chat message, or null if it has none.
+     */
+    static String textOf(ChatMessageDocument document) {
+        return document.getPayload() != null && document.getPayload().get("text") instanceof String text
+                ? text
+                : null;
+    }
+
+
+    /**
+     * Splits text into lowercase terms of letters and digits, with accents removed, so
+     * "Não" and "nao" match.
+     */
+    static List<String> terms(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        String folded = Normalizer.normalize(text, Normalizer.Form.NFD).toLowerCase(Locale.ROOT);
+        StringBuilder term = new StringBuilder();
+        for (int i = 0; i <= folded.length(); i++) {
+            char c = i < folded.length() ? folded.charAt(i) : ' ';
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            if (Character.isLetterOrDigit(c)) {
+                term.append(c);
+            } else if (!term.isEmpty()) {
+                terms.add(term.toString());
+                term.setLength(0);
+            }
+        }
+        return terms;
+    }
+}
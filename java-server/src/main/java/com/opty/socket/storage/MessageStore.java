@@ -0,0 +1,105 @@
+/**
+ * Message store SPI.
+ */
+
+package com.opty.socket.storage;
+
+
+/**
+ * IMPORTS
+ */
+import com.opty.socket.model.ChatMessageDocument;
+
+import java.util.Comparator;
+import java.util.List;
+
+
+/**
+ * CODE
+ */
+
+/**
+ * Storage backend for chat message audit records.
+ *
+ * Implementations are selected with opty.socket.storage.backend.
+ */
+public interface MessageStore {
+
+    /**
+     * Transcript order: by session sequence number, then by timestamp. Messages stored
+     * before sequence numbers existed have none and come first.
+     */
+    Comparator<ChatMessageDocument> TRANSCRIPT_ORDER = Comparator
+            .comparing(ChatMessageDocument::getSequence, Comparator.nullsFirst(Comparator.<Long>naturalOrder()))
+            .thenComparing(ChatMessageDocument::getTimestamp, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+
+    /**
+     * Appends a message.
+     *
+     * @param document the message to store
+     */
+    void append(ChatMessageDocument document);
+
+
+    /**
+     * Appends messages in order. Backends that can write several messages in one round
+     * trip override this; the default appends them one by one.
+     *
+     * @param documents the messages to store
+     */
+    default void appendAll(List<ChatMessageDocument> documents) {
+        for (ChatMessageDocument document : documents) {
+            append(document);
+        }
+    }
+
+
+    /**
+     * Reads the transcript of a session, in {@link #TRANSCRIPT_ORDER}.
+     *
+     * @param sessionId the session ID
+     * @return messages of the session
+     */
+    List<ChatMessageDocument> findBySessionId(String sessionId);
+
+
+    /**
+     * Highest sequence number stored for a session. The default reads the whole transcript;
+     * backends with an index on the sequence override this.
+     *
+     * @param sessionId the session ID
+     * @return the sequence number, or 0 if no numbered message is stored
+     */
+    default long lastSequence(String sessionId) {
+        return maxSequence(findBySessionId(sessionId));
+    }
+
+
+    /**
+     * Makes previously appended messages durable.
+     */
+    default void flush() {
+    }
+
+
+    /**
+     * Short backend name used in logs and metrics.
+     */
+    String name();
+
+
+    /**
+     * Highest sequence number among the messages, or 0 if none is numbered.
+     */
+    static long maxSequence(Iterable<ChatMessageDocument> documents) {
+        long max = 0;
+        for (ChatMessageDocument document : documents) {
+            Long sequence = document.getSequence();
+            if (sequence != null && sequence > max) {
+                max = sequence;
+            }
+        }
+        return max;
+    }
+}
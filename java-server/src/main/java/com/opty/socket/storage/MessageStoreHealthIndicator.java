@@ -0,0 +1,48 @@
+/**
+ * Message store health indicator.
+ */
+
+package com.opty.socket.storage;
+
+
+/**
+ * IMPORTS
+ */
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+
+/**
+ * CODE
+ */
+
+/**
+ * Reports the message store backend and its circuit state under /actuator/health.
+ *
+ * An open circuit is reported as UP with details: chat keeps working while writes are
+ * diverted, so the instance must not be taken out of service.
+ */
+@Component
+@RequiredArgsConstructor
+public class MessageStoreHealthIndicator implements HealthIndicator {
+
+    // --- ATTRIBUTES ---
+    private final MessageStore messageStore;
+
+
+    @Override
+    public Health health() {
+        Health.Builder builder = Health.up().withDetail("backend", messageStore.name());
+
+        if (messageStore instanceof CircuitBreakerMessageStore guarded) {
+            StorageCircuitBreaker breaker = guarded.getCircuitBreaker();
+            builder.withDetail("circuit", breaker.getState())
+                    .withDetail("consecutiveFailures", breaker.getConsecutiveFailures())
+                    .withDetail("divertedWrites", guarded.getDivertedCount());
+        }
+
+        return builder.build();
+    }
+}
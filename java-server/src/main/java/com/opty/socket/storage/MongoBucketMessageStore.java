@@ -0,0 +1,48 @@
+/**
+ * MongoDB bucket message store.
+ */
+
+package com.opty.socket.storage;
+
+
+/**
+ * IMPORTS
+ */
+import com.opty.socket.model.ChatMessageDocument;
+import com.opty.socket.service.MessageBucketService;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+
+/**
+ * CODE
+ */
+
+/**
+ * Stores messages in per-session bucket documents.
+ */
+@RequiredArgsConstructor
+public class MongoBucketMessageStore implements MessageStore {
+
+    // --- ATTRIBUTES ---
+    private final MessageBucketService messageBucketService;
+
+
+    @Override
+    public void append(ChatMessageDocument document) {
+        messageBucketService.append(document);
+    }
+
+
+    @Override
+    public List<ChatMessageDocument> findBySessionId(String sessionId) {
+        return messageBucketService.findTranscript(sessionId);
+    }
+
+
+    @Override
+    public String name() {
+        return "mongo-bucket";
+    }
+}
@@ -0,0 +1,64 @@
+/**
+ * MongoDB message store.
+ */
+
+package com.opty.socket.storage;
+
+
+/**
+ * IMPORTS
+ */
+import com.opty.socket.model.ChatMessageDocument;
+import com.opty.socket.repository.ChatMessageRepository;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+
+/**
+ * CODE
+ */
+
+/**
+ * Stores one MongoDB document per message in the messages collection.
+ */
+@RequiredArgsConstructor
+public class MongoMessageStore implements MessageStore {
+
+    // --- ATTRIBUTES ---
+    private final ChatMessageRepository chatMessageRepository;
+
+
+    @Override
+    public void append(ChatMessageDocument document) {
+        chatMessageRepository.save(document);
+    }
+
+
+    /**
+     * New documents are written with a single insertMany.
+     */
+    @Override
+    public void appendAll(List<ChatMessageDocument> documents) {
+        chatMessageRepository.saveAll(documents);
+    }
+
+
+    @Override
+    public List<ChatMessageDocument> findBySessionId(String sessionId) {
+        return chatMessageRepository.findBySessionIdOrderBySequenceAscTimestampAsc(sessionId);
+    }
+
+
+    @Override
+    public long lastSequence(String sessionId) {
+        ChatMessageDocument last = chatMessageRepository.findFirstBySessionIdOrderBySequenceDesc(sessionId);
+        return last != null && last.getSequence() != null ? last.getSequence() : 0;
+    }
+
+
+    @Override
+    public String name() {
+        return "mongo";
+    }
+}
@@ -0,0 +1,138 @@
+/**
+ * MongoDB text index search.
+ */
+
+package com.opty.socket.storage;
+
+
+/**
+ * IMPORTS
+ */
+import com.opty.socket.config.AppConfig;
+import com.opty.socket.model.ChatMessageDocument;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.TextIndexDefinition;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.core.query.TextQuery;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+
+/**
+ * CODE
+ */
+
+/**
+ * Searches the messages collection through a text index on payload.text.
+ *
+ * Each query term is sent as a quoted phrase, which MongoDB requires all of, and results
+ * are sorted by text score. Queries run with opty.socket.storage.search.max-time-ms, and
+ * paging stops at max-results, so a deep or broad query fails fast instead of scanning.
+ * Archived messages (see MessageRetentionService) are not searched.
+ */
+@Slf4j
+public class MongoTextSearch implements MessageSearch {
+
+    // --- ATTRIBUTES ---
+    private static final String TEXT_FIELD = "payload.text";
+    private static final String INDEX_NAME = "payload_text";
+    private static final String SCORE_FIELD = "score";
+
+    private final MongoTemplate mongoTemplate;
+    private final AppConfig.SearchConfig config;
+    private final AtomicBoolean indexReady = new AtomicBoolean(false);
+
+
+    public MongoTextSearch(MongoTemplate mongoTemplate, AppConfig.SearchConfig config) {
+        this.mongoTemplate = mongoTemplate;
+        this.config = config;
+    }
+
+
+    /**
+     * Creates the text index. A collection has at most one, so a text index created with
+     * other options must be dropped first.
+     *
+     * @return true if the index is in place
+     */
+    public boolean ensureIndex() {
+        try {
+            mongoTemplate.indexOps(ChatMessageDocument.class).ensureIndex(
+                    new TextIndexDefinition.TextIndexDefinitionBuilder()
+                            .onField(TEXT_FIELD)
+                            .withDefaultLanguage(config.getLanguage())
+                            .named(INDEX_NAME)
+                            .build());
+            indexReady.set(true);
+            log.info("Message text index ready: field={}, language={}", TEXT_FIELD, config.getLanguage());
+            return true;
+        } catch (Exception e) {
+            log.error("Failed to create message text index: error={}", e.getMessage());
+            return false;
+        }
+    }
+
+
+    @Override
+    public Page search(String query, int page, int size) {
+        List<String> terms = phrases(query);
+        if (terms.isEmpty() || size <= 0) {
+            return Page.empty(query, page, size);
+        }
+        if (!indexReady.get() && !ensureIndex()) {
+            throw new IllegalStateException("Message text index not available");
+        }
+
+        TextCriteria criteria = TextCriteria.forLanguage(config.getLanguage());
+        terms.forEach(criteria::matchingPhrase);
+        TextQuery textQuery = TextQuery.queryText(criteria).sortByScore();
+        textQuery.includeScore(SCORE_FIELD);
+        textQuery.with(Sort.by(Sort.Direction.DESC, "timestamp"))
+                .skip((long) page * size)
+                .limit(size + 1)
+                .maxTimeMsec(config.getMaxTimeMs());
+
+        List<Document> found = mongoTemplate.find(textQuery, Document.class,
+                mongoTemplate.getCollectionName(ChatMessageDocument.class));
+
+        List<Hit> hits = new ArrayList<>(size);
+        for (int i = 0; i < found.size() && i < size; i++) {
+            Document raw = found.get(i);
+            ChatMessageDocument document = mongoTemplate.getConverter().read(ChatMessageDocument.class, raw);
+            Number score = raw.get(SCORE_FIELD, Number.class);
+            hits.add(new Hit(document.getSessionId(), document.getChannelType(), document.getFrom(),
+                    document.getTimestamp(), document.getSequence(), MessageSearch.textOf(document),
+                    score != null ? score.doubleValue() : 0));
+        }
+        return new Page(query, page, size, found.size() > size, hits);
+    }
+
+
+    @Override
+    public String name() {
+        return "mongo-text";
+    }
+
+
+    /**
+     * The query's words as typed (lowercased), without quotes. The text index folds case
+     * and accents itself.
+     */
+    private static List<String> phrases(String query) {
+        LinkedHashSet<String> phrases = new LinkedHashSet<>();
+        if (query != null) {
+            for (String word : query.replace("\"", " ").trim().split("\\s+")) {
+                if (!word.isEmpty() && !MessageSearch.terms(word).isEmpty()) {
+                    phrases.add(word.toLowerCase(java.util.Locale.ROOT));
+                }
+            }
+        }
+        return new ArrayList<>(phrases);
+    }
+}
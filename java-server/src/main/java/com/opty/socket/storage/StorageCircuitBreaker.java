@@ -0,0 +1,144 @@
+/**
+ * Storage circuit breaker.
+ */
+
+package com.opty.socket.storage;
+
+
+/**
+ * IMPORTS
+ */
+import com.opty.socket.config.AppConfig;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+
+/**
+ * CODE
+ */
+
+/**
+ * Health-tracking circuit breaker for storage calls.
+ *
+ * CLOSED: calls pass; consecutive failures or slow calls beyond the threshold open the circuit.
+ * OPEN: calls are rejected until openDuration has elapsed.
+ * HALF_OPEN: exactly one trial call passes; success closes the circuit, failure opens it again.
+ */
+@Slf4j
+public class StorageCircuitBreaker {
+
+    /**
+     * Circuit states.
+     */
+    public enum State {
+        CLOSED,
+        HALF_OPEN,
+        OPEN
+    }
+
+    // --- ATTRIBUTES ---
+    private final int failureThreshold;
+    private final long slowCallThresholdNanos;
+    private final long openDurationNanos;
+    private final LongSupplier nanoClock;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private volatile long openedAtNanos;
+    private volatile Runnable onClose = () -> { };
+
+
+    public StorageCircuitBreaker(AppConfig.CircuitBreakerConfig config) {
+        this(config, System::nanoTime);
+    }
+
+
+    public StorageCircuitBreaker(AppConfig.CircuitBreakerConfig config, LongSupplier nanoClock) {
+        this.failureThreshold = config.getFailureThreshold();
+        this.slowCallThresholdNanos = config.getSlowCallThresholdMs() * 1_000_000L;
+        this.openDurationNanos = config.getOpenDurationMs() * 1_000_000L;
+        this.nanoClock = nanoClock;
+    }
+
+
+    /**
+     * Asks permission for a call.
+     *
+     * @return true if the call may proceed (closed, or the half-open trial)
+     */
+    public boolean tryAcquire() {
+        State current = state.get();
+        if (current == State.CLOSED) {
+            return true;
+        }
+
+        // Open long enough: let exactly one caller through as the trial
+        if (current == State.OPEN && nanoClock.getAsLong() - openedAtNanos >= openDurationNanos) {
+            if (state.compareAndSet(State.OPEN, State.HALF_OPEN)) {
+                log.info("Storage circuit half-open, probing with a trial write");
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    /**
+     * Records a completed call.
+     *
+     * @param elapsedNanos call duration; calls above the slow threshold count as failures
+     * @return true if the call counted as healthy
+     */
+    public boolean onSuccess(long elapsedNanos) {
+        if (elapsedNanos > slowCallThresholdNanos) {
+            onFailure();
+            return false;
+        }
+
+        consecutiveFailures.set(0);
+        if (state.get() != State.CLOSED && state.compareAndSet(State.HALF_OPEN, State.CLOSED)) {
+            log.info("Storage circuit closed");
+            onClose.run();
+        }
+        return true;
+    }
+
+
+    /**
+     * Records a failed call.
+     */
+    public void onFailure() {
+        int failures = consecutiveFailures.incrementAndGet();
+
+        // Failed trial: back to open
+        if (state.compareAndSet(State.HALF_OPEN, State.OPEN)) {
+            openedAtNanos = nanoClock.getAsLong();
+            log.warn("Storage circuit re-opened after failed trial write");
+            return;
+        }
+
+        if (failures >= failureThreshold && state.compareAndSet(State.CLOSED, State.OPEN)) {
+            openedAtNanos = nanoClock.getAsLong();
+            log.warn("Storage circuit opened after {} consecutive failed or slow writes", failures);
+        }
+    }
+
+
+    /**
+     * Registers a callback invoked when the circuit closes after being open.
+     */
+    public void setOnClose(Runnable onClose) {
+        this.onClose = onClose;
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    public int getConsecutiveFailures() {
+        return consecutiveFailures.get();
+    }
+}
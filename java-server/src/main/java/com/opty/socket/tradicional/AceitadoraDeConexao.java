@@ -1,5 +1,8 @@
 package com.opty.socket.tradicional;
 
+import com.opty.socket.config.AppConfig;
+import com.opty.socket.service.HeartbeatMonitor;
+import com.opty.socket.service.InboundPipeline;
 import com.opty.socket.service.MessageRouter;
 import com.opty.socket.service.SessionManager;
 import com.opty.socket.service.SupervisorQueueService;
@@ -15,14 +18,18 @@ import java.util.*;
 public class AceitadoraDeConexao extends Thread {
     private ServerSocket pedido;
     private ArrayList<Parceiro> usuarios;
+    private volatile boolean encerrada = false;
 
     // Integração com o projeto
     private final SessionManager sessionManager;
     private final MessageRouter messageRouter;
     private final SupervisorQueueService supervisorQueueService;
+    private final InboundPipeline inboundPipeline;
+    private final HeartbeatMonitor heartbeatMonitor;
+    private final AppConfig.LegacyWriterConfig escrita;
 
     // --- CONSTRUTOR ---
-    public AceitadoraDeConexao(String porta, ArrayList<Parceiro> usuarios, SessionManager sessionManager, MessageRouter messageRouter, SupervisorQueueService supervisorQueueService) throws Exception {
+    public AceitadoraDeConexao(String porta, ArrayList<Parceiro> usuarios, SessionManager sessionManager, MessageRouter messageRouter, SupervisorQueueService supervisorQueueService, InboundPipeline inboundPipeline, HeartbeatMonitor heartbeatMonitor, AppConfig.LegacyWriterConfig escrita) throws Exception {
         if (porta == null)
             throw new Exception("Porta ausente");
 
@@ -39,6 +46,9 @@ public class AceitadoraDeConexao extends Thread {
         this.sessionManager = sessionManager;
         this.messageRouter = messageRouter;
         this.supervisorQueueService = supervisorQueueService;
+        this.inboundPipeline = inboundPipeline;
+        this.heartbeatMonitor = heartbeatMonitor;
+        this.escrita = escrita;
 
         log.info("AceitadoraDeConexao criada na porta {}", porta);
     }
@@ -46,17 +56,22 @@ public class AceitadoraDeConexao extends Thread {
     public void run() {
         log.info("AceitadoraDeConexao iniciada. Aguardando conexões...");
 
-        // Loop infinito aceitando conexões
-        for(;;) {
+        // Loop aceitando conexões até encerrar()
+        while (!encerrada) {
             Socket conexao = null;
 
             // Aceita nova conexão
             try {
                 conexao = this.pedido.accept();
+                // Clientes antigos não respondem batimentos; o keep-alive do TCP ainda acha os mortos
+                conexao.setKeepAlive(true);
                 log.info("Nova conexão Socket aceita de: {}", conexao.getInetAddress().getHostAddress());
 
-            // Erro ao aceitar conexão
+            // Erro ao aceitar conexão (ou ServerSocket fechado por encerrar())
             } catch (Exception erro) {
+                if (encerrada || this.pedido.isClosed()) {
+                    break;
+                }
                 log.error("Erro ao aceitar conexão: {}", erro.getMessage());
                 continue;
             }
@@ -64,7 +79,7 @@ public class AceitadoraDeConexao extends Thread {
             // Cria e inicia SupervisoraDeConexao para nova conexão
             SupervisoraDeConexao supervisoraDeConexao = null;
             try {
-                supervisoraDeConexao = new SupervisoraDeConexao(conexao, usuarios, sessionManager, messageRouter, supervisorQueueService);
+                supervisoraDeConexao = new SupervisoraDeConexao(conexao, usuarios, sessionManager, messageRouter, supervisorQueueService, inboundPipeline, heartbeatMonitor, escrita);
             } catch (Exception erro) {
                 log.error("Erro ao criar SupervisoraDeConexao: {}", erro.getMessage());
             }
@@ -75,5 +90,26 @@ public class AceitadoraDeConexao extends Thread {
                 log.info("SupervisoraDeConexao iniciada para novo cliente");
             }
         }
+
+        log.info("AceitadoraDeConexao encerrada. Novas conexões não são mais aceitas.");
+    }
+
+    /**
+     * Porta em que o ServerSocket está escutando (útil quando configurada como 0).
+     */
+    public int getPortaLocal() {
+        return this.pedido.getLocalPort();
+    }
+
+    /**
+     * Para de aceitar conexões: fecha o ServerSocket, o que destrava o accept().
+     */
+    public void encerrar() {
+        encerrada = true;
+        try {
+            this.pedido.close();
+        } catch (Exception erro) {
+            log.warn("Erro ao fechar ServerSocket: {}", erro.getMessage());
+        }
     }
 }
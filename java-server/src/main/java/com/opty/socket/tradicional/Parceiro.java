@@ -1,5 +1,6 @@
 package com.opty.socket.tradicional;
 
+import com.opty.socket.config.AppConfig;
 import com.opty.socket.tradicional.comunicado.Comunicado;
 
 import java.io.*;
@@ -8,6 +9,9 @@ import java.util.concurrent.Semaphore;
 
 /**
  * Encapsula a comunicação via Socket com ObjectStreams.
+ *
+ * Criado com uma configuração de escrita, os envios vão para uma TransmissoraDeComunicados
+ * e receba() não espera o socket; sem ela, receba() escreve na hora (warm-up).
  */
 public class Parceiro {
     private Socket             conexao;
@@ -18,10 +22,25 @@ public class Parceiro {
 
     private Semaphore mutEx = new Semaphore(1, true);
 
+    // Objetos escritos desde o último reset() do transmissor
+    private final int resetACada;
+    private int escritosDesdeReset = 0;
+
+    private TransmissoraDeComunicados transmissora = null;
+
     public Parceiro(Socket             conexao,
                     ObjectInputStream  receptor,
                     ObjectOutputStream transmissor)
                     throws Exception // se parametro nulos
+    {
+        this(conexao, receptor, transmissor, null);
+    }
+
+    public Parceiro(Socket                          conexao,
+                    ObjectInputStream               receptor,
+                    ObjectOutputStream              transmissor,
+                    AppConfig.LegacyWriterConfig    escrita)
+                    throws Exception // se parametro nulos
     {
         if (conexao == null)
             throw new Exception("Conexao ausente");
@@ -35,14 +54,54 @@ public class Parceiro {
         this.conexao     = conexao;
         this.receptor    = receptor;
         this.transmissor = transmissor;
+
+        if (escrita == null) {
+            this.resetACada = new AppConfig.LegacyWriterConfig().getResetEvery();
+        } else {
+            this.resetACada   = escrita.getResetEvery();
+            this.transmissora = new TransmissoraDeComunicados(this, escrita.getQueueCapacity(), escrita.getWriteTimeoutMs());
+            this.transmissora.start();
+        }
     }
 
     public void receba(Comunicado x) throws Exception {
+        if (this.transmissora != null) {
+            this.transmissora.enfileire(x);
+            return;
+        }
+
+        // synchronized: o ObjectOutputStream não aceita escritas de várias threads ao mesmo tempo
+        synchronized (this) {
+            try {
+                escreva(x);
+                descarregue();
+            } catch (IOException erro) {
+                throw new Exception("Erro de transmissao");
+            }
+        }
+    }
+
+    // Só a transmissora (ou receba sob o lock) escreve
+    void escreva(Comunicado x) throws IOException {
+        this.transmissor.writeObject(x);
+
+        // Esquece os objetos já enviados, senão a tabela de handles cresce a conexão inteira
+        if (++this.escritosDesdeReset >= this.resetACada) {
+            this.transmissor.reset();
+            this.escritosDesdeReset = 0;
+        }
+    }
+
+    void descarregue() throws IOException {
+        this.transmissor.flush();
+    }
+
+    // Fecha o socket sem esperar nada; a thread que lê vê a conexão cair
+    void derrube() {
         try {
-            this.transmissor.writeObject(x);
-            this.transmissor.flush();
+            this.conexao.close();
         } catch (IOException erro) {
-            throw new Exception("Erro de transmissao");
+            // já fechado
         }
     }
 
@@ -75,6 +134,12 @@ public class Parceiro {
     }
 
     public void adeus() throws Exception {
+        // Espera a fila de envio, mas não além do prazo de escrita
+        if (this.transmissora != null && !this.transmissora.encerre()) {
+            derrube();
+            return;
+        }
+
         try {
             this.transmissor.close();
             this.receptor.close();
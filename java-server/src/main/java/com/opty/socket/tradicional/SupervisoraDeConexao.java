@@ -1,9 +1,14 @@
 package com.opty.socket.tradicional;
 
+import com.opty.socket.config.AppConfig;
+import com.opty.socket.jfr.ConnectionAcceptEvent;
 import com.opty.socket.model.ConnectionInfo;
 import com.opty.socket.model.Message;
 import com.opty.socket.model.MessageType;
 import com.opty.socket.model.Session;
+import com.opty.socket.model.payload.TextPayload;
+import com.opty.socket.service.HeartbeatMonitor;
+import com.opty.socket.service.InboundPipeline;
 import com.opty.socket.service.MessageRouter;
 import com.opty.socket.service.SessionManager;
 import com.opty.socket.service.SupervisorQueueService;
@@ -27,15 +32,23 @@ public class SupervisoraDeConexao extends Thread {
     private final SessionManager sessionManager;
     private final MessageRouter messageRouter;
     private final SupervisorQueueService supervisorQueueService;
+    private final InboundPipeline inboundPipeline;
+    private final HeartbeatMonitor heartbeatMonitor;
+    private final AppConfig.LegacyWriterConfig escrita;
 
     private String connectionId;
     private String sessionId;
+    // Handle da conexão no SessionManager: o roteamento não procura o connectionId
+    private int connectionHandle = SessionManager.NO_HANDLE;
 
     public SupervisoraDeConexao(Socket conexao,
                                 ArrayList<Parceiro> usuarios,
                                 SessionManager sessionManager,
                                 MessageRouter messageRouter,
-                                SupervisorQueueService supervisorQueueService)
+                                SupervisorQueueService supervisorQueueService,
+                                InboundPipeline inboundPipeline,
+                                HeartbeatMonitor heartbeatMonitor,
+                                AppConfig.LegacyWriterConfig escrita)
             throws Exception {
         if (conexao == null)
             throw new Exception("Conexao ausente");
@@ -48,9 +61,12 @@ public class SupervisoraDeConexao extends Thread {
         this.sessionManager = sessionManager;
         this.messageRouter = messageRouter;
         this.supervisorQueueService = supervisorQueueService;
+        this.inboundPipeline = inboundPipeline;
+        this.heartbeatMonitor = heartbeatMonitor;
+        this.escrita = escrita;
 
         // Gera ID único para esta conexão
-        this.connectionId = UUID.randomUUID().toString();
+        this.connectionId = sessionManager.newConnectionId();
     }
 
     public void run() {
@@ -78,7 +94,7 @@ public class SupervisoraDeConexao extends Thread {
         }
 
         try {
-            this.usuario = new Parceiro(this.conexao, receptor, transmissor);
+            this.usuario = new Parceiro(this.conexao, receptor, transmissor, this.escrita);
         } catch (Exception erro) {
             // sei que passei os parametros corretos
         }
@@ -90,17 +106,32 @@ public class SupervisoraDeConexao extends Thread {
 
             log.info("Cliente Socket conectado: connectionId={}", connectionId);
 
+            // Até o PedidoDeConexao não se sabe se o cliente responde batimentos:
+            // conexão em silêncio só é derrubada, sem ping
+            heartbeatMonitor.track(connectionId, this.usuario::derrube);
+
             // Loop infinito processando comunicados
             for(;;) {
                 Comunicado comunicado = this.usuario.envie();
+                heartbeatMonitor.beat(connectionId);
 
                 if (comunicado == null)
                     return;
+                else if (comunicado instanceof ComunicadoDeBatimento) {
+                    // Resposta ao batimento; o beat() acima já registrou
+                    continue;
+                }
                 else if (comunicado instanceof PedidoDeConexao) {
                     // Processar PedidoDeConexao
                     PedidoDeConexao pedido = (PedidoDeConexao)comunicado;
                     log.info("Recebido PedidoDeConexao: {}", pedido);
 
+                    // Servidor desligando: recusa novas sessões
+                    if (!sessionManager.isAdmissionOpen()) {
+                        this.usuario.receba(new RespostaDeConexao(false, null, "Servidor reiniciando, tente novamente"));
+                        continue;
+                    }
+
                     // Criar sessão no SessionManager
                     Session session = sessionManager.createSession(connectionId);
                     this.sessionId = session.sessionId();
@@ -114,6 +145,8 @@ public class SupervisoraDeConexao extends Thread {
                             sessionId
                     );
                     sessionManager.registerConnection(connInfo);
+                    this.connectionHandle = sessionManager.getConnectionHandle(connectionId);
+                    ConnectionAcceptEvent.record("LEGACY", "CLIENT", connectionId, this.conexao.getRemoteSocketAddress());
 
                     // Enviar resposta de sucesso
                     RespostaDeConexao resposta = new RespostaDeConexao(
@@ -126,6 +159,14 @@ public class SupervisoraDeConexao extends Thread {
                     // Notificar supervisores que há nova sessão na fila
                     supervisorQueueService.broadcastQueueUpdate();
 
+                    // Conexão em silêncio recebe batimento; sem resposta, é derrubada
+                    if (pedido.isAceitaBatimento()) {
+                        heartbeatMonitor.track(connectionId, this::enviarBatimento, this.usuario::derrube);
+                    } else {
+                        // Cliente antigo, que não responde batimentos: não pode cair por silêncio
+                        heartbeatMonitor.untrack(connectionId);
+                    }
+
                     log.info("Sessão criada para cliente Socket: sessionId={}, connectionId={}",
                             sessionId, connectionId);
                 }
@@ -139,68 +180,101 @@ public class SupervisoraDeConexao extends Thread {
                             mensagem.getSessionId(),
                             "CLIENT",
                             MessageType.MESSAGE,
-                            Map.of("text", mensagem.getConteudo(),
-                                   "timestamp", mensagem.getTimestamp().toString())
+                            new TextPayload(mensagem.getConteudo(), mensagem.getTimestamp().toString())
                     );
 
-                    // MessageRouter vai enviar para o supervisor via WebSocket
-                    boolean routed = messageRouter.routeMessage(connectionId, message);
-
-                    if (!routed) {
-                        log.warn("Falha ao rotear mensagem: sessionId={}", sessionId);
-                        // Opcional: enviar erro de volta pro cliente
+                    // Roteada na faixa do pipeline desta conexão; esta thread volta a ler o socket
+                    if (!inboundPipeline.submit(connectionId, () -> rotear(message))) {
+                        log.warn("Fila do pipeline cheia, mensagem descartada: connectionId={}", connectionId);
+                        messageRouter.sendErrorToConnection(connectionId, "Servidor ocupado, mensagem não entregue");
                     }
-
-                    // Atualizar atividade da sessão
-                    sessionManager.updateSessionActivity(sessionId);
                 }
                 else if (comunicado instanceof PedidoParaSair) {
                     log.info("Cliente solicitou desconexão: connectionId={}", connectionId);
-
-                    // Notificar supervisor sobre desconexão
-                    messageRouter.notifyDisconnect(connectionId);
-
-                    // Remover do SessionManager
-                    sessionManager.removeSession(sessionId);
-                    sessionManager.removeConnection(connectionId);
-
-                    // Atualizar fila
-                    supervisorQueueService.broadcastQueueUpdate();
-
-                    // Remover da lista e fechar
-                    synchronized (this.usuarios) {
-                        this.usuarios.remove(this.usuario);
-                    }
-                    this.usuario.adeus();
-
-                    log.info("Cliente desconectado: connectionId={}", connectionId);
+                    heartbeatMonitor.untrack(connectionId);
+
+                    // Depois das mensagens desta conexão que ainda estão na fila do pipeline
+                    inboundPipeline.submitAndWait(connectionId, () -> {
+                        // Notificar supervisor sobre desconexão
+                        messageRouter.notifyDisconnect(connectionId);
+
+                        // Remover do SessionManager
+                        sessionManager.removeSession(sessionId);
+                        sessionManager.removeConnection(connectionId);
+
+                        // Atualizar fila
+                        supervisorQueueService.broadcastQueueUpdate();
+
+                        // Remover da lista e fechar
+                        synchronized (this.usuarios) {
+                            this.usuarios.remove(this.usuario);
+                        }
+                        try {
+                            this.usuario.adeus();
+                        } catch (Exception erro) {
+                            // conexão já fechada pelo cliente
+                        }
+
+                        log.info("Cliente desconectado: connectionId={}", connectionId);
+                    });
                     return; // Termina a thread
                 }
             }
         } catch (Exception erro) {
             log.error("Erro no processamento do cliente: connectionId={}, erro={}",
                     connectionId, erro.getMessage(), erro);
+            heartbeatMonitor.untrack(connectionId);
+
+            // Depois das mensagens desta conexão que ainda estão na fila do pipeline
+            inboundPipeline.submitAndWait(connectionId, () -> {
+                try {
+                    // Cleanup
+                    if (sessionId != null) {
+                        messageRouter.notifyDisconnect(connectionId);
+                        sessionManager.removeSession(sessionId);
+                        sessionManager.removeConnection(connectionId);
+                        supervisorQueueService.broadcastQueueUpdate();
+                    }
 
-            try {
-                // Cleanup
-                if (sessionId != null) {
-                    messageRouter.notifyDisconnect(connectionId);
-                    sessionManager.removeSession(sessionId);
-                    sessionManager.removeConnection(connectionId);
-                    supervisorQueueService.broadcastQueueUpdate();
-                }
+                    synchronized (this.usuarios) {
+                        this.usuarios.remove(this.usuario);
+                    }
 
-                synchronized (this.usuarios) {
-                    this.usuarios.remove(this.usuario);
+                    // Para a transmissora e fecha os streams e o socket
+                    this.usuario.adeus();
+                } catch (Exception falha) {
+                    // só tentando fechar antes de acabar a thread
                 }
-
-                transmissor.close();
-                receptor.close();
-            } catch (Exception falha) {
-                // só tentando fechar antes de acabar a thread
-            }
+            });
 
             return;
         }
     }
+
+    /**
+     * Envia um batimento (roda no timer do HeartbeatMonitor; receba só enfileira).
+     */
+    private void enviarBatimento() {
+        try {
+            this.usuario.receba(new ComunicadoDeBatimento());
+        } catch (Exception erro) {
+            log.debug("Falha ao enviar batimento: connectionId={}, erro={}", connectionId, erro.getMessage());
+        }
+    }
+
+    /**
+     * Roteia uma mensagem do cliente para o supervisor (roda na faixa do pipeline).
+     */
+    private void rotear(Message message) {
+        // MessageRouter vai enviar para o supervisor via WebSocket
+        boolean routed = messageRouter.routeMessage(connectionHandle, connectionId, message);
+
+        if (!routed) {
+            log.warn("Falha ao rotear mensagem: sessionId={}", sessionId);
+            // Opcional: enviar erro de volta pro cliente
+        }
+
+        // Atualizar atividade da sessão
+        sessionManager.updateSessionActivity(sessionId);
+    }
 }
@@ -1,6 +1,10 @@
 package com.opty.socket.tradicional;
 
+import com.opty.socket.config.AppConfig;
+import com.opty.socket.service.HeartbeatMonitor;
+import com.opty.socket.service.InboundPipeline;
 import com.opty.socket.service.MessageRouter;
+import com.opty.socket.service.ParallelDrain;
 import com.opty.socket.service.SessionManager;
 import com.opty.socket.service.SupervisorQueueService;
 import com.opty.socket.tradicional.comunicado.ComunicadoDeDesligamento;
@@ -12,6 +16,8 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * TraditionalSocketServer - Integração do Socket tradicional (padrão professor) com Spring Boot.
@@ -25,6 +31,9 @@ public class TraditionalSocketServer {
     private final SessionManager sessionManager;
     private final MessageRouter messageRouter;
     private final SupervisorQueueService supervisorQueueService;
+    private final AppConfig appConfig;
+    private final InboundPipeline inboundPipeline;
+    private final HeartbeatMonitor heartbeatMonitor;
 
     @Value("${socket.traditional.port:3000}")
     private String porta;
@@ -57,7 +66,10 @@ public class TraditionalSocketServer {
                     usuarios,
                     sessionManager,
                     messageRouter,
-                    supervisorQueueService
+                    supervisorQueueService,
+                    inboundPipeline,
+                    heartbeatMonitor,
+                    appConfig.getLegacyWriter()
             );
             aceitadoraDeConexao.start();
 
@@ -72,6 +84,7 @@ public class TraditionalSocketServer {
 
     /**
      * Desliga graciosamente o servidor Socket tradicional quando aplicação para.
+     * Normalmente os clientes já foram desconectados pelo DrainCoordinator; aqui só sobra o resto.
      */
     @PreDestroy
     public void shutdown() {
@@ -80,24 +93,65 @@ public class TraditionalSocketServer {
         }
 
         log.info("Desligando servidor Socket tradicional...");
+        pararAdmissoes();
 
-        synchronized (usuarios) {
-            // Enviar ComunicadoDeDesligamento para todos os clientes
-            ComunicadoDeDesligamento comunicadoDeDesligamento = new ComunicadoDeDesligamento();
-
-            for (Parceiro usuario : usuarios) {
-                try {
-                    usuario.receba(comunicadoDeDesligamento);
-                    usuario.adeus();
-                } catch (Exception erro) {
-                    log.warn("Erro ao desconectar cliente: {}", erro.getMessage());
-                }
-            }
+        AppConfig.DrainConfig drain = appConfig.getDrain();
+        desconectarTodos(drain.getParallelism(), drain.getNotifyTimeoutMs(),
+                System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(drain.getNotifyTimeoutMs() * 2L));
+
+        log.info("✅ Servidor Socket tradicional DESLIGADO");
+    }
+
+    /**
+     * Para de aceitar novas conexões (fecha o ServerSocket).
+     */
+    public void pararAdmissoes() {
+        if (aceitadoraDeConexao != null) {
+            aceitadoraDeConexao.encerrar();
+        }
+    }
+
+    /**
+     * Envia ComunicadoDeDesligamento e desconecta todos os clientes em paralelo.
+     *
+     * A lista é copiada e esvaziada sob o lock, e os envios acontecem fora dele:
+     * um cliente travado não segura os outros nem a lista. Cada envio tem seu próprio
+     * timeout, depois do qual o socket é fechado à força.
+     *
+     * @param paralelismo     envios simultâneos
+     * @param timeoutPorEnvio timeout de cada cliente, em ms
+     * @param prazoNanos      System.nanoTime() limite para todo o desligamento
+     * @return resultado do desligamento
+     */
+    public ParallelDrain.Result desconectarTodos(int paralelismo, long timeoutPorEnvio, long prazoNanos) {
+        if (usuarios == null) {
+            return new ParallelDrain.Result(0, 0, 0, 0, 0);
+        }
 
+        List<Parceiro> copia;
+        synchronized (usuarios) {
+            copia = new ArrayList<>(usuarios);
             usuarios.clear();
         }
 
-        log.info("✅ Servidor Socket tradicional DESLIGADO");
+        ComunicadoDeDesligamento comunicadoDeDesligamento = new ComunicadoDeDesligamento();
+        return ParallelDrain.run("legacy", copia,
+                usuario -> {
+                    try {
+                        usuario.receba(comunicadoDeDesligamento);
+                        usuario.adeus();
+                    } catch (Exception erro) {
+                        throw new IllegalStateException(erro.getMessage(), erro);
+                    }
+                },
+                usuario -> {
+                    try {
+                        usuario.adeus();
+                    } catch (Exception erro) {
+                        log.debug("Erro ao fechar cliente: {}", erro.getMessage());
+                    }
+                },
+                paralelismo, timeoutPorEnvio, prazoNanos);
     }
 
     /**
@@ -112,6 +166,14 @@ public class TraditionalSocketServer {
         }
     }
 
+    /**
+     * Retorna a porta em que o servidor está escutando, ou -1 se não iniciou.
+     * Com socket.traditional.port=0, é a porta escolhida pelo sistema.
+     */
+    public int getPortaLocal() {
+        return aceitadoraDeConexao == null ? -1 : aceitadoraDeConexao.getPortaLocal();
+    }
+
     /**
      * Verifica se servidor está rodando.
      */
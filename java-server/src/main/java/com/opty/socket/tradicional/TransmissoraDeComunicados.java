@@ -0,0 +1,132 @@
+package com.opty.socket.tradicional;
+
+import com.opty.socket.tradicional.comunicado.Comunicado;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread que escreve no socket os comunicados de um Parceiro, fora da thread de quem envia.
+ *
+ * Os comunicados esperam numa fila limitada; a cada rodada a thread escreve tudo o que
+ * estiver na fila e dá um único flush. Fila cheia (cliente que não lê) ou escrita que passa
+ * do prazo derrubam a conexão, e a SupervisoraDeConexao faz a limpeza de sempre.
+ */
+@Slf4j
+public class TransmissoraDeComunicados extends Thread {
+    // Um único vigia para os prazos de escrita de todas as conexões
+    private static final ScheduledThreadPoolExecutor VIGIA = criarVigia();
+    private static final AtomicInteger NUMERO = new AtomicInteger();
+
+    // Marca o fim da fila em encerre()
+    private static final Comunicado FIM = new Comunicado();
+
+    private final Parceiro parceiro;
+    private final BlockingQueue<Comunicado> fila;
+    private final long prazoDeEscritaMs;
+
+    private volatile boolean encerrando = false;
+    private volatile boolean derrubada = false;
+
+    public TransmissoraDeComunicados(Parceiro parceiro, int capacidade, long prazoDeEscritaMs) {
+        super("parceiro-transmissora-" + NUMERO.incrementAndGet());
+        setDaemon(true);
+
+        this.parceiro = parceiro;
+        this.fila = new ArrayBlockingQueue<>(capacidade);
+        this.prazoDeEscritaMs = prazoDeEscritaMs;
+    }
+
+    /**
+     * Coloca o comunicado na fila sem esperar pela escrita.
+     *
+     * @throws Exception se a conexão já foi encerrada, ou se a fila está cheia (a conexão é derrubada)
+     */
+    public void enfileire(Comunicado x) throws Exception {
+        if (this.encerrando || this.derrubada)
+            throw new Exception("Conexao encerrada");
+
+        if (!this.fila.offer(x)) {
+            log.warn("Cliente lento: fila de envio cheia ({} comunicados), desconectando", this.fila.size());
+            derrube();
+            throw new Exception("Cliente lento, conexao encerrada");
+        }
+    }
+
+    public void run() {
+        List<Comunicado> lote = new ArrayList<>();
+        try {
+            while (!this.derrubada) {
+                lote.add(this.fila.take());
+                this.fila.drainTo(lote);
+
+                // O vigia derruba a conexão se o lote não sair dentro do prazo
+                ScheduledFuture<?> prazo = VIGIA.schedule(this::estourouPrazo, this.prazoDeEscritaMs, TimeUnit.MILLISECONDS);
+                try {
+                    for (Comunicado comunicado : lote) {
+                        if (comunicado != FIM)
+                            this.parceiro.escreva(comunicado);
+                    }
+                    this.parceiro.descarregue();
+                } finally {
+                    prazo.cancel(false);
+                }
+                lote.clear();
+
+                if (this.encerrando && this.fila.isEmpty())
+                    return;
+            }
+        } catch (InterruptedException erro) {
+            // derrubada
+        } catch (IOException erro) {
+            if (!this.derrubada) {
+                log.debug("Erro ao escrever no socket: {}", erro.getMessage());
+                derrube();
+            }
+        }
+    }
+
+    /**
+     * Para de aceitar comunicados e espera, até o prazo de escrita, a fila ser escrita.
+     *
+     * @return true se a fila foi toda escrita
+     */
+    public boolean encerre() {
+        boolean primeiraVez = !this.encerrando;
+        this.encerrando = true;
+        this.fila.offer(FIM); // fila cheia: a thread vê o encerramento depois do próximo lote
+
+        if (primeiraVez && Thread.currentThread() != this) {
+            try {
+                join(this.prazoDeEscritaMs);
+            } catch (InterruptedException erro) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return !isAlive();
+    }
+
+    private void estourouPrazo() {
+        log.warn("Escrita no socket passou de {}ms, desconectando cliente lento", this.prazoDeEscritaMs);
+        derrube();
+    }
+
+    private void derrube() {
+        this.derrubada = true;
+        this.parceiro.derrube(); // destrava uma escrita parada
+        interrupt();             // destrava o take()
+    }
+
+    private static ScheduledThreadPoolExecutor criarVigia() {
+        ScheduledThreadPoolExecutor vigia = new ScheduledThreadPoolExecutor(1, tarefa -> {
+            Thread thread = new Thread(tarefa, "parceiro-vigia");
+            thread.setDaemon(true);
+            return thread;
+        });
+        vigia.setRemoveOnCancelPolicy(true);
+        return vigia;
+    }
+}
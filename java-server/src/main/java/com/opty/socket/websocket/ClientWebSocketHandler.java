@@ -8,20 +8,30 @@ package com.opty.socket.websocket;
 /**
  * IMPORTS
  */
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.opty.socket.config.AppConfig;
+import com.opty.socket.jfr.ConnectionAcceptEvent;
 import com.opty.socket.model.ConnectionInfo;
 import com.opty.socket.model.Message;
 import com.opty.socket.model.Session;
+import com.opty.socket.service.HeartbeatMonitor;
+import com.opty.socket.service.InboundPipeline;
+import com.opty.socket.service.MessageCodec;
 import com.opty.socket.service.MessageRouter;
+import com.opty.socket.service.MessageStorageService;
 import com.opty.socket.service.SessionManager;
 import com.opty.socket.service.SupervisorQueueService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PongMessage;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.Optional;
 
 
 /**
@@ -37,16 +47,23 @@ import org.springframework.web.socket.handler.TextWebSocketHandler;
 public class ClientWebSocketHandler extends TextWebSocketHandler {
 
     // --- ATTRIBUTES ---
+    private static final String CONNECTION_HANDLE = "opty.connectionHandle";
+
     private final SessionManager sessionManager;
     private final MessageRouter messageRouter;
     private final SupervisorQueueService supervisorQueueService;
-    private final ObjectMapper objectMapper;
+    private final MessageCodec messageCodec;
+    private final AppConfig appConfig;
+    private final InboundPipeline inboundPipeline;
+    private final HeartbeatMonitor heartbeatMonitor;
+    private final MessageStorageService messageStorageService;
 
 
     /**
      * Called when a new client WebSocket connection is established.
      *
-     * Creates a new session and sends the sessionId back to the client.
+     * Creates a new session (or resumes a restored one, see {@code resumeToken})
+     * and sends the sessionId back to the client.
      */
     @Override
     public void afterConnectionEstablished(WebSocketSession session) throws Exception {
@@ -55,6 +72,13 @@ public class ClientWebSocketHandler extends TextWebSocketHandler {
                 connectionId, session.getRemoteAddress());
 
         try {
+            // Draining for shutdown: reject so the peer reconnects to another instance
+            if (!sessionManager.isAdmissionOpen()) {
+                log.info("Server draining, rejecting client: connectionId={}", connectionId);
+                session.close(CloseStatus.SERVICE_RESTARTED);
+                return;
+            }
+
             // Check max connections limit
             if (sessionManager.isMaxConnectionsReached()) {
                 log.warn("Max connections reached, rejecting client: connectionId={}", connectionId);
@@ -64,22 +88,31 @@ public class ClientWebSocketHandler extends TextWebSocketHandler {
                 return;
             }
 
-            // Create session for client
-            Session newSession = sessionManager.createSession(connectionId);
+            // Resume a session restored after a restart, numbering after its stored messages,
+            // or create a new one
+            String resumeToken = getResumeToken(session);
+            Session newSession = (resumeToken == null ? Optional.<Session>empty()
+                    : sessionManager.resumeSession(resumeToken, connectionId,
+                            () -> messageStorageService.getLastSequence(resumeToken)))
+                    .orElseGet(() -> sessionManager.createSession(connectionId));
 
-            // Register connection
+            // Register connection; other threads write to it too, so sends are serialized
+            WebSocketSession outbound = outbound(session);
             ConnectionInfo connectionInfo = new ConnectionInfo(
                     connectionId,
-                    session,
+                    outbound,
                     null,  // WebSocket connection (no Parceiro)
                     "CLIENT",
                     newSession.sessionId()
             );
             sessionManager.registerConnection(connectionInfo);
+            session.getAttributes().put(CONNECTION_HANDLE, sessionManager.getConnectionHandle(connectionId));
+            heartbeatMonitor.track(outbound);
+            ConnectionAcceptEvent.record("WEBSOCKET", "CLIENT", connectionId, session.getRemoteAddress());
 
             // Send CONNECT response with sessionId
             Message connectResponse = Message.connectResponse(newSession.sessionId());
-            messageRouter.sendMessage(session, connectResponse);
+            messageRouter.sendMessage(outbound, connectResponse);
 
             // Broadcast queue update to all supervisors (new session available)
             supervisorQueueService.broadcastQueueUpdate();
@@ -95,6 +128,38 @@ public class ClientWebSocketHandler extends TextWebSocketHandler {
     }
 
 
+    /**
+     * Wraps the session so concurrent sends are queued and written one at a time.
+     */
+    private WebSocketSession outbound(WebSocketSession session) {
+        return new ConcurrentWebSocketSessionDecorator(session,
+                appConfig.getMessage().getSendTimeLimitMs(), appConfig.getMessage().getSendBufferSize());
+    }
+
+
+    /**
+     * Reads the optional {@code resumeToken} query parameter (the sessionId received
+     * in the previous CONNECT response).
+     */
+    private String getResumeToken(WebSocketSession session) {
+        if (session.getUri() == null) {
+            return null;
+        }
+        return UriComponentsBuilder.fromUri(session.getUri()).build()
+                .getQueryParams()
+                .getFirst("resumeToken");
+    }
+
+
+    /**
+     * Handle kept at registration, so routing skips the connection ID lookup.
+     */
+    private static int connectionHandle(WebSocketSession session) {
+        Object handle = session.getAttributes().get(CONNECTION_HANDLE);
+        return handle != null ? (int) handle : SessionManager.NO_HANDLE;
+    }
+
+
     /**
      * Called when a text message is received from the client.
      *
@@ -107,10 +172,34 @@ public class ClientWebSocketHandler extends TextWebSocketHandler {
 
         log.debug("Message received from client: connectionId={}, length={}",
                 connectionId, payload.length());
+        heartbeatMonitor.beat(connectionId);
 
+        // Processed on the connection's pipeline lane; the container thread returns right away
+        if (!inboundPipeline.submit(connectionId, () -> processTextMessage(session, payload))) {
+            log.warn("Inbound lane full, message dropped: connectionId={}", connectionId);
+            messageRouter.sendErrorToConnection(connectionId, "Server busy, message not delivered");
+        }
+    }
+
+
+    /**
+     * Decodes a frame from the client and routes it, on its pipeline lane.
+     */
+    private void processTextMessage(WebSocketSession session, String payload) {
+        String connectionId = session.getId();
+        int handle = connectionHandle(session);
         try {
+            // Plain chat frames are forwarded as received, without a full parse
+            MessageCodec.Frame frame = messageCodec.scan(payload);
+            if (frame != null) {
+                if (!messageRouter.routeFrame(handle, connectionId, frame)) {
+                    log.debug("Failed to route message from client: connectionId={}", connectionId);
+                }
+                return;
+            }
+
             // Parse message
-            Message message = objectMapper.readValue(payload, Message.class);
+            Message message = messageCodec.decode(payload);
 
             // Validate message type
             if (message.type() == null) {
@@ -123,7 +212,7 @@ public class ClientWebSocketHandler extends TextWebSocketHandler {
             switch (message.type()) {
                 case MESSAGE -> {
                     // Route message to paired supervisor
-                    boolean routed = messageRouter.routeMessage(connectionId, message);
+                    boolean routed = messageRouter.routeMessage(handle, connectionId, message);
                     if (!routed) {
                         log.debug("Failed to route message from client: connectionId={}", connectionId);
                     }
@@ -150,6 +239,15 @@ public class ClientWebSocketHandler extends TextWebSocketHandler {
     }
 
 
+    /**
+     * Called when the client answers a heartbeat ping.
+     */
+    @Override
+    protected void handlePongMessage(WebSocketSession session, PongMessage message) {
+        heartbeatMonitor.beat(session.getId());
+    }
+
+
     /**
      * Called when the client WebSocket connection is closed.
      *
@@ -159,7 +257,17 @@ public class ClientWebSocketHandler extends TextWebSocketHandler {
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) throws Exception {
         String connectionId = session.getId();
         log.info("Client disconnecting: connectionId={}, status={}", connectionId, status);
+        heartbeatMonitor.untrack(connectionId);
 
+        // After the frames still queued for this connection
+        inboundPipeline.submitAndWait(connectionId, () -> cleanUp(connectionId));
+    }
+
+
+    /**
+     * Notifies the other party and removes the client's state.
+     */
+    private void cleanUp(String connectionId) {
         try {
             // Notify paired supervisor
             messageRouter.notifyDisconnect(connectionId);
@@ -8,11 +8,16 @@ package com.opty.socket.websocket;
 /**
  * IMPORTS
  */
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.opty.socket.config.AppConfig;
+import com.opty.socket.jfr.ConnectionAcceptEvent;
 import com.opty.socket.model.ConnectionInfo;
 import com.opty.socket.model.Message;
 import com.opty.socket.model.MessageType;
 import com.opty.socket.model.Session;
+import com.opty.socket.model.payload.ConnectAckPayload;
+import com.opty.socket.service.HeartbeatMonitor;
+import com.opty.socket.service.InboundPipeline;
+import com.opty.socket.service.MessageCodec;
 import com.opty.socket.service.MessageRouter;
 import com.opty.socket.service.SessionManager;
 import com.opty.socket.service.SupervisorQueueService;
@@ -20,11 +25,12 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PongMessage;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 
-import java.util.Map;
 
 
 /**
@@ -40,10 +46,15 @@ import java.util.Map;
 public class SupervisorWebSocketHandler extends TextWebSocketHandler {
 
     // --- ATTRIBUTES ---
+    private static final String CONNECTION_HANDLE = "opty.connectionHandle";
+
     private final SessionManager sessionManager;
     private final MessageRouter messageRouter;
     private final SupervisorQueueService supervisorQueueService;
-    private final ObjectMapper objectMapper;
+    private final MessageCodec messageCodec;
+    private final AppConfig appConfig;
+    private final InboundPipeline inboundPipeline;
+    private final HeartbeatMonitor heartbeatMonitor;
 
     /**
      * Called when a new supervisor WebSocket connection is established.
@@ -58,6 +69,13 @@ public class SupervisorWebSocketHandler extends TextWebSocketHandler {
                 connectionId, session.getRemoteAddress());
 
         try {
+            // Draining for shutdown: reject so the peer reconnects to another instance
+            if (!sessionManager.isAdmissionOpen()) {
+                log.info("Server draining, rejecting supervisor: connectionId={}", connectionId);
+                session.close(CloseStatus.SERVICE_RESTARTED);
+                return;
+            }
+
             // Check max connections limit
             if (sessionManager.isMaxConnectionsReached()) {
                 log.warn("Max connections reached, rejecting supervisor: connectionId={}", connectionId);
@@ -67,15 +85,20 @@ public class SupervisorWebSocketHandler extends TextWebSocketHandler {
                 return;
             }
 
-            // Register connection (without sessionId yet)
+            // Register connection (without sessionId yet); other threads write to it too,
+            // so sends are serialized
+            WebSocketSession outbound = outbound(session);
             ConnectionInfo connectionInfo = new ConnectionInfo(
                     connectionId,
-                    session,
+                    outbound,
                     null,  // WebSocket connection (no Parceiro)
                     "SUPERVISOR",
                     null
             );
             sessionManager.registerConnection(connectionInfo);
+            session.getAttributes().put(CONNECTION_HANDLE, sessionManager.getConnectionHandle(connectionId));
+            heartbeatMonitor.track(outbound);
+            ConnectionAcceptEvent.record("WEBSOCKET", "SUPERVISOR", connectionId, session.getRemoteAddress());
 
             // Register as queue listener (will receive session updates)
             supervisorQueueService.registerQueueListener(connectionId);
@@ -85,12 +108,12 @@ public class SupervisorWebSocketHandler extends TextWebSocketHandler {
                     null,
                     "SERVER",
                     MessageType.CONNECT,
-                    Map.of("message", "Connected, listening to session queue")
+                    new ConnectAckPayload("Connected, listening to session queue", null, null)
             );
-            messageRouter.sendMessage(session, ackMessage);
+            messageRouter.sendMessage(outbound, ackMessage);
 
             // Send initial queue state
-            supervisorQueueService.sendInitialQueue(session);
+            supervisorQueueService.sendInitialQueue(outbound);
 
             log.info("Supervisor connection registered as queue listener: connectionId={}", connectionId);
 
@@ -102,6 +125,15 @@ public class SupervisorWebSocketHandler extends TextWebSocketHandler {
     }
 
 
+    /**
+     * Handle kept at registration, so routing skips the connection ID lookup.
+     */
+    private static int connectionHandle(WebSocketSession session) {
+        Object handle = session.getAttributes().get(CONNECTION_HANDLE);
+        return handle != null ? (int) handle : SessionManager.NO_HANDLE;
+    }
+
+
     /**
      * Called when a text message is received from the supervisor.
      *
@@ -114,10 +146,34 @@ public class SupervisorWebSocketHandler extends TextWebSocketHandler {
 
         log.debug("Message received from supervisor: connectionId={}, length={}",
                 connectionId, payload.length());
+        heartbeatMonitor.beat(connectionId);
 
+        // Processed on the connection's pipeline lane; the container thread returns right away
+        if (!inboundPipeline.submit(connectionId, () -> processTextMessage(session, payload))) {
+            log.warn("Inbound lane full, message dropped: connectionId={}", connectionId);
+            messageRouter.sendErrorToConnection(connectionId, "Server busy, message not delivered");
+        }
+    }
+
+
+    /**
+     * Decodes a frame from the supervisor and routes it, on its pipeline lane.
+     */
+    private void processTextMessage(WebSocketSession session, String payload) {
+        String connectionId = session.getId();
+        int handle = connectionHandle(session);
         try {
+            // Plain chat frames are forwarded as received, without a full parse
+            MessageCodec.Frame frame = messageCodec.scan(payload);
+            if (frame != null) {
+                if (!messageRouter.routeFrame(handle, connectionId, frame)) {
+                    log.debug("Failed to route message from supervisor: connectionId={}", connectionId);
+                }
+                return;
+            }
+
             // Parse message
-            Message message = objectMapper.readValue(payload, Message.class);
+            Message message = messageCodec.decode(payload);
 
             // Validate message type
             if (message.type() == null) {
@@ -134,7 +190,7 @@ public class SupervisorWebSocketHandler extends TextWebSocketHandler {
                 }
                 case MESSAGE -> {
                     // Route message to paired client
-                    boolean routed = messageRouter.routeMessage(connectionId, message);
+                    boolean routed = messageRouter.routeMessage(handle, connectionId, message);
                     if (!routed) {
                         log.debug("Failed to route message from supervisor: connectionId={}", connectionId);
                     }
@@ -166,6 +222,9 @@ public class SupervisorWebSocketHandler extends TextWebSocketHandler {
      */
     private void handleSupervisorJoinSession(String connectionId, Message message, WebSocketSession session) {
         String sessionId = message.sessionId();
+        WebSocketSession outbound = sessionManager.getConnection(connectionId)
+                .map(ConnectionInfo::webSocketSession)
+                .orElse(session);
 
         if (sessionId == null || sessionId.isBlank()) {
             log.warn("Supervisor CONNECT without sessionId: connectionId={}", connectionId);
@@ -179,7 +238,7 @@ public class SupervisorWebSocketHandler extends TextWebSocketHandler {
             log.warn("Supervisor trying to join non-existent session: connectionId={}, sessionId={}",
                     connectionId, sessionId);
             Message error = Message.error(sessionId, "Session not found");
-            messageRouter.sendMessage(session, error);
+            messageRouter.sendMessage(outbound, error);
             return;
         }
 
@@ -188,7 +247,7 @@ public class SupervisorWebSocketHandler extends TextWebSocketHandler {
         if (pairedSession == null || !pairedSession.isPaired()) {
             log.warn("Failed to pair supervisor: connectionId={}, sessionId={}", connectionId, sessionId);
             Message error = Message.error(sessionId, "Failed to join session (may already be paired)");
-            messageRouter.sendMessage(session, error);
+            messageRouter.sendMessage(outbound, error);
             return;
         }
 
@@ -203,9 +262,9 @@ public class SupervisorWebSocketHandler extends TextWebSocketHandler {
                 sessionId,
                 "SERVER",
                 MessageType.CONNECT,
-                Map.of("message", "Successfully joined session", "paired", true)
+                new ConnectAckPayload("Successfully joined session", null, true)
         );
-        messageRouter.sendMessage(session, successResponse);
+        messageRouter.sendMessage(outbound, successResponse);
 
         // Notify client that supervisor has joined
         sessionManager.getConnection(existingSession.clientConnectionId()).ifPresent(clientConn -> {
@@ -213,7 +272,7 @@ public class SupervisorWebSocketHandler extends TextWebSocketHandler {
                     sessionId,
                     "SERVER",
                     MessageType.CONNECT,
-                    Map.of("message", "Supervisor has joined the session")
+                    new ConnectAckPayload("Supervisor has joined the session", null, null)
             );
             messageRouter.sendMessage(clientConn.webSocketSession(), notifyClient);
         });
@@ -225,6 +284,15 @@ public class SupervisorWebSocketHandler extends TextWebSocketHandler {
     }
 
 
+    /**
+     * Called when the supervisor answers a heartbeat ping.
+     */
+    @Override
+    protected void handlePongMessage(WebSocketSession session, PongMessage message) {
+        heartbeatMonitor.beat(session.getId());
+    }
+
+
     /**
      * Called when the supervisor WebSocket connection is closed.
      *
@@ -234,7 +302,17 @@ public class SupervisorWebSocketHandler extends TextWebSocketHandler {
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) throws Exception {
         String connectionId = session.getId();
         log.info("Supervisor disconnecting: connectionId={}, status={}", connectionId, status);
+        heartbeatMonitor.untrack(connectionId);
+
+        // After the frames still queued for this connection
+        inboundPipeline.submitAndWait(connectionId, () -> cleanUp(connectionId));
+    }
+
 
+    /**
+     * Notifies the other party and removes the supervisor's state.
+     */
+    private void cleanUp(String connectionId) {
         try {
             // Notify paired client
             messageRouter.notifyDisconnect(connectionId);
@@ -287,4 +365,13 @@ public class SupervisorWebSocketHandler extends TextWebSocketHandler {
             log.error("Failed to send error message to supervisor: connectionId={}", connectionId);
         }
     }
+
+
+    /**
+     * Wraps the session so concurrent sends are queued and written one at a time.
+     */
+    private WebSocketSession outbound(WebSocketSession session) {
+        return new ConcurrentWebSocketSessionDecorator(session,
+                appConfig.getMessage().getSendTimeLimitMs(), appConfig.getMessage().getSendBufferSize());
+    }
 }
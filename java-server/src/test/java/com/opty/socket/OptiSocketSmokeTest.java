@@ -0,0 +1,161 @@
+/**
+ * Smoke test for the packaged server (JVM and native image).
+ */
+
+package com.opty.socket;
+
+/**
+ * IMPORTS
+ */
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.opty.socket.service.SessionManager;
+import com.opty.socket.tradicional.TraditionalSocketServer;
+import com.opty.socket.tradicional.comunicado.PedidoDeConexao;
+import com.opty.socket.tradicional.comunicado.PedidoParaSair;
+import com.opty.socket.tradicional.comunicado.RespostaDeConexao;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.Socket;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * CODE
+ */
+
+/**
+ * End-to-end smoke test over real sockets: client/supervisor pairing over WebSocket and
+ * legacy login over the Java-serialization socket. Runs on the JVM with {@code mvn test}
+ * and inside the native image with {@code mvn -PnativeTest test}.
+ */
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "socket.traditional.port=0",
+                "opty.socket.storage.backend=memory",
+                "opty.socket.storage.retention.enabled=false"
+        }
+)
+@DisplayName("Smoke test - pareamento WebSocket e login no socket legado")
+class OptiSocketSmokeTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TraditionalSocketServer traditionalSocketServer;
+
+    @Autowired
+    private SessionManager sessionManager;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    @DisplayName("Cliente e supervisor devem parear e trocar mensagens via WebSocket")
+    void clientAndSupervisorShouldPairAndExchangeMessages() throws Exception {
+        // Arrange - cliente conecta e recebe o sessionId
+        Inbox client = new Inbox();
+        WebSocketSession clientSocket = connect("/ws/client", client);
+        JsonNode connected = client.next("CONNECT");
+        String sessionId = connected.path("payload").path("sessionId").asText();
+        assertFalse(sessionId.isBlank(), "Cliente deve receber sessionId");
+
+        // Supervisor conecta e vê a sessão na fila
+        Inbox supervisor = new Inbox();
+        WebSocketSession supervisorSocket = connect("/ws/supervisor", supervisor);
+        JsonNode queue = supervisor.next("SESSION_QUEUE_UPDATE");
+        assertTrue(queue.toString().contains(sessionId), "Sessão deve aparecer na fila");
+
+        // Act - supervisor entra na sessão e o cliente envia uma mensagem
+        supervisorSocket.sendMessage(new TextMessage(
+                "{\"sessionId\":\"" + sessionId + "\",\"from\":\"SUPERVISOR\",\"type\":\"CONNECT\"}"));
+        JsonNode joined = supervisor.next("CONNECT");
+        client.next("CONNECT");
+        clientSocket.sendMessage(new TextMessage(
+                "{\"sessionId\":\"" + sessionId + "\",\"from\":\"CLIENT\",\"type\":\"MESSAGE\",\"payload\":{\"text\":\"olá\"}}"));
+        JsonNode received = supervisor.next("MESSAGE");
+
+        // Assert
+        assertTrue(joined.path("payload").path("paired").asBoolean());
+        assertEquals("olá", received.path("payload").path("text").asText());
+        assertTrue(sessionManager.getSession(sessionId).orElseThrow().isPaired());
+
+        clientSocket.close();
+        supervisorSocket.close();
+    }
+
+    @Test
+    @DisplayName("Cliente Java deve fazer login pelo socket legado")
+    void legacyClientShouldLogin() throws Exception {
+        // Arrange
+        int legacyPort = traditionalSocketServer.getPortaLocal();
+        assertTrue(legacyPort > 0, "Servidor legado deve estar escutando");
+
+        try (Socket socket = new Socket("localhost", legacyPort)) {
+            socket.setSoTimeout(5_000);
+            ObjectOutputStream transmissor = new ObjectOutputStream(socket.getOutputStream());
+            transmissor.flush();
+            ObjectInputStream receptor = new ObjectInputStream(socket.getInputStream());
+
+            // Act
+            transmissor.writeObject(new PedidoDeConexao(null, "cliente-smoke"));
+            transmissor.flush();
+            RespostaDeConexao resposta = (RespostaDeConexao) receptor.readObject();
+
+            // Assert
+            assertTrue(resposta.isSucesso());
+            assertNotNull(resposta.getSessionId());
+            assertTrue(sessionManager.getSession(resposta.getSessionId()).isPresent());
+
+            transmissor.writeObject(new PedidoParaSair());
+            transmissor.flush();
+        }
+    }
+
+    private WebSocketSession connect(String path, Inbox inbox) throws Exception {
+        return new StandardWebSocketClient()
+                .execute(inbox, "ws://localhost:" + port + path)
+                .get(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Collects the JSON messages received by a WebSocket connection.
+     */
+    private class Inbox extends TextWebSocketHandler {
+        private final BlockingQueue<JsonNode> messages = new LinkedBlockingQueue<>();
+
+        @Override
+        protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
+            messages.add(objectMapper.readTree(message.getPayload()));
+        }
+
+        /**
+         * Waits for the next message of the given type, skipping others.
+         */
+        JsonNode next(String type) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (System.nanoTime() < deadline) {
+                JsonNode message = messages.poll(100, TimeUnit.MILLISECONDS);
+                if (message != null && type.equals(message.path("type").asText())) {
+                    return message;
+                }
+            }
+            throw new AssertionError("Mensagem " + type + " não recebida");
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.opty.socket.benchmark;
+
+import com.opty.socket.config.AppConfig;
+import com.opty.socket.service.IdGenerator;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark JMH: vazão de criação de IDs com 64 threads.
+ *
+ * Compara UUID.randomUUID() (SecureRandom compartilhado) com o IdGenerator
+ * (aleatoriedade por thread). Executar com:
+ *
+ *   mvn test -Pbenchmark -Dtest=IdGeneratorBenchmarkTest
+ */
+@Tag("benchmark")
+@DisplayName("Benchmark - IdGenerator vs. UUID.randomUUID (JMH, 64 threads)")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(64)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx512m")
+public class IdGeneratorBenchmarkTest {
+
+    private IdGenerator ids;
+
+    @Setup
+    public void setUp() {
+        ids = new IdGenerator(new AppConfig());
+    }
+
+    @Benchmark
+    public String randomUuid() {
+        return UUID.randomUUID().toString();
+    }
+
+    @Benchmark
+    public String nextId() {
+        return ids.nextId();
+    }
+
+    @Benchmark
+    public String nextSecureId() {
+        return ids.nextSecureId();
+    }
+
+    @Test
+    @DisplayName("Compara UUID.randomUUID e IdGenerator com 64 threads")
+    void runJmh() throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(IdGeneratorBenchmarkTest.class.getName() + ".*")
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,106 @@
+package com.opty.socket.benchmark;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.opty.socket.model.Message;
+import com.opty.socket.model.MessageType;
+import com.opty.socket.service.MessageCodec;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark JMH: ObjectMapper genérico vs. MessageCodec (codificação, decodificação e repasse de frames).
+ *
+ * Executar com:
+ *
+ *   mvn test -Pbenchmark -Dtest=MessageCodecBenchmarkTest
+ */
+@Tag("benchmark")
+@DisplayName("Benchmark - MessageCodec vs. ObjectMapper (JMH)")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx512m")
+public class MessageCodecBenchmarkTest {
+
+    private ObjectMapper objectMapper;
+    private MessageCodec codec;
+    private Message message;
+    private String json;
+
+    @Setup
+    public void setUp() throws Exception {
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .serializationInclusion(JsonInclude.Include.NON_NULL)
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        codec = new MessageCodec(objectMapper);
+        message = new Message("5f1c6a6e-3d4b-4a47-9a9e-2c1f0c0f7b11", "CLIENT", MessageType.MESSAGE,
+                Map.of("text", "Olá, preciso de ajuda com o meu pedido \"#1234\""),
+                Instant.parse("2025-03-14T15:09:26.535897Z"));
+        json = objectMapper.writeValueAsString(message);
+    }
+
+    @Benchmark
+    public String encodeObjectMapper() throws Exception {
+        return objectMapper.writeValueAsString(message);
+    }
+
+    @Benchmark
+    public String encodeCodec() throws Exception {
+        return codec.encode(message);
+    }
+
+    @Benchmark
+    public Message decodeObjectMapper() throws Exception {
+        return objectMapper.readValue(json, Message.class);
+    }
+
+    @Benchmark
+    public Message decodeCodec() throws Exception {
+        return codec.decode(json);
+    }
+
+    /**
+     * Repasse de um frame de chat: decode + encode vs. scan mantendo o JSON original.
+     */
+    @Benchmark
+    public String forwardDecodeEncode() throws Exception {
+        return codec.encode(codec.decode(json));
+    }
+
+    @Benchmark
+    public String forwardScan() {
+        return codec.scan(json).json();
+    }
+
+    @Test
+    @DisplayName("Compara ObjectMapper e MessageCodec")
+    void runJmh() throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(MessageCodecBenchmarkTest.class.getName() + ".*")
+                .build())
+                .run();
+    }
+}
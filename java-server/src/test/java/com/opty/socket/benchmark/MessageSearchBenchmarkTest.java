@@ -0,0 +1,154 @@
+package com.opty.socket.benchmark;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.opty.socket.config.AppConfig;
+import com.opty.socket.model.ChatMessageDocument;
+import com.opty.socket.model.Message;
+import com.opty.socket.model.MessageType;
+import com.opty.socket.storage.InvertedIndexSearch;
+import com.opty.socket.storage.MessageSearch;
+import com.opty.socket.storage.MongoTextSearch;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Benchmark: tempo de construção do índice de busca e tempo de consulta.
+ *
+ * Gera mensagens com vocabulário de frequência Zipf (poucas palavras muito comuns,
+ * muitas raras) e mede a indexação e consultas com termo raro, termo comum, dois termos
+ * comuns e página profunda. O índice local sempre roda; o índice de texto do MongoDB só
+ * com um banco descartável. Executar com:
+ *
+ *   mvn test -Pbenchmark -Dtest=MessageSearchBenchmarkTest [-Dopty.benchmark.search-messages=1000000]
+ *     [-Dopty.benchmark.mongodb-uri=mongodb://localhost:27017]
+ */
+@Tag("benchmark")
+@DisplayName("Benchmark - Busca em históricos (índice local e índice de texto do MongoDB)")
+class MessageSearchBenchmarkTest {
+
+    private static final int MESSAGES = Integer.getInteger("opty.benchmark.search-messages", 1_000_000);
+    private static final int VOCABULARY = 20_000;
+    private static final int QUERY_REPEATS = 200;
+    private static final String DATABASE = "opty_benchmark";
+
+    /**
+     * Consultas medidas: nome e texto.
+     */
+    private static final String[][] QUERIES = {
+            {"termo raro", "palavra15000"},
+            {"termo comum", "palavra1"},
+            {"dois termos comuns", "palavra1 palavra2"},
+            {"termo médio", "palavra200"},
+    };
+
+    @Test
+    @DisplayName("Índice local: construção e consultas")
+    void localIndex() {
+        // Arrange
+        AppConfig.SearchConfig config = new AppConfig().getStorage().getSearch();
+        config.setMaxDocuments(MESSAGES);
+        InvertedIndexSearch search = new InvertedIndexSearch(config);
+
+        // Act - construção
+        long buildStart = System.nanoTime();
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < MESSAGES; i++) {
+            search.index(message(random, i));
+        }
+        double buildSeconds = (System.nanoTime() - buildStart) / 1e9;
+
+        // Assert + relatório
+        assertTrue(search.size() == MESSAGES, "Todas as mensagens devem estar indexadas");
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        System.out.printf("[local] %d mensagens indexadas em %.1f s (%.0f msg/s), heap usado: %d MB%n",
+                MESSAGES, buildSeconds, MESSAGES / buildSeconds,
+                (runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024));
+        measureQueries("local", search, config);
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "opty.benchmark.mongodb-uri", matches = ".+")
+    @DisplayName("Índice de texto do MongoDB: construção e consultas")
+    void mongoTextIndex() {
+        try (MongoClient mongoClient = MongoClients.create(System.getProperty("opty.benchmark.mongodb-uri"))) {
+            // Arrange - carga em lotes, antes do índice
+            MongoTemplate mongoTemplate = new MongoTemplate(mongoClient, DATABASE);
+            mongoTemplate.getDb().drop();
+            SplittableRandom random = new SplittableRandom(42);
+            List<ChatMessageDocument> batch = new ArrayList<>(10_000);
+            for (int i = 0; i < MESSAGES; i++) {
+                batch.add(message(random, i));
+                if (batch.size() == 10_000 || i == MESSAGES - 1) {
+                    mongoTemplate.insert(batch, ChatMessageDocument.class);
+                    batch.clear();
+                }
+            }
+            AppConfig.SearchConfig config = new AppConfig().getStorage().getSearch();
+            config.setMaxTimeMs(60_000);
+            MongoTextSearch search = new MongoTextSearch(mongoTemplate, config);
+
+            // Act - construção do índice sobre a coleção carregada
+            long buildStart = System.nanoTime();
+            assertTrue(search.ensureIndex(), "Índice de texto deve ser criado");
+            double buildSeconds = (System.nanoTime() - buildStart) / 1e9;
+
+            // Relatório
+            System.out.printf("[mongo-text] índice sobre %d mensagens criado em %.1f s%n", MESSAGES, buildSeconds);
+            measureQueries("mongo-text", search, config);
+            mongoTemplate.getDb().drop();
+        }
+    }
+
+    private void measureQueries(String label, MessageSearch search, AppConfig.SearchConfig config) {
+        int deepPage = config.getMaxResults() / 20 - 1;
+        for (String[] query : QUERIES) {
+            for (int page : new int[] {0, deepPage}) {
+                // Aquecimento
+                for (int i = 0; i < 10; i++) {
+                    search.search(query[1], page, 20);
+                }
+                int repeats = label.equals("local") ? QUERY_REPEATS : QUERY_REPEATS / 10;
+                long[] nanos = new long[repeats];
+                int hits = 0;
+                for (int i = 0; i < repeats; i++) {
+                    long start = System.nanoTime();
+                    hits = search.search(query[1], page, 20).hits().size();
+                    nanos[i] = System.nanoTime() - start;
+                }
+                java.util.Arrays.sort(nanos);
+                System.out.printf("[%s] %-20s página %2d: p50 %.2f ms | p99 %.2f ms | %d resultados%n",
+                        label, query[0], page, nanos[repeats / 2] / 1e6,
+                        nanos[Math.min(repeats - 1, repeats * 99 / 100)] / 1e6, hits);
+            }
+        }
+    }
+
+    /**
+     * Mensagem de 5 a 20 palavras; a palavra de posto k sai com probabilidade ~ 1/k.
+     */
+    private static ChatMessageDocument message(SplittableRandom random, int index) {
+        int words = 5 + random.nextInt(16);
+        StringBuilder text = new StringBuilder();
+        for (int w = 0; w < words; w++) {
+            int rank = (int) Math.floor(Math.pow(VOCABULARY + 1, random.nextDouble()));
+            text.append("palavra").append(rank).append(' ');
+        }
+        ChatMessageDocument document = new ChatMessageDocument(new Message("session-" + index / 50, "CLIENT",
+                MessageType.MESSAGE, Map.of("text", text.toString()), Instant.now()), "WEBSOCKET");
+        document.setSequence((long) index % 50 + 1);
+        return document;
+    }
+}
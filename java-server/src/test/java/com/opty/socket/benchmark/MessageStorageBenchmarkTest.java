@@ -0,0 +1,104 @@
+package com.opty.socket.benchmark;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.opty.socket.config.AppConfig;
+import com.opty.socket.model.Message;
+import com.opty.socket.model.MessageType;
+import com.opty.socket.repository.ChatMessageRepository;
+import com.opty.socket.service.MessageBucketService;
+import com.opty.socket.service.MessageStorageService;
+import com.opty.socket.storage.MessageStore;
+import com.opty.socket.storage.MongoBucketMessageStore;
+import com.opty.socket.storage.MongoMessageStore;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.scheduling.concurrent.ConcurrentTaskScheduler;
+
+import java.time.Instant;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Benchmark: documento por mensagem vs. buckets por sessão.
+ *
+ * Mede vazão de escrita e tempo de leitura do histórico nos dois esquemas,
+ * usando um banco descartável. Executar com:
+ *
+ *   mvn test -Pbenchmark -Dopty.benchmark.mongodb-uri=mongodb://localhost:27017
+ */
+@Tag("benchmark")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@EnabledIfSystemProperty(named = "opty.benchmark.mongodb-uri", matches = ".+")
+@DisplayName("Benchmark - Armazenamento de mensagens (documento vs. bucket)")
+class MessageStorageBenchmarkTest {
+
+    private static final String DATABASE = "opty_benchmark";
+    private static final int SESSIONS = 200;
+    private static final int MESSAGES_PER_SESSION = 250;
+
+    private MongoClient mongoClient;
+    private MongoTemplate mongoTemplate;
+
+    @BeforeAll
+    void setUp() {
+        mongoClient = MongoClients.create(System.getProperty("opty.benchmark.mongodb-uri"));
+        mongoTemplate = new MongoTemplate(mongoClient, DATABASE);
+        mongoTemplate.getDb().drop();
+    }
+
+    @AfterAll
+    void tearDown() {
+        mongoTemplate.getDb().drop();
+        mongoClient.close();
+    }
+
+    @Test
+    @DisplayName("Compara vazão de escrita e leitura de histórico entre DOCUMENT e BUCKET")
+    void compareStorageModes() {
+        for (AppConfig.StorageMode mode : AppConfig.StorageMode.values()) {
+            // Arrange
+            AppConfig appConfig = new AppConfig();
+            appConfig.getStorage().setMode(mode);
+            MessageBucketService bucketService = new MessageBucketService(appConfig, mongoTemplate, new ConcurrentTaskScheduler());
+            ChatMessageRepository repository = new MongoRepositoryFactory(mongoTemplate).getRepository(ChatMessageRepository.class);
+            MessageStore store = mode == AppConfig.StorageMode.BUCKET
+                    ? new MongoBucketMessageStore(bucketService)
+                    : new MongoMessageStore(repository);
+            MessageStorageService storageService = new MessageStorageService(store);
+            if (mode == AppConfig.StorageMode.BUCKET) {
+                bucketService.ensureIndexes();
+            }
+
+            // Act - escrita intercalada entre sessões, como em produção
+            long writeStart = System.nanoTime();
+            for (int i = 0; i < MESSAGES_PER_SESSION; i++) {
+                for (int s = 0; s < SESSIONS; s++) {
+                    storageService.saveMessage(new Message(mode + "-session-" + s, "CLIENT", MessageType.MESSAGE,
+                            Map.of("text", "mensagem " + i), Instant.now()), "WEBSOCKET");
+                }
+            }
+            double writeSeconds = (System.nanoTime() - writeStart) / 1e9;
+
+            long readStart = System.nanoTime();
+            int read = 0;
+            for (int s = 0; s < SESSIONS; s++) {
+                read += storageService.getTranscript(mode + "-session-" + s).size();
+            }
+            double readMillisPerTranscript = (System.nanoTime() - readStart) / 1e6 / SESSIONS;
+
+            // Assert + relatório
+            assertEquals(SESSIONS * MESSAGES_PER_SESSION, read, "Todas as mensagens devem ser lidas");
+            System.out.printf("[%s] escrita: %.0f msg/s | leitura de histórico: %.2f ms/sessão%n",
+                    mode, SESSIONS * MESSAGES_PER_SESSION / writeSeconds, readMillisPerTranscript);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.opty.socket.benchmark;
+
+import com.opty.socket.config.AppConfig;
+import com.opty.socket.model.ConnectionInfo;
+import com.opty.socket.service.SessionManager;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Benchmark (JOL): memória retida pelo SessionManager por sessão pareada.
+ *
+ * Cada sessão tem uma conexão de cliente e uma de supervisor registradas, com IDs
+ * no formato UUID usado pelo servidor legado. Executar com:
+ *
+ *   mvn test -Pbenchmark -Dtest=SessionMemoryBenchmarkTest
+ */
+@Tag("benchmark")
+@DisplayName("Benchmark - Memória por sessão no SessionManager (JOL)")
+class SessionMemoryBenchmarkTest {
+
+    private static final int SESSIONS = 10_000;
+
+    @Test
+    @DisplayName("Mede os bytes retidos por sessão pareada")
+    void measureFootprintPerSession() {
+        // Arrange
+        AppConfig appConfig = new AppConfig();
+        appConfig.setMaxConnections(2 * SESSIONS);
+        SessionManager sessionManager = new SessionManager(appConfig);
+        long empty = GraphLayout.parseInstance(sessionManager).totalSize();
+
+        // Act
+        for (int i = 0; i < SESSIONS; i++) {
+            String clientId = UUID.randomUUID().toString();
+            String supervisorId = UUID.randomUUID().toString();
+            sessionManager.registerConnection(new ConnectionInfo(clientId, null, null, "CLIENT", null));
+            String sessionId = sessionManager.createSession(clientId).sessionId();
+            sessionManager.updateSessionId(clientId, sessionId);
+            sessionManager.registerConnection(new ConnectionInfo(supervisorId, null, null, "SUPERVISOR", sessionId));
+            sessionManager.pairSupervisor(sessionId, supervisorId);
+        }
+        GraphLayout layout = GraphLayout.parseInstance(sessionManager);
+
+        // Assert
+        assertEquals(SESSIONS, sessionManager.getPairedSessionCount());
+        System.out.printf("[%d sessões pareadas] %d bytes no total, %.1f bytes por sessão%n%s%n",
+                SESSIONS, layout.totalSize() - empty, (layout.totalSize() - empty) / (double) SESSIONS,
+                layout.toFootprint());
+    }
+}
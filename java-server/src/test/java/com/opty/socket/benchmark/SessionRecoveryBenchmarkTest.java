@@ -0,0 +1,87 @@
+package com.opty.socket.benchmark;
+
+import com.opty.socket.config.AppConfig;
+import com.opty.socket.model.Session;
+import com.opty.socket.service.SessionJournal;
+import com.opty.socket.service.SessionManager;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Benchmark: tempo de recuperação de 100 mil sessões após reinício.
+ *
+ * Mede a recuperação só pelo journal, só pelo snapshot e pelo snapshot com
+ * eventos posteriores. Executar com:
+ *
+ *   mvn test -Pbenchmark -Dtest=SessionRecoveryBenchmarkTest
+ */
+@Tag("benchmark")
+@DisplayName("Benchmark - Recuperação de sessões (journal + snapshot)")
+class SessionRecoveryBenchmarkTest {
+
+    private static final int SESSIONS = 100_000;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Recupera 100k sessões a partir do journal e do snapshot")
+    void measureRecovery() {
+        // Arrange
+        AppConfig appConfig = new AppConfig();
+        appConfig.getSession().getJournal().setDirectory(directory.toString());
+        SessionManager sessionManager = new SessionManager(appConfig);
+        SessionJournal journal = new SessionJournal(appConfig, sessionManager);
+        journal.recover();
+
+        // Ciclo de vida típico: criar, parear metade, remover 10%
+        long writeStart = System.nanoTime();
+        List<Session> created = new ArrayList<>(SESSIONS);
+        for (int i = 0; i < SESSIONS; i++) {
+            created.add(sessionManager.createSession("client-" + i));
+        }
+        for (int i = 0; i < SESSIONS; i += 2) {
+            sessionManager.pairSupervisor(created.get(i).sessionId(), "supervisor-" + i);
+        }
+        for (int i = 0; i < SESSIONS; i += 10) {
+            sessionManager.removeSession(created.get(i).sessionId());
+        }
+        double writeMillis = (System.nanoTime() - writeStart) / 1e6;
+        int expected = sessionManager.getActiveSessionCount();
+
+        // Act + Assert - só journal
+        long journalOnly = recover(appConfig, expected);
+
+        // Act + Assert - só snapshot
+        journal.snapshot();
+        long snapshotOnly = recover(appConfig, expected);
+
+        // Act + Assert - snapshot + 10k eventos novos
+        for (int i = 0; i < 10_000; i++) {
+            sessionManager.createSession("late-client-" + i);
+        }
+        long snapshotAndJournal = recover(appConfig, expected + 10_000);
+
+        System.out.printf("[%d sessões] ciclo de vida: %.0f ms | recuperação: journal %d ms, snapshot %d ms, "
+                        + "snapshot+journal %d ms%n",
+                SESSIONS, writeMillis, journalOnly, snapshotOnly, snapshotAndJournal);
+    }
+
+    private long recover(AppConfig appConfig, int expected) {
+        SessionManager restarted = new SessionManager(appConfig);
+        long start = System.nanoTime();
+        SessionJournal journal = new SessionJournal(appConfig, restarted);
+        journal.recover();
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        assertEquals(expected, restarted.getActiveSessionCount(), "Todas as sessões ativas devem voltar");
+        return elapsedMillis;
+    }
+}
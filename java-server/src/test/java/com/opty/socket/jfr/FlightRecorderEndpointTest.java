@@ -0,0 +1,112 @@
+package com.opty.socket.jfr;
+
+import com.opty.socket.config.AppConfig;
+import com.opty.socket.model.ConnectionInfo;
+import com.opty.socket.service.SessionManager;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes INTERCLASSE para o FlightRecorderEndpoint e os eventos JFR do servidor
+ *
+ * Categorias testadas:
+ * 1. Controle da gravação
+ * 2. Eventos gravados
+ */
+@DisplayName("Testes INTERCLASSE - FlightRecorderEndpoint")
+class FlightRecorderEndpointTest {
+
+    @TempDir
+    Path directory;
+
+    private FlightRecorderEndpoint endpoint;
+
+    @BeforeEach
+    void setUp() {
+        AppConfig appConfig = new AppConfig();
+        appConfig.getFlightRecorder().setDirectory(directory.toString());
+        endpoint = new FlightRecorderEndpoint(appConfig);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if ("RUNNING".equals(endpoint.status().get("state"))) {
+            endpoint.control("stop");
+        }
+    }
+
+    @Nested
+    @DisplayName("Categoria 1: Controle da gravação")
+    class Control {
+
+        @Test
+        @DisplayName("Iniciar e parar deve gravar o arquivo no diretório configurado")
+        void testStartStop_ShouldDumpToConfiguredDirectory() throws Exception {
+            // Act
+            Map<String, Object> started = endpoint.control("start");
+            Map<String, Object> stopped = endpoint.control("stop");
+
+            // Assert
+            assertEquals("RUNNING", started.get("state"));
+            assertEquals("NONE", stopped.get("state"));
+            Path file = Path.of((String) stopped.get("file"));
+            assertEquals(directory.toAbsolutePath().normalize(), file.getParent());
+            assertTrue(Files.size(file) > 0);
+        }
+
+        @Test
+        @DisplayName("Ação desconhecida ou dump sem gravação deve ser rejeitado")
+        void testControl_InvalidRequests_ShouldBeRejected() {
+            // Act + Assert
+            assertThrows(InvalidEndpointRequestException.class, () -> endpoint.control("delete"));
+            assertThrows(InvalidEndpointRequestException.class, () -> endpoint.control("dump"));
+            assertThrows(InvalidEndpointRequestException.class, () -> endpoint.control("stop"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Categoria 2: Eventos gravados")
+    class Events {
+
+        @Test
+        @DisplayName("Conexões e transições de sessão devem aparecer no dump")
+        void testDump_ShouldContainServerEvents() throws Exception {
+            // Arrange
+            SessionManager sessionManager = new SessionManager(new AppConfig());
+            new SessionEventRecorder(sessionManager).register();
+            endpoint.control("start");
+
+            // Act
+            ConnectionAcceptEvent.record("WEBSOCKET", "CLIENT", "conn-1", null);
+            sessionManager.registerConnection(new ConnectionInfo("conn-1", null, null, "CLIENT", null));
+            String sessionId = sessionManager.createSession("conn-1").sessionId();
+            sessionManager.removeSession(sessionId);
+            Path file = Path.of((String) endpoint.control("dump").get("file"));
+
+            // Assert
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+            assertTrue(events.stream().anyMatch(e -> e.getEventType().getName().equals("com.opty.socket.ConnectionAccept")
+                    && "conn-1".equals(e.getString("connectionId"))));
+            List<String> transitions = events.stream()
+                    .filter(e -> e.getEventType().getName().equals("com.opty.socket.SessionTransition"))
+                    .filter(e -> sessionId.equals(e.getString("sessionId")))
+                    .map(e -> e.getString("transition"))
+                    .toList();
+            assertEquals(List.of("created", "removed"), transitions);
+        }
+    }
+}
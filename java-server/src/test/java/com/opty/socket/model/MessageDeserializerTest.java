@@ -0,0 +1,161 @@
+package com.opty.socket.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.opty.socket.dto.SessionDTO;
+import com.opty.socket.model.payload.ConnectAckPayload;
+import com.opty.socket.model.payload.ErrorPayload;
+import com.opty.socket.model.payload.QueueUpdatePayload;
+import com.opty.socket.model.payload.TextPayload;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes INTRACLASSE para o MessageDeserializer e os payloads tipados
+ *
+ * Categorias testadas:
+ * 1. Payload tipado por MessageType
+ * 2. Fallback para Map (compatibilidade)
+ * 3. Payload como Map (somente leitura)
+ */
+@DisplayName("Testes INTRACLASSE - MessageDeserializer e payloads tipados")
+class MessageDeserializerTest {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    @Nested
+    @DisplayName("Categoria 1: Payload tipado")
+    class TypedPayloads {
+
+        @Test
+        @DisplayName("MESSAGE deve virar TextPayload")
+        void testDeserialize_Message_ShouldReadTextPayload() throws Exception {
+            // Act
+            Message message = objectMapper.readValue(
+                    "{\"sessionId\":\"s-1\",\"from\":\"CLIENT\",\"type\":\"MESSAGE\",\"payload\":{\"text\":\"olá\"},"
+                            + "\"timestamp\":\"2025-01-02T03:04:05.678Z\"}", Message.class);
+
+            // Assert
+            TextPayload payload = assertInstanceOf(TextPayload.class, message.payload());
+            assertEquals("olá", payload.text());
+            assertNull(payload.timestamp());
+            assertEquals(Instant.parse("2025-01-02T03:04:05.678Z"), message.timestamp());
+        }
+
+        @Test
+        @DisplayName("Payload antes do type deve ser tipado mesmo assim")
+        void testDeserialize_PayloadBeforeType_ShouldStillBeTyped() throws Exception {
+            // Act
+            Message message = objectMapper.readValue(
+                    "{\"payload\":{\"error\":\"falhou\"},\"type\":\"ERROR\",\"sessionId\":\"s-1\"}", Message.class);
+
+            // Assert
+            assertEquals(new ErrorPayload("falhou"), message.payload());
+            assertInstanceOf(ErrorPayload.class, message.payload());
+        }
+
+        @Test
+        @DisplayName("CONNECT e SESSION_QUEUE_UPDATE devem ler booleanos e listas tipadas")
+        void testDeserialize_ConnectAndQueue_ShouldReadTypedFields() throws Exception {
+            // Act
+            Message connect = objectMapper.readValue(
+                    "{\"type\":\"CONNECT\",\"payload\":{\"message\":\"ok\",\"paired\":true}}", Message.class);
+            Message queue = objectMapper.readValue(
+                    "{\"type\":\"SESSION_QUEUE_UPDATE\",\"payload\":{\"sessions\":[{\"sessionId\":\"s-1\","
+                            + "\"paired\":false,\"createdAt\":\"2025-01-01T00:00:00Z\",\"waitingTimeMinutes\":1,"
+                            + "\"waitingTimeSeconds\":5}]}}", Message.class);
+
+            // Assert
+            assertEquals(new ConnectAckPayload("ok", null, true), connect.payload());
+            QueueUpdatePayload payload = assertInstanceOf(QueueUpdatePayload.class, queue.payload());
+            assertEquals(new SessionDTO("s-1", false, "2025-01-01T00:00:00Z", 1, 5), payload.sessions().get(0));
+        }
+
+        @Test
+        @DisplayName("Serializar e desserializar deve manter o mesmo JSON")
+        void testRoundTrip_ShouldKeepJsonShape() throws Exception {
+            // Arrange
+            Message original = new Message("s-1", "SERVER", MessageType.CONNECT,
+                    new ConnectAckPayload("Connected successfully", "s-1", null), Instant.parse("2025-01-02T03:04:05Z"));
+
+            // Act
+            String json = objectMapper.writeValueAsString(original);
+            Message decoded = objectMapper.readValue(json, Message.class);
+
+            // Assert
+            assertEquals("{\"sessionId\":\"s-1\",\"from\":\"SERVER\",\"type\":\"CONNECT\",\"payload\":{\"message\":"
+                    + "\"Connected successfully\",\"sessionId\":\"s-1\"},\"timestamp\":\"2025-01-02T03:04:05Z\"}", json);
+            assertEquals(original, decoded);
+        }
+    }
+
+    @Nested
+    @DisplayName("Categoria 2: Fallback para Map")
+    class Fallback {
+
+        @Test
+        @DisplayName("Campos extras no payload devem manter o Map genérico")
+        void testDeserialize_WithExtraFields_ShouldKeepMap() throws Exception {
+            // Act
+            Message message = objectMapper.readValue(
+                    "{\"type\":\"MESSAGE\",\"payload\":{\"text\":\"oi\",\"count\":3,\"tags\":[\"a\"]}}", Message.class);
+
+            // Assert
+            assertFalse(message.payload() instanceof TextPayload);
+            assertEquals(Map.of("text", "oi", "count", 3, "tags", List.of("a")), message.payload());
+        }
+
+        @Test
+        @DisplayName("Tipo de valor inesperado e DISCONNECT devem manter o Map genérico")
+        void testDeserialize_WithUnexpectedValue_ShouldKeepMap() throws Exception {
+            // Act
+            Message numericText = objectMapper.readValue(
+                    "{\"type\":\"MESSAGE\",\"payload\":{\"text\":42}}", Message.class);
+            Message disconnect = objectMapper.readValue(
+                    "{\"type\":\"DISCONNECT\",\"payload\":{\"message\":\"tchau\"}}", Message.class);
+
+            // Assert
+            assertEquals(Map.of("text", 42), numericText.payload());
+            assertEquals(Map.of("message", "tchau"), disconnect.payload());
+        }
+
+        @Test
+        @DisplayName("Tipo inválido deve falhar como antes")
+        void testDeserialize_WithInvalidType_ShouldFail() {
+            // Act + Assert
+            assertThrows(Exception.class, () -> objectMapper.readValue(
+                    "{\"type\":\"INVALIDO\",\"payload\":{\"text\":\"oi\"}}", Message.class));
+        }
+    }
+
+    @Nested
+    @DisplayName("Categoria 3: Payload como Map")
+    class MapView {
+
+        @Test
+        @DisplayName("Payload tipado deve se comportar como Map somente leitura sem campos nulos")
+        void testMapView_ShouldBehaveAsReadOnlyMap() {
+            // Arrange
+            ConnectAckPayload payload = new ConnectAckPayload("ok", null, true);
+
+            // Act + Assert
+            assertEquals(2, payload.size());
+            assertEquals("ok", payload.get("message"));
+            assertFalse(payload.containsKey("sessionId"));
+            assertEquals(Map.of("message", "ok", "paired", true), payload);
+            assertEquals(Map.of("message", "ok", "paired", true).hashCode(), payload.hashCode());
+            assertEquals(List.of("message", "paired"), List.copyOf(payload.keySet()));
+            assertThrows(UnsupportedOperationException.class, () -> payload.put("x", 1));
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.opty.socket.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes INTRACLASSE para o HandleTable
+ *
+ * Categorias testadas:
+ * 1. Inclusão, busca e remoção por handle
+ * 2. Handles antigos após reutilização do slot
+ */
+@DisplayName("Testes INTRACLASSE - HandleTable")
+class HandleTableTest {
+
+    private final HandleTable<String> table = new HandleTable<>();
+
+    @Test
+    @DisplayName("Handles devem resolver para o valor até serem removidos")
+    void testAddGetRemove_ShouldResolveUntilRemoved() {
+        // Arrange
+        List<Integer> handles = new ArrayList<>();
+        for (int i = 0; i < 3_000; i++) {
+            int index = i;
+            handles.add(table.add(handle -> "valor-" + index));
+        }
+
+        // Act
+        String removed = table.remove(handles.get(10));
+
+        // Assert
+        assertEquals("valor-10", removed);
+        assertNull(table.get(handles.get(10)));
+        assertNull(table.remove(handles.get(10)), "Remover duas vezes não deve ter efeito");
+        assertEquals("valor-2999", table.get(handles.get(2_999)));
+        assertEquals(2_999, table.size());
+        assertEquals(2_999, table.values().size());
+        assertNull(table.get(HandleTable.NONE));
+    }
+
+    @Test
+    @DisplayName("Handle antigo não deve resolver depois que o slot é reutilizado")
+    void testGet_WithStaleHandleAfterReuse_ShouldReturnNull() {
+        // Arrange
+        int first = table.add(handle -> "primeiro");
+        table.remove(first);
+
+        // Act
+        int second = table.add(handle -> "segundo");
+
+        // Assert - mesmo slot, geração diferente
+        assertNotEquals(first, second);
+        assertNull(table.get(first));
+        assertEquals("segundo", table.get(second));
+    }
+
+    @Test
+    @DisplayName("Handles vivos devem ser únicos mesmo com slots reutilizados")
+    void testAdd_WithChurn_ShouldKeepLiveHandlesUnique() {
+        // Arrange
+        Set<Integer> live = new HashSet<>();
+
+        // Act
+        for (int i = 0; i < 10_000; i++) {
+            int handle = table.add(h -> "v");
+            assertTrue(live.add(handle), "Handle repetido: " + handle);
+            assertTrue(handle >= 0);
+            if (i % 3 != 0) {
+                table.remove(handle);
+                live.remove(handle);
+            }
+        }
+
+        // Assert
+        assertEquals(live.size(), table.size());
+        for (int handle : live) {
+            assertEquals("v", table.get(handle));
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.opty.socket.service;
+
+import com.opty.socket.config.AppConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Testes INTRACLASSE para o HeartbeatMonitor
+ *
+ * Categorias testadas:
+ * 1. Batimentos e conexões mortas
+ * 2. Monitor desligado
+ */
+@DisplayName("Testes INTRACLASSE - HeartbeatMonitor")
+class HeartbeatMonitorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger pings = new AtomicInteger();
+    private final AtomicInteger closes = new AtomicInteger();
+    private HeartbeatMonitor monitor;
+
+    private HeartbeatMonitor monitor(boolean enabled) {
+        AppConfig appConfig = new AppConfig();
+        appConfig.getPipeline().setEnabled(false);
+        appConfig.getHeartbeat().setEnabled(enabled);
+        appConfig.getHeartbeat().setIntervalMs(100);
+        appConfig.getHeartbeat().setTimeoutMs(400);
+        // O teste chama check() na mão
+        appConfig.getHeartbeat().setCheckIntervalMs(3_600_000);
+        monitor = new HeartbeatMonitor(appConfig, new InboundPipeline(appConfig), meterRegistry);
+        return monitor;
+    }
+
+    @AfterEach
+    void tearDown() {
+        monitor.close();
+    }
+
+    @Nested
+    @DisplayName("Categoria 1: Batimentos")
+    class Beats {
+
+        @Test
+        @DisplayName("Conexão em silêncio deve receber um ping por intervalo e ser fechada no timeout")
+        void testCheck_SilentConnection_ShouldPingThenClose() throws Exception {
+            // Arrange
+            HeartbeatMonitor monitor = monitor(true);
+            monitor.track("conn-1", pings::incrementAndGet, closes::incrementAndGet);
+
+            // Act + Assert
+            monitor.check();
+            assertEquals(0, pings.get(), "Antes do intervalo não há ping");
+
+            Thread.sleep(150);
+            monitor.check();
+            monitor.check();
+            assertEquals(1, pings.get(), "Um ping por intervalo, não um por varredura");
+            assertEquals(0, closes.get());
+
+            Thread.sleep(300);
+            monitor.check();
+            monitor.check();
+            assertEquals(2, closes.get(), "Continua fechando até a limpeza tirar a conexão");
+            assertEquals(1.0, meterRegistry.get("opty.heartbeat.timeouts").counter().count());
+
+            monitor.untrack("conn-1");
+            monitor.check();
+            assertEquals(2, closes.get());
+            assertEquals(0, monitor.getTrackedCount());
+        }
+
+        @Test
+        @DisplayName("Conexão que responde não deve ser fechada")
+        void testCheck_ConnectionThatBeats_ShouldStayOpen() throws Exception {
+            // Arrange
+            HeartbeatMonitor monitor = monitor(true);
+            monitor.track("conn-1", () -> {
+                pings.incrementAndGet();
+                monitor.beat("conn-1");
+            }, closes::incrementAndGet);
+
+            // Act
+            for (int i = 0; i < 8; i++) {
+                Thread.sleep(60);
+                monitor.check();
+            }
+
+            // Assert
+            assertTrue(pings.get() >= 1);
+            assertEquals(0, closes.get());
+            assertEquals(1.0, meterRegistry.get("opty.heartbeat.connections").gauge().value());
+        }
+
+        @Test
+        @DisplayName("Conexão que não aceita ping deve só ser fechada no timeout")
+        void testCheck_CloseOnlyConnection_ShouldCloseWithoutPing() throws Exception {
+            // Arrange - socket legado que ainda não mandou o PedidoDeConexao
+            HeartbeatMonitor monitor = monitor(true);
+            monitor.track("conn-1", closes::incrementAndGet);
+
+            // Act
+            Thread.sleep(150);
+            monitor.check();
+            int closesBeforeTimeout = closes.get();
+            Thread.sleep(300);
+            monitor.check();
+
+            // Assert
+            assertEquals(0, closesBeforeTimeout);
+            assertEquals(1, closes.get());
+        }
+
+        @Test
+        @DisplayName("WebSocket morto deve ser fechado mesmo com a faixa do pipeline presa")
+        void testCheck_WebSocketWithStuckLane_ShouldCloseFromTimer() throws Exception {
+            // Arrange - a faixa da conexão fica presa num envio que não termina
+            AppConfig appConfig = new AppConfig();
+            appConfig.getHeartbeat().setIntervalMs(100);
+            appConfig.getHeartbeat().setTimeoutMs(200);
+            appConfig.getHeartbeat().setCheckIntervalMs(3_600_000);
+            InboundPipeline pipeline = new InboundPipeline(appConfig);
+            monitor = new HeartbeatMonitor(appConfig, pipeline, meterRegistry);
+            WebSocketSession session = mock(WebSocketSession.class);
+            when(session.getId()).thenReturn("ws-1");
+            CountDownLatch stuck = new CountDownLatch(1);
+            pipeline.submit("ws-1", () -> {
+                try {
+                    stuck.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            monitor.track(session);
+
+            // Act
+            Thread.sleep(250);
+            monitor.check();
+
+            // Assert
+            verify(session).close(CloseStatus.SESSION_NOT_RELIABLE);
+            stuck.countDown();
+            pipeline.close();
+        }
+    }
+
+    @Nested
+    @DisplayName("Categoria 2: Monitor desligado")
+    class Disabled {
+
+        @Test
+        @DisplayName("Desligado, não deve acompanhar conexões")
+        void testTrack_WhenDisabled_ShouldIgnore() throws Exception {
+            // Arrange
+            HeartbeatMonitor monitor = monitor(false);
+
+            // Act
+            monitor.track("conn-1", pings::incrementAndGet, closes::incrementAndGet);
+            Thread.sleep(450);
+            monitor.check();
+
+            // Assert
+            assertEquals(0, monitor.getTrackedCount());
+            assertEquals(0, closes.get());
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.opty.socket.service;
+
+import com.opty.socket.config.AppConfig;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes INTRACLASSE para o IdGenerator
+ *
+ * Categorias testadas:
+ * 1. Formato (ULID, base32 Crockford)
+ * 2. Ordenação por tempo e ID de nó
+ * 3. Unicidade sob concorrência
+ */
+@DisplayName("Testes INTRACLASSE - IdGenerator")
+class IdGeneratorTest {
+
+    private static IdGenerator generator(int nodeId) {
+        AppConfig appConfig = new AppConfig();
+        appConfig.getIds().setNodeId(nodeId);
+        return new IdGenerator(appConfig);
+    }
+
+    @Nested
+    @DisplayName("Categoria 1: Formato")
+    class Format {
+
+        @Test
+        @DisplayName("IDs devem ter 26 caracteres do alfabeto base32 Crockford")
+        void testNextId_ShouldUseUlidFormat() {
+            // Arrange
+            IdGenerator ids = generator(0);
+
+            for (String id : List.of(ids.nextId(), ids.nextSecureId(), ids.nextSessionId(), ids.nextConnectionId())) {
+                // Assert
+                assertEquals(IdGenerator.LENGTH, id.length());
+                assertTrue(id.matches("[0-7][0-9A-HJKMNP-TV-Z]{25}"), id);
+            }
+        }
+
+        @Test
+        @DisplayName("ID de nó fora de 0..1023 deve ser rejeitado")
+        void testConstructor_WithInvalidNodeId_ShouldFail() {
+            // Act + Assert
+            assertThrows(IllegalArgumentException.class, () -> generator(1024));
+            assertThrows(IllegalArgumentException.class, () -> generator(-1));
+        }
+    }
+
+    @Nested
+    @DisplayName("Categoria 2: Tempo e nó")
+    class TimeAndNode {
+
+        @Test
+        @DisplayName("O timestamp do ID deve ser o momento da criação")
+        void testTimestampOf_ShouldMatchCreationTime() {
+            // Arrange
+            IdGenerator ids = generator(0);
+            long before = System.currentTimeMillis();
+
+            // Act
+            String id = ids.nextId();
+            long after = System.currentTimeMillis();
+
+            // Assert
+            long timestamp = IdGenerator.timestampOf(id);
+            assertTrue(timestamp >= before && timestamp <= after);
+        }
+
+        @Test
+        @DisplayName("IDs de milissegundos diferentes devem ordenar por tempo")
+        void testNextId_AcrossMilliseconds_ShouldSortByTime() throws Exception {
+            // Arrange
+            IdGenerator ids = generator(0);
+
+            // Act
+            String first = ids.nextId();
+            Thread.sleep(2);
+            String second = ids.nextSecureId();
+
+            // Assert
+            assertTrue(first.compareTo(second) < 0, first + " deve vir antes de " + second);
+        }
+
+        @Test
+        @DisplayName("O ID de nó deve ocupar os 10 bits após o timestamp")
+        void testNextId_ShouldCarryNodeId() {
+            // Act
+            String id = generator(1023).nextId();
+
+            // Assert - caracteres 10 e 11 carregam os 10 bits do nó
+            assertEquals("ZZ", id.substring(10, 12));
+            assertEquals("00", generator(0).nextId().substring(10, 12));
+        }
+    }
+
+    @Nested
+    @DisplayName("Categoria 3: Concorrência")
+    class Concurrency {
+
+        @Test
+        @DisplayName("64 threads gerando IDs não devem produzir duplicatas")
+        void testNextId_With64Threads_ShouldNotCollide() throws Exception {
+            // Arrange
+            IdGenerator ids = generator(7);
+            Set<String> seen = ConcurrentHashMap.newKeySet();
+            ExecutorService executor = Executors.newFixedThreadPool(64);
+
+            try {
+                // Act
+                List<Future<?>> tasks = IntStream.range(0, 64)
+                        .mapToObj(t -> executor.submit(() -> {
+                            for (int i = 0; i < 5_000; i++) {
+                                seen.add(t % 2 == 0 ? ids.nextId() : ids.nextSecureId());
+                            }
+                        }))
+                        .collect(Collectors.toList());
+                for (Future<?> task : tasks) {
+                    task.get();
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+
+            // Assert
+            assertEquals(64 * 5_000, seen.size());
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.opty.socket.service;
+
+import com.opty.socket.config.AppConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes INTRACLASSE para o InboundPipeline
+ *
+ * Categorias testadas:
+ * 1. Ordem por conexão
+ * 2. Fila cheia e pipeline desligado
+ * 3. Espera pela drenagem
+ */
+@DisplayName("Testes INTRACLASSE - InboundPipeline")
+class InboundPipelineTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private InboundPipeline pipeline;
+
+    private InboundPipeline pipeline(boolean enabled, int lanes, int laneCapacity) {
+        AppConfig appConfig = new AppConfig();
+        appConfig.getPipeline().setEnabled(enabled);
+        appConfig.getPipeline().setLanes(lanes);
+        appConfig.getPipeline().setLaneCapacity(laneCapacity);
+        pipeline = new InboundPipeline(appConfig, meterRegistry);
+        return pipeline;
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (pipeline != null) {
+            pipeline.close();
+        }
+    }
+
+    @Nested
+    @DisplayName("Categoria 1: Ordem por conexão")
+    class Ordering {
+
+        @Test
+        @DisplayName("Quadros de cada conexão devem ser processados na ordem de chegada, fora do chamador")
+        void testSubmit_ManyConnections_ShouldKeepOrderPerConnection() {
+            // Arrange
+            InboundPipeline pipeline = pipeline(true, 4, 10_000);
+            Map<String, List<Integer>> received = new ConcurrentHashMap<>();
+            List<String> threads = Collections.synchronizedList(new ArrayList<>());
+
+            // Act
+            for (int i = 0; i < 1_000; i++) {
+                for (int c = 0; c < 8; c++) {
+                    String connectionId = "conn-" + c;
+                    int index = i;
+                    assertTrue(pipeline.submit(connectionId, () -> {
+                        received.computeIfAbsent(connectionId, k -> new ArrayList<>()).add(index);
+                        threads.add(Thread.currentThread().getName());
+                    }));
+                }
+            }
+
+            // Assert
+            assertTrue(pipeline.awaitIdle(10_000));
+            for (int c = 0; c < 8; c++) {
+                List<Integer> frames = received.get("conn-" + c);
+                assertEquals(1_000, frames.size());
+                for (int i = 0; i < frames.size(); i++) {
+                    assertEquals(i, frames.get(i), "Fora de ordem na conn-" + c);
+                }
+            }
+            assertTrue(threads.stream().allMatch(name -> name.startsWith("inbound-lane-")));
+            assertEquals(8_000, meterRegistry.get("opty.pipeline.process").tag("stage", "dispatch").timer().count());
+        }
+
+        @Test
+        @DisplayName("submitAndWait deve rodar depois dos quadros já enfileirados da conexão")
+        void testSubmitAndWait_AfterQueuedFrames_ShouldRunLast() {
+            // Arrange
+            InboundPipeline pipeline = pipeline(true, 2, 100);
+            List<String> steps = Collections.synchronizedList(new ArrayList<>());
+
+            // Act
+            for (int i = 0; i < 50; i++) {
+                int index = i;
+                pipeline.submit("conn-1", () -> steps.add("frame-" + index));
+            }
+            pipeline.submitAndWait("conn-1", () -> steps.add("cleanup"));
+
+            // Assert
+            assertTrue(pipeline.awaitIdle(5_000));
+            assertEquals(51, steps.size());
+            assertEquals("cleanup", steps.get(50));
+        }
+    }
+
+    @Nested
+    @DisplayName("Categoria 2: Fila cheia e pipeline desligado")
+    class Backpressure {
+
+        @Test
+        @DisplayName("Faixa cheia deve recusar o quadro e contar a rejeição")
+        void testSubmit_WhenLaneFull_ShouldRejectAndCount() throws Exception {
+            // Arrange - a única thread fica presa e a fila comporta um quadro
+            InboundPipeline pipeline = pipeline(true, 1, 1);
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            pipeline.submit("conn-1", () -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            // Act
+            boolean queued = pipeline.submit("conn-1", () -> { });
+            boolean rejected = pipeline.submit("conn-1", () -> { });
+
+            // Assert
+            assertTrue(queued);
+            assertFalse(rejected);
+            assertEquals(1, pipeline.queueDepth());
+            assertEquals(1.0, meterRegistry.get("opty.pipeline.rejected").tag("stage", "dispatch").counter().count());
+            assertEquals(1.0, meterRegistry.get("opty.pipeline.queue.depth").tag("stage", "dispatch").gauge().value());
+
+            release.countDown();
+            assertTrue(pipeline.awaitIdle(5_000));
+        }
+
+        @Test
+        @DisplayName("submitAndWait com a faixa cheia deve rodar na thread do chamador em vez de travar")
+        void testSubmitAndWait_WhenLaneFull_ShouldRunInlineAfterTimeout() throws Exception {
+            // Arrange - a única thread fica presa e a fila está cheia
+            InboundPipeline pipeline = pipeline(true, 1, 1);
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            pipeline.submit("conn-1", () -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            assertTrue(pipeline.submit("conn-2", () -> { }));
+            String[] thread = new String[1];
+
+            // Act
+            long startedAt = System.nanoTime();
+            pipeline.submitAndWait("conn-3", () -> thread[0] = Thread.currentThread().getName());
+            long waitedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+
+            // Assert
+            assertEquals(Thread.currentThread().getName(), thread[0]);
+            assertTrue(waitedMillis < 2_000, "Não deve esperar a faixa esvaziar: " + waitedMillis + "ms");
+            assertEquals(1, pipeline.queueDepth());
+
+            release.countDown();
+            assertTrue(pipeline.awaitIdle(5_000));
+        }
+
+        @Test
+        @DisplayName("Pipeline desligado deve processar na thread do chamador")
+        void testSubmit_WhenDisabled_ShouldRunInline() {
+            // Arrange
+            InboundPipeline pipeline = pipeline(false, 4, 10);
+            String[] thread = new String[1];
+
+            // Act
+            boolean accepted = pipeline.submit("conn-1", () -> thread[0] = Thread.currentThread().getName());
+
+            // Assert
+            assertTrue(accepted);
+            assertEquals(Thread.currentThread().getName(), thread[0]);
+            assertEquals(0, pipeline.queueDepth());
+        }
+    }
+
+    @Nested
+    @DisplayName("Categoria 3: Drenagem")
+    class Draining {
+
+        @Test
+        @DisplayName("awaitIdle deve expirar enquanto uma tarefa está rodando")
+        void testAwaitIdle_WhileTaskRuns_ShouldTimeOut() throws Exception {
+            // Arrange
+            InboundPipeline pipeline = pipeline(true, 1, 10);
+            CountDownLatch release = new CountDownLatch(1);
+            pipeline.submit("conn-1", () -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+
+            // Act + Assert
+            assertFalse(pipeline.awaitIdle(50));
+            release.countDown();
+            assertTrue(pipeline.awaitIdle(5_000));
+        }
+
+        @Test
+        @DisplayName("Depois de fechado, os quadros devem rodar na thread do chamador")
+        void testSubmit_AfterClose_ShouldRunInline() {
+            // Arrange
+            InboundPipeline pipeline = pipeline(true, 2, 10);
+            pipeline.close();
+            String[] thread = new String[1];
+
+            // Act
+            pipeline.submit("conn-1", () -> thread[0] = Thread.currentThread().getName());
+
+            // Assert
+            assertEquals(Thread.currentThread().getName(), thread[0]);
+        }
+    }
+}
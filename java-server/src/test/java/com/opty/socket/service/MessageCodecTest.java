@@ -0,0 +1,386 @@
+package com.opty.socket.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.opty.socket.config.AppConfig;
+import com.opty.socket.model.Message;
+import com.opty.socket.model.MessageType;
+import com.opty.socket.model.payload.ConnectAckPayload;
+import com.opty.socket.model.payload.ErrorPayload;
+import com.opty.socket.model.payload.TextPayload;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes INTRACLASSE para o MessageCodec
+ *
+ * Categorias testadas:
+ * 1. Formato idêntico ao do Jackson (teste de propriedade com mensagens aleatórias)
+ * 2. Timestamps
+ * 3. Fallback para o ObjectWriter
+ * 4. Decodificação
+ * 5. Scan de frames de chat (repasse sem reserializar)
+ */
+@DisplayName("Testes INTRACLASSE - MessageCodec")
+class MessageCodecTest {
+
+    private static final int SAMPLES = 20_000;
+
+    private ObjectMapper objectMapper;
+    private MessageCodec codec;
+
+    /**
+     * Mesma configuração do ObjectMapper do Spring Boot com o application.yml.
+     */
+    static ObjectMapper applicationObjectMapper() {
+        return Jackson2ObjectMapperBuilder.json()
+                .serializationInclusion(JsonInclude.Include.NON_NULL)
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+    }
+
+    @BeforeEach
+    void setUp() {
+        objectMapper = applicationObjectMapper();
+        codec = new MessageCodec(objectMapper);
+    }
+
+    @Nested
+    @DisplayName("Categoria 1: Formato idêntico ao Jackson")
+    class SameWireFormat {
+
+        @Test
+        @DisplayName("Mensagens aleatórias devem gerar exatamente o JSON do Jackson")
+        void testEncode_WithRandomMessages_ShouldMatchJackson() throws Exception {
+            // Arrange - semente fixa para reproduzir falhas
+            Random random = new Random(20_251_018L);
+
+            for (int i = 0; i < SAMPLES; i++) {
+                Message message = randomMessage(random);
+
+                // Act + Assert
+                assertEquals(objectMapper.writeValueAsString(message), codec.encode(message),
+                        "Divergência na amostra " + i);
+            }
+        }
+
+        @Test
+        @DisplayName("Mensagens das fábricas do Message devem gerar o JSON do Jackson")
+        void testEncode_WithFactoryMessages_ShouldMatchJackson() throws Exception {
+            // Arrange
+            List<Message> messages = List.of(
+                    Message.error("s-1", "Not in an active session"),
+                    Message.serverShutdown(null),
+                    Message.connectResponse("5f1c6a6e-3d4b-4a47-9a9e-2c1f0c0f7b11"),
+                    new Message(null, null, null, null, null),
+                    new Message("s-1", "CLIENT", MessageType.DISCONNECT));
+
+            for (Message message : messages) {
+                // Act + Assert
+                assertEquals(objectMapper.writeValueAsString(message), codec.encode(message));
+            }
+        }
+
+        @Test
+        @DisplayName("ObjectMapper que mantém valores nulos no payload deve gerar o JSON do Jackson")
+        void testEncode_WithNullsKept_ShouldMatchJackson() throws Exception {
+            // Arrange - sem default-property-inclusion: non_null
+            ObjectMapper keepsNulls = Jackson2ObjectMapperBuilder.json()
+                    .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                    .build();
+            MessageCodec keepsNullsCodec = new MessageCodec(keepsNulls);
+            Random random = new Random(42L);
+
+            for (int i = 0; i < 1_000; i++) {
+                Message message = randomMessage(random);
+
+                // Act + Assert
+                assertEquals(keepsNulls.writeValueAsString(message), keepsNullsCodec.encode(message));
+            }
+        }
+
+        @Test
+        @DisplayName("Caracteres de controle, aspas e unicode devem ser escapados como no Jackson")
+        void testEncode_WithSpecialCharacters_ShouldMatchJackson() throws Exception {
+            // Arrange
+            StringBuilder text = new StringBuilder("\"\\/ ção 😀 \u007F   ");
+            for (char c = 0; c < 0x20; c++) {
+                text.append(c);
+            }
+            text.append('\uD800');
+            Message message = new Message("s-1", "CLIENT", MessageType.MESSAGE, Map.of("text", text.toString()));
+
+            // Act + Assert
+            assertEquals(objectMapper.writeValueAsString(message), codec.encode(message));
+        }
+    }
+
+    @Nested
+    @DisplayName("Categoria 2: Timestamps")
+    class Timestamps {
+
+        @Test
+        @DisplayName("Timestamps em toda a faixa devem seguir o ISO_INSTANT")
+        void testWriteInstant_AcrossRange_ShouldMatchIsoInstant() {
+            // Arrange
+            Random random = new Random(7L);
+            List<Instant> instants = new ArrayList<>(List.of(
+                    Instant.EPOCH, Instant.MIN, Instant.MAX,
+                    Instant.parse("0000-01-01T00:00:00Z"), Instant.parse("9999-12-31T23:59:59.999999999Z"),
+                    Instant.parse("2000-02-29T12:00:00.100Z"), Instant.parse("1969-12-31T23:59:59.000001Z")));
+            for (int i = 0; i < SAMPLES; i++) {
+                instants.add(randomInstant(random));
+            }
+
+            for (Instant instant : instants) {
+                // Act
+                StringBuilder out = new StringBuilder();
+                MessageCodec.writeInstant(out, instant);
+
+                // Assert
+                assertEquals(instant.toString(), out.toString());
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Categoria 3: Fallback")
+    class Fallback {
+
+        @Test
+        @DisplayName("Tipos não suportados no payload devem usar o ObjectWriter")
+        void testEncode_WithUnsupportedPayload_ShouldMatchJackson() throws Exception {
+            // Arrange
+            Message message = new Message("s-1", "SERVER", MessageType.SESSION_QUEUE_UPDATE,
+                    Map.of("id", UUID.randomUUID(), "at", Instant.now(), "ratio", Double.NaN));
+
+            // Act + Assert
+            assertEquals(objectMapper.writeValueAsString(message), codec.encode(message));
+        }
+
+        @Test
+        @DisplayName("ObjectMapper com outra configuração deve usar o ObjectWriter")
+        void testEncode_WithNumericTimestamps_ShouldMatchJackson() throws Exception {
+            // Arrange
+            ObjectMapper numericDates = Jackson2ObjectMapperBuilder.json()
+                    .featuresToEnable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                    .build();
+            MessageCodec numericCodec = new MessageCodec(numericDates);
+            Message message = new Message("s-1", "CLIENT", MessageType.MESSAGE, Map.of("text", "oi"));
+
+            // Act + Assert
+            assertEquals(numericDates.writeValueAsString(message), numericCodec.encode(message));
+        }
+    }
+
+    @Nested
+    @DisplayName("Categoria 4: Decodificação")
+    class Decoding {
+
+        @Test
+        @DisplayName("Deve decodificar o que codificou")
+        void testDecode_ShouldRoundTrip() throws Exception {
+            // Arrange
+            Message message = new Message("s-1", "CLIENT", MessageType.MESSAGE,
+                    Map.of("text", "olá \"mundo\"", "count", 3), Instant.parse("2025-01-02T03:04:05.678Z"));
+
+            // Act
+            Message decoded = codec.decode(codec.encode(message));
+
+            // Assert
+            assertEquals(message, decoded);
+        }
+    }
+
+    @Nested
+    @DisplayName("Categoria 5: Scan de frames")
+    class Scan {
+
+        @Test
+        @DisplayName("Frames MESSAGE aleatórios devem gerar a mesma Message que o decode")
+        void testScan_WithRandomChatFrames_ShouldMatchDecode() throws Exception {
+            // Arrange
+            Random random = new Random(37L);
+
+            for (int i = 0; i < 2_000; i++) {
+                Message message = new Message(
+                        random.nextInt(10) == 0 ? null : randomString(random),
+                        random.nextInt(10) == 0 ? null : randomString(random),
+                        MessageType.MESSAGE,
+                        random.nextInt(10) == 0 ? null
+                                : new TextPayload(randomString(random), random.nextBoolean() ? null : randomString(random)),
+                        random.nextInt(10) == 0 ? null : randomInstant(random));
+                String json = objectMapper.writeValueAsString(message);
+
+                // Act
+                MessageCodec.Frame frame = codec.scan(json);
+
+                // Assert
+                assertNotNull(frame, "Frame recusado na amostra " + i);
+                assertSame(json, frame.json());
+                assertEquals(codec.decode(json), frame.message(), "Divergência na amostra " + i);
+            }
+        }
+
+        @Test
+        @DisplayName("Frames que não são chat simples devem ir para o decode completo")
+        void testScan_WithOtherFrames_ShouldReturnNull() {
+            // Arrange
+            List<String> frames = List.of(
+                    "{\"type\":\"CONNECT\",\"payload\":{\"sessionId\":\"s-1\"}}",
+                    "{\"type\":\"DISCONNECT\"}",
+                    "{\"sessionId\":\"s-1\",\"payload\":{\"text\":\"oi\"}}",
+                    "{\"type\":null,\"payload\":{\"text\":\"oi\"}}",
+                    "{\"type\":\"MESSAGE\",\"payload\":{\"text\":\"oi\",\"count\":3}}",
+                    "{\"type\":\"MESSAGE\",\"payload\":{\"text\":null}}",
+                    "{\"type\":\"MESSAGE\",\"payload\":null}",
+                    "{\"type\":\"MESSAGE\",\"extra\":1,\"payload\":{\"text\":\"oi\"}}",
+                    "{\"type\":\"MESSAGE\",\"type\":\"MESSAGE\"}",
+                    "{\"type\":\"MESSAGE\",\"timestamp\":1735787045}",
+                    "{\"type\":\"MESSAGE\",\"timestamp\":\"ontem\"}",
+                    "{\"type\":\"MESSAGE\"} {\"type\":\"MESSAGE\"}",
+                    "{\"type\":\"MESSAGE\",\"payload\":{\"text\":\"oi\"}",
+                    "[{\"type\":\"MESSAGE\"}]",
+                    "não é json",
+                    "");
+
+            for (String frame : frames) {
+                // Act + Assert
+                assertNull(codec.scan(frame), frame);
+            }
+        }
+
+        @Test
+        @DisplayName("withSeq() deve acrescentar o seq ao frame como o encode o escreveria")
+        void testWithSeq_ShouldAppendSeqLikeEncode() throws Exception {
+            // Arrange
+            Message message = new Message("s-1", "CLIENT", MessageType.MESSAGE,
+                    new TextPayload("oi", null), Instant.parse("2025-01-02T03:04:05Z"));
+            String json = objectMapper.writeValueAsString(message);
+
+            // Act
+            String numbered = MessageCodec.withSeq(json, 42);
+
+            // Assert
+            assertEquals(codec.encode(message.withSeq(42)), numbered);
+            assertEquals("{\"type\":\"MESSAGE\",\"seq\":7} ", MessageCodec.withSeq("{\"type\":\"MESSAGE\"} ", 7));
+            assertEquals(message.withSeq(42), codec.decode(numbered));
+            assertNull(codec.scan(numbered), "Frame com seq do cliente deve ir para o decode completo");
+        }
+
+        @Test
+        @DisplayName("Frames acima de message.max-size devem ir para o decode completo")
+        void testScan_WithOversizedFrame_ShouldReturnNull() {
+            // Arrange
+            AppConfig appConfig = new AppConfig();
+            appConfig.getMessage().setMaxSize(64);
+            MessageCodec limited = new MessageCodec(objectMapper, appConfig);
+            String small = "{\"type\":\"MESSAGE\",\"payload\":{\"text\":\"oi\"}}";
+            String large = "{\"type\":\"MESSAGE\",\"payload\":{\"text\":\"" + "a".repeat(64) + "\"}}";
+
+            // Act + Assert
+            assertNotNull(limited.scan(small));
+            assertNull(limited.scan(large));
+        }
+    }
+
+    private static Message randomMessage(Random random) {
+        MessageType[] types = MessageType.values();
+        return new Message(
+                random.nextInt(10) == 0 ? null : randomString(random),
+                random.nextInt(10) == 0 ? null : randomString(random),
+                random.nextInt(10) == 0 ? null : types[random.nextInt(types.length)],
+                random.nextInt(10) == 0 ? null : randomPayload(random),
+                random.nextInt(10) == 0 ? null : randomInstant(random),
+                random.nextBoolean() ? null : random.nextLong(1, Long.MAX_VALUE));
+    }
+
+    private static Map<String, Object> randomPayload(Random random) {
+        return switch (random.nextInt(6)) {
+            case 0 -> new TextPayload(randomString(random), random.nextBoolean() ? null : randomString(random));
+            case 1 -> new ErrorPayload(randomString(random));
+            case 2 -> new ConnectAckPayload(randomString(random), random.nextBoolean() ? null : randomString(random),
+                    random.nextBoolean() ? null : random.nextBoolean());
+            default -> randomMap(random, 0);
+        };
+    }
+
+    private static Map<String, Object> randomMap(Random random, int depth) {
+        int size = random.nextInt(depth == 0 ? 6 : 3);
+        Map<String, Object> map = random.nextBoolean() ? new LinkedHashMap<>() : new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            map.put(randomString(random), randomValue(random, depth + 1));
+        }
+        return map;
+    }
+
+    private static Object randomValue(Random random, int depth) {
+        int kind = random.nextInt(depth < 3 ? 12 : 10);
+        return switch (kind) {
+            case 0 -> null;
+            case 1 -> random.nextBoolean();
+            case 2 -> random.nextInt();
+            case 3 -> random.nextLong();
+            case 4 -> random.nextDouble() * Math.pow(10, random.nextInt(40) - 20);
+            case 5 -> Double.longBitsToDouble(random.nextLong() & 0x7FEFFFFFFFFFFFFFL);
+            case 6 -> random.nextFloat() * 1000;
+            case 7 -> (short) random.nextInt();
+            case 8, 9 -> randomString(random);
+            case 10 -> randomMap(random, depth);
+            default -> {
+                List<Object> list = new ArrayList<>();
+                for (int i = random.nextInt(4); i > 0; i--) {
+                    list.add(randomValue(random, depth + 1));
+                }
+                yield list;
+            }
+        };
+    }
+
+    private static String randomString(Random random) {
+        int length = random.nextInt(24);
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            switch (random.nextInt(8)) {
+                case 0 -> text.append((char) random.nextInt(0x20));
+                case 1 -> text.append("\"\\/".charAt(random.nextInt(3)));
+                case 2 -> text.append((char) (0x80 + random.nextInt(0x780)));
+                case 3 -> text.appendCodePoint(0x1F600 + random.nextInt(0x50));
+                case 4 -> text.append((char) random.nextInt(0x10000));
+                default -> text.append((char) (0x20 + random.nextInt(0x5F)));
+            }
+        }
+        return text.toString();
+    }
+
+    private static Instant randomInstant(Random random) {
+        long seconds = switch (random.nextInt(3)) {
+            case 0 -> 1_600_000_000L + random.nextInt(400_000_000);
+            case 1 -> random.nextLong() % 400_000_000_000L;
+            default -> Instant.MIN.getEpochSecond()
+                    + (long) (random.nextDouble() * (Instant.MAX.getEpochSecond() - (double) Instant.MIN.getEpochSecond()));
+        };
+        int nanos = switch (random.nextInt(4)) {
+            case 0 -> 0;
+            case 1 -> random.nextInt(1_000) * 1_000_000;
+            case 2 -> random.nextInt(1_000_000) * 1_000;
+            default -> random.nextInt(1_000_000_000);
+        };
+        return Instant.ofEpochSecond(seconds, nanos);
+    }
+}
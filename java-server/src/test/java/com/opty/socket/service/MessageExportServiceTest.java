@@ -0,0 +1,272 @@
+package com.opty.socket.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.opty.socket.config.AppConfig;
+import com.opty.socket.model.ChatMessageDocument;
+import com.opty.socket.model.Message;
+import com.opty.socket.model.MessageType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Testes INTRACLASSE para o MessageExportService
+ *
+ * Categorias testadas:
+ * 1. Saída NDJSON comprimida e métricas
+ * 2. Consulta e retomada
+ * 3. Limite de exportações simultâneas
+ */
+@DisplayName("Testes INTRACLASSE - MessageExportService")
+class MessageExportServiceTest {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private AppConfig appConfig;
+    private MongoTemplate mongoTemplate;
+    private MessageExportService exportService;
+
+    @BeforeEach
+    void setUp() {
+        appConfig = new AppConfig();
+        appConfig.getStorage().getExport().setFlushEvery(3);
+        appConfig.getStorage().getExport().setMaxConcurrent(1);
+        mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.getCollectionName(ChatMessageDocument.class)).thenReturn("messages");
+        exportService = new MessageExportService(appConfig, mongoTemplate, objectMapper, meterRegistry);
+    }
+
+    private ChatMessageDocument document(int i) {
+        ChatMessageDocument document = new ChatMessageDocument(
+                new Message("s-" + i % 2, "CLIENT", MessageType.MESSAGE, Map.of("text", "mensagem " + i),
+                        Instant.parse("2026-01-01T00:00:00Z").plusSeconds(i)).withSeq((long) i),
+                "WEBSOCKET");
+        document.setId(new ObjectId().toHexString());
+        return document;
+    }
+
+    private List<String> lines(byte[] gzip) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+            String text = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            assertTrue(text.isEmpty() || text.endsWith("\n"), "Toda linha deve terminar com quebra");
+            return text.isEmpty() ? List.of() : List.of(text.split("\n"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Categoria 1: Saída NDJSON comprimida e métricas")
+    class Output {
+
+        @Test
+        @DisplayName("Cada mensagem deve virar uma linha JSON, na ordem do cursor")
+        void testExport_ShouldWriteOneJsonLinePerMessage() throws Exception {
+            // Arrange
+            List<ChatMessageDocument> documents = IntStream.range(0, 7).mapToObj(i -> document(i)).toList();
+            when(mongoTemplate.stream(any(Query.class), eq(ChatMessageDocument.class), eq("messages")))
+                    .thenReturn(documents.stream());
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+            // Act
+            MessageExportService.Result result = exportService.export(
+                    new MessageExportService.Filter(null, null, null, null, null, false), out);
+
+            // Assert
+            List<String> lines = lines(out.toByteArray());
+            assertEquals(7, lines.size());
+            for (int i = 0; i < lines.size(); i++) {
+                JsonNode line = objectMapper.readTree(lines.get(i));
+                assertFalse(lines.get(i).startsWith(" "));
+                assertEquals(documents.get(i).getId(), line.get("id").asText());
+                assertEquals("mensagem " + i, line.get("payload").get("text").asText());
+                assertEquals(i, line.get("sequence").asLong());
+            }
+            assertEquals(7, result.messages());
+            assertEquals(documents.get(6).getId(), result.lastId());
+            assertEquals(out.size(), result.bytes());
+            assertEquals(7, meterRegistry.get("opty.export.messages").counter().count());
+            assertEquals(out.size(), meterRegistry.get("opty.export.bytes").counter().count());
+            assertEquals(1, meterRegistry.get("opty.export.duration").tag("outcome", "completed").timer().count());
+        }
+
+        @Test
+        @DisplayName("Conexão caída deve abortar a exportação e liberar a vaga")
+        void testExport_WhenClientGoesAway_ShouldAbortAndRelease() {
+            // Arrange - cliente some logo depois do cabeçalho gzip
+            ByteArrayOutputStream received = new ByteArrayOutputStream();
+            OutputStream failing = new OutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    write(new byte[] {(byte) b}, 0, 1);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    if (received.size() > 0) {
+                        throw new IOException("Broken pipe");
+                    }
+                    received.write(b, off, len);
+                }
+            };
+            when(mongoTemplate.stream(any(Query.class), eq(ChatMessageDocument.class), anyString()))
+                    .thenReturn(IntStream.range(0, 10_000).mapToObj(i -> document(i)));
+
+            // Act + Assert
+            assertThrows(IOException.class, () -> exportService.export(
+                    new MessageExportService.Filter(null, null, null, null, null, false), failing));
+            assertEquals(1, meterRegistry.get("opty.export.duration").tag("outcome", "aborted").timer().count());
+            assertEquals(0.0, meterRegistry.get("opty.export.active").gauge().value());
+        }
+    }
+
+    @Nested
+    @DisplayName("Categoria 2: Consulta e retomada")
+    class QueryBuilding {
+
+        @Test
+        @DisplayName("Filtros devem virar critérios, com ordem por _id e retomada após o último id")
+        void testQuery_ShouldFilterAndResumeAfterLastId() {
+            // Arrange
+            String after = new ObjectId().toHexString();
+            Instant from = Instant.parse("2026-01-01T00:00:00Z");
+            Instant to = Instant.parse("2026-02-01T00:00:00Z");
+
+            // Act
+            Query query = exportService.query(
+                    new MessageExportService.Filter(from, to, "WEBSOCKET", "s-1", after, false));
+
+            // Assert
+            Document criteria = query.getQueryObject();
+            assertEquals(new Document("$gt", new ObjectId(after)), criteria.get("_id"));
+            assertEquals(new Document("$gte", from).append("$lt", to), criteria.get("timestamp"));
+            assertEquals("WEBSOCKET", criteria.get("channelType"));
+            assertEquals("s-1", criteria.get("sessionId"));
+            assertEquals(new Document("_id", 1), query.getSortObject());
+            assertEquals(1000, query.getMeta().getCursorBatchSize());
+            assertNull(query.getHint(), "Uma sessão usa o índice por sessão");
+            assertEquals("_id_", exportService.query(
+                    new MessageExportService.Filter(from, to, null, null, null, false)).getHint());
+        }
+
+        @Test
+        @DisplayName("Sem sessão, o intervalo de tempo também deve limitar a varredura por _id")
+        void testQuery_WithoutSession_ShouldBoundIdScanByTimeRange() {
+            // Arrange - atraso máximo de inserção de 60 minutos
+            String after = new ObjectId().toHexString();
+            Instant from = Instant.parse("2026-01-01T00:00:00Z");
+            Instant to = Instant.parse("2026-01-01T01:00:00.500Z");
+
+            // Act
+            Query query = exportService.query(
+                    new MessageExportService.Filter(from, to, null, null, after, false));
+
+            // Assert
+            Document id = (Document) query.getQueryObject().get("_id");
+            assertEquals(new ObjectId(after), id.get("$gt"));
+            assertEquals(new ObjectId(Long.toHexString(from.getEpochSecond()) + "0000000000000000"), id.get("$gte"));
+            assertEquals(new ObjectId(Long.toHexString(to.getEpochSecond() + 3601) + "0000000000000000"), id.get("$lt"));
+            assertEquals(new Document("$gte", from).append("$lt", to), query.getQueryObject().get("timestamp"));
+            assertEquals("_id_", query.getHint());
+        }
+
+        @Test
+        @DisplayName("Intervalo vazio ou ponto de retomada inválido deve ser rejeitado antes de ler")
+        void testExport_InvalidFilter_ShouldBeRejected() {
+            // Act + Assert
+            Instant now = Instant.now();
+            assertThrows(IllegalArgumentException.class, () -> exportService.export(
+                    new MessageExportService.Filter(now, now, null, null, null, false), new ByteArrayOutputStream()));
+            assertThrows(IllegalArgumentException.class, () -> exportService.export(
+                    new MessageExportService.Filter(null, null, null, null, "42", false), new ByteArrayOutputStream()));
+            verify(mongoTemplate, never()).stream(any(Query.class), any(), anyString());
+        }
+
+        @Test
+        @DisplayName("Exportação do arquivo deve ler a coleção de arquivo")
+        void testExport_Archive_ShouldReadArchiveCollection() throws Exception {
+            // Arrange
+            when(mongoTemplate.stream(any(Query.class), eq(ChatMessageDocument.class), anyString()))
+                    .thenReturn(Stream.empty());
+
+            // Act
+            MessageExportService.Result result = exportService.export(
+                    new MessageExportService.Filter(null, null, null, null, null, true), new ByteArrayOutputStream());
+
+            // Assert
+            verify(mongoTemplate).stream(any(Query.class), eq(ChatMessageDocument.class),
+                    eq(appConfig.getStorage().getRetention().getArchiveCollection()));
+            assertEquals(0, result.messages());
+            assertNull(result.lastId());
+        }
+    }
+
+    @Nested
+    @DisplayName("Categoria 3: Limite de exportações simultâneas")
+    class Concurrency {
+
+        @Test
+        @DisplayName("Exportação além do limite deve ser recusada sem escrever nada")
+        void testExport_BeyondMaxConcurrent_ShouldBeRejected() throws Exception {
+            // Arrange - a primeira exportação fica presa no cursor
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            when(mongoTemplate.stream(any(Query.class), eq(ChatMessageDocument.class), anyString()))
+                    .thenReturn(Stream.generate(() -> {
+                        started.countDown();
+                        try {
+                            release.await(10, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return document(0);
+                    }).limit(1));
+            MessageExportService.Filter filter = new MessageExportService.Filter(null, null, null, null, null, false);
+            CompletableFuture<MessageExportService.Result> first = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return exportService.export(filter, new ByteArrayOutputStream());
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            // Act + Assert
+            ByteArrayOutputStream rejected = new ByteArrayOutputStream();
+            assertThrows(IllegalStateException.class, () -> exportService.export(filter, rejected));
+            assertEquals(0, rejected.size());
+            assertEquals(1.0, meterRegistry.get("opty.export.active").gauge().value());
+
+            release.countDown();
+            assertEquals(1, first.get(5, TimeUnit.SECONDS).messages());
+            assertEquals(0.0, meterRegistry.get("opty.export.active").gauge().value());
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.opty.socket.service;
+
+import com.mongodb.MongoCommandException;
+import com.mongodb.ServerAddress;
+import com.opty.socket.config.AppConfig;
+import com.opty.socket.model.ChatMessageDocument;
+import com.opty.socket.model.Message;
+import com.opty.socket.model.MessageType;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.UncategorizedMongoDbException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Testes INTRACLASSE para o MessageRetentionService
+ *
+ * Categorias testadas:
+ * 1. Índices de leitura e TTL
+ * 2. Compactação de sessões ociosas
+ */
+@DisplayName("Testes INTRACLASSE - MessageRetentionService")
+class MessageRetentionServiceTest {
+
+    private AppConfig appConfig;
+    private MongoTemplate mongoTemplate;
+    private IndexOperations hotIndexes;
+    private IndexOperations archiveIndexes;
+    private MessageRetentionService retentionService;
+
+    @BeforeEach
+    void setUp() {
+        appConfig = new AppConfig();
+        appConfig.getStorage().getRetention().setHotDays(7);
+        appConfig.getStorage().getRetention().setTtlDays(90);
+        appConfig.getStorage().getRetention().setCompactionBatchSize(2);
+        mongoTemplate = mock(MongoTemplate.class);
+        hotIndexes = mock(IndexOperations.class);
+        archiveIndexes = mock(IndexOperations.class);
+        when(mongoTemplate.getCollectionName(ChatMessageDocument.class)).thenReturn("messages");
+        when(mongoTemplate.indexOps("messages")).thenReturn(hotIndexes);
+        when(mongoTemplate.indexOps("messages_archive")).thenReturn(archiveIndexes);
+        retentionService = new MessageRetentionService(appConfig, mongoTemplate, mock(TaskScheduler.class));
+    }
+
+    private ChatMessageDocument document(String sessionId, Instant timestamp) {
+        ChatMessageDocument document = new ChatMessageDocument(
+                new Message(sessionId, "CLIENT", MessageType.MESSAGE, Map.of("text", "oi"), timestamp), "WEBSOCKET");
+        document.setId(new ObjectId().toHexString());
+        return document;
+    }
+
+    private List<String> indexNames(IndexOperations indexOps) {
+        ArgumentCaptor<IndexDefinition> indexes = ArgumentCaptor.forClass(IndexDefinition.class);
+        verify(indexOps, atLeastOnce()).ensureIndex(indexes.capture());
+        return indexes.getAllValues().stream()
+                .map(index -> index.getIndexOptions().getString("name"))
+                .toList();
+    }
+
+    @Nested
+    @DisplayName("Categoria 1: Índices de leitura e TTL")
+    class Indexes {
+
+        @Test
+        @DisplayName("Índices de sessão e TTL devem ser criados nas duas coleções")
+        void testEnsureIndexes_ShouldCreateIndexesOnBothCollections() {
+            // Act
+            boolean ready = retentionService.ensureIndexes();
+
+            // Assert
+            assertTrue(ready);
+            assertEquals(List.of("sessionId_timestamp", "sessionId_sequence", "timestamp_ttl"), indexNames(hotIndexes));
+            assertEquals(List.of("sessionId_timestamp", "sessionId_sequence", "timestamp_ttl"), indexNames(archiveIndexes));
+        }
+
+        @Test
+        @DisplayName("TTL alterado deve ser atualizado com collMod em vez de falhar")
+        void testEnsureIndexes_WhenTtlChanged_ShouldUpdateInPlace() {
+            // Arrange - o MongoDB recusa recriar o índice com outro expireAfterSeconds
+            MongoCommandException conflict = new MongoCommandException(
+                    new BsonDocument("code", new BsonInt32(85)).append("errmsg", new BsonString("IndexOptionsConflict")),
+                    new ServerAddress());
+            when(hotIndexes.ensureIndex(any())).thenAnswer(invocation -> {
+                IndexDefinition index = invocation.getArgument(0);
+                if ("timestamp_ttl".equals(index.getIndexOptions().getString("name"))) {
+                    throw new UncategorizedMongoDbException("conflict", conflict);
+                }
+                return "ok";
+            });
+
+            // Act
+            boolean ready = retentionService.ensureIndexes();
+
+            // Assert
+            assertTrue(ready);
+            verify(mongoTemplate).executeCommand(new Document("collMod", "messages")
+                    .append("index", new Document("name", "timestamp_ttl")
+                            .append("expireAfterSeconds", Duration.ofDays(90).getSeconds())));
+        }
+    }
+
+    @Nested
+    @DisplayName("Categoria 2: Compactação de sessões ociosas")
+    class Compaction {
+
+        @Test
+        @DisplayName("Sessões ociosas devem ser achadas numa única agregação, das mais antigas para as mais novas")
+        void testCompact_ShouldFindIdleSessionsInOneAggregation() {
+            // Arrange
+            when(mongoTemplate.aggregate(any(Aggregation.class), eq(ChatMessageDocument.class), eq(Document.class)))
+                    .thenReturn(new AggregationResults<>(List.of(), new Document()));
+
+            // Act
+            int moved = retentionService.compact();
+
+            // Assert
+            ArgumentCaptor<Aggregation> captor = ArgumentCaptor.forClass(Aggregation.class);
+            verify(mongoTemplate).aggregate(captor.capture(), eq(ChatMessageDocument.class), eq(Document.class));
+            List<Document> pipeline = captor.getValue().toPipeline(Aggregation.DEFAULT_CONTEXT);
+            assertEquals(new Document("sessionId", 1).append("timestamp", -1), pipeline.get(0).get("$sort"));
+            assertEquals(new Document("_id", "$sessionId").append("lastTimestamp", new Document("$first", "$timestamp")),
+                    pipeline.get(1).get("$group"));
+            Document lastTimestamp = (Document) ((Document) pipeline.get(2).get("$match")).get("lastTimestamp");
+            Instant cutoff = ((Instant) lastTimestamp.get("$lt"));
+            assertTrue(Duration.between(cutoff, Instant.now().minus(Duration.ofDays(7))).abs().getSeconds() < 5);
+            assertEquals(new Document("lastTimestamp", 1), pipeline.get(3).get("$sort"));
+            assertEquals(2L, ((Number) pipeline.get(4).get("$limit")).longValue());
+            assertTrue(captor.getValue().getOptions().isAllowDiskUse());
+            verify(mongoTemplate, never()).exists(any(Query.class), any(Class.class));
+            assertEquals(0, moved);
+        }
+
+        @Test
+        @DisplayName("Transcrição ociosa deve ir para o arquivo e sair da coleção principal")
+        void testCompact_IdleSession_ShouldMoveToArchive() {
+            // Arrange
+            Instant old = Instant.now().minus(Duration.ofDays(30));
+            List<ChatMessageDocument> transcript = List.of(document("s-1", old), document("s-1", old.plusSeconds(1)));
+            when(mongoTemplate.aggregate(any(Aggregation.class), eq(ChatMessageDocument.class), eq(Document.class)))
+                    .thenReturn(new AggregationResults<>(
+                            List.of(new Document("_id", "s-1").append("lastTimestamp", Date.from(old))), new Document()));
+            when(mongoTemplate.find(any(Query.class), eq(ChatMessageDocument.class))).thenReturn(transcript);
+            BulkOperations bulk = mock(BulkOperations.class);
+            when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, "messages_archive")).thenReturn(bulk);
+
+            // Act
+            int moved = retentionService.compact();
+
+            // Assert
+            assertEquals(1, moved);
+            verify(bulk, times(2)).replaceOne(any(Query.class), any(ChatMessageDocument.class),
+                    any(FindAndReplaceOptions.class));
+            verify(bulk).execute();
+            ArgumentCaptor<Query> removed = ArgumentCaptor.forClass(Query.class);
+            verify(mongoTemplate).remove(removed.capture(), eq(ChatMessageDocument.class));
+            assertEquals(new Document("$in", transcript.stream().map(ChatMessageDocument::getId).toList()),
+                    removed.getValue().getQueryObject().get("_id"));
+        }
+
+        @Test
+        @DisplayName("Sem armazenamento por documento no MongoDB, a compactação não deve fazer nada")
+        void testCompact_WhenNotMongoDocumentStore_ShouldDoNothing() {
+            // Arrange
+            appConfig.getStorage().setMode(AppConfig.StorageMode.BUCKET);
+
+            // Act
+            int moved = retentionService.compact();
+
+            // Assert
+            assertEquals(0, moved);
+            verify(mongoTemplate, never()).aggregate(any(Aggregation.class), any(Class.class), any(Class.class));
+            verify(mongoTemplate, never()).indexOps(anyString());
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.opty.socket.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes INTRACLASSE para o ParallelDrain
+ *
+ * Categorias testadas:
+ * 1. Notificação em paralelo
+ * 2. Timeout por conexão e prazo total
+ */
+@DisplayName("Testes INTRACLASSE - ParallelDrain")
+class ParallelDrainTest {
+
+    private static long deadlineIn(long millis) {
+        return System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    @Nested
+    @DisplayName("Categoria 1: Paralelismo")
+    class Parallelism {
+
+        @Test
+        @DisplayName("Conexões lentas devem ser notificadas em paralelo")
+        void testRun_WithSlowTargets_ShouldNotifyInParallel() {
+            // Arrange - 20 conexões de 200ms cada (4s se fosse sequencial)
+            List<Integer> targets = IntStream.range(0, 20).boxed().toList();
+
+            // Act
+            ParallelDrain.Result result = ParallelDrain.run("teste", targets,
+                    target -> sleep(200), target -> { },
+                    20, 1_000, deadlineIn(5_000));
+
+            // Assert
+            assertEquals(20, result.completed());
+            assertTrue(result.elapsedMillis() < 2_000, "Deveria levar ~200ms, levou " + result.elapsedMillis());
+        }
+
+        @Test
+        @DisplayName("Lista vazia deve retornar imediatamente")
+        void testRun_WithNoTargets_ShouldReturnEmptyResult() {
+            // Act
+            ParallelDrain.Result result = ParallelDrain.run("teste", List.of(), target -> { }, target -> { },
+                    4, 1_000, deadlineIn(1_000));
+
+            // Assert
+            assertEquals(0, result.total());
+        }
+    }
+
+    @Nested
+    @DisplayName("Categoria 2: Timeouts")
+    class Timeouts {
+
+        @Test
+        @DisplayName("Conexão travada deve ser fechada à força sem segurar as outras")
+        void testRun_WithHungTarget_ShouldForceCloseIt() {
+            // Arrange - o alvo 0 só destrava quando for fechado à força
+            CountDownLatch closed = new CountDownLatch(1);
+            Set<Integer> forceClosed = ConcurrentHashMap.newKeySet();
+
+            // Act
+            ParallelDrain.Result result = ParallelDrain.run("teste", List.of(0, 1, 2, 3),
+                    target -> {
+                        if (target == 0) {
+                            await(closed);
+                            throw new IllegalStateException("socket fechado");
+                        }
+                    },
+                    target -> {
+                        forceClosed.add(target);
+                        closed.countDown();
+                    },
+                    4, 200, deadlineIn(5_000));
+
+            // Assert
+            assertEquals(Set.of(0), forceClosed);
+            assertEquals(3, result.completed());
+            assertEquals(1, result.timedOut());
+            assertTrue(result.elapsedMillis() < 2_000);
+        }
+
+        @Test
+        @DisplayName("Prazo total deve ser respeitado mesmo com conexões que nunca terminam")
+        void testRun_WhenDeadlinePasses_ShouldReturn() {
+            // Arrange - notificação que ignora o fechamento
+            CountDownLatch never = new CountDownLatch(1);
+
+            // Act
+            long start = System.nanoTime();
+            ParallelDrain.Result result = ParallelDrain.run("teste", List.of(0, 1), target -> await(never),
+                    target -> { }, 2, 10_000, deadlineIn(300));
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+            // Assert
+            assertEquals(0, result.completed());
+            assertTrue(elapsedMillis < 2_000, "Deveria respeitar o prazo, levou " + elapsedMillis);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package com.opty.socket.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.opty.socket.config.AppConfig;
+import com.opty.socket.model.ChatMessageDocument;
+import com.opty.socket.model.ConnectionInfo;
+import com.opty.socket.model.Message;
+import com.opty.socket.model.MessageType;
+import com.opty.socket.model.Session;
+import com.opty.socket.storage.InMemoryMessageStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Testes INTRACLASSE para o SessionJournal
+ *
+ * Categorias testadas:
+ * 1. Recuperação de sessões após reinício (journal e snapshot)
+ * 2. Retomada de sessão pelo cliente (resume token)
+ */
+@DisplayName("Testes INTRACLASSE - SessionJournal")
+class SessionJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private AppConfig appConfig;
+
+    @BeforeEach
+    void setUp() {
+        appConfig = new AppConfig();
+        appConfig.getSession().getJournal().setDirectory(directory.toString());
+    }
+
+    private static WebSocketSession openSession() {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.isOpen()).thenReturn(true);
+        return session;
+    }
+
+    /**
+     * Cria uma sessão com cliente e supervisor conectados e pareados.
+     */
+    private static String pair(SessionManager sessionManager, String client, String supervisor) {
+        sessionManager.registerConnection(new ConnectionInfo(client, openSession(), null, "CLIENT", null));
+        String sessionId = sessionManager.createSession(client).sessionId();
+        sessionManager.registerConnection(new ConnectionInfo(supervisor, openSession(), null, "SUPERVISOR", sessionId));
+        sessionManager.pairSupervisor(sessionId, supervisor);
+        return sessionId;
+    }
+
+    private static void route(SessionManager sessionManager, MessageStorageService storage, String sender,
+                              String sessionId, int count) {
+        MessageRouter router = new MessageRouter(sessionManager, new ObjectMapper().findAndRegisterModules(), storage);
+        for (int i = 0; i < count; i++) {
+            assertTrue(router.routeMessage(sender,
+                    new Message(sessionId, "CLIENT", MessageType.MESSAGE, Map.of("text", "oi"), Instant.now())));
+        }
+    }
+
+    /**
+     * Simula um processo: SessionManager novo com o journal recuperado.
+     */
+    private SessionJournal start(SessionManager sessionManager) {
+        SessionJournal journal = new SessionJournal(appConfig, sessionManager);
+        journal.recover();
+        return journal;
+    }
+
+    @Nested
+    @DisplayName("Categoria 1: Recuperação")
+    class Recovery {
+
+        @Test
+        @DisplayName("Sessões ativas devem ser restauradas desanexadas, na ordem da fila")
+        void testRecover_ShouldRestoreLiveSessionsDetachedInQueueOrder() throws Exception {
+            // Arrange
+            SessionManager before = new SessionManager(appConfig);
+            start(before);
+            Session first = before.createSession("client-1");
+            Thread.sleep(2);
+            Session second = before.createSession("client-2");
+            Session removed = before.createSession("client-3");
+            before.pairSupervisor(second.sessionId(), "supervisor-1");
+            before.removeSession(removed.sessionId());
+
+            // Act - queda sem snapshot final
+            SessionManager after = new SessionManager(appConfig);
+            start(after);
+
+            // Assert
+            List<Session> restored = after.getAllSessions();
+            assertEquals(2, restored.size(), "Sessão removida não deve voltar");
+            assertTrue(restored.stream().allMatch(Session::isDetached));
+            assertTrue(restored.stream().noneMatch(Session::isPaired));
+            assertTrue(after.getSession(removed.sessionId()).isEmpty());
+            assertTrue(after.getUnpairedSessions().isEmpty(), "Desanexadas não aparecem na fila");
+            assertEquals(first.createdAt().truncatedTo(ChronoUnit.MILLIS),
+                    after.getSession(first.sessionId()).orElseThrow().createdAt());
+        }
+
+        @Test
+        @DisplayName("Snapshot + journal devem reconstruir o estado; journal é truncado")
+        void testSnapshot_ThenMoreEvents_ShouldCombineOnRecovery() {
+            // Arrange
+            SessionManager before = new SessionManager(appConfig);
+            SessionJournal journal = start(before);
+            Session kept = before.createSession("client-1");
+            Session removedLater = before.createSession("client-2");
+            journal.snapshot();
+            assertEquals(0, directory.resolve(SessionJournal.JOURNAL_FILE).toFile().length());
+
+            // Act
+            before.removeSession(removedLater.sessionId());
+            Session createdLater = before.createSession("client-3");
+            SessionManager after = new SessionManager(appConfig);
+            start(after);
+
+            // Assert
+            assertTrue(after.getSession(kept.sessionId()).isPresent());
+            assertTrue(after.getSession(createdLater.sessionId()).isPresent());
+            assertTrue(after.getSession(removedLater.sessionId()).isEmpty());
+        }
+
+        @Test
+        @DisplayName("Registro corrompido no fim do journal deve ser descartado")
+        void testRecover_WithTornTail_ShouldIgnoreCorruptedRecord() throws Exception {
+            // Arrange
+            SessionManager before = new SessionManager(appConfig);
+            start(before);
+            Session session = before.createSession("client-1");
+            try (RandomAccessFile file = new RandomAccessFile(
+                    directory.resolve(SessionJournal.JOURNAL_FILE).toFile(), "rw")) {
+                file.seek(file.length());
+                file.writeInt(40);
+                file.writeInt(12345);
+                file.write(new byte[10]);
+            }
+
+            // Act
+            SessionManager after = new SessionManager(appConfig);
+            SessionJournal journal = start(after);
+            Session created = after.createSession("client-2");
+            journal.close();
+            SessionManager third = new SessionManager(appConfig);
+            start(third);
+
+            // Assert
+            assertTrue(third.getSession(session.sessionId()).isPresent());
+            assertTrue(third.getSession(created.sessionId()).isPresent(), "Journal deve continuar após o truncamento");
+        }
+
+        @Test
+        @DisplayName("Encerramento gracioso não deve registrar remoções das conexões fechadas")
+        void testClose_ThenRemovals_ShouldNotBeJournaled() {
+            // Arrange
+            SessionManager before = new SessionManager(appConfig);
+            SessionJournal journal = start(before);
+            Session session = before.createSession("client-1");
+
+            // Act - journal selado antes do servidor fechar as conexões
+            journal.close();
+            before.removeSessionByConnectionId("client-1");
+            SessionManager after = new SessionManager(appConfig);
+            start(after);
+
+            // Assert
+            assertTrue(after.getSession(session.sessionId()).isPresent());
+        }
+    }
+
+    @Nested
+    @DisplayName("Categoria 2: Retomada de Sessão")
+    class Resume {
+
+        @Test
+        @DisplayName("resumeSession() deve anexar o novo cliente e voltar à fila no lugar original")
+        void testResumeSession_ShouldAttachClientAndKeepQueuePosition() throws Exception {
+            // Arrange
+            SessionManager before = new SessionManager(appConfig);
+            start(before);
+            Session older = before.createSession("client-1");
+            Thread.sleep(2);
+            SessionManager after = new SessionManager(appConfig);
+            start(after);
+            Session newer = after.createSession("client-novo");
+
+            // Act
+            Session resumed = after.resumeSession(older.sessionId(), "client-1b").orElseThrow();
+
+            // Assert
+            assertEquals("client-1b", resumed.clientConnectionId());
+            assertEquals(older.sessionId(), after.getSessionByConnectionId("client-1b").orElseThrow().sessionId());
+            List<Session> queue = after.getUnpairedSessions();
+            assertEquals(older.sessionId(), queue.get(0).sessionId(), "Sessão retomada mantém a posição");
+            assertEquals(newer.sessionId(), queue.get(1).sessionId());
+        }
+
+        @Test
+        @DisplayName("Sessão retomada deve continuar a numeração depois das mensagens já gravadas")
+        void testResumeSession_ThenRoute_ShouldContinueSequence() throws Exception {
+            // Arrange - três mensagens numeradas e gravadas antes do reinício
+            MessageStorageService storage = new MessageStorageService(new InMemoryMessageStore(1_000));
+            SessionManager before = new SessionManager(appConfig);
+            start(before);
+            String sessionId = pair(before, "client-1", "supervisor-1");
+            route(before, storage, "client-1", sessionId, 3);
+
+            // Act - reinício, retomada pelo cliente e novo supervisor
+            SessionManager after = new SessionManager(appConfig);
+            start(after);
+            after.resumeSession(sessionId, "client-1b", () -> storage.getLastSequence(sessionId)).orElseThrow();
+            after.registerConnection(new ConnectionInfo("client-1b", openSession(), null, "CLIENT", sessionId));
+            after.registerConnection(new ConnectionInfo("supervisor-2", openSession(), null, "SUPERVISOR", sessionId));
+            after.pairSupervisor(sessionId, "supervisor-2");
+            route(after, storage, "client-1b", sessionId, 2);
+
+            // Assert - sem números repetidos nem buracos
+            assertEquals(List.of(1L, 2L, 3L, 4L, 5L), storage.getTranscript(sessionId).stream()
+                    .map(ChatMessageDocument::getSequence).toList());
+            assertTrue(storage.findSequenceGaps(sessionId).isEmpty());
+        }
+
+        @Test
+        @DisplayName("resumeSession() não deve assumir sessões com cliente conectado")
+        void testResumeSession_WhenAttached_ShouldFail() {
+            // Arrange
+            SessionManager sessionManager = new SessionManager(appConfig);
+            start(sessionManager);
+            Session session = sessionManager.createSession("client-1");
+
+            // Act + Assert
+            assertTrue(sessionManager.resumeSession(session.sessionId(), "intruso").isEmpty());
+            assertTrue(sessionManager.resumeSession("inexistente", "client-2").isEmpty());
+        }
+
+        @Test
+        @DisplayName("Sessões não retomadas dentro da janela devem ser removidas")
+        void testRemoveDetachedSessions_ShouldDropAbandonedSessions() {
+            // Arrange
+            SessionManager before = new SessionManager(appConfig);
+            start(before);
+            before.createSession("client-1");
+            SessionManager after = new SessionManager(appConfig);
+            start(after);
+
+            // Act
+            int removed = after.removeDetachedSessions(Duration.ofSeconds(-1));
+
+            // Assert
+            assertEquals(1, removed);
+            assertEquals(0, after.getActiveSessionCount());
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.opty.socket.service;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.opty.socket.config.AppConfig;
+import com.opty.socket.model.ConnectionInfo;
+import org.openjdk.jcstress.annotations.Actor;
+import org.openjdk.jcstress.annotations.Arbiter;
+import org.openjdk.jcstress.annotations.Description;
+import org.openjdk.jcstress.annotations.JCStressTest;
+import org.openjdk.jcstress.annotations.Outcome;
+import org.openjdk.jcstress.annotations.State;
+import org.openjdk.jcstress.infra.results.ZZ_Result;
+import org.slf4j.LoggerFactory;
+
+import static org.openjdk.jcstress.annotations.Expect.ACCEPTABLE;
+
+/**
+ * Testes de estresse (jcstress) das transições de sessão do SessionManager.
+ *
+ * Cada teste corre duas operações concorrentes e o árbitro confere, depois de tudo,
+ * que os índices concordam (SessionManager#findInconsistency) e que remover as
+ * conexões restantes não deixa entradas órfãs. Qualquer resultado fora dos listados
+ * é proibido. Executados pelo SessionManagerStressTest (mvn test -Pjcstress).
+ *
+ * Os textos das anotações ficam em ASCII: a lista de testes do jcstress não aceita acentos.
+ */
+public final class SessionManagerStress {
+
+    static {
+        // O log INFO de cada sessão criada afogaria a saída dos forks
+        ((Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+    }
+
+    private SessionManagerStress() {
+    }
+
+    /**
+     * Sessão de um cliente registrado, com um supervisor registrado e ainda não pareado.
+     */
+    static class WaitingSession {
+        final SessionManager manager = new SessionManager(new AppConfig());
+        final String sessionId;
+
+        WaitingSession() {
+            manager.registerConnection(connection("client", "CLIENT"));
+            manager.registerConnection(connection("supervisor", "SUPERVISOR"));
+            sessionId = manager.createSession("client").sessionId();
+        }
+
+        /**
+         * Confere os índices, remove o que sobrou e confere de novo que nada ficou para trás.
+         */
+        boolean consistentAfterCleanup(String... connectionIds) {
+            boolean consistent = manager.findInconsistency() == null;
+            manager.removeSession(sessionId);
+            for (String connectionId : connectionIds) {
+                manager.removeConnection(connectionId);
+            }
+            return consistent && manager.findInconsistency() == null
+                    && manager.getActiveSessionCount() == 0 && manager.getActiveConnectionCount() == 0;
+        }
+    }
+
+    static ConnectionInfo connection(String connectionId, String type) {
+        return new ConnectionInfo(connectionId, null, null, type, null);
+    }
+
+    @JCStressTest
+    @Description("Pair while the session is removed")
+    @Outcome(id = "true, true", expect = ACCEPTABLE, desc = "Paired before removal")
+    @Outcome(id = "false, true", expect = ACCEPTABLE, desc = "Session already removed")
+    @State
+    public static class PairVersusRemoveSession extends WaitingSession {
+
+        @Actor
+        public void pair(ZZ_Result r) {
+            r.r1 = manager.pairSupervisor(sessionId, "supervisor").isPresent();
+        }
+
+        @Actor
+        public void remove() {
+            manager.removeSession(sessionId);
+        }
+
+        @Arbiter
+        public void check(ZZ_Result r) {
+            r.r2 = consistentAfterCleanup("client", "supervisor");
+        }
+    }
+
+    @JCStressTest
+    @Description("Pair while the supervisor connection drops")
+    @Outcome(id = "true, true", expect = ACCEPTABLE, desc = "Paired; client link follows the connection")
+    @Outcome(id = "false, true", expect = ACCEPTABLE, desc = "Not paired")
+    @State
+    public static class PairVersusSupervisorDisconnect extends WaitingSession {
+
+        @Actor
+        public void pair(ZZ_Result r) {
+            r.r1 = manager.pairSupervisor(sessionId, "supervisor").isPresent();
+        }
+
+        @Actor
+        public void disconnect() {
+            manager.removeConnection("supervisor");
+        }
+
+        @Arbiter
+        public void check(ZZ_Result r) {
+            // O supervisor caiu: o cliente nunca pode ficar com link para ele
+            boolean noStaleLink = manager.getPeerLink("client") == null;
+            r.r2 = noStaleLink && consistentAfterCleanup("client");
+        }
+    }
+
+    @JCStressTest
+    @Description("Two supervisors race for the same session")
+    @Outcome(id = "true, true", expect = ACCEPTABLE, desc = "First supervisor won")
+    @Outcome(id = "false, true", expect = ACCEPTABLE, desc = "Second supervisor won")
+    @State
+    public static class TwoSupervisorsPair extends WaitingSession {
+
+        TwoSupervisorsPair() {
+            manager.registerConnection(connection("supervisor-2", "SUPERVISOR"));
+        }
+
+        @Actor
+        public void first() {
+            manager.pairSupervisor(sessionId, "supervisor");
+        }
+
+        @Actor
+        public void second() {
+            manager.pairSupervisor(sessionId, "supervisor-2");
+        }
+
+        @Arbiter
+        public void check(ZZ_Result r) {
+            // Só o vencedor fica ligado à sessão
+            boolean firstMapped = manager.getSessionByConnectionId("supervisor").isPresent();
+            boolean secondMapped = manager.getSessionByConnectionId("supervisor-2").isPresent();
+            r.r1 = firstMapped;
+            r.r2 = firstMapped != secondMapped && consistentAfterCleanup("client", "supervisor", "supervisor-2");
+        }
+    }
+
+    @JCStressTest
+    @Description("Unpair while the session is removed")
+    @Outcome(id = "true, true", expect = ACCEPTABLE, desc = "Unpaired before removal")
+    @Outcome(id = "false, true", expect = ACCEPTABLE, desc = "Session already removed")
+    @State
+    public static class UnpairVersusRemoveSession extends WaitingSession {
+
+        UnpairVersusRemoveSession() {
+            manager.pairSupervisor(sessionId, "supervisor");
+        }
+
+        @Actor
+        public void unpair(ZZ_Result r) {
+            r.r1 = manager.unpairSupervisor(sessionId).isPresent();
+        }
+
+        @Actor
+        public void remove() {
+            manager.removeSession(sessionId);
+        }
+
+        @Arbiter
+        public void check(ZZ_Result r) {
+            r.r2 = consistentAfterCleanup("client", "supervisor");
+        }
+    }
+
+    @JCStressTest
+    @Description("Create a session while the client connection drops")
+    @Outcome(id = "true, true", expect = ACCEPTABLE, desc = "Connection dropped after creation")
+    @Outcome(id = "false, true", expect = ACCEPTABLE, desc = "Session created for a client already gone")
+    @State
+    public static class CreateVersusClientDisconnect {
+        final SessionManager manager = new SessionManager(new AppConfig());
+        volatile String sessionId;
+        volatile boolean removedLinked;
+
+        CreateVersusClientDisconnect() {
+            manager.registerConnection(connection("client", "CLIENT"));
+        }
+
+        @Actor
+        public void create() {
+            sessionId = manager.createSession("client").sessionId();
+        }
+
+        @Actor
+        public void disconnect() {
+            removedLinked = manager.getSessionByConnectionId("client").isPresent();
+            manager.removeConnection("client");
+        }
+
+        @Arbiter
+        public void check(ZZ_Result r) {
+            r.r1 = removedLinked;
+            boolean consistent = manager.findInconsistency() == null;
+            manager.removeSession(sessionId);
+            r.r2 = consistent && manager.findInconsistency() == null
+                    && manager.getActiveSessionCount() == 0 && manager.getActiveConnectionCount() == 0;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.opty.socket.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jcstress.JCStress;
+import org.openjdk.jcstress.Options;
+import org.openjdk.jcstress.infra.Status;
+import org.openjdk.jcstress.infra.collectors.DiskReadCollector;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Executa os testes jcstress do SessionManagerStress e falha se algum resultado
+ * proibido aparecer. Executar com:
+ *
+ *   mvn test -Pjcstress [-Dopty.jcstress.mode=tough]
+ *
+ * O relatório HTML fica em target/jcstress.
+ */
+@Tag("jcstress")
+@DisplayName("Estresse - transições de sessão do SessionManager (jcstress)")
+class SessionManagerStressTest {
+
+    @Test
+    @DisplayName("Nenhuma transição concorrente deve deixar entradas órfãs")
+    void runJcstress() throws Exception {
+        // Arrange - cada teste tem dois atores, um por CPU
+        assumeTrue(Runtime.getRuntime().availableProcessors() >= 2, "jcstress precisa de pelo menos 2 CPUs");
+        String mode = System.getProperty("opty.jcstress.mode", "quick");
+        Options options = new Options(new String[] {
+                "-t", SessionManagerStress.class.getName(),
+                "-m", mode,
+                "-r", "target/jcstress",
+        });
+        assertTrue(options.parse());
+
+        // Act
+        new JCStress(options).run();
+
+        // Assert
+        List<String> failures = new ArrayList<>();
+        int[] tests = new int[1];
+        DiskReadCollector results = new DiskReadCollector(options.getResultFile(), result -> {
+            tests[0]++;
+            if (result.status() != Status.NORMAL || !result.grading().isPassed) {
+                failures.add(result.getName() + ": " + result.status() + " " + result.grading().failureMessages
+                        + " " + result.getMessages());
+            }
+        });
+        results.dump();
+        results.close();
+        Files.deleteIfExists(Path.of(options.getResultFile()));
+
+        assertTrue(tests[0] > 0, "Nenhum teste jcstress executado");
+        assertEquals(List.of(), failures);
+    }
+}
@@ -18,6 +18,7 @@ import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -280,6 +281,105 @@ class SessionServiceIntegrationTest {
             assertFalse(sessionManager.getSession(sessionId).isPresent(),
                 "Sessão deve ter sido removida");
         }
+
+        @Test
+        @DisplayName("Frame de chat escaneado deve chegar ao supervisor como foi enviado, só com o número de sequência")
+        void testRouteFrame_ToWebSocketSupervisor_ShouldForwardRawJson() throws Exception {
+            // Arrange - sessão pareada
+            String clientConnectionId = "client-frame-1";
+            String supervisorConnectionId = "supervisor-frame-1";
+            sessionManager.registerConnection(new ConnectionInfo(
+                clientConnectionId, mockClientWebSocketSession, null, "CLIENT", null));
+            String sessionId = sessionManager.createSession(clientConnectionId).sessionId();
+            sessionManager.registerConnection(new ConnectionInfo(
+                supervisorConnectionId, mockSupervisorWebSocketSession, null, "SUPERVISOR", sessionId));
+            sessionManager.pairSupervisor(sessionId, supervisorConnectionId);
+
+            // Espaços e milissegundos zerados que o ObjectMapper descartaria ao recodificar
+            String json = "{ \"sessionId\": \"" + sessionId + "\", \"from\": \"CLIENT\", \"type\": \"MESSAGE\","
+                + " \"payload\": {\"text\": \"Preciso de ajuda\"}, \"timestamp\": \"2025-01-02T03:04:05.000Z\" }";
+            MessageCodec.Frame frame = new MessageCodec(objectMapper).scan(json);
+            assertNotNull(frame, "Setup: frame simples deve ser aceito pelo scan");
+
+            // Act
+            boolean routed = messageRouter.routeFrame(clientConnectionId, frame);
+
+            // Assert - mesmo texto, sem reserializar, com o seq no fim
+            assertTrue(routed, "Frame deve ser roteado com sucesso");
+            ArgumentCaptor<TextMessage> captor = ArgumentCaptor.forClass(TextMessage.class);
+            verify(mockSupervisorWebSocketSession, times(1)).sendMessage(captor.capture());
+            assertEquals(json.replace(".000Z\" }", ".000Z\",\"seq\":1}"), captor.getValue().getPayload());
+
+            // Assert - persistência recebe a mensagem com os campos extraídos e o seq
+            verify(messageStorageService, times(1)).saveMessage(eq(frame.message().withSeq(1)), eq("WEBSOCKET"));
+            assertEquals("Preciso de ajuda", frame.message().payload().get("text"));
+        }
+
+        @Test
+        @DisplayName("Mensagens nos dois sentidos devem receber números de sequência da sessão, em ordem")
+        void testRouteFrame_BothDirections_ShouldNumberPerSession() throws Exception {
+            // Arrange - sessão pareada
+            String clientConnectionId = "client-seq-1";
+            String supervisorConnectionId = "supervisor-seq-1";
+            sessionManager.registerConnection(new ConnectionInfo(
+                clientConnectionId, mockClientWebSocketSession, null, "CLIENT", null));
+            String sessionId = sessionManager.createSession(clientConnectionId).sessionId();
+            sessionManager.registerConnection(new ConnectionInfo(
+                supervisorConnectionId, mockSupervisorWebSocketSession, null, "SUPERVISOR", sessionId));
+            sessionManager.pairSupervisor(sessionId, supervisorConnectionId);
+            MessageCodec codec = new MessageCodec(objectMapper);
+
+            // Act - cliente, supervisor, cliente
+            for (String sender : List.of(clientConnectionId, supervisorConnectionId, clientConnectionId)) {
+                String from = sender.equals(clientConnectionId) ? "CLIENT" : "SUPERVISOR";
+                assertTrue(messageRouter.routeFrame(sender, codec.scan("{\"sessionId\":\"" + sessionId
+                    + "\",\"from\":\"" + from + "\",\"type\":\"MESSAGE\",\"payload\":{\"text\":\"oi\"}}")));
+            }
+
+            // Assert - uma numeração por sessão, cada destinatário na ordem
+            ArgumentCaptor<TextMessage> toSupervisor = ArgumentCaptor.forClass(TextMessage.class);
+            verify(mockSupervisorWebSocketSession, times(2)).sendMessage(toSupervisor.capture());
+            ArgumentCaptor<TextMessage> toClient = ArgumentCaptor.forClass(TextMessage.class);
+            verify(mockClientWebSocketSession, times(1)).sendMessage(toClient.capture());
+            assertTrue(toSupervisor.getAllValues().get(0).getPayload().endsWith(",\"seq\":1}"));
+            assertTrue(toClient.getValue().getPayload().endsWith(",\"seq\":2}"));
+            assertTrue(toSupervisor.getAllValues().get(1).getPayload().endsWith(",\"seq\":3}"));
+
+            ArgumentCaptor<Message> stored = ArgumentCaptor.forClass(Message.class);
+            verify(messageStorageService, times(3)).saveMessage(stored.capture(), eq("WEBSOCKET"));
+            assertEquals(List.of(1L, 2L, 3L), stored.getAllValues().stream().map(Message::seq).toList());
+        }
+
+        @Test
+        @DisplayName("Remetente com handle deve ser roteado sem o connectionId, até a conexão ser removida")
+        void testRouteFrame_ByConnectionHandle_ShouldRouteUntilRemoved() throws Exception {
+            // Arrange - sessão pareada
+            String clientConnectionId = "client-handle-1";
+            String supervisorConnectionId = "supervisor-handle-1";
+            sessionManager.registerConnection(new ConnectionInfo(
+                clientConnectionId, mockClientWebSocketSession, null, "CLIENT", null));
+            String sessionId = sessionManager.createSession(clientConnectionId).sessionId();
+            sessionManager.registerConnection(new ConnectionInfo(
+                supervisorConnectionId, mockSupervisorWebSocketSession, null, "SUPERVISOR", sessionId));
+            sessionManager.pairSupervisor(sessionId, supervisorConnectionId);
+            int handle = sessionManager.getConnectionHandle(clientConnectionId);
+            MessageCodec codec = new MessageCodec(objectMapper);
+            String json = "{\"sessionId\":\"" + sessionId
+                + "\",\"from\":\"CLIENT\",\"type\":\"MESSAGE\",\"payload\":{\"text\":\"oi\"}}";
+
+            // Act
+            boolean routed = messageRouter.routeFrame(handle, clientConnectionId, codec.scan(json));
+            sessionManager.removeSession(sessionId);
+            sessionManager.removeConnection(clientConnectionId);
+            boolean routedAfterRemoval = messageRouter.routeFrame(handle, clientConnectionId, codec.scan(json));
+
+            // Assert
+            assertNotEquals(SessionManager.NO_HANDLE, handle);
+            assertEquals(SessionManager.NO_HANDLE, sessionManager.getConnectionHandle("desconhecida"));
+            assertTrue(routed, "Handle da conexão deve levar ao supervisor");
+            assertFalse(routedAfterRemoval, "Handle de conexão removida não deve mais rotear");
+            verify(mockSupervisorWebSocketSession, times(1)).sendMessage(any(TextMessage.class));
+        }
     }
 
     @Nested
@@ -378,6 +478,37 @@ class SessionServiceIntegrationTest {
             assertNotNull(originalSession, "Sessão original deve ainda existir");
             assertFalse(originalSession.isPaired(), "Sessão não deve estar pareada");
         }
+
+        @Test
+        @DisplayName("Supervisor que chega depois do pareamento não deve ficar ligado à sessão")
+        void testPairSupervisor_WhenAlreadyPaired_ShouldNotMapLateSupervisor() {
+            // Arrange - Sessão já pareada com o primeiro supervisor
+            sessionManager.registerConnection(new ConnectionInfo(
+                "client-race", mockClientWebSocketSession, null, "CLIENT", null));
+            String sessionId = sessionManager.createSession("client-race").sessionId();
+            sessionManager.registerConnection(new ConnectionInfo(
+                "supervisor-first", mockSupervisorWebSocketSession, null, "SUPERVISOR", null));
+            sessionManager.registerConnection(new ConnectionInfo(
+                "supervisor-late", mockSupervisorWebSocketSession, null, "SUPERVISOR", null));
+            sessionManager.pairSupervisor(sessionId, "supervisor-first");
+
+            // Act
+            var result = sessionManager.pairSupervisor(sessionId, "supervisor-late");
+            sessionManager.removeConnection("supervisor-late");
+
+            // Assert - O atrasado não encontra a sessão, então não a desfaz ao desconectar
+            assertEquals("supervisor-first", result.orElseThrow().supervisorConnectionId());
+            assertTrue(sessionManager.getSessionByConnectionId("supervisor-late").isEmpty());
+            assertNull(sessionManager.findInconsistency());
+
+            // Assert - Remover a sessão e as conexões não deixa entradas para trás
+            sessionManager.removeSession(sessionId);
+            sessionManager.removeConnection("client-race");
+            sessionManager.removeConnection("supervisor-first");
+            assertNull(sessionManager.findInconsistency());
+            assertEquals(0, sessionManager.getActiveSessionCount());
+            assertEquals(0, sessionManager.getActiveConnectionCount());
+        }
     }
 
     @Nested
@@ -566,5 +697,47 @@ class SessionServiceIntegrationTest {
             // Assert - Nenhuma mensagem deve ser enviada (pois WebSocket está fechada)
             verify(mockSupervisorWebSocketSession, never()).sendMessage(any());
         }
+
+        @Test
+        @DisplayName("Rotear depois que o supervisor desconecta deve avisar que está offline")
+        void testRouteMessage_AfterSupervisorDisconnects_ShouldReportOffline() throws Exception {
+            // Arrange - Roteador que codifica datas, para a mensagem de erro chegar ao cliente
+            MessageRouter router = new MessageRouter(
+                sessionManager, new ObjectMapper().findAndRegisterModules(), messageStorageService);
+
+            // Arrange - Sessão pareada
+            String clientConnectionId = "client-peer-link";
+            String supervisorConnectionId = "supervisor-peer-link";
+
+            ConnectionInfo clientConnection = new ConnectionInfo(
+                clientConnectionId, mockClientWebSocketSession, null, "CLIENT", null);
+            sessionManager.registerConnection(clientConnection);
+            String sessionId = sessionManager.createSession(clientConnectionId).sessionId();
+
+            ConnectionInfo supervisorConnection = new ConnectionInfo(
+                supervisorConnectionId, mockSupervisorWebSocketSession, null, "SUPERVISOR", sessionId);
+            sessionManager.registerConnection(supervisorConnection);
+            sessionManager.pairSupervisor(sessionId, supervisorConnectionId);
+
+            MessageCodec.Frame frame = new MessageCodec(objectMapper).scan("{\"sessionId\":\"" + sessionId
+                + "\",\"from\":\"CLIENT\",\"type\":\"MESSAGE\",\"payload\":{\"text\":\"Olá\"}}");
+            assertTrue(router.routeFrame(clientConnectionId, frame), "Setup: sessão deve rotear");
+
+            // Act - Supervisor cai, depois volta com a mesma conexão
+            sessionManager.removeConnection(supervisorConnectionId);
+            boolean routedWhileOffline = router.routeFrame(clientConnectionId, frame);
+
+            sessionManager.registerConnection(supervisorConnection);
+            boolean routedAfterReconnect = router.routeFrame(clientConnectionId, frame);
+
+            // Assert
+            assertFalse(routedWhileOffline, "Não deve rotear para supervisor offline");
+            assertTrue(routedAfterReconnect, "Deve voltar a rotear depois que o supervisor reconecta");
+            verify(mockSupervisorWebSocketSession, times(2)).sendMessage(any());
+
+            ArgumentCaptor<TextMessage> errors = ArgumentCaptor.forClass(TextMessage.class);
+            verify(mockClientWebSocketSession).sendMessage(errors.capture());
+            assertTrue(errors.getValue().getPayload().contains("Recipient is offline"));
+        }
     }
 }
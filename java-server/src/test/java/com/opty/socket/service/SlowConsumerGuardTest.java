@@ -0,0 +1,172 @@
+package com.opty.socket.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.opty.socket.config.AppConfig;
+import com.opty.socket.model.ConnectionInfo;
+import com.opty.socket.model.Message;
+import com.opty.socket.model.MessageType;
+import com.opty.socket.storage.InMemoryMessageStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Testes INTERCLASSE para o SlowConsumerGuard + MessageRouter
+ *
+ * Categorias testadas:
+ * 1. Graduação pelo que está acumulado no decorator de envio
+ * 2. Ações do roteador (pular atualização de fila, despejar e devolver a sessão à fila)
+ */
+@DisplayName("Testes INTERCLASSE - SlowConsumerGuard + MessageRouter")
+class SlowConsumerGuardTest {
+
+    private static final String CLIENT = "client-1";
+    private static final String SUPERVISOR = "supervisor-1";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private SlowConsumerGuard guard;
+    private SessionManager sessionManager;
+    private MessageRouter router;
+    private WebSocketSession supervisorDelegate;
+    private ConcurrentWebSocketSessionDecorator supervisor;
+    private WebSocketSession client;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        AppConfig appConfig = new AppConfig();
+        guard = new SlowConsumerGuard(appConfig, meterRegistry);
+        sessionManager = new SessionManager(appConfig);
+        router = new MessageRouter(sessionManager, new MessageCodec(new ObjectMapper().findAndRegisterModules()),
+                new MessageStorageService(new InMemoryMessageStore(100)), guard, null);
+
+        // Supervisor cuja primeira escrita trava até o fim do teste
+        supervisorDelegate = mock(WebSocketSession.class);
+        when(supervisorDelegate.getId()).thenReturn(SUPERVISOR);
+        when(supervisorDelegate.isOpen()).thenReturn(true);
+        when(supervisorDelegate.getAttributes()).thenReturn(new ConcurrentHashMap<>());
+        doAnswer(invocation -> release.await(10, TimeUnit.SECONDS)).when(supervisorDelegate).sendMessage(any());
+        supervisor = new ConcurrentWebSocketSessionDecorator(supervisorDelegate, 60_000, 10 * 1024 * 1024);
+
+        client = mock(WebSocketSession.class);
+        when(client.getId()).thenReturn(CLIENT);
+        when(client.isOpen()).thenReturn(true);
+
+        sessionManager.registerConnection(new ConnectionInfo(CLIENT, client, null, "CLIENT", null));
+        String sessionId = sessionManager.createSession(CLIENT).sessionId();
+        sessionManager.registerConnection(new ConnectionInfo(SUPERVISOR, supervisor, null, "SUPERVISOR", sessionId));
+        sessionManager.pairSupervisor(sessionId, SUPERVISOR);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+    }
+
+    /**
+     * Trava o envio em andamento numa thread à parte e acumula bytes atrás dele.
+     */
+    private void backUp(int bytes) throws Exception {
+        if (supervisor.getTimeSinceSendStarted() == 0) {
+            Thread sender = new Thread(() -> {
+                try {
+                    supervisor.sendMessage(new TextMessage("first"));
+                } catch (Exception e) {
+                    // fechado no teste
+                }
+            });
+            sender.setDaemon(true);
+            sender.start();
+            while (supervisor.getTimeSinceSendStarted() == 0) {
+                Thread.onSpinWait();
+            }
+        }
+        supervisor.sendMessage(new TextMessage("x".repeat(bytes)));
+    }
+
+    private double actions(String action) {
+        return meterRegistry.get("opty.slowconsumer.actions").tag("action", action).counter().count();
+    }
+
+    @Nested
+    @DisplayName("Categoria 1: Graduação")
+    class Grading {
+
+        @Test
+        @DisplayName("Deve graduar OK, DEGRADED e EVICT conforme os bytes acumulados")
+        void testAssess_GrowingBacklog_ShouldGrade() throws Exception {
+            // Act + Assert
+            assertEquals(SlowConsumerGuard.Level.OK, guard.assess(supervisor));
+            backUp(100 * 1024);
+            assertEquals(SlowConsumerGuard.Level.DEGRADED, guard.assess(supervisor));
+            backUp(200 * 1024);
+            assertEquals(SlowConsumerGuard.Level.EVICT, guard.assess(supervisor));
+            assertEquals(SlowConsumerGuard.Level.OK, guard.assess(client), "Sem decorator não há como medir");
+        }
+    }
+
+    @Nested
+    @DisplayName("Categoria 2: Ações do roteador")
+    class RouterActions {
+
+        @Test
+        @DisplayName("Supervisor atrasado deve perder só a atualização de fila")
+        void testSendMessage_WhenDegraded_ShouldSkipQueueUpdatesOnly() throws Exception {
+            // Arrange
+            backUp(100 * 1024);
+            int buffered = supervisor.getBufferSize();
+
+            // Act
+            boolean queueUpdate = router.sendMessage(supervisor,
+                    new Message(null, "SERVER", MessageType.SESSION_QUEUE_UPDATE, Map.of()));
+            boolean chat = router.sendMessage(supervisor,
+                    new Message("s-1", "CLIENT", MessageType.MESSAGE, Map.of("text", "oi")));
+
+            // Assert
+            assertFalse(queueUpdate);
+            assertTrue(chat);
+            assertTrue(supervisor.getBufferSize() > buffered, "A mensagem de chat entra na fila do decorator");
+            assertEquals(1.0, actions("skip"));
+        }
+
+        @Test
+        @DisplayName("Supervisor muito atrasado deve ser fechado e a sessão voltar para a fila")
+        void testSendMessage_WhenEvicted_ShouldCloseAndRequeueSession() throws Exception {
+            // Arrange
+            backUp(300 * 1024);
+
+            // Act
+            boolean sent = router.sendMessage(supervisor,
+                    new Message("s-1", "CLIENT", MessageType.MESSAGE, Map.of("text", "oi")));
+            router.sendMessage(supervisor,
+                    new Message("s-1", "CLIENT", MessageType.MESSAGE, Map.of("text", "de novo")));
+
+            // Assert - fechado uma vez, com o status de cliente lento
+            assertFalse(sent);
+            verify(supervisorDelegate, times(1)).close(MessageRouter.SLOW_CONSUMER);
+            assertEquals(1.0, actions("evict"));
+
+            // Assert - sessão de volta à fila e cliente avisado
+            assertEquals(1, sessionManager.getUnpairedSessions().size());
+            ArgumentCaptor<TextMessage> toClient = ArgumentCaptor.forClass(TextMessage.class);
+            verify(client).sendMessage(toClient.capture());
+            assertTrue(toClient.getValue().getPayload().contains("\"DISCONNECT\""));
+        }
+    }
+}
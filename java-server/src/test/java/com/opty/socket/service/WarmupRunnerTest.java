@@ -0,0 +1,140 @@
+package com.opty.socket.service;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.spi.FilterReply;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.opty.socket.config.AppConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes INTRACLASSE para o WarmupRunner
+ *
+ * Categorias testadas:
+ * 1. Execução do aquecimento
+ * 2. Limites de iterações e de tempo
+ * 3. Silenciamento de logs restrito à thread do aquecimento
+ */
+@DisplayName("Testes INTRACLASSE - WarmupRunner")
+class WarmupRunnerTest {
+
+    private StaticListableBeanFactory beans;
+    private WarmupRunner warmupRunner;
+
+    @BeforeEach
+    void setUp() {
+        beans = new StaticListableBeanFactory();
+        MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+        beans.addBean("mongoConverter", converter);
+
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        warmupRunner = new WarmupRunner(new AppConfig(), objectMapper, new MessageCodec(objectMapper),
+                beans.getBeanProvider(MongoConverter.class));
+    }
+
+    @Nested
+    @DisplayName("Categoria 1: Aquecimento")
+    class WarmUp {
+
+        @Test
+        @DisplayName("Deve executar todas as iterações e medir a latência")
+        void testWarmUp_ShouldRunAllIterations() throws Exception {
+            // Act
+            WarmupRunner.Report report = warmupRunner.warmUp(200, 10_000);
+
+            // Assert
+            assertEquals(200, report.iterations());
+            assertTrue(report.firstIterationMicros() > 0);
+            assertTrue(report.warmIterationMicros() <= report.firstIterationMicros(),
+                    "Iterações aquecidas não devem ser mais lentas que a primeira");
+        }
+
+        @Test
+        @DisplayName("Deve funcionar sem conversor do Mongo")
+        void testWarmUp_WithoutMongoConverter_ShouldRun() throws Exception {
+            // Arrange
+            StaticListableBeanFactory empty = new StaticListableBeanFactory();
+            ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+            WarmupRunner runner = new WarmupRunner(new AppConfig(), objectMapper, new MessageCodec(objectMapper),
+                    empty.getBeanProvider(MongoConverter.class));
+
+            // Act
+            WarmupRunner.Report report = runner.warmUp(10, 10_000);
+
+            // Assert
+            assertEquals(10, report.iterations());
+        }
+    }
+
+    @Nested
+    @DisplayName("Categoria 2: Limites")
+    class Limits {
+
+        @Test
+        @DisplayName("Deve parar quando o tempo máximo acabar")
+        void testWarmUp_WhenMaxDurationPasses_ShouldStopEarly() throws Exception {
+            // Act - um milhão de iterações não cabem em 50ms
+            WarmupRunner.Report report = warmupRunner.warmUp(1_000_000, 50);
+
+            // Assert
+            assertTrue(report.iterations() < 1_000_000);
+            assertTrue(report.elapsedMillis() < 2_000, "Deveria respeitar o tempo máximo");
+        }
+    }
+
+    @Nested
+    @DisplayName("Categoria 3: Silenciamento de logs")
+    class Logging {
+
+        @Test
+        @DisplayName("Só o DEBUG da thread do aquecimento deve ser descartado")
+        void testWarmupLogFilter_ShouldMuteOnlyTheWarmupThread() throws Exception {
+            // Arrange
+            WarmupRunner.WarmupLogFilter filter = new WarmupRunner.WarmupLogFilter();
+            Logger logger = new LoggerContext().getLogger("com.opty.socket.service.MessageRouter");
+            AtomicReference<FilterReply> otherThread = new AtomicReference<>();
+
+            // Act
+            MDC.put(WarmupRunner.WARMUP_MDC_KEY, "true");
+            FilterReply warmupDebug;
+            FilterReply warmupInfo;
+            try {
+                warmupDebug = filter.decide(null, logger, Level.DEBUG, "routed", null, null);
+                warmupInfo = filter.decide(null, logger, Level.INFO, "done", null, null);
+                Thread live = new Thread(() -> otherThread.set(filter.decide(null, logger, Level.DEBUG, "routed", null, null)));
+                live.start();
+                live.join();
+            } finally {
+                MDC.remove(WarmupRunner.WARMUP_MDC_KEY);
+            }
+
+            // Assert
+            assertEquals(FilterReply.DENY, warmupDebug);
+            assertEquals(FilterReply.NEUTRAL, warmupInfo);
+            assertEquals(FilterReply.NEUTRAL, otherThread.get(), "Conexões reais não devem perder o DEBUG");
+            assertEquals(FilterReply.NEUTRAL, filter.decide(null, logger, Level.DEBUG, "routed", null, null));
+        }
+    }
+}
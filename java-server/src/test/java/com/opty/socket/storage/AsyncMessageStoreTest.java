@@ -0,0 +1,252 @@
+package com.opty.socket.storage;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.opty.socket.config.AppConfig;
+import com.opty.socket.model.ChatMessageDocument;
+import com.opty.socket.model.Message;
+import com.opty.socket.model.MessageType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Testes INTRACLASSE para o AsyncMessageStore
+ *
+ * Categorias testadas:
+ * 1. Escrita em segundo plano e flush
+ * 2. Fila cheia
+ * 3. Leitura do histórico com mensagens na fila
+ * 4. Fechamento do estágio de persistência
+ */
+@DisplayName("Testes INTRACLASSE - AsyncMessageStore")
+class AsyncMessageStoreTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private ChatMessageDocument document(String sessionId, long seq) {
+        return new ChatMessageDocument(
+                new Message(sessionId, "CLIENT", MessageType.MESSAGE, Map.of("text", "m" + seq),
+                        Instant.now()).withSeq(seq),
+                "WEBSOCKET");
+    }
+
+    /**
+     * Store em memória que segura as escritas até ser liberado.
+     */
+    private static class GatedStore extends InMemoryMessageStore {
+        private final CountDownLatch gate;
+
+        GatedStore(CountDownLatch gate) {
+            super(10_000);
+            this.gate = gate;
+        }
+
+        @Override
+        public void append(ChatMessageDocument document) {
+            try {
+                gate.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            super.append(document);
+        }
+    }
+
+    @Nested
+    @DisplayName("Categoria 1: Escrita em segundo plano")
+    class Background {
+
+        @Test
+        @DisplayName("flush deve esperar a fila ser escrita, na ordem de chegada")
+        void testFlush_AfterAppends_ShouldWriteAllInOrder() {
+            // Arrange
+            InMemoryMessageStore delegate = new InMemoryMessageStore(10_000);
+            AsyncMessageStore store = new AsyncMessageStore(delegate, 1_000, 16, meterRegistry);
+
+            // Act
+            for (long seq = 1; seq <= 500; seq++) {
+                store.append(document("s-1", seq));
+            }
+            store.flush();
+
+            // Assert
+            List<ChatMessageDocument> stored = delegate.findBySessionId("s-1");
+            assertEquals(500, stored.size());
+            for (int i = 0; i < stored.size(); i++) {
+                assertEquals(i + 1, stored.get(i).getSequence());
+            }
+            assertEquals(500, meterRegistry.get("opty.pipeline.process").tag("stage", "persist").timer().count());
+            store.close();
+        }
+
+        @Test
+        @DisplayName("Mensagens acumuladas devem ser entregues ao backend em lotes")
+        void testAppend_ShouldWriteInBatches() {
+            // Arrange - o escritor fica preso no primeiro lote enquanto a fila enche
+            CountDownLatch gate = new CountDownLatch(1);
+            List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+            GatedStore delegate = new GatedStore(gate) {
+                @Override
+                public void appendAll(List<ChatMessageDocument> documents) {
+                    batchSizes.add(documents.size());
+                    super.appendAll(documents);
+                }
+            };
+            AsyncMessageStore store = new AsyncMessageStore(delegate, 1_000, 16, meterRegistry);
+
+            // Act
+            for (long seq = 1; seq <= 50; seq++) {
+                store.append(document("s-1", seq));
+            }
+            gate.countDown();
+            store.flush();
+
+            // Assert
+            assertEquals(50, delegate.findBySessionId("s-1").size());
+            assertEquals(50, batchSizes.stream().mapToInt(Integer::intValue).sum());
+            assertTrue(batchSizes.stream().allMatch(size -> size <= 16));
+            assertTrue(batchSizes.stream().anyMatch(size -> size > 1), "Mensagens na fila devem ir juntas");
+            store.close();
+        }
+    }
+
+    @Nested
+    @DisplayName("Categoria 2: Fila cheia")
+    class Overflow {
+
+        @Test
+        @DisplayName("Com a fila cheia, o chamador deve escrever a mensagem em vez de perdê-la")
+        void testAppend_WhenQueueFull_ShouldWriteOnCaller() {
+            // Arrange - o escritor fica preso na primeira mensagem
+            CountDownLatch gate = new CountDownLatch(1);
+            GatedStore delegate = new GatedStore(gate);
+            AsyncMessageStore store = new AsyncMessageStore(delegate, 2, 1, meterRegistry);
+
+            // Act - a terceira em diante não cabe; libera o escritor numa thread à parte
+            Thread releaser = new Thread(() -> {
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                gate.countDown();
+            });
+            releaser.start();
+            for (long seq = 1; seq <= 6; seq++) {
+                store.append(document("s-1", seq));
+            }
+            store.close();
+
+            // Assert
+            assertEquals(6, delegate.findBySessionId("s-1").size());
+            assertTrue(meterRegistry.get("opty.pipeline.rejected").tag("stage", "persist").counter().count() >= 1);
+        }
+    }
+
+    @Nested
+    @DisplayName("Categoria 3: Leitura do histórico")
+    class Transcript {
+
+        @Test
+        @DisplayName("Histórico deve incluir as mensagens ainda na fila, na ordem da sessão")
+        void testFindBySessionId_ShouldIncludeQueuedMessages() {
+            // Arrange - a primeira gravação fica presa; as outras esperam na fila
+            CountDownLatch gate = new CountDownLatch(1);
+            GatedStore delegate = new GatedStore(gate);
+            AsyncMessageStore store = new AsyncMessageStore(delegate, 1_000, 4, meterRegistry);
+            for (long seq = 1; seq <= 10; seq++) {
+                store.append(document(seq % 2 == 0 ? "s-2" : "s-1", seq));
+            }
+
+            // Act
+            List<ChatMessageDocument> beforeWrite = store.findBySessionId("s-1");
+            gate.countDown();
+            store.flush();
+            List<ChatMessageDocument> afterWrite = store.findBySessionId("s-1");
+
+            // Assert
+            assertEquals(List.of(1L, 3L, 5L, 7L, 9L), beforeWrite.stream().map(ChatMessageDocument::getSequence).toList());
+            assertEquals(List.of(1L, 3L, 5L, 7L, 9L), afterWrite.stream().map(ChatMessageDocument::getSequence).toList());
+            store.close();
+        }
+
+        @Test
+        @DisplayName("Última sequência deve considerar as mensagens ainda na fila")
+        void testLastSequence_ShouldIncludeQueuedMessages() {
+            // Arrange - a primeira gravação fica presa; as outras esperam na fila
+            CountDownLatch gate = new CountDownLatch(1);
+            AsyncMessageStore store = new AsyncMessageStore(new GatedStore(gate), 1_000, 1, meterRegistry);
+            for (long seq = 1; seq <= 6; seq++) {
+                store.append(document(seq % 2 == 0 ? "s-2" : "s-1", seq));
+            }
+
+            // Act + Assert
+            assertEquals(5, store.lastSequence("s-1"));
+            assertEquals(6, store.lastSequence("s-2"));
+            assertEquals(0, store.lastSequence("s-3"));
+            gate.countDown();
+            store.flush();
+            assertEquals(5, store.lastSequence("s-1"));
+            store.close();
+        }
+    }
+
+    @Nested
+    @DisplayName("Categoria 4: Fechamento")
+    class Closing {
+
+        @TempDir
+        Path directory;
+
+        @Test
+        @DisplayName("Fechar o estágio de persistência deve fechar o journal por trás do índice")
+        void testClose_ShouldCloseJournalBehindIndexing() throws Exception {
+            // Arrange - mesma composição do MessageStoreConfig: fila > índice > journal
+            AppConfig.JournalConfig config = new AppConfig.JournalConfig();
+            config.setDirectory(directory.toString());
+            JournalMessageStore journal = spy(new JournalMessageStore(config, new ObjectMapper().findAndRegisterModules()));
+            IndexingMessageStore indexed = new IndexingMessageStore(journal,
+                    new InvertedIndexSearch(new AppConfig.SearchConfig()));
+            AsyncMessageStore store = new AsyncMessageStore(indexed, 1_000, 16, meterRegistry);
+            store.append(document("s-1", 1));
+
+            // Act
+            store.close();
+
+            // Assert
+            verify(journal).close();
+            assertEquals(1, new JournalMessageStore(config, new ObjectMapper().findAndRegisterModules())
+                    .findBySessionId("s-1").size(), "Mensagem na fila deve ter sido gravada antes de fechar");
+        }
+
+        @Test
+        @DisplayName("Sem fila, fechar o índice deve fechar o journal")
+        void testClose_WithoutPipeline_ShouldCloseJournal() throws Exception {
+            // Arrange
+            AppConfig.JournalConfig config = new AppConfig.JournalConfig();
+            config.setDirectory(directory.toString());
+            JournalMessageStore journal = spy(new JournalMessageStore(config, new ObjectMapper().findAndRegisterModules()));
+            IndexingMessageStore indexed = new IndexingMessageStore(journal,
+                    new InvertedIndexSearch(new AppConfig.SearchConfig()));
+
+            // Act
+            indexed.close();
+
+            // Assert
+            verify(journal).close();
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.opty.socket.storage;
+
+import com.opty.socket.config.AppConfig;
+import com.opty.socket.model.ChatMessageDocument;
+import com.opty.socket.model.Message;
+import com.opty.socket.model.MessageType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes INTRACLASSE para o CircuitBreakerMessageStore e o StorageCircuitBreaker
+ *
+ * Categorias testadas:
+ * 1. Transições de estado do circuito (falhas, chamadas lentas, tentativa única)
+ * 2. Desvio e reenvio de escritas enquanto o circuito está aberto
+ */
+@DisplayName("Testes INTRACLASSE - CircuitBreakerMessageStore")
+class CircuitBreakerMessageStoreTest {
+
+    private AtomicLong clock;
+    private AppConfig.CircuitBreakerConfig config;
+    private FlakyStore delegate;
+
+    @BeforeEach
+    void setUp() {
+        clock = new AtomicLong();
+        config = new AppConfig.CircuitBreakerConfig();
+        config.setFailureThreshold(3);
+        config.setSlowCallThresholdMs(100);
+        config.setOpenDurationMs(1_000);
+        delegate = new FlakyStore();
+    }
+
+    private StorageCircuitBreaker breaker() {
+        return new StorageCircuitBreaker(config, clock::get);
+    }
+
+    private ChatMessageDocument document(String text) {
+        return new ChatMessageDocument(
+                new Message("sessao", "CLIENT", MessageType.MESSAGE, Map.of("text", text), Instant.now()),
+                "WEBSOCKET");
+    }
+
+    @Nested
+    @DisplayName("Categoria 1: Estados do Circuito")
+    class States {
+
+        @Test
+        @DisplayName("Falhas consecutivas até o limite devem abrir o circuito")
+        void testOnFailure_AtThreshold_ShouldOpen() {
+            // Arrange
+            StorageCircuitBreaker breaker = breaker();
+
+            // Act
+            breaker.onFailure();
+            breaker.onFailure();
+            StorageCircuitBreaker.State beforeThreshold = breaker.getState();
+            breaker.onFailure();
+
+            // Assert
+            assertEquals(StorageCircuitBreaker.State.CLOSED, beforeThreshold);
+            assertEquals(StorageCircuitBreaker.State.OPEN, breaker.getState());
+            assertFalse(breaker.tryAcquire(), "Circuito aberto deve rejeitar chamadas");
+        }
+
+        @Test
+        @DisplayName("Chamadas lentas devem contar como falha")
+        void testOnSuccess_WhenSlow_ShouldCountAsFailure() {
+            // Arrange
+            StorageCircuitBreaker breaker = breaker();
+            long slow = 200 * 1_000_000L;
+
+            // Act
+            boolean healthy = breaker.onSuccess(slow);
+            breaker.onSuccess(slow);
+            breaker.onSuccess(slow);
+
+            // Assert
+            assertFalse(healthy);
+            assertEquals(StorageCircuitBreaker.State.OPEN, breaker.getState());
+        }
+
+        @Test
+        @DisplayName("Após o tempo aberto, só uma chamada de teste deve passar")
+        void testTryAcquire_AfterOpenDuration_ShouldAllowSingleTrial() {
+            // Arrange
+            StorageCircuitBreaker breaker = breaker();
+            for (int i = 0; i < 3; i++) {
+                breaker.onFailure();
+            }
+
+            // Act
+            clock.addAndGet(1_000 * 1_000_000L);
+            boolean first = breaker.tryAcquire();
+            boolean second = breaker.tryAcquire();
+
+            // Assert
+            assertTrue(first, "Primeira chamada deve ser a tentativa");
+            assertFalse(second, "Demais chamadas devem ser rejeitadas durante a tentativa");
+            assertEquals(StorageCircuitBreaker.State.HALF_OPEN, breaker.getState());
+        }
+
+        @Test
+        @DisplayName("Tentativa com falha deve reabrir; com sucesso deve fechar")
+        void testTrial_ShouldReopenOnFailureAndCloseOnSuccess() {
+            // Arrange
+            StorageCircuitBreaker breaker = breaker();
+            for (int i = 0; i < 3; i++) {
+                breaker.onFailure();
+            }
+            clock.addAndGet(1_000 * 1_000_000L);
+
+            // Act + Assert - tentativa falha
+            assertTrue(breaker.tryAcquire());
+            breaker.onFailure();
+            assertEquals(StorageCircuitBreaker.State.OPEN, breaker.getState());
+            assertFalse(breaker.tryAcquire(), "Reaberto agora, deve aguardar de novo");
+
+            // Act + Assert - tentativa com sucesso
+            clock.addAndGet(1_000 * 1_000_000L);
+            assertTrue(breaker.tryAcquire());
+            breaker.onSuccess(0);
+            assertEquals(StorageCircuitBreaker.State.CLOSED, breaker.getState());
+            assertEquals(0, breaker.getConsecutiveFailures());
+        }
+    }
+
+    @Nested
+    @DisplayName("Categoria 2: Desvio e Reenvio")
+    class DivertAndReplay {
+
+        @Test
+        @DisplayName("Circuito aberto não deve chamar o store e deve desviar a escrita")
+        void testAppend_WhenOpen_ShouldDivertWithoutCallingDelegate() {
+            // Arrange
+            CircuitBreakerMessageStore store =
+                    new CircuitBreakerMessageStore(delegate, breaker(), 10, new SimpleMeterRegistry());
+            delegate.failing = true;
+
+            // Act - 3 falhas abrem o circuito, a 4ª nem chega ao store
+            for (int i = 0; i < 4; i++) {
+                store.append(document("msg " + i));
+            }
+
+            // Assert
+            assertEquals(3, delegate.calls, "Store não deve ser chamado com o circuito aberto");
+            assertEquals(4, store.getDivertedCount());
+            assertTrue(delegate.saved.isEmpty());
+        }
+
+        @Test
+        @DisplayName("Escritas desviadas devem ser reenviadas ao fechar o circuito")
+        void testFlush_AfterClose_ShouldReplayDivertedWrites() {
+            // Arrange
+            CircuitBreakerMessageStore store =
+                    new CircuitBreakerMessageStore(delegate, breaker(), 10, new SimpleMeterRegistry());
+            delegate.failing = true;
+            for (int i = 0; i < 3; i++) {
+                store.append(document("msg " + i));
+            }
+
+            // Act - store volta, tentativa fecha o circuito
+            delegate.failing = false;
+            clock.addAndGet(1_000 * 1_000_000L);
+            store.append(document("msg 3"));
+            store.flush();
+
+            // Assert
+            assertEquals(StorageCircuitBreaker.State.CLOSED, store.getCircuitBreaker().getState());
+            assertEquals(0, store.getDivertedCount());
+            assertEquals(4, delegate.saved.size(), "Nenhuma escrita deve ser perdida");
+        }
+
+        @Test
+        @DisplayName("Escritas além da capacidade de desvio devem ser descartadas")
+        void testAppend_WhenDivertQueueFull_ShouldDrop() {
+            // Arrange
+            SimpleMeterRegistry registry = new SimpleMeterRegistry();
+            CircuitBreakerMessageStore store = new CircuitBreakerMessageStore(delegate, breaker(), 2, registry);
+            delegate.failing = true;
+
+            // Act
+            for (int i = 0; i < 5; i++) {
+                store.append(document("msg " + i));
+            }
+
+            // Assert
+            assertEquals(2, store.getDivertedCount());
+            assertEquals(3.0, registry.get("opty.storage.writes").tag("outcome", "dropped").counter().count());
+        }
+    }
+
+    /**
+     * Store de teste que falha sob demanda.
+     */
+    private static class FlakyStore implements MessageStore {
+        private final List<ChatMessageDocument> saved = Collections.synchronizedList(new ArrayList<>());
+        private volatile boolean failing;
+        private int calls;
+
+        @Override
+        public void append(ChatMessageDocument document) {
+            calls++;
+            if (failing) {
+                throw new IllegalStateException("MongoDB indisponível");
+            }
+            saved.add(document);
+        }
+
+        @Override
+        public List<ChatMessageDocument> findBySessionId(String sessionId) {
+            return List.copyOf(saved);
+        }
+
+        @Override
+        public String name() {
+            return "flaky";
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.opty.socket.storage;
+
+import com.opty.socket.model.ChatMessageDocument;
+import com.opty.socket.model.Message;
+import com.opty.socket.model.MessageType;
+import com.opty.socket.service.MessageStorageService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes INTRACLASSE para o InvertedIndexSearch
+ *
+ * Categorias testadas:
+ * 1. Correspondência e ranking
+ * 2. Paginação e limites
+ * 3. Indexação no estágio de gravação (IndexingMessageStore)
+ */
+@DisplayName("Testes INTRACLASSE - InvertedIndexSearch")
+class InvertedIndexSearchTest {
+
+    private ChatMessageDocument document(String sessionId, String text) {
+        return new ChatMessageDocument(
+                new Message(sessionId, "CLIENT", MessageType.MESSAGE, Map.of("text", text), Instant.now()),
+                "WEBSOCKET");
+    }
+
+    private List<String> sessions(MessageSearch.Page page) {
+        return page.hits().stream().map(MessageSearch.Hit::sessionId).toList();
+    }
+
+    @Nested
+    @DisplayName("Categoria 1: Correspondência e ranking")
+    class Matching {
+
+        @Test
+        @DisplayName("Só mensagens com todas as palavras devem ser retornadas, sem diferenciar acentos e caixa")
+        void testSearch_AllTerms_ShouldMatchIgnoringAccentsAndCase() {
+            // Arrange
+            InvertedIndexSearch search = new InvertedIndexSearch(100, 100);
+            search.index(document("s-1", "Não consigo acessar minha CONTA"));
+            search.index(document("s-2", "minha conta foi bloqueada"));
+            search.index(document("s-3", "preciso de ajuda com o pedido"));
+
+            // Act + Assert
+            assertEquals(List.of("s-1"), sessions(search.search("nao conta", 0, 10)));
+            assertEquals(2, search.search("Conta", 0, 10).hits().size());
+            assertTrue(search.search("conta pedido", 0, 10).hits().isEmpty());
+            assertTrue(search.search("inexistente", 0, 10).hits().isEmpty());
+            assertTrue(search.search("  !! ", 0, 10).hits().isEmpty());
+        }
+
+        @Test
+        @DisplayName("Termo repetido e texto curto devem ficar acima; empate favorece a mais nova")
+        void testSearch_ShouldRankByRelevanceThenRecency() {
+            // Arrange
+            InvertedIndexSearch search = new InvertedIndexSearch(100, 100);
+            search.index(document("longa", "reembolso solicitado ontem mas ainda sem resposta do atendimento"));
+            search.index(document("antiga", "reembolso pendente"));
+            search.index(document("repetida", "reembolso reembolso reembolso"));
+            search.index(document("nova", "reembolso pendente"));
+
+            // Act
+            List<String> ranked = sessions(search.search("reembolso", 0, 10));
+
+            // Assert
+            assertEquals(List.of("repetida", "nova", "antiga", "longa"), ranked);
+        }
+    }
+
+    @Nested
+    @DisplayName("Categoria 2: Paginação e limites")
+    class Paging {
+
+        @Test
+        @DisplayName("Páginas devem seguir o ranking, sem repetir resultados")
+        void testSearch_Pages_ShouldContinueTheRanking() {
+            // Arrange
+            InvertedIndexSearch search = new InvertedIndexSearch(100, 100);
+            for (int i = 0; i < 5; i++) {
+                search.index(document("s-" + i, "boleto vencido"));
+            }
+
+            // Act
+            MessageSearch.Page first = search.search("boleto", 0, 2);
+            MessageSearch.Page second = search.search("boleto", 1, 2);
+            MessageSearch.Page last = search.search("boleto", 2, 2);
+
+            // Assert - empate: da mais nova para a mais antiga
+            assertEquals(List.of("s-4", "s-3"), sessions(first));
+            assertEquals(List.of("s-2", "s-1"), sessions(second));
+            assertEquals(List.of("s-0"), sessions(last));
+            assertTrue(first.hasMore());
+            assertFalse(last.hasMore());
+        }
+
+        @Test
+        @DisplayName("Mensagens além da capacidade devem sair do índice")
+        void testIndex_BeyondCapacity_ShouldEvictOldest() {
+            // Arrange
+            InvertedIndexSearch search = new InvertedIndexSearch(3, 100);
+
+            // Act
+            search.index(document("s-0", "primeira troca"));
+            for (int i = 1; i <= 6; i++) {
+                search.index(document("s-" + i, "troca numero " + i));
+            }
+
+            // Assert
+            assertEquals(3, search.size());
+            assertEquals(List.of("s-6", "s-5", "s-4"), sessions(search.search("troca", 0, 10)));
+            assertTrue(search.search("primeira", 0, 10).hits().isEmpty());
+        }
+
+        @Test
+        @DisplayName("Só as correspondências mais novas até o limite devem ser ranqueadas")
+        void testSearch_ShouldRankAtMostMaxCandidates() {
+            // Arrange
+            InvertedIndexSearch search = new InvertedIndexSearch(100, 3);
+            search.index(document("relevante", "entrega entrega entrega"));
+            for (int i = 0; i < 5; i++) {
+                search.index(document("s-" + i, "entrega atrasada"));
+            }
+
+            // Act
+            List<String> ranked = sessions(search.search("entrega", 0, 10));
+
+            // Assert
+            assertEquals(List.of("s-4", "s-3", "s-2"), ranked);
+        }
+    }
+
+    @Nested
+    @DisplayName("Categoria 3: Indexação no estágio de gravação")
+    class StorageService {
+
+        @Test
+        @DisplayName("Mensagens salvas devem ser encontradas; outros tipos não são indexados")
+        void testSaveMessage_ShouldIndexChatMessages() {
+            // Arrange
+            InvertedIndexSearch search = new InvertedIndexSearch(100, 100);
+            MessageStorageService storageService = new MessageStorageService(
+                    new IndexingMessageStore(new InMemoryMessageStore(100), search), search);
+
+            // Act
+            storageService.saveMessage(new Message("s-1", "CLIENT", MessageType.MESSAGE,
+                    Map.of("text", "cartão recusado"), Instant.now()), "WEBSOCKET");
+            storageService.saveMessage(Message.error("s-2", "cartão inválido"), "WEBSOCKET");
+
+            // Assert
+            assertEquals(List.of("s-1"), sessions(storageService.search("cartao", 0, 10)));
+            assertThrows(IllegalStateException.class,
+                    () -> new MessageStorageService(new InMemoryMessageStore(10)).search("cartao", 0, 10));
+        }
+
+        @Test
+        @DisplayName("Com o pipeline, a indexação deve acontecer na thread de gravação")
+        void testAsyncStore_ShouldIndexOnWriterThread() {
+            // Arrange
+            List<String> indexingThreads = new CopyOnWriteArrayList<>();
+            InvertedIndexSearch search = new InvertedIndexSearch(100, 100) {
+                @Override
+                public void index(ChatMessageDocument document) {
+                    indexingThreads.add(Thread.currentThread().getName());
+                    super.index(document);
+                }
+            };
+            AsyncMessageStore store = new AsyncMessageStore(
+                    new IndexingMessageStore(new InMemoryMessageStore(100), search), 100, 16, new SimpleMeterRegistry());
+            MessageStorageService storageService = new MessageStorageService(store, search);
+
+            // Act
+            storageService.saveMessage(new Message("s-1", "CLIENT", MessageType.MESSAGE,
+                    Map.of("text", "segunda via do boleto"), Instant.now()), "WEBSOCKET");
+            storageService.flush();
+
+            // Assert
+            assertEquals(List.of("persist-writer"), indexingThreads);
+            assertEquals(List.of("s-1"), sessions(storageService.search("boleto", 0, 10)));
+            store.close();
+        }
+    }
+}
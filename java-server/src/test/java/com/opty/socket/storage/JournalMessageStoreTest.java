@@ -0,0 +1,230 @@
+package com.opty.socket.storage;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.opty.socket.config.AppConfig;
+import com.opty.socket.model.ChatMessageDocument;
+import com.opty.socket.model.Message;
+import com.opty.socket.model.MessageType;
+import com.opty.socket.service.MessageStorageService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes INTRACLASSE para o JournalMessageStore
+ *
+ * Categorias testadas:
+ * 1. Escrita e leitura por sessão (na ordem de sequência) e por intervalo de tempo
+ * 2. Rotação de segmentos
+ * 3. Recuperação após reinício e após escrita corrompida
+ */
+@DisplayName("Testes INTRACLASSE - JournalMessageStore")
+class JournalMessageStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private ObjectMapper objectMapper;
+    private AppConfig.JournalConfig config;
+
+    @BeforeEach
+    void setUp() {
+        objectMapper = new ObjectMapper().findAndRegisterModules();
+        config = new AppConfig.JournalConfig();
+        config.setDirectory(directory.toString());
+        config.setSegmentSizeMb(1);
+        config.setIndexInterval(4);
+    }
+
+    private ChatMessageDocument document(String sessionId, String text, Instant timestamp) {
+        return new ChatMessageDocument(
+                new Message(sessionId, "CLIENT", MessageType.MESSAGE, Map.of("text", text), timestamp),
+                "WEBSOCKET");
+    }
+
+    @Nested
+    @DisplayName("Categoria 1: Escrita e Leitura")
+    class AppendAndRead {
+
+        @Test
+        @DisplayName("findBySessionId() deve retornar só as mensagens da sessão, em ordem")
+        void testFindBySessionId_ShouldReturnOnlySessionMessagesInOrder() {
+            // Arrange
+            JournalMessageStore store = new JournalMessageStore(config, objectMapper);
+            Instant base = Instant.parse("2025-01-01T12:00:00Z");
+
+            // Act
+            for (int i = 0; i < 10; i++) {
+                store.append(document(i % 2 == 0 ? "sessao-a" : "sessao-b", "msg " + i, base.plusSeconds(i)));
+            }
+            List<ChatMessageDocument> transcript = store.findBySessionId("sessao-a");
+
+            // Assert
+            assertEquals(5, transcript.size(), "Sessão A deve ter 5 mensagens");
+            assertEquals("msg 0", transcript.get(0).getPayload().get("text"));
+            assertEquals("msg 8", transcript.get(4).getPayload().get("text"));
+            assertNotNull(transcript.get(0).getId(), "Mensagem lida deve ter id");
+            assertTrue(store.findBySessionId("sessao-inexistente").isEmpty());
+        }
+
+        @Test
+        @DisplayName("findBySessionId() deve seguir o número de sequência, mesmo com relógio fora de ordem")
+        void testFindBySessionId_WithSequences_ShouldOrderBySequence() {
+            // Arrange - relógio andando para trás entre as mensagens
+            JournalMessageStore store = new JournalMessageStore(config, objectMapper);
+            Instant base = Instant.parse("2025-01-01T12:00:00Z");
+
+            // Act
+            for (long seq = 1; seq <= 3; seq++) {
+                store.append(new ChatMessageDocument(new Message("sessao", "CLIENT", MessageType.MESSAGE,
+                        Map.of("text", "msg " + seq), base.minusSeconds(seq)).withSeq(seq), "WEBSOCKET"));
+            }
+            List<ChatMessageDocument> transcript = store.findBySessionId("sessao");
+
+            // Assert
+            assertEquals(List.of(1L, 2L, 3L), transcript.stream().map(ChatMessageDocument::getSequence).toList());
+            assertEquals("msg 1", transcript.get(0).getPayload().get("text"));
+        }
+
+        @Test
+        @DisplayName("findSequenceGaps() deve apontar os números que faltam no histórico")
+        void testFindSequenceGaps_ShouldReportMissingNumbers() {
+            // Arrange - 3 e 5 perdidos, uma mensagem antiga sem número
+            JournalMessageStore store = new JournalMessageStore(config, objectMapper);
+            MessageStorageService storageService = new MessageStorageService(store);
+            Instant base = Instant.parse("2025-01-01T12:00:00Z");
+            storageService.saveMessage(new Message("sessao", "CLIENT", MessageType.MESSAGE,
+                    Map.of("text", "antiga"), base), "WEBSOCKET");
+            for (long seq : new long[] {1, 2, 4, 6}) {
+                storageService.saveMessage(new Message("sessao", "CLIENT", MessageType.MESSAGE,
+                        Map.of("text", "msg " + seq), base.plusSeconds(seq)).withSeq(seq), "WEBSOCKET");
+            }
+
+            // Act + Assert
+            assertEquals(List.of(3L, 5L), storageService.findSequenceGaps("sessao"));
+            assertEquals(List.of(), storageService.findSequenceGaps("sessao-inexistente"));
+        }
+
+        @Test
+        @DisplayName("findByTimeRange() deve respeitar o intervalo [from, to)")
+        void testFindByTimeRange_ShouldRespectBounds() {
+            // Arrange
+            JournalMessageStore store = new JournalMessageStore(config, objectMapper);
+            Instant base = Instant.parse("2025-01-01T12:00:00Z");
+            for (int i = 0; i < 20; i++) {
+                store.append(document("sessao", "msg " + i, base.plusSeconds(i)));
+            }
+
+            // Act
+            List<ChatMessageDocument> range = store.findByTimeRange(base.plusSeconds(5), base.plusSeconds(10));
+
+            // Assert
+            assertEquals(5, range.size());
+            assertEquals("msg 5", range.get(0).getPayload().get("text"));
+            assertEquals("msg 9", range.get(4).getPayload().get("text"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Categoria 2: Rotação de Segmentos")
+    class SegmentRolling {
+
+        @Test
+        @DisplayName("Segmento cheio deve abrir novo segmento sem perder mensagens")
+        void testAppend_WhenSegmentFull_ShouldRollToNewSegment() {
+            // Arrange
+            JournalMessageStore store = new JournalMessageStore(config, objectMapper);
+            String text = "x".repeat(10_000);
+
+            // Act - ~10 KB por mensagem em segmentos de 1 MB
+            for (int i = 0; i < 250; i++) {
+                store.append(document("sessao-grande", text, Instant.now()));
+            }
+
+            // Assert
+            assertTrue(store.getSegmentCount() >= 3, "Deve ter rotacionado segmentos");
+            assertEquals(250, store.findBySessionId("sessao-grande").size());
+        }
+    }
+
+    @Nested
+    @DisplayName("Categoria 3: Recuperação")
+    class Recovery {
+
+        @Test
+        @DisplayName("Reabrir o journal deve reconstruir o índice e continuar do fim")
+        void testReopen_ShouldRebuildIndexAndAppendAfterLastRecord() {
+            // Arrange
+            JournalMessageStore store = new JournalMessageStore(config, objectMapper);
+            store.append(document("sessao", "antes", Instant.now()));
+            store.close();
+
+            // Act
+            JournalMessageStore reopened = new JournalMessageStore(config, objectMapper);
+            reopened.append(document("sessao", "depois", Instant.now().plusSeconds(1)));
+            List<ChatMessageDocument> transcript = reopened.findBySessionId("sessao");
+
+            // Assert
+            assertEquals(2, transcript.size());
+            assertEquals("antes", transcript.get(0).getPayload().get("text"));
+            assertEquals("depois", transcript.get(1).getPayload().get("text"));
+        }
+
+        @Test
+        @DisplayName("Registro corrompido no fim deve ser descartado na recuperação")
+        void testReopen_WithTornTail_ShouldTruncateCorruptedRecord() throws Exception {
+            // Arrange
+            JournalMessageStore store = new JournalMessageStore(config, objectMapper);
+            store.append(document("sessao", "ok", Instant.now()));
+            store.close();
+
+            Path segment;
+            try (Stream<Path> files = Files.list(directory)) {
+                segment = files.findFirst().orElseThrow();
+            }
+            // Simula escrita interrompida: tamanho gravado, checksum inválido
+            int offset = (int) firstFreeOffset(segment);
+            try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+                file.seek(offset);
+                file.writeInt(64);
+                file.writeInt(12345);
+                file.write(new byte[64]);
+            }
+
+            // Act
+            JournalMessageStore reopened = new JournalMessageStore(config, objectMapper);
+            reopened.append(document("sessao", "novo", Instant.now().plusSeconds(1)));
+
+            // Assert
+            List<ChatMessageDocument> transcript = reopened.findBySessionId("sessao");
+            assertEquals(2, transcript.size(), "Registro corrompido deve ter sido descartado");
+            assertEquals("novo", transcript.get(1).getPayload().get("text"));
+        }
+
+        private long firstFreeOffset(Path segment) throws Exception {
+            try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "r")) {
+                long offset = 0;
+                while (true) {
+                    file.seek(offset);
+                    int length = file.readInt();
+                    if (length == 0) {
+                        return offset;
+                    }
+                    offset += JournalSegment.HEADER_BYTES + length;
+                }
+            }
+        }
+    }
+}
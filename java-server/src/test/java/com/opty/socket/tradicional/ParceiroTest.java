@@ -0,0 +1,180 @@
+package com.opty.socket.tradicional;
+
+import com.opty.socket.config.AppConfig;
+import com.opty.socket.tradicional.comunicado.MensagemTexto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.EOFException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes INTRACLASSE para o Parceiro com TransmissoraDeComunicados
+ *
+ * Categorias testadas:
+ * 1. Envio pela fila (ordem, várias threads, reset do stream)
+ * 2. Cliente lento e encerramento
+ */
+@DisplayName("Testes INTRACLASSE - Parceiro")
+class ParceiroTest {
+
+    private ServerSocket servidor;
+    private Socket ladoServidor;
+    private Socket ladoCliente;
+    private ObjectInputStream receptorDoCliente;
+    private Parceiro parceiro;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        servidor = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+        ladoCliente = new Socket(InetAddress.getLoopbackAddress(), servidor.getLocalPort());
+        ladoServidor = servidor.accept();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        ladoCliente.close();
+        ladoServidor.close();
+        servidor.close();
+    }
+
+    private Parceiro parceiro(int capacidade, long prazoMs, int resetACada) throws Exception {
+        AppConfig.LegacyWriterConfig escrita = new AppConfig.LegacyWriterConfig();
+        escrita.setQueueCapacity(capacidade);
+        escrita.setWriteTimeoutMs(prazoMs);
+        escrita.setResetEvery(resetACada);
+
+        // Cabeçalhos dos dois lados antes dos receptores, como no cliente Java
+        ObjectOutputStream transmissor = new ObjectOutputStream(ladoServidor.getOutputStream());
+        transmissor.flush();
+        ObjectOutputStream transmissorDoCliente = new ObjectOutputStream(ladoCliente.getOutputStream());
+        transmissorDoCliente.flush();
+        receptorDoCliente = new ObjectInputStream(ladoCliente.getInputStream());
+
+        parceiro = new Parceiro(ladoServidor, new ObjectInputStream(ladoServidor.getInputStream()), transmissor, escrita);
+        return parceiro;
+    }
+
+    @Nested
+    @DisplayName("Categoria 1: Envio pela fila")
+    class Queue {
+
+        @Test
+        @DisplayName("Envios de várias threads devem chegar inteiros e na ordem de cada thread")
+        void testReceba_FromManyThreads_ShouldKeepOrderPerThread() throws Exception {
+            // Arrange
+            Parceiro parceiro = parceiro(10_000, 5_000, 16);
+            ExecutorService remetentes = Executors.newFixedThreadPool(4);
+
+            // Act
+            List<Future<?>> envios = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                String remetente = "t" + t;
+                envios.add(remetentes.submit(() -> {
+                    for (int i = 0; i < 250; i++) {
+                        parceiro.receba(new MensagemTexto("s-1", remetente, String.valueOf(i)));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> envio : envios) {
+                envio.get(30, TimeUnit.SECONDS);
+            }
+            remetentes.shutdown();
+
+            // Assert
+            int[] proximo = new int[4];
+            for (int i = 0; i < 1_000; i++) {
+                MensagemTexto mensagem = (MensagemTexto) receptorDoCliente.readObject();
+                int thread = mensagem.getRemetente().charAt(1) - '0';
+                assertEquals(String.valueOf(proximo[thread]++), mensagem.getConteudo());
+            }
+            assertArrayEquals(new int[] {250, 250, 250, 250}, proximo);
+        }
+
+        @Test
+        @DisplayName("Depois do reset, o mesmo objeto deve ser enviado de novo em vez de referenciado")
+        void testReceba_WithReset_ShouldForgetSentObjects() throws Exception {
+            // Arrange
+            Parceiro parceiro = parceiro(100, 5_000, 2);
+            MensagemTexto mensagem = new MensagemTexto("s-1", "SUPERVISOR", "oi");
+
+            // Act - reset depois do segundo envio
+            parceiro.receba(mensagem);
+            parceiro.receba(mensagem);
+            parceiro.receba(mensagem);
+
+            // Assert
+            Object primeiro = receptorDoCliente.readObject();
+            Object segundo = receptorDoCliente.readObject();
+            Object terceiro = receptorDoCliente.readObject();
+            assertSame(primeiro, segundo, "Antes do reset o stream manda só a referência");
+            assertNotSame(segundo, terceiro, "Depois do reset o objeto é escrito de novo");
+        }
+    }
+
+    @Nested
+    @DisplayName("Categoria 2: Cliente lento e encerramento")
+    class SlowConsumer {
+
+        @Test
+        @DisplayName("Cliente que não lê deve ser desconectado, sem travar quem envia")
+        void testReceba_WhenClientStopsReading_ShouldDisconnect() throws Exception {
+            // Arrange
+            Parceiro parceiro = parceiro(4, 500, 64);
+            String grande = "x".repeat(64 * 1024);
+
+            // Act - o cliente nunca lê; enche o socket, a fila e estoura o prazo
+            Exception erro = null;
+            long inicio = System.nanoTime();
+            for (int i = 0; i < 10_000 && erro == null; i++) {
+                try {
+                    parceiro.receba(new MensagemTexto("s-1", "SUPERVISOR", grande));
+                } catch (Exception e) {
+                    erro = e;
+                }
+            }
+
+            // Assert
+            assertNotNull(erro, "Algum envio deve falhar");
+            assertTrue(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - inicio) < 10);
+            assertTrue(ladoServidor.isClosed());
+            assertThrows(Exception.class, () -> parceiro.receba(new MensagemTexto("s-1", "SUPERVISOR", "oi")));
+        }
+
+        @Test
+        @DisplayName("adeus deve escrever o que está na fila antes de fechar")
+        void testAdeus_WithQueuedMessages_ShouldDeliverThenClose() throws Exception {
+            // Arrange
+            Parceiro parceiro = parceiro(100, 5_000, 64);
+            for (int i = 0; i < 20; i++) {
+                parceiro.receba(new MensagemTexto("s-1", "SUPERVISOR", String.valueOf(i)));
+            }
+
+            // Act
+            parceiro.adeus();
+
+            // Assert
+            for (int i = 0; i < 20; i++) {
+                assertEquals(String.valueOf(i), ((MensagemTexto) receptorDoCliente.readObject()).getConteudo());
+            }
+            assertThrows(EOFException.class, () -> receptorDoCliente.readObject());
+            assertThrows(Exception.class, () -> parceiro.receba(new MensagemTexto("s-1", "SUPERVISOR", "tarde")));
+        }
+    }
+}